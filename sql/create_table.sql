@@ -30,13 +30,82 @@ create table if not exists chart
     goal				 text  null comment '分析目标',
     `name`               varchar(128) null comment '图表名称',
     chartData    text  null comment '图表数据',
+    chartDataset mediumblob null comment '图表数据（列式二进制）',
+    chartProfile text  null comment '图表数据统计概况（json）',
+    datasetTable varchar(128) null comment '图表数据表名',
+    datasetHash  char(64) null comment '数据集指纹',
+    requestHash  char(64) null comment '请求指纹（数据集 + 目标 + 图表类型）',
     chartType	   varchar(128) null comment '图表类型',
     genChart		 text	 null comment '生成的图表数据',
     genResult		 text	 null comment '生成的分析结论',
     status       varchar(128) not null default 'wait' comment 'wait,running,succeed,failed',
     execMessage  text   null comment '执行信息',
+    leaseOwner   varchar(128) null comment '任务租约持有节点',
+    leaseExpireTime datetime null comment '任务租约到期时间',
+    attemptCount int    default 0 not null comment '任务执行次数',
     userId       bigint null comment '创建用户 id',
     createTime   datetime     default CURRENT_TIMESTAMP not null comment '创建时间',
     updateTime   datetime     default CURRENT_TIMESTAMP not null on update CURRENT_TIMESTAMP comment '更新时间',
-    isDelete     tinyint      default 0                 not null comment '是否删除'
+    isDelete     tinyint      default 0                 not null comment '是否删除',
+    index idx_datasetHash (datasetHash),
+    index idx_requestHash (requestHash),
+    index idx_status_leaseExpireTime (status, leaseExpireTime),
+    index idx_userId_status (userId, isDelete, status),
+    index idx_userId_createTime (userId, isDelete, createTime),
+    index idx_isDelete_createTime (isDelete, createTime)
 ) comment '图表信息表' collate = utf8mb4_unicode_ci;
+
+-- 待发送消息表（事务发件箱）
+create table if not exists message_outbox
+(
+    id           bigint auto_increment comment 'id' primary key,
+    exchange     varchar(256)                           not null comment '交换机',
+    routingKey   varchar(256)                           not null comment '路由键',
+    message      mediumtext                             not null comment '消息内容',
+    status       tinyint      default 0                 not null comment '状态：0 - 待发送，1 - 已发送，2 - 发送失败',
+    attemptCount int          default 0                 not null comment '发送次数',
+    createTime   datetime     default CURRENT_TIMESTAMP not null comment '创建时间',
+    updateTime   datetime     default CURRENT_TIMESTAMP not null on update CURRENT_TIMESTAMP comment '更新时间',
+    index idx_status_id (status, id)
+) comment '待发送消息' collate = utf8mb4_unicode_ci;
+
+-- 帖子表
+create table if not exists post
+(
+    id         bigint auto_increment comment 'id' primary key,
+    title      varchar(512)                       null comment '标题',
+    content    text                               null comment '内容',
+    tags       varchar(1024)                      null comment '标签列表（json 数组）',
+    thumbNum   int      default 0                 not null comment '点赞数',
+    favourNum  int      default 0                 not null comment '收藏数',
+    userId     bigint                             not null comment '创建用户 id',
+    createTime datetime default CURRENT_TIMESTAMP not null comment '创建时间',
+    updateTime datetime default CURRENT_TIMESTAMP not null on update CURRENT_TIMESTAMP comment '更新时间',
+    isDelete   tinyint  default 0                 not null comment '是否删除',
+    index idx_userId_createTime (userId, isDelete, createTime),
+    index idx_isDelete_createTime (isDelete, createTime)
+) comment '帖子' collate = utf8mb4_unicode_ci;
+
+-- 帖子点赞表（硬删除）
+create table if not exists post_thumb
+(
+    id         bigint auto_increment comment 'id' primary key,
+    postId     bigint                             not null comment '帖子 id',
+    userId     bigint                             not null comment '创建用户 id',
+    createTime datetime default CURRENT_TIMESTAMP not null comment '创建时间',
+    updateTime datetime default CURRENT_TIMESTAMP not null on update CURRENT_TIMESTAMP comment '更新时间',
+    index idx_postId (postId),
+    index idx_userId_postId (userId, postId)
+) comment '帖子点赞';
+
+-- 帖子收藏表（硬删除）
+create table if not exists post_favour
+(
+    id         bigint auto_increment comment 'id' primary key,
+    postId     bigint                             not null comment '帖子 id',
+    userId     bigint                             not null comment '创建用户 id',
+    createTime datetime default CURRENT_TIMESTAMP not null comment '创建时间',
+    updateTime datetime default CURRENT_TIMESTAMP not null on update CURRENT_TIMESTAMP comment '更新时间',
+    index idx_postId (postId),
+    index idx_userId_postId (userId, postId)
+) comment '帖子收藏';
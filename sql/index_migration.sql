@@ -0,0 +1,24 @@
+# 索引迁移脚本（已有库在 schema_migration.sql 之后执行一次，新建库直接使用 create_table.sql）
+# 列表查询的访问路径：userId + isDelete 过滤、按 createTime 排序（含游标分页的 (createTime, id) 定位），
+# 索引末尾隐含主键 id；改动查询条件后运行 QueryPlanTest 检查执行计划
+#  @author
+#  @from
+
+use yubi;
+
+-- 图表：我的图表
+alter table chart
+    add index idx_userId_createTime (userId, isDelete, createTime),
+    add index idx_isDelete_createTime (isDelete, createTime);
+
+-- 帖子：我的帖子 / 帖子列表
+alter table post
+    add index idx_userId_createTime (userId, isDelete, createTime),
+    add index idx_isDelete_createTime (isDelete, createTime);
+
+-- 收藏、点赞：按用户查询的帖子 id 直接从索引读取
+alter table post_favour
+    add index idx_userId_postId (userId, postId);
+
+alter table post_thumb
+    add index idx_userId_postId (userId, postId);
@@ -0,0 +1,53 @@
+# 表结构迁移脚本（已有库按顺序执行一次尚未执行的部分，新建库直接使用 create_table.sql）
+#  @author
+#  @from
+
+use yubi;
+
+-- 图表：列式数据
+alter table chart
+    add column chartDataset mediumblob null comment '图表数据（列式二进制）' after chartData;
+
+-- 图表：数据统计概况
+alter table chart
+    add column chartProfile text null comment '图表数据统计概况（json）' after chartDataset;
+
+-- 图表：数据表
+alter table chart
+    add column datasetTable varchar(128) null comment '图表数据表名' after chartProfile;
+
+-- 图表：数据集指纹、请求指纹
+alter table chart
+    add column datasetHash char(64) null comment '数据集指纹' after datasetTable,
+    add column requestHash char(64) null comment '请求指纹（数据集 + 目标 + 图表类型）' after datasetHash,
+    add index idx_datasetHash (datasetHash),
+    add index idx_requestHash (requestHash);
+
+-- 图表：任务租约
+alter table chart
+    add column leaseOwner varchar(128) null comment '任务租约持有节点' after execMessage,
+    add column leaseExpireTime datetime null comment '任务租约到期时间' after leaseOwner,
+    add column attemptCount int default 0 not null comment '任务执行次数' after leaseExpireTime,
+    add index idx_status_leaseExpireTime (status, leaseExpireTime);
+
+-- 待发送消息表（事务发件箱）
+create table if not exists message_outbox
+(
+    id           bigint auto_increment comment 'id' primary key,
+    exchange     varchar(256)                           not null comment '交换机',
+    routingKey   varchar(256)                           not null comment '路由键',
+    message      text                                   not null comment '消息内容',
+    status       tinyint      default 0                 not null comment '状态：0 - 待发送，1 - 已发送，2 - 发送失败',
+    attemptCount int          default 0                 not null comment '发送次数',
+    createTime   datetime     default CURRENT_TIMESTAMP not null comment '创建时间',
+    updateTime   datetime     default CURRENT_TIMESTAMP not null on update CURRENT_TIMESTAMP comment '更新时间',
+    index idx_status_id (status, id)
+) comment '待发送消息' collate = utf8mb4_unicode_ci;
+
+-- 待发送消息表：任务消息携带内联数据集，改为 mediumtext
+alter table message_outbox
+    modify message mediumtext not null comment '消息内容';
+
+-- 图表：批量查询任务状态的覆盖索引
+alter table chart
+    add index idx_userId_status (userId, isDelete, status);
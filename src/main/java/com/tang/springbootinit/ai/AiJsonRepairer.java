@@ -0,0 +1,192 @@
+package com.tang.springbootinit.ai;
+
+/**
+ * AI 输出的 JSON 修复工具
+ * <p>
+ * 处理常见问题：markdown 代码块、前后多余文字、单引号字符串、未加引号的键、尾逗号、注释、undefined
+ */
+public class AiJsonRepairer {
+
+    private AiJsonRepairer() {
+    }
+
+    /**
+     * 去掉 markdown 代码块标记，截取第一个完整的 JSON 对象
+     *
+     * @param text
+     * @return 找不到对象时返回 null
+     */
+    public static String extractObject(String text) {
+        String content = stripCodeFence(text);
+        int start = content.indexOf('{');
+        if (start < 0) {
+            return null;
+        }
+        int end = findObjectEnd(content, start);
+        return end < 0 ? null : content.substring(start, end + 1);
+    }
+
+    /**
+     * 找到从 start（'{'）开始的对象的结束位置，跳过字符串中的括号
+     *
+     * @param text
+     * @param start
+     * @return 未闭合时返回 -1
+     */
+    public static int findObjectEnd(String text, int start) {
+        int depth = 0;
+        char quote = 0;
+        for (int i = start; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (quote != 0) {
+                if (c == '\\') {
+                    i++;
+                } else if (c == quote) {
+                    quote = 0;
+                }
+                continue;
+            }
+            if (c == '"' || c == '\'') {
+                quote = c;
+            } else if (c == '{' || c == '[') {
+                depth++;
+            } else if (c == '}' || c == ']') {
+                depth--;
+                if (depth == 0) {
+                    return i;
+                }
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * 把 JavaScript 对象字面量风格的文本改写为标准 JSON
+     *
+     * @param text
+     * @return
+     */
+    public static String repair(String text) {
+        StringBuilder out = new StringBuilder(text.length() + 16);
+        int length = text.length();
+        int i = 0;
+        while (i < length) {
+            char c = text.charAt(i);
+            if (c == '"' || c == '\'') {
+                i = copyString(text, i, out);
+            } else if (c == '/' && i + 1 < length && (text.charAt(i + 1) == '/' || text.charAt(i + 1) == '*')) {
+                i = skipComment(text, i);
+            } else if (c == ',') {
+                int next = skipBlank(text, i + 1);
+                // 尾逗号
+                if (next >= length || text.charAt(next) == '}' || text.charAt(next) == ']') {
+                    i++;
+                } else {
+                    out.append(c);
+                    i++;
+                }
+            } else if (Character.isLetter(c) || c == '_' || c == '$') {
+                int end = i + 1;
+                while (end < length && (Character.isLetterOrDigit(text.charAt(end))
+                        || text.charAt(end) == '_' || text.charAt(end) == '$')) {
+                    end++;
+                }
+                String word = text.substring(i, end);
+                int next = skipBlank(text, end);
+                if (next < length && text.charAt(next) == ':') {
+                    out.append('"').append(word).append('"');
+                } else if ("undefined".equals(word)) {
+                    out.append("null");
+                } else {
+                    out.append(word);
+                }
+                i = end;
+            } else {
+                out.append(c);
+                i++;
+            }
+        }
+        return out.toString();
+    }
+
+    private static String stripCodeFence(String text) {
+        String content = text.trim();
+        int fence = content.indexOf("```");
+        if (fence < 0) {
+            return content;
+        }
+        int lineEnd = content.indexOf('\n', fence);
+        if (lineEnd < 0) {
+            return content;
+        }
+        int close = content.indexOf("```", lineEnd);
+        return close < 0 ? content.substring(lineEnd + 1) : content.substring(lineEnd + 1, close);
+    }
+
+    /**
+     * 复制字符串字面量，统一为双引号
+     *
+     * @return 字符串结束后的位置
+     */
+    private static int copyString(String text, int start, StringBuilder out) {
+        char quote = text.charAt(start);
+        out.append('"');
+        int i = start + 1;
+        while (i < text.length()) {
+            char c = text.charAt(i);
+            if (c == '\\' && i + 1 < text.length()) {
+                char escaped = text.charAt(i + 1);
+                // JSON 中没有 \' 转义
+                if (escaped == '\'') {
+                    out.append('\'');
+                } else {
+                    out.append(c).append(escaped);
+                }
+                i += 2;
+                continue;
+            }
+            if (c == quote) {
+                out.append('"');
+                return i + 1;
+            }
+            if (c == '"') {
+                out.append("\\\"");
+            } else if (c == '\n') {
+                out.append("\\n");
+            } else if (c == '\r') {
+                out.append("\\r");
+            } else if (c == '\t') {
+                out.append("\\t");
+            } else {
+                out.append(c);
+            }
+            i++;
+        }
+        out.append('"');
+        return i;
+    }
+
+    private static int skipComment(String text, int start) {
+        if (text.charAt(start + 1) == '/') {
+            int end = text.indexOf('\n', start);
+            return end < 0 ? text.length() : end;
+        }
+        int end = text.indexOf("*/", start + 2);
+        return end < 0 ? text.length() : end + 2;
+    }
+
+    private static int skipBlank(String text, int start) {
+        int i = start;
+        while (i < text.length()) {
+            char c = text.charAt(i);
+            if (Character.isWhitespace(c)) {
+                i++;
+            } else if (c == '/' && i + 1 < text.length() && (text.charAt(i + 1) == '/' || text.charAt(i + 1) == '*')) {
+                i = skipComment(text, i);
+            } else {
+                break;
+            }
+        }
+        return i;
+    }
+}
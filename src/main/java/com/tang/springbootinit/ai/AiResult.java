@@ -0,0 +1,25 @@
+package com.tang.springbootinit.ai;
+
+import lombok.Data;
+
+/**
+ * AI 输出解析结果
+ */
+@Data
+public class AiResult {
+
+    /**
+     * 图表代码（标准 JSON）
+     */
+    private String genChart;
+
+    /**
+     * 分析结论
+     */
+    private String genResult;
+
+    /**
+     * 是否经过本地修复（按此计入指标 bi.ai.result）
+     */
+    private boolean repaired;
+}
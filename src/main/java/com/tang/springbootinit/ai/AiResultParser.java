@@ -0,0 +1,135 @@
+package com.tang.springbootinit.ai;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonElement;
+import com.google.gson.TypeAdapter;
+import com.tang.springbootinit.common.ErrorCode;
+import com.tang.springbootinit.exception.BusinessException;
+import com.tang.springbootinit.exception.ThrowUtils;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Metrics;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.StringUtils;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * AI 输出解析：拆分图表代码和分析结论，校验图表 option，能本地修复的问题不再重新调用 AI
+ */
+@Slf4j
+public class AiResultParser {
+
+    private final static Gson GSON = new GsonBuilder().disableHtmlEscaping().create();
+
+    /**
+     * 解析成功的输出数，按是否经过本地修复区分（工具类无法注入，注册到全局 MeterRegistry，Spring Boot 会将其与应用的注册表关联）
+     */
+    private static final Counter CLEAN_COUNTER = Metrics.counter("bi.ai.result", "repaired", "false");
+
+    private static final Counter REPAIRED_COUNTER = Metrics.counter("bi.ai.result", "repaired", "true");
+
+    /**
+     * 严格模式的 JSON 解析（JsonParser 默认宽松）
+     */
+    private static final TypeAdapter<JsonElement> JSON_ELEMENT_ADAPTER = GSON.getAdapter(JsonElement.class);
+
+    private AiResultParser() {
+    }
+
+    /**
+     * 解析完整输出
+     *
+     * @param response
+     * @return
+     * @throws BusinessException 无法解析或修复时
+     */
+    public static AiResult parse(String response) {
+        ThrowUtils.throwIf(StringUtils.isBlank(response), ErrorCode.SYSTEM_ERROR, "AI 生成错误：输出为空");
+        List<String> sections = AiSectionParser.split(response);
+        String chartText;
+        String resultText;
+        if (sections.size() > AiSectionParser.RESULT_SECTION) {
+            chartText = sections.get(AiSectionParser.CHART_SECTION);
+            resultText = sections.get(AiSectionParser.RESULT_SECTION);
+        } else {
+            // 分隔符缺失：以第一个 JSON 对象为图表，其后的文字为结论
+            String text = response.replace(AiSectionParser.SECTION_DELIMITER, "\n");
+            int start = text.indexOf('{');
+            int end = start < 0 ? -1 : AiJsonRepairer.findObjectEnd(text, start);
+            if (end < 0) {
+                throw new BusinessException(ErrorCode.SYSTEM_ERROR, "AI 生成错误：缺少图表代码");
+            }
+            chartText = text.substring(start, end + 1);
+            resultText = StringUtils.stripStart(text.substring(end + 1).trim(), "`").trim();
+        }
+        String genResult = resultText.trim();
+        if (StringUtils.isBlank(genResult)) {
+            throw new BusinessException(ErrorCode.SYSTEM_ERROR, "AI 生成错误：缺少分析结论");
+        }
+        AiResult aiResult = parseChartInternal(chartText);
+        aiResult.setGenResult(genResult);
+        if (sections.size() <= AiSectionParser.RESULT_SECTION) {
+            aiResult.setRepaired(true);
+        }
+        (aiResult.isRepaired() ? REPAIRED_COUNTER : CLEAN_COUNTER).increment();
+        return aiResult;
+    }
+
+    /**
+     * 解析并校验图表代码
+     *
+     * @param chartText
+     * @return 标准 JSON
+     * @throws BusinessException 无法解析或修复时
+     */
+    public static String parseChart(String chartText) {
+        return parseChartInternal(chartText).getGenChart();
+    }
+
+    private static AiResult parseChartInternal(String chartText) {
+        String trimmed = chartText.trim();
+        boolean repaired = false;
+        JsonElement option = parseStrict(trimmed);
+        if (option == null) {
+            String extracted = AiJsonRepairer.extractObject(trimmed);
+            if (extracted == null) {
+                throw new BusinessException(ErrorCode.SYSTEM_ERROR, "AI 生成错误：缺少图表代码");
+            }
+            option = parseStrict(extracted);
+            if (option == null) {
+                option = parseStrict(AiJsonRepairer.repair(extracted));
+            }
+            if (option == null) {
+                throw new BusinessException(ErrorCode.SYSTEM_ERROR, "AI 生成错误：图表代码不是合法 JSON");
+            }
+            repaired = true;
+        }
+        if (!option.isJsonObject()) {
+            throw new BusinessException(ErrorCode.SYSTEM_ERROR, "AI 生成错误：图表代码不是对象");
+        }
+        List<String> errors = EChartsOptionValidator.validate(option.getAsJsonObject());
+        if (!errors.isEmpty()) {
+            throw new BusinessException(ErrorCode.SYSTEM_ERROR, "AI 生成错误：" + String.join("；", errors));
+        }
+        if (repaired) {
+            log.info("ai chart option repaired locally");
+        }
+        AiResult aiResult = new AiResult();
+        aiResult.setGenChart(repaired ? GSON.toJson(option) : trimmed);
+        aiResult.setRepaired(repaired);
+        return aiResult;
+    }
+
+    private static JsonElement parseStrict(String text) {
+        if (text.isEmpty() || text.charAt(0) != '{' || text.charAt(text.length() - 1) != '}') {
+            return null;
+        }
+        try {
+            return JSON_ELEMENT_ADAPTER.fromJson(text);
+        } catch (IOException | RuntimeException e) {
+            return null;
+        }
+    }
+}
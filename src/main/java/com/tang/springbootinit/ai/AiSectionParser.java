@@ -0,0 +1,163 @@
+package com.tang.springbootinit.ai;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * AI 输出分段解析器（增量）
+ * <p>
+ * AI 输出以 【【【【【 分隔：第 0 段为前言，第 1 段为图表代码（genChart），第 2 段为分析结论（genResult）。
+ * 可逐块 feed 流式输出，分隔符被拆到两个块中时也能识别。
+ */
+public class AiSectionParser {
+
+    public static final String SECTION_DELIMITER = "【【【【【";
+
+    public static final int CHART_SECTION = 1;
+
+    public static final int RESULT_SECTION = 2;
+
+    /**
+     * 分段事件监听
+     */
+    public interface Listener {
+
+        /**
+         * 收到某段的一部分文本
+         *
+         * @param section 段序号
+         * @param text    新增文本
+         */
+        default void onSectionText(int section, String text) {
+        }
+
+        /**
+         * 某段结束（遇到下一个分隔符或输出结束）
+         *
+         * @param section 段序号
+         * @param content 该段完整内容
+         */
+        default void onSectionEnd(int section, String content) {
+        }
+    }
+
+    private static final Listener NO_OP = new Listener() {
+    };
+
+    private final Listener listener;
+
+    private final List<String> sections = new ArrayList<>();
+
+    private final StringBuilder current = new StringBuilder();
+
+    /**
+     * 尚未确定是否属于分隔符的尾部文本
+     */
+    private final StringBuilder pending = new StringBuilder();
+
+    private boolean finished = false;
+
+    public AiSectionParser() {
+        this(NO_OP);
+    }
+
+    public AiSectionParser(Listener listener) {
+        this.listener = listener;
+    }
+
+    /**
+     * 解析完整输出
+     *
+     * @param text
+     * @return 各段内容
+     */
+    public static List<String> split(String text) {
+        AiSectionParser parser = new AiSectionParser();
+        parser.feed(text);
+        parser.finish();
+        return parser.getSections();
+    }
+
+    /**
+     * 追加一块输出
+     *
+     * @param chunk
+     */
+    public void feed(String chunk) {
+        if (finished) {
+            throw new IllegalStateException("parser already finished");
+        }
+        pending.append(chunk);
+        int index;
+        while ((index = pending.indexOf(SECTION_DELIMITER)) >= 0) {
+            emit(pending.substring(0, index));
+            pending.delete(0, index + SECTION_DELIMITER.length());
+            endSection();
+        }
+        // 保留可能是分隔符前缀的尾部，其余文本立即下发
+        int keep = partialDelimiterLength(pending);
+        if (pending.length() > keep) {
+            emit(pending.substring(0, pending.length() - keep));
+            pending.delete(0, pending.length() - keep);
+        }
+    }
+
+    /**
+     * 输出结束
+     */
+    public void finish() {
+        if (finished) {
+            return;
+        }
+        emit(pending.toString());
+        pending.setLength(0);
+        endSection();
+        finished = true;
+    }
+
+    /**
+     * 已结束的各段内容
+     */
+    public List<String> getSections() {
+        return sections;
+    }
+
+    /**
+     * 当前正在接收的段序号
+     */
+    public int getCurrentSection() {
+        return sections.size();
+    }
+
+    private void emit(String text) {
+        if (text.isEmpty()) {
+            return;
+        }
+        current.append(text);
+        listener.onSectionText(sections.size(), text);
+    }
+
+    private void endSection() {
+        String content = current.toString();
+        current.setLength(0);
+        sections.add(content);
+        listener.onSectionEnd(sections.size() - 1, content);
+    }
+
+    private static int partialDelimiterLength(CharSequence text) {
+        int max = Math.min(text.length(), SECTION_DELIMITER.length() - 1);
+        for (int length = max; length > 0; length--) {
+            boolean match = true;
+            for (int i = 0; i < length; i++) {
+                if (text.charAt(text.length() - length + i) != SECTION_DELIMITER.charAt(i)) {
+                    match = false;
+                    break;
+                }
+            }
+            if (match) {
+                return length;
+            }
+        }
+        return 0;
+    }
+}
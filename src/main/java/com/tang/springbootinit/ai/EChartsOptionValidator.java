@@ -0,0 +1,84 @@
+package com.tang.springbootinit.ai;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * ECharts option 结构校验（只检查前端渲染必需的部分）
+ */
+public class EChartsOptionValidator {
+
+    /**
+     * 需要直角坐标系的图表类型
+     */
+    private static final Set<String> CARTESIAN_TYPES = Set.of("line", "bar", "scatter", "effectScatter",
+            "candlestick", "boxplot", "pictorialBar");
+
+    private EChartsOptionValidator() {
+    }
+
+    /**
+     * 校验 option
+     *
+     * @param option
+     * @return 错误信息，为空表示通过
+     */
+    public static List<String> validate(JsonObject option) {
+        List<String> errors = new ArrayList<>();
+        JsonElement seriesElement = option.get("series");
+        List<JsonObject> seriesList = new ArrayList<>();
+        if (seriesElement != null && seriesElement.isJsonObject()) {
+            seriesList.add(seriesElement.getAsJsonObject());
+        } else if (seriesElement != null && seriesElement.isJsonArray()) {
+            for (JsonElement element : seriesElement.getAsJsonArray()) {
+                if (!element.isJsonObject()) {
+                    errors.add("series 元素不是对象");
+                    return errors;
+                }
+                seriesList.add(element.getAsJsonObject());
+            }
+        }
+        if (seriesList.isEmpty()) {
+            errors.add("缺少 series");
+            return errors;
+        }
+        boolean cartesian = false;
+        for (int i = 0; i < seriesList.size(); i++) {
+            JsonObject series = seriesList.get(i);
+            JsonElement type = series.get("type");
+            if (type == null || !type.isJsonPrimitive() || !type.getAsJsonPrimitive().isString()) {
+                errors.add("series[" + i + "] 缺少 type");
+                continue;
+            }
+            String typeName = type.getAsString();
+            if (CARTESIAN_TYPES.contains(typeName)) {
+                cartesian = true;
+            }
+            JsonElement data = series.get("data");
+            if (data != null && !data.isJsonArray()) {
+                errors.add("series[" + i + "].data 不是数组");
+            }
+        }
+        if (cartesian && (!hasAxis(option, "xAxis") || !hasAxis(option, "yAxis"))) {
+            errors.add("直角坐标系图表缺少 xAxis/yAxis");
+        }
+        return errors;
+    }
+
+    private static boolean hasAxis(JsonObject option, String name) {
+        JsonElement axis = option.get(name);
+        if (axis == null || axis.isJsonNull()) {
+            return false;
+        }
+        if (axis.isJsonArray()) {
+            JsonArray array = axis.getAsJsonArray();
+            return array.size() > 0;
+        }
+        return axis.isJsonObject();
+    }
+}
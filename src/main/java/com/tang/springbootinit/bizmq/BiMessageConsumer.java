@@ -1,15 +1,27 @@
 package com.tang.springbootinit.bizmq;
 
 import com.rabbitmq.client.Channel;
-import com.tang.springbootinit.common.ErrorCode;
+import com.tang.springbootinit.ai.AiResult;
+import com.tang.springbootinit.ai.AiResultParser;
+import com.tang.springbootinit.config.RabbitMqConfig;
 import com.tang.springbootinit.constant.CommonConstant;
+import com.tang.springbootinit.dataset.ColumnarDataset;
 import com.tang.springbootinit.exception.BusinessException;
 import com.tang.springbootinit.manager.AiManager;
+import com.tang.springbootinit.manager.BiPromptManager;
+import com.tang.springbootinit.manager.ChartAdmissionManager;
+import com.tang.springbootinit.manager.ChartLeaseManager;
+import com.tang.springbootinit.manager.ChartNotifyManager;
+import com.tang.springbootinit.manager.ChartStatusCacheManager;
 import com.tang.springbootinit.model.entity.Chart;
+import com.tang.springbootinit.model.entity.User;
+import com.tang.springbootinit.model.enums.ChartStatusEnum;
 import com.tang.springbootinit.service.ChartService;
+import com.tang.springbootinit.service.UserService;
 import lombok.SneakyThrows;
 import lombok.extern.slf4j.Slf4j;
-import org.apache.commons.lang3.StringUtils;
+import org.apache.commons.lang3.BooleanUtils;
+import org.springframework.amqp.AmqpException;
 import org.springframework.amqp.rabbit.annotation.RabbitListener;
 import org.springframework.amqp.support.AmqpHeaders;
 import org.springframework.messaging.handler.annotation.Header;
@@ -27,91 +39,163 @@ public class BiMessageConsumer {
     @Resource
     private AiManager aiManager;
 
-    // 指定程序监听的消息队列和确认机制
+    @Resource
+    private BiPromptManager biPromptManager;
+
+    @Resource
+    private ChartLeaseManager chartLeaseManager;
+
+    @Resource
+    private BiMessageProducer biMessageProducer;
+
+    @Resource
+    private ChartNotifyManager chartNotifyManager;
+
+    @Resource
+    private ChartStatusCacheManager chartStatusCacheManager;
+
+    @Resource
+    private ChartAdmissionManager chartAdmissionManager;
+
+    @Resource
+    private UserService userService;
+
+    // 指定程序监听的消息队列和确认机制，并发消费者数和预取数见 bi.mq.consumer
     @SneakyThrows
-    @RabbitListener(queues = {BiMqConstant.BI_QUEUE_NAME}, ackMode = "MANUAL")
-    public void receiveMessage(String message, Channel channel, @Header(AmqpHeaders.DELIVERY_TAG) long deliveryTag) {
-        log.info("receiveMessage message = {}", message);
-        if (StringUtils.isBlank(message)) {
-            // 如果失败，消息拒绝
-            channel.basicNack(deliveryTag, false, false);
-            throw new BusinessException(ErrorCode.SYSTEM_ERROR, "消息为空");
+    @RabbitListener(queues = {BiMqConstant.BI_QUEUE_NAME}, ackMode = "MANUAL",
+            containerFactory = RabbitMqConfig.BI_LISTENER_CONTAINER_FACTORY)
+    public void receiveMessage(String message, Channel channel, @Header(AmqpHeaders.DELIVERY_TAG) long deliveryTag,
+                               @Header(name = BiMqConstant.RETRY_COUNT_HEADER, required = false) Integer retryCount) {
+        try {
+            process(message, retryCount == null ? 0 : retryCount);
+        } catch (Exception e) {
+            // 未处理完（如数据库不可用）：消息重新入队
+            log.error("receiveMessage failed, requeue", e);
+            channel.basicNack(deliveryTag, false, true);
+            return;
         }
-        long chartId = Long.parseLong(message);
-        Chart chart = chartService.getById(chartId);
-        if (chart == null) {
-            channel.basicNack(deliveryTag, false, false);
-            throw new BusinessException(ErrorCode.NOT_FOUND_ERROR, "图表为空");
+        // 消息确认
+        channel.basicAck(deliveryTag, false);
+    }
+
+    /**
+     * 处理一条消息，与消息队列实现无关：正常返回后确认消息，抛出异常时消息重新入队
+     * <p>
+     * 无法处理的消息转入死信队列，执行失败的任务按重试次数延迟重试；
+     * 生成任务经公平调度器按用户加权轮询执行，执行结束后才返回
+     *
+     * @param message
+     * @param retryCount 已重试次数
+     */
+    public void process(String message, int retryCount) {
+        BiTaskMessage taskMessage = BiTaskMessage.parse(message);
+        if (taskMessage == null) {
+            log.error("receiveMessage invalid message = {}", message);
+            // 如果失败，消息转入死信队列
+            biMessageProducer.sendDeadLetter(message, retryCount);
+            return;
         }
-        // 先修改图表任务状态为 “执行中”。等执行成功后，修改为 “已完成”、保存执行结果；执行失败后，状态修改为 “失败”，记录任务失败信息。
-        Chart updateChart = new Chart();
-        updateChart.setId(chart.getId());
-        updateChart.setStatus("running");
-        boolean b = chartService.updateById(updateChart);
-        if (!b) {
-            channel.basicNack(deliveryTag, false, false);
-            handleChartUpdateError(chart.getId(), "更新图表执行中状态失败");
+        log.info("receiveMessage chartId = {}, version = {}, retryCount = {}", taskMessage.getChartId(),
+                taskMessage.getVersion(), retryCount);
+        // 新消息携带了生成所需的字段，不再读取整行图表；图表不存在或已删除时获取租约失败
+        Chart chart = taskMessage.hasPayload() ? taskMessage.toChart() : chartService.getById(taskMessage.getChartId());
+        if (chart == null) {
+            log.error("receiveMessage chart {} not found", taskMessage.getChartId());
+            biMessageProducer.sendDeadLetter(message, retryCount);
             return;
         }
-        // 调用 AI
-        String result = aiManager.doChat(buildUserInput(chart));
-        String[] splits = result.split("【【【【【");
-        if (splits.length < 3) {
-            channel.basicNack(deliveryTag, false, false);
-            handleChartUpdateError(chart.getId(), "AI 生成错误");
+        // 和线程池任务一起按图表所属用户加权轮询，共用执行额度
+        chartAdmissionManager.executeAndWait(getTaskUser(chart), () -> generate(chart, taskMessage, message, retryCount));
+    }
+
+    private void generate(Chart chart, BiTaskMessage taskMessage, String message, int retryCount) {
+        // 先修改图表任务状态为 “执行中”。等执行成功后，修改为 “已完成”、保存执行结果；执行失败后，状态修改为 “失败”，记录任务失败信息。
+        // 执行中持有租约并定时续约，异常退出或节点宕机后租约过期，由回收任务重新投递
+        if (!chartLeaseManager.acquire(chart.getId())) {
+            // 重复投递或任务已被执行：确认消息，不再调用 AI
+            log.info("chart {} is not waiting, skip message", chart.getId());
             return;
         }
-        String genChart = splits[1].trim();
-        String genResult = splits[2].trim();
-        Chart updateChartResult = new Chart();
-        updateChartResult.setId(chart.getId());
-        updateChartResult.setGenChart(genChart);
-        updateChartResult.setGenResult(genResult);
-        // todo 建议定义状态为枚举值
-        updateChartResult.setStatus("succeed");
-        boolean updateResult = chartService.updateById(updateChartResult);
-        if (!updateResult) {
-            channel.basicNack(deliveryTag, false, false);
-            handleChartUpdateError(chart.getId(), "更新图表成功状态失败");
+        chartStatusCacheManager.put(chart.getUserId(), chart.getId(), ChartStatusEnum.RUNNING, null);
+        try {
+            // 调用 AI
+            ColumnarDataset dataset = chartService.getDataset(chart);
+            BiPromptManager.BiPrompt biPrompt = biPromptManager.buildUserInput(chart.getGoal(), chart.getChartType(),
+                    dataset, chartService.getProfile(chart, dataset));
+            String result = aiManager.doChat(biPrompt.getUserInput(),
+                    BooleanUtils.isTrue(taskMessage.getRegenerate()));
+            AiResult aiResult;
+            try {
+                aiResult = AiResultParser.parse(result);
+            } catch (BusinessException e) {
+                aiManager.evictCache(biPrompt.getUserInput());
+                handleChartUpdateError(chart, e.getMessage());
+                return;
+            }
+            String genChart = aiResult.getGenChart();
+            String genResult = biPrompt.decorateResult(aiResult.getGenResult());
+            boolean updateResult = chartLeaseManager.complete(chart.getId(), genChart, genResult);
+            if (!updateResult) {
+                // 租约已被回收，结果以重新执行的为准
+                log.warn("chart {} lease lost, result discarded", chart.getId());
+                return;
+            }
+            chartNotifyManager.notifyChart(chart.getUserId(), chart.getId(), ChartStatusEnum.SUCCEED, null);
+        } catch (Exception e) {
+            // AI 调用、数据库等临时异常：延迟重试，重试次数用尽后转入死信队列
+            log.error("chart {} failed, retryCount = {}", chart.getId(), retryCount, e);
+            retryOrDeadLetter(chart, message, retryCount, e.getMessage());
+        } finally {
+            chartLeaseManager.release(chart.getId());
         }
-        // 消息确认
-        channel.basicAck(deliveryTag, false);
     }
 
     /**
-     * 构建用户输入
-     * @param chart
-     * @return
+     * 图表所属用户（取角色作为调度权重），用户不存在时按普通用户处理
      */
-    private String buildUserInput(Chart chart) {
-        String goal = chart.getGoal();
-        String chartType = chart.getChartType();
-        String csvData = chart.getChartData();
-
-        // 构造用户输入
-        StringBuilder userInput = new StringBuilder();
-        userInput.append("分析需求：").append("\n");
-
-        // 拼接分析目标
-        String userGoal = goal;
-        if (StringUtils.isNotBlank(chartType)) {
-            userGoal += "，请使用" + chartType;
+    private User getTaskUser(Chart chart) {
+        User user = chart.getUserId() == null ? null : userService.getById(chart.getUserId());
+        if (user == null) {
+            user = new User();
+            user.setId(chart.getUserId());
         }
-        userInput.append(userGoal).append("\n");
-        userInput.append("原始数据：").append("\n");
-        userInput.append(csvData).append("\n");
-        return userInput.toString();
+        return user;
     }
 
-    private void handleChartUpdateError(long chartId, String execMessage) {
-        Chart updateChartResult = new Chart();
-        updateChartResult.setId(chartId);
-        updateChartResult.setStatus("failed");
-        updateChartResult.setExecMessage("execMessage");
-        boolean updateResult = chartService.updateById(updateChartResult);
+    private void retryOrDeadLetter(Chart chart, String message, int retryCount, String reason) {
+        long chartId = chart.getId();
+        if (retryCount >= biMessageProducer.getMaxRetries()) {
+            biMessageProducer.sendDeadLetter(message, retryCount);
+            handleChartUpdateError(chart, "任务执行失败，已重试 " + retryCount + " 次：" + reason);
+            return;
+        }
+        // 先改回等待状态，重试消息到达时重新获取租约
+        if (!chartLeaseManager.requeue(chartId)) {
+            // 租约已被回收，由回收任务重新投递
+            log.warn("chart {} lease lost, skip retry", chartId);
+            return;
+        }
+        chartStatusCacheManager.put(chart.getUserId(), chartId, ChartStatusEnum.WAIT, null);
+        try {
+            biMessageProducer.sendRetry(message, retryCount);
+        } catch (AmqpException e) {
+            log.error("chart {} send retry failed", chartId, e);
+            // 已改回等待状态，不再持有租约
+            String execMessage = "任务重试失败：" + reason;
+            notifyFailed(chart, chartService.failWaitingTask(chartId, execMessage), execMessage);
+        }
+    }
+
+    private void handleChartUpdateError(Chart chart, String execMessage) {
+        notifyFailed(chart, chartLeaseManager.fail(chart.getId(), execMessage), execMessage);
+    }
+
+    private void notifyFailed(Chart chart, boolean updateResult, String execMessage) {
         if (!updateResult) {
-            log.error("更新图表失败状态失败" + chartId + "," + execMessage);
+            log.error("更新图表失败状态失败" + chart.getId() + "," + execMessage);
+            return;
         }
+        chartNotifyManager.notifyChart(chart.getUserId(), chart.getId(), ChartStatusEnum.FAILED, execMessage);
     }
 
 }
@@ -1,22 +1,40 @@
 package com.tang.springbootinit.bizmq;
 
-import org.springframework.amqp.rabbit.core.RabbitTemplate;
-import org.springframework.stereotype.Component;
+/**
+ * 图表生成消息生产者
+ * <p>
+ * 默认使用 RabbitMQ（RabbitBiMessageProducer），embedded-mq 环境使用进程内队列（EmbeddedBiMessageProducer），
+ * 两者的重试和死信语义相同
+ */
+public interface BiMessageProducer {
 
-import jakarta.annotation.Resource;
-
-@Component
-public class BiMessageProducer {
+    /**
+     * 发送消息
+     *
+     * @param message
+     */
+    void sendMessage(String message);
 
-    @Resource
-    private RabbitTemplate rabbitTemplate;
+    /**
+     * 发送到延迟队列，延迟结束后回到 bi_queue
+     *
+     * @param message
+     * @param retryCount 已重试次数，决定本次的延迟
+     */
+    void sendRetry(String message, int retryCount);
 
     /**
-     * 发送消息
+     * 发送到死信队列
+     *
      * @param message
+     * @param retryCount 已重试次数
      */
-    public void sendMessage(String message) {
-        rabbitTemplate.convertAndSend(BiMqConstant.BI_EXCHANGE_NAME, BiMqConstant.BI_ROUTING_KEY, message);
-    }
+    void sendDeadLetter(String message, int retryCount);
 
+    /**
+     * 最多重试次数
+     *
+     * @return
+     */
+    int getMaxRetries();
 }
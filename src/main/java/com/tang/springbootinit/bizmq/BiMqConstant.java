@@ -2,9 +2,48 @@ package com.tang.springbootinit.bizmq;
 
 public interface BiMqConstant {
 
+    /**
+     * 不依赖 RabbitMQ 的进程内队列模式（单节点部署、测试）
+     */
+    String EMBEDDED_PROFILE = "embedded-mq";
+
     String BI_EXCHANGE_NAME = "bi_exchange";
 
     String BI_QUEUE_NAME = "bi_queue";
 
     String BI_ROUTING_KEY = "bi_routingKey";
+
+    /**
+     * 重试交换机，按延迟时间路由到对应的延迟队列，过期后死信回到 bi_exchange
+     */
+    String BI_RETRY_EXCHANGE_NAME = "bi_retry_exchange";
+
+    /**
+     * 延迟队列名前缀，后接延迟毫秒数
+     */
+    String BI_RETRY_QUEUE_PREFIX = "bi_retry_queue_";
+
+    /**
+     * 延迟队列路由键前缀，后接延迟毫秒数
+     */
+    String BI_RETRY_ROUTING_KEY_PREFIX = "bi_retry_";
+
+    String BI_DLX_EXCHANGE_NAME = "bi_dlx_exchange";
+
+    /**
+     * 死信队列：重试次数用尽或无法处理的消息，保留用于排查和手动重放
+     */
+    String BI_DEAD_LETTER_QUEUE_NAME = "bi_dlq";
+
+    String BI_DEAD_LETTER_ROUTING_KEY = "bi_dead";
+
+    /**
+     * 消息头：已重试次数
+     */
+    String RETRY_COUNT_HEADER = "x-retry-count";
+
+    /**
+     * 任务消息内联数据集的最大字节数（压缩后），超出时只带数据集指纹
+     */
+    int TASK_MESSAGE_INLINE_MAX_BYTES = 16 * 1024;
 }
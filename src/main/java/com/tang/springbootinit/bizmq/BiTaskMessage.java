@@ -0,0 +1,146 @@
+package com.tang.springbootinit.bizmq;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonParseException;
+import com.tang.springbootinit.model.entity.Chart;
+import lombok.Data;
+import org.apache.commons.lang3.StringUtils;
+
+import java.util.Base64;
+
+/**
+ * 图表生成任务消息（JSON，带版本号）
+ * <p>
+ * 携带生成所需的字段，消费者不再读取整行图表：数据集较小时内联压缩后的列式二进制数据，否则只带数据集指纹，按指纹读取。
+ * 旧版本消息只有图表 id（纯数字），仍可解析
+ */
+@Data
+public class BiTaskMessage {
+
+    /**
+     * 当前版本
+     */
+    public static final int CURRENT_VERSION = 1;
+
+    private static final Gson GSON = new Gson();
+
+    /**
+     * 版本，0 为只有图表 id 的旧消息
+     */
+    private int version;
+
+    private Long chartId;
+
+    /**
+     * 创建用户 id，用于按用户公平调度和任务完成通知
+     */
+    private Long userId;
+
+    private String goal;
+
+    private String chartType;
+
+    /**
+     * 数据集指纹（引用）
+     */
+    private String datasetHash;
+
+    /**
+     * 内联的列式二进制数据集（ColumnarDatasetCodec 编码，已压缩），Base64
+     */
+    private String inlineDataset;
+
+    /**
+     * 是否跳过缓存重新生成
+     */
+    private Boolean regenerate;
+
+    /**
+     * 由图表构建消息
+     *
+     * @param chart      已保存的图表
+     * @param regenerate
+     * @return
+     */
+    public static BiTaskMessage of(Chart chart, boolean regenerate) {
+        BiTaskMessage taskMessage = new BiTaskMessage();
+        taskMessage.setVersion(CURRENT_VERSION);
+        taskMessage.setChartId(chart.getId());
+        taskMessage.setUserId(chart.getUserId());
+        taskMessage.setGoal(chart.getGoal());
+        taskMessage.setChartType(chart.getChartType());
+        taskMessage.setDatasetHash(chart.getDatasetHash());
+        byte[] chartDataset = chart.getChartDataset();
+        if (chartDataset != null && chartDataset.length <= BiMqConstant.TASK_MESSAGE_INLINE_MAX_BYTES) {
+            taskMessage.setInlineDataset(Base64.getEncoder().encodeToString(chartDataset));
+        }
+        taskMessage.setRegenerate(regenerate);
+        return taskMessage;
+    }
+
+    /**
+     * 解析消息
+     *
+     * @param message
+     * @return 格式错误时返回 null
+     */
+    public static BiTaskMessage parse(String message) {
+        if (StringUtils.isBlank(message)) {
+            return null;
+        }
+        String trimmed = message.trim();
+        if (StringUtils.isNumeric(trimmed)) {
+            BiTaskMessage taskMessage = new BiTaskMessage();
+            taskMessage.setChartId(Long.parseLong(trimmed));
+            return taskMessage;
+        }
+        BiTaskMessage taskMessage;
+        try {
+            taskMessage = GSON.fromJson(trimmed, BiTaskMessage.class);
+        } catch (JsonParseException | NumberFormatException e) {
+            return null;
+        }
+        if (taskMessage == null || taskMessage.getChartId() == null || taskMessage.getVersion() < 1) {
+            return null;
+        }
+        if (taskMessage.getInlineDataset() != null) {
+            try {
+                Base64.getDecoder().decode(taskMessage.getInlineDataset());
+            } catch (IllegalArgumentException e) {
+                return null;
+            }
+        }
+        return taskMessage;
+    }
+
+    public String toJson() {
+        return GSON.toJson(this);
+    }
+
+    /**
+     * 是否携带了生成所需的字段（旧消息需要按 id 查询图表）
+     *
+     * @return
+     */
+    public boolean hasPayload() {
+        return version >= 1 && (datasetHash != null || inlineDataset != null);
+    }
+
+    /**
+     * 转为仅包含生成所需字段的图表
+     *
+     * @return
+     */
+    public Chart toChart() {
+        Chart chart = new Chart();
+        chart.setId(chartId);
+        chart.setUserId(userId);
+        chart.setGoal(goal);
+        chart.setChartType(chartType);
+        chart.setDatasetHash(datasetHash);
+        if (inlineDataset != null) {
+            chart.setChartDataset(Base64.getDecoder().decode(inlineDataset));
+        }
+        return chart;
+    }
+}
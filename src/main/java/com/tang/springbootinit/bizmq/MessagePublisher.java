@@ -0,0 +1,20 @@
+package com.tang.springbootinit.bizmq;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * 带确认的消息发送，供事务发件箱使用
+ */
+public interface MessagePublisher {
+
+    /**
+     * 异步发送，不等待确认
+     *
+     * @param exchange
+     * @param routingKey
+     * @param message
+     * @return 确认结果：true 表示 broker 已持久化并成功路由；false 或异常完成表示需要重发
+     * @throws org.springframework.amqp.AmqpException 连接不可用时
+     */
+    CompletableFuture<Boolean> publish(String exchange, String routingKey, String message);
+}
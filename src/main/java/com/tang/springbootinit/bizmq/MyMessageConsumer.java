@@ -6,6 +6,7 @@ import lombok.extern.slf4j.Slf4j;
 import org.springframework.amqp.rabbit.annotation.RabbitListener;
 import org.springframework.amqp.support.AmqpHeaders;
 import org.springframework.messaging.handler.annotation.Header;
+import org.springframework.context.annotation.Profile;
 import org.springframework.stereotype.Component;
 
 import jakarta.annotation.Resource;
@@ -14,6 +15,7 @@ import jakarta.annotation.Resource;
 
 @Component
 @Slf4j
+@Profile("!" + BiMqConstant.EMBEDDED_PROFILE)
 public class MyMessageConsumer {
 
     // 指定程序监听的消息队列和确认机制
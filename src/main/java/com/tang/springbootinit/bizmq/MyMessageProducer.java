@@ -1,6 +1,7 @@
 package com.tang.springbootinit.bizmq;
 
 import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.context.annotation.Profile;
 import org.springframework.stereotype.Component;
 
 import jakarta.annotation.Resource;
@@ -8,6 +9,7 @@ import jakarta.annotation.Resource;
 // 发送消息
 
 @Component
+@Profile("!" + BiMqConstant.EMBEDDED_PROFILE)
 public class MyMessageProducer {
 
     @Resource
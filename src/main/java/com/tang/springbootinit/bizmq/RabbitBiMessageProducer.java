@@ -0,0 +1,50 @@
+package com.tang.springbootinit.bizmq;
+
+import com.tang.springbootinit.config.BiMqRetryConfig;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Component;
+
+import jakarta.annotation.Resource;
+import java.util.List;
+
+@Component
+@Profile("!" + BiMqConstant.EMBEDDED_PROFILE)
+public class RabbitBiMessageProducer implements BiMessageProducer {
+
+    @Resource
+    private RabbitTemplate rabbitTemplate;
+
+    @Resource
+    private BiMqRetryConfig biMqRetryConfig;
+
+    @Override
+    public void sendMessage(String message) {
+        rabbitTemplate.convertAndSend(BiMqConstant.BI_EXCHANGE_NAME, BiMqConstant.BI_ROUTING_KEY, message);
+    }
+
+    @Override
+    public void sendRetry(String message, int retryCount) {
+        long delayMillis = biMqRetryConfig.getDelayMillis(retryCount);
+        rabbitTemplate.convertAndSend(BiMqConstant.BI_RETRY_EXCHANGE_NAME,
+                BiMqConstant.BI_RETRY_ROUTING_KEY_PREFIX + delayMillis, message, msg -> {
+                    msg.getMessageProperties().setHeader(BiMqConstant.RETRY_COUNT_HEADER, retryCount + 1);
+                    return msg;
+                });
+    }
+
+    @Override
+    public void sendDeadLetter(String message, int retryCount) {
+        rabbitTemplate.convertAndSend(BiMqConstant.BI_DLX_EXCHANGE_NAME,
+                BiMqConstant.BI_DEAD_LETTER_ROUTING_KEY, message, msg -> {
+                    msg.getMessageProperties().setHeader(BiMqConstant.RETRY_COUNT_HEADER, retryCount);
+                    return msg;
+                });
+    }
+
+    @Override
+    public int getMaxRetries() {
+        return biMqRetryConfig.getDelaysMillis().size();
+    }
+
+}
@@ -0,0 +1,28 @@
+package com.tang.springbootinit.bizmq;
+
+import org.springframework.amqp.rabbit.connection.CorrelationData;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Component;
+
+import jakarta.annotation.Resource;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * 通过 publisher confirms 确认的 RabbitMQ 消息发送，被退回（无法路由）的消息视为失败
+ */
+@Component
+@Profile("!" + BiMqConstant.EMBEDDED_PROFILE)
+public class RabbitMessagePublisher implements MessagePublisher {
+
+    @Resource
+    private RabbitTemplate rabbitTemplate;
+
+    @Override
+    public CompletableFuture<Boolean> publish(String exchange, String routingKey, String message) {
+        CorrelationData correlationData = new CorrelationData();
+        rabbitTemplate.convertAndSend(exchange, routingKey, message, correlationData);
+        return correlationData.getFuture()
+                .thenApply(confirm -> confirm.isAck() && correlationData.getReturned() == null);
+    }
+}
@@ -0,0 +1,108 @@
+package com.tang.springbootinit.bizmq.embedded;
+
+import com.tang.springbootinit.bizmq.BiMessageConsumer;
+import com.tang.springbootinit.bizmq.BiMqConstant;
+import com.tang.springbootinit.config.BiExecutorConfig;
+import com.tang.springbootinit.config.BiMqConsumerConfig;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Component;
+
+import jakarta.annotation.Resource;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 从进程内队列消费 bi_queue，确认语义与 RabbitMQ 监听相同：处理完成后确认，处理时抛出异常则延迟后重新入队
+ * <p>
+ * 消费者数取 bi.mq.consumer.max-concurrency，不超过 bi.executor.max-concurrency；
+ * AI 调用数由 AiQuotaManager 与其他入口共同限制
+ */
+@Component
+@Profile(BiMqConstant.EMBEDDED_PROFILE)
+@Slf4j
+public class EmbeddedBiMessageListener implements SmartLifecycle {
+
+    private static final long POLL_TIMEOUT_MILLIS = 1000;
+
+    /**
+     * 处理时抛出异常的消息延迟重新入队的时间
+     */
+    private static final long REQUEUE_DELAY_MILLIS = 5000;
+
+    @Resource
+    private EmbeddedMessageBroker embeddedMessageBroker;
+
+    @Resource
+    private BiMessageConsumer biMessageConsumer;
+
+    @Resource
+    private BiMqConsumerConfig biMqConsumerConfig;
+
+    @Resource
+    private BiExecutorConfig biExecutorConfig;
+
+    private final List<Thread> workers = new ArrayList<>();
+
+    private volatile boolean running = false;
+
+    @Override
+    public synchronized void start() {
+        int concurrency = Math.max(1, Math.min(biMqConsumerConfig.getMaxConcurrency(),
+                biExecutorConfig.getMaxConcurrency()));
+        running = true;
+        for (int i = 0; i < concurrency; i++) {
+            Thread.Builder builder = biMqConsumerConfig.isVirtualThreads()
+                    ? Thread.ofVirtual() : Thread.ofPlatform().daemon(true);
+            workers.add(builder.name("bi-consumer-" + i).start(this::consume));
+        }
+        log.info("embedded bi listener started, concurrency = {}", concurrency);
+    }
+
+    @Override
+    public synchronized void stop() {
+        running = false;
+        for (Thread worker : workers) {
+            try {
+                // 等待处理中的消息完成，未确认的消息在日志中保留
+                worker.join(TimeUnit.SECONDS.toMillis(30));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+        }
+        workers.clear();
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    private void consume() {
+        while (running) {
+            EmbeddedMessage message;
+            try {
+                message = embeddedMessageBroker.poll(BiMqConstant.BI_QUEUE_NAME, POLL_TIMEOUT_MILLIS,
+                        TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            if (message == null) {
+                continue;
+            }
+            try {
+                biMessageConsumer.process(message.getBody(), message.getRetryCount());
+            } catch (Exception e) {
+                // 未处理完（如数据库不可用）：消息延迟后重新入队
+                log.error("process embedded message {} failed, requeue", message.getId(), e);
+                embeddedMessageBroker.nack(message, REQUEUE_DELAY_MILLIS);
+                continue;
+            }
+            embeddedMessageBroker.ack(message);
+        }
+    }
+}
@@ -0,0 +1,44 @@
+package com.tang.springbootinit.bizmq.embedded;
+
+import com.tang.springbootinit.bizmq.BiMessageProducer;
+import com.tang.springbootinit.bizmq.BiMqConstant;
+import com.tang.springbootinit.config.BiMqRetryConfig;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Component;
+
+import jakarta.annotation.Resource;
+
+/**
+ * 进程内队列的图表生成消息生产者，重试延迟和死信与 RabbitMQ 拓扑一致
+ */
+@Component
+@Profile(BiMqConstant.EMBEDDED_PROFILE)
+public class EmbeddedBiMessageProducer implements BiMessageProducer {
+
+    @Resource
+    private EmbeddedMessageBroker embeddedMessageBroker;
+
+    @Resource
+    private BiMqRetryConfig biMqRetryConfig;
+
+    @Override
+    public void sendMessage(String message) {
+        embeddedMessageBroker.publish(BiMqConstant.BI_QUEUE_NAME, message, 0, 0);
+    }
+
+    @Override
+    public void sendRetry(String message, int retryCount) {
+        embeddedMessageBroker.publish(BiMqConstant.BI_QUEUE_NAME, message, retryCount + 1,
+                biMqRetryConfig.getDelayMillis(retryCount));
+    }
+
+    @Override
+    public void sendDeadLetter(String message, int retryCount) {
+        embeddedMessageBroker.publish(BiMqConstant.BI_DEAD_LETTER_QUEUE_NAME, message, retryCount, 0);
+    }
+
+    @Override
+    public int getMaxRetries() {
+        return biMqRetryConfig.getDelaysMillis().size();
+    }
+}
@@ -0,0 +1,51 @@
+package com.tang.springbootinit.bizmq.embedded;
+
+/**
+ * 进程内队列中的消息
+ */
+public class EmbeddedMessage {
+
+    private final long id;
+
+    private final String queue;
+
+    private final String body;
+
+    /**
+     * 已重试次数（对应 RabbitMQ 消息头 x-retry-count）
+     */
+    private final int retryCount;
+
+    /**
+     * 投递时间（毫秒时间戳），延迟消息到期前不进入队列
+     */
+    private final long deliverAt;
+
+    public EmbeddedMessage(long id, String queue, String body, int retryCount, long deliverAt) {
+        this.id = id;
+        this.queue = queue;
+        this.body = body;
+        this.retryCount = retryCount;
+        this.deliverAt = deliverAt;
+    }
+
+    public long getId() {
+        return id;
+    }
+
+    public String getQueue() {
+        return queue;
+    }
+
+    public String getBody() {
+        return body;
+    }
+
+    public int getRetryCount() {
+        return retryCount;
+    }
+
+    public long getDeliverAt() {
+        return deliverAt;
+    }
+}
@@ -0,0 +1,270 @@
+package com.tang.springbootinit.bizmq.embedded;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.amqp.AmqpException;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 进程内消息队列，在没有 RabbitMQ 时代替 bi_queue 及其延迟、死信队列
+ * <p>
+ * 每个队列是一个有界环形缓冲区。消息在确认前都保留在 pending 中：取出未确认的消息 nack 后重新入队，
+ * 延迟消息到期后才进入队列。开启磁盘日志时，发送和确认先写日志，重启后未确认的消息重新投递（至少一次）。
+ */
+@Slf4j
+public class EmbeddedMessageBroker {
+
+    /**
+     * 确认记录数超过该值且远多于未确认消息时重写日志
+     */
+    private static final int COMPACT_MIN_RECORDS = 10_000;
+
+    /**
+     * 队列满时重新入队的重试间隔（毫秒）
+     */
+    private static final long REQUEUE_RETRY_MILLIS = 100;
+
+    private final int capacity;
+
+    private final long publishTimeoutMillis;
+
+    private final EmbeddedMessageJournal journal;
+
+    private final Map<String, RingBufferQueue<EmbeddedMessage>> queues = new ConcurrentHashMap<>();
+
+    /**
+     * 覆盖最早消息的队列（死信队列），其余队列满时发送失败
+     */
+    private final Map<String, Boolean> overwriteQueues = new ConcurrentHashMap<>();
+
+    /**
+     * 未确认的消息（排队中、延迟中、已取出）
+     */
+    private final Map<Long, EmbeddedMessage> pending = new ConcurrentHashMap<>();
+
+    private final AtomicLong idGenerator = new AtomicLong();
+
+    private final ScheduledExecutorService delayScheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "embedded-mq-delay");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    /**
+     * @param capacity             每个队列的容量
+     * @param publishTimeoutMillis 队列满时发送的最长等待时间
+     * @param journal              磁盘日志，为 null 时只在内存中
+     */
+    public EmbeddedMessageBroker(int capacity, long publishTimeoutMillis, EmbeddedMessageJournal journal) {
+        this.capacity = capacity;
+        this.publishTimeoutMillis = publishTimeoutMillis;
+        this.journal = journal;
+    }
+
+    /**
+     * 声明队列
+     *
+     * @param queue
+     * @param overwriteWhenFull 队列满时是否覆盖最早的消息
+     */
+    public void declareQueue(String queue, boolean overwriteWhenFull) {
+        queues.computeIfAbsent(queue, key -> new RingBufferQueue<>(capacity));
+        overwriteQueues.put(queue, overwriteWhenFull);
+    }
+
+    /**
+     * 回放磁盘日志，在声明队列之后、开始收发之前调用
+     */
+    public void start() {
+        if (journal == null) {
+            return;
+        }
+        List<EmbeddedMessage> messages;
+        try {
+            messages = journal.open();
+        } catch (IOException e) {
+            throw new UncheckedIOException("open embedded mq journal failed", e);
+        }
+        for (EmbeddedMessage message : messages) {
+            idGenerator.accumulateAndGet(message.getId(), Math::max);
+            if (!queues.containsKey(message.getQueue())) {
+                log.warn("drop journaled message {} of undeclared queue {}", message.getId(), message.getQueue());
+                continue;
+            }
+            pending.put(message.getId(), message);
+            schedule(message);
+        }
+        log.info("embedded mq journal replayed, {} pending messages", pending.size());
+    }
+
+    /**
+     * 发送消息
+     *
+     * @param queue
+     * @param body
+     * @param retryCount  已重试次数
+     * @param delayMillis 延迟投递时间，0 表示立即投递
+     * @throws AmqpException 队列不存在、队列已满或日志写入失败
+     */
+    public void publish(String queue, String body, int retryCount, long delayMillis) {
+        RingBufferQueue<EmbeddedMessage> ringBuffer = getQueue(queue);
+        long deliverAt = delayMillis > 0 ? System.currentTimeMillis() + delayMillis : 0;
+        EmbeddedMessage message = new EmbeddedMessage(idGenerator.incrementAndGet(), queue, body, retryCount, deliverAt);
+        // 先加入 pending 再写日志，日志重写时不会漏掉这条消息
+        pending.put(message.getId(), message);
+        try {
+            if (journal != null) {
+                journal.appendPublish(message);
+            }
+        } catch (IOException e) {
+            pending.remove(message.getId());
+            throw new AmqpException("write embedded mq journal failed", e);
+        }
+        if (deliverAt > 0 || Boolean.TRUE.equals(overwriteQueues.get(queue))) {
+            schedule(message);
+            return;
+        }
+        boolean offered;
+        try {
+            offered = ringBuffer.offer(message, publishTimeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            offered = false;
+        }
+        if (!offered) {
+            ack(message);
+            throw new AmqpException("embedded queue " + queue + " is full");
+        }
+    }
+
+    /**
+     * 取出消息，处理后必须 ack 或 nack
+     *
+     * @return 超时返回 null
+     */
+    public EmbeddedMessage poll(String queue, long timeout, TimeUnit unit) throws InterruptedException {
+        return getQueue(queue).poll(timeout, unit);
+    }
+
+    /**
+     * 确认消息
+     *
+     * @param message
+     */
+    public void ack(EmbeddedMessage message) {
+        // 先移出 pending 再写日志，日志重写时不会复活这条消息
+        if (pending.remove(message.getId()) == null || journal == null) {
+            return;
+        }
+        try {
+            journal.appendAck(message.getId());
+            if (journal.getRecordCount() > COMPACT_MIN_RECORDS
+                    && journal.getRecordCount() > 4 * pending.size()) {
+                journal.compact(pending.values());
+            }
+        } catch (IOException e) {
+            // 确认记录丢失只会导致重启后重复投递
+            log.error("write embedded mq journal failed", e);
+        }
+    }
+
+    /**
+     * 拒绝消息
+     *
+     * @param message
+     * @param requeue 是否重新入队，否则丢弃
+     */
+    public void nack(EmbeddedMessage message, boolean requeue) {
+        if (!requeue) {
+            ack(message);
+            return;
+        }
+        enqueue(message);
+    }
+
+    /**
+     * 拒绝消息并延迟重新入队（重试次数不变），避免处理持续失败的消息被立即取回、反复空转
+     *
+     * @param message
+     * @param requeueDelayMillis
+     */
+    public void nack(EmbeddedMessage message, long requeueDelayMillis) {
+        if (requeueDelayMillis <= 0) {
+            enqueue(message);
+            return;
+        }
+        delayScheduler.schedule(() -> enqueue(message), requeueDelayMillis, TimeUnit.MILLISECONDS);
+    }
+
+    public int getQueueSize(String queue) {
+        RingBufferQueue<EmbeddedMessage> ringBuffer = queues.get(queue);
+        return ringBuffer == null ? 0 : ringBuffer.size();
+    }
+
+    /**
+     * 未确认的消息数（排队中、延迟中、已取出）
+     */
+    public int getPendingCount() {
+        return pending.size();
+    }
+
+    public void shutdown() {
+        delayScheduler.shutdownNow();
+        if (journal != null) {
+            try {
+                journal.close();
+            } catch (IOException e) {
+                log.error("close embedded mq journal failed", e);
+            }
+        }
+    }
+
+    private RingBufferQueue<EmbeddedMessage> getQueue(String queue) {
+        RingBufferQueue<EmbeddedMessage> ringBuffer = queues.get(queue);
+        if (ringBuffer == null) {
+            throw new AmqpException("embedded queue " + queue + " is not declared");
+        }
+        return ringBuffer;
+    }
+
+    /**
+     * 延迟消息到期后入队，其余立即入队
+     */
+    private void schedule(EmbeddedMessage message) {
+        long delayMillis = message.getDeliverAt() - System.currentTimeMillis();
+        if (delayMillis > 0) {
+            delayScheduler.schedule(() -> enqueue(message), delayMillis, TimeUnit.MILLISECONDS);
+            return;
+        }
+        enqueue(message);
+    }
+
+    /**
+     * 已在 pending 中的消息入队，队列满时稍后重试，不丢弃也不阻塞调用方
+     */
+    private void enqueue(EmbeddedMessage message) {
+        if (!pending.containsKey(message.getId())) {
+            return;
+        }
+        RingBufferQueue<EmbeddedMessage> ringBuffer = getQueue(message.getQueue());
+        if (Boolean.TRUE.equals(overwriteQueues.get(message.getQueue()))) {
+            EmbeddedMessage evicted = ringBuffer.offerOverwrite(message);
+            if (evicted != null) {
+                log.warn("embedded queue {} is full, drop message {}", message.getQueue(), evicted.getId());
+                ack(evicted);
+            }
+            return;
+        }
+        if (!ringBuffer.offer(message)) {
+            delayScheduler.schedule(() -> enqueue(message), REQUEUE_RETRY_MILLIS, TimeUnit.MILLISECONDS);
+        }
+    }
+}
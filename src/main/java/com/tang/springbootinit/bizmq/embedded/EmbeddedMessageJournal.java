@@ -0,0 +1,171 @@
+package com.tang.springbootinit.bizmq.embedded;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 进程内队列的磁盘日志：追加写入发送（P）和确认（A）记录，重启时回放出未确认的消息
+ * <p>
+ * 日志只增不改，确认过的记录积累到一定数量后由 compact 重写为只包含未确认消息的新文件。
+ * 进程崩溃时最后一条记录可能不完整，回放到此为止
+ */
+public class EmbeddedMessageJournal implements Closeable {
+
+    private static final byte RECORD_PUBLISH = 'P';
+
+    private static final byte RECORD_ACK = 'A';
+
+    private final Path path;
+
+    private final boolean fsync;
+
+    private FileOutputStream fileOutputStream;
+
+    private DataOutputStream out;
+
+    /**
+     * 上次重写以来的记录数
+     */
+    private int recordCount = 0;
+
+    public EmbeddedMessageJournal(Path path, boolean fsync) {
+        this.path = path;
+        this.fsync = fsync;
+    }
+
+    /**
+     * 回放日志并打开写入，只在启动时调用一次
+     *
+     * @return 未确认的消息，按 id 排序
+     */
+    public synchronized List<EmbeddedMessage> open() throws IOException {
+        Path parent = path.toAbsolutePath().getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+        Map<Long, EmbeddedMessage> pending = new LinkedHashMap<>();
+        if (Files.exists(path)) {
+            try (InputStream inputStream = Files.newInputStream(path);
+                 DataInputStream in = new DataInputStream(new BufferedInputStream(inputStream))) {
+                replay(in, pending);
+            }
+        }
+        List<EmbeddedMessage> messages = new ArrayList<>(pending.values());
+        messages.sort(Comparator.comparingLong(EmbeddedMessage::getId));
+        // 去掉已确认的记录和不完整的尾部
+        rewrite(messages);
+        return messages;
+    }
+
+    public synchronized void appendPublish(EmbeddedMessage message) throws IOException {
+        writePublish(out, message);
+        flush();
+    }
+
+    public synchronized void appendAck(long id) throws IOException {
+        out.writeByte(RECORD_ACK);
+        out.writeLong(id);
+        flush();
+    }
+
+    /**
+     * 重写日志，只保留未确认的消息
+     *
+     * @param pending
+     */
+    public synchronized void compact(Collection<EmbeddedMessage> pending) throws IOException {
+        List<EmbeddedMessage> messages = new ArrayList<>(pending);
+        messages.sort(Comparator.comparingLong(EmbeddedMessage::getId));
+        rewrite(messages);
+    }
+
+    public synchronized int getRecordCount() {
+        return recordCount;
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        if (out != null) {
+            out.close();
+            out = null;
+        }
+    }
+
+    private void replay(DataInputStream in, Map<Long, EmbeddedMessage> pending) throws IOException {
+        while (true) {
+            try {
+                byte type = in.readByte();
+                long id = in.readLong();
+                if (type == RECORD_ACK) {
+                    pending.remove(id);
+                    continue;
+                }
+                if (type != RECORD_PUBLISH) {
+                    return;
+                }
+                String queue = in.readUTF();
+                int retryCount = in.readInt();
+                long deliverAt = in.readLong();
+                byte[] body = new byte[in.readInt()];
+                in.readFully(body);
+                pending.put(id, new EmbeddedMessage(id, queue, new String(body, StandardCharsets.UTF_8),
+                        retryCount, deliverAt));
+            } catch (EOFException e) {
+                return;
+            }
+        }
+    }
+
+    private void rewrite(List<EmbeddedMessage> messages) throws IOException {
+        close();
+        Path tmpPath = path.resolveSibling(path.getFileName() + ".tmp");
+        try (FileOutputStream tmpOutputStream = new FileOutputStream(tmpPath.toFile());
+             DataOutputStream tmpOut = new DataOutputStream(new BufferedOutputStream(tmpOutputStream))) {
+            for (EmbeddedMessage message : messages) {
+                writePublish(tmpOut, message);
+            }
+            tmpOut.flush();
+            tmpOutputStream.getChannel().force(true);
+        }
+        Files.move(tmpPath, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        fileOutputStream = new FileOutputStream(path.toFile(), true);
+        out = new DataOutputStream(new BufferedOutputStream(fileOutputStream));
+        recordCount = messages.size();
+    }
+
+    private static void writePublish(DataOutputStream out, EmbeddedMessage message) throws IOException {
+        byte[] body = message.getBody().getBytes(StandardCharsets.UTF_8);
+        out.writeByte(RECORD_PUBLISH);
+        out.writeLong(message.getId());
+        out.writeUTF(message.getQueue());
+        out.writeInt(message.getRetryCount());
+        out.writeLong(message.getDeliverAt());
+        out.writeInt(body.length);
+        out.write(body);
+    }
+
+    private void flush() throws IOException {
+        out.flush();
+        if (fsync) {
+            fileOutputStream.getChannel().force(false);
+        }
+        recordCount++;
+    }
+}
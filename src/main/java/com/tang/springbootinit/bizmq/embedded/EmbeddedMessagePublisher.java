@@ -0,0 +1,35 @@
+package com.tang.springbootinit.bizmq.embedded;
+
+import com.tang.springbootinit.bizmq.BiMqConstant;
+import com.tang.springbootinit.bizmq.MessagePublisher;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Component;
+
+import jakarta.annotation.Resource;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * 发件箱消息发送到进程内队列：按 RabbitMQ 拓扑的交换机和路由键映射到队列，写入（和日志）完成即确认，
+ * 无法路由的消息视为失败
+ */
+@Component
+@Profile(BiMqConstant.EMBEDDED_PROFILE)
+public class EmbeddedMessagePublisher implements MessagePublisher {
+
+    @Resource
+    private EmbeddedMessageBroker embeddedMessageBroker;
+
+    @Override
+    public CompletableFuture<Boolean> publish(String exchange, String routingKey, String message) {
+        if (BiMqConstant.BI_EXCHANGE_NAME.equals(exchange) && BiMqConstant.BI_ROUTING_KEY.equals(routingKey)) {
+            embeddedMessageBroker.publish(BiMqConstant.BI_QUEUE_NAME, message, 0, 0);
+            return CompletableFuture.completedFuture(true);
+        }
+        if (BiMqConstant.BI_DLX_EXCHANGE_NAME.equals(exchange)
+                && BiMqConstant.BI_DEAD_LETTER_ROUTING_KEY.equals(routingKey)) {
+            embeddedMessageBroker.publish(BiMqConstant.BI_DEAD_LETTER_QUEUE_NAME, message, 0, 0);
+            return CompletableFuture.completedFuture(true);
+        }
+        return CompletableFuture.completedFuture(false);
+    }
+}
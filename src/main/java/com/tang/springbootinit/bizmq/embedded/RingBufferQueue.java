@@ -0,0 +1,150 @@
+package com.tang.springbootinit.bizmq.embedded;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 有界环形缓冲队列（容量取 2 的幂，下标用位运算取模），多生产者多消费者
+ *
+ * @param <E>
+ */
+public class RingBufferQueue<E> {
+
+    private final Object[] items;
+
+    private final int mask;
+
+    private final ReentrantLock lock = new ReentrantLock();
+
+    private final Condition notEmpty = lock.newCondition();
+
+    private final Condition notFull = lock.newCondition();
+
+    /**
+     * 下一个读取位置（单调递增，由 lock 保护）
+     */
+    private long head = 0;
+
+    /**
+     * 下一个写入位置（单调递增，由 lock 保护）
+     */
+    private long tail = 0;
+
+    public RingBufferQueue(int capacity) {
+        if (capacity < 1 || capacity > (1 << 30)) {
+            throw new IllegalArgumentException("capacity: " + capacity);
+        }
+        int size = Integer.highestOneBit(capacity);
+        if (size < capacity) {
+            size <<= 1;
+        }
+        this.items = new Object[size];
+        this.mask = size - 1;
+    }
+
+    /**
+     * 写入，队列已满时立即返回 false
+     */
+    public boolean offer(E e) {
+        lock.lock();
+        try {
+            if (tail - head == items.length) {
+                return false;
+            }
+            enqueue(e);
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 写入，队列已满时最多等待 timeout
+     */
+    public boolean offer(E e, long timeout, TimeUnit unit) throws InterruptedException {
+        long nanos = unit.toNanos(timeout);
+        lock.lockInterruptibly();
+        try {
+            while (tail - head == items.length) {
+                if (nanos <= 0) {
+                    return false;
+                }
+                nanos = notFull.awaitNanos(nanos);
+            }
+            enqueue(e);
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 写入，队列已满时覆盖最早的元素
+     *
+     * @return 被覆盖的元素，没有覆盖时返回 null
+     */
+    public E offerOverwrite(E e) {
+        lock.lock();
+        try {
+            E evicted = null;
+            if (tail - head == items.length) {
+                evicted = dequeue();
+            }
+            enqueue(e);
+            return evicted;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 读取，队列为空时最多等待 timeout
+     *
+     * @return 超时返回 null
+     */
+    public E poll(long timeout, TimeUnit unit) throws InterruptedException {
+        long nanos = unit.toNanos(timeout);
+        lock.lockInterruptibly();
+        try {
+            while (tail == head) {
+                if (nanos <= 0) {
+                    return null;
+                }
+                nanos = notEmpty.awaitNanos(nanos);
+            }
+            return dequeue();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int size() {
+        lock.lock();
+        try {
+            return (int) (tail - head);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int capacity() {
+        return items.length;
+    }
+
+    private void enqueue(E e) {
+        items[(int) (tail & mask)] = e;
+        tail++;
+        notEmpty.signal();
+    }
+
+    @SuppressWarnings("unchecked")
+    private E dequeue() {
+        int index = (int) (head & mask);
+        E e = (E) items[index];
+        items[index] = null;
+        head++;
+        notFull.signal();
+        return e;
+    }
+}
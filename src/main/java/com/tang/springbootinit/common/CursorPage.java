@@ -0,0 +1,32 @@
+package com.tang.springbootinit.common;
+
+import java.io.Serializable;
+import java.util.List;
+import lombok.Data;
+
+/**
+ * 游标分页结果（不统计总数）
+ *
+ *  @author
+ *  @from
+ */
+@Data
+public class CursorPage<T> implements Serializable {
+
+    /**
+     * 当前页数据
+     */
+    private List<T> records;
+
+    /**
+     * 下一页游标，没有更多数据时为 null
+     */
+    private String nextCursor;
+
+    /**
+     * 是否还有下一页
+     */
+    private boolean hasMore;
+
+    private static final long serialVersionUID = 1L;
+}
@@ -0,0 +1,34 @@
+package com.tang.springbootinit.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * AI 响应缓存配置
+ */
+@Configuration
+@ConfigurationProperties(prefix = "bi.ai.cache")
+@Data
+public class AiCacheConfig {
+
+    /**
+     * 是否开启缓存
+     */
+    private boolean enabled = true;
+
+    /**
+     * 本地缓存（L1）条数上限
+     */
+    private long localMaxSize = 1000;
+
+    /**
+     * 本地缓存（L1）过期时间（秒）
+     */
+    private long localTtlSeconds = 600;
+
+    /**
+     * Redis 缓存（L2）过期时间（秒）
+     */
+    private long remoteTtlSeconds = 86400;
+}
@@ -0,0 +1,42 @@
+package com.tang.springbootinit.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 图表生成任务执行器配置
+ */
+@Configuration
+@ConfigurationProperties(prefix = "bi.executor")
+@Data
+public class BiExecutorConfig {
+
+    /**
+     * 执行模式：virtual（虚拟线程 + 信号量）/ platform（固定线程池）
+     */
+    private String mode = "virtual";
+
+    /**
+     * 同时执行的任务数上限，按 AI 调用配额设置；也是节点内所有入口共享的 AI 调用许可数（见 AiQuotaManager）
+     */
+    private int maxConcurrency = 10;
+
+    /**
+     * 等待执行的任务数上限，超出时拒绝
+     */
+    private int queueCapacity = 200;
+
+    /**
+     * 执行器已满时的处理：reject（返回请求过于频繁和建议重试时间）/ mq（转交消息队列）
+     */
+    private String overflow = "reject";
+
+    /**
+     * 公平调度中各用户角色的权重（每轮可执行的任务数），未配置的角色为 1
+     */
+    private Map<String, Integer> weights = new HashMap<>(Map.of("user", 1, "vip", 2, "admin", 4));
+}
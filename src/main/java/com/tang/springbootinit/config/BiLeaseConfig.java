@@ -0,0 +1,36 @@
+package com.tang.springbootinit.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * 图表任务租约配置
+ * <p>
+ * 续约和回收间隔见 bi.lease.renew-interval-millis、bi.lease.reap-interval-millis
+ */
+@Configuration
+@ConfigurationProperties(prefix = "bi.lease")
+@Data
+public class BiLeaseConfig {
+
+    /**
+     * 租约时长（秒），节点宕机后最多经过这么久任务会被回收
+     */
+    private long durationSeconds = 120;
+
+    /**
+     * 最多执行次数，超过后任务置为失败
+     */
+    private int maxAttempts = 3;
+
+    /**
+     * 等待超时（秒）：等待状态超过这么久且没有租约的任务重新投递到消息队列，应大于任务在节点内排队的最长时间
+     */
+    private long waitTimeoutSeconds = 600;
+
+    /**
+     * 每次回收的任务数上限
+     */
+    private int reapBatchSize = 100;
+}
@@ -0,0 +1,34 @@
+package com.tang.springbootinit.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * 图表生成消息消费者配置
+ */
+@Configuration
+@ConfigurationProperties(prefix = "bi.mq.consumer")
+@Data
+public class BiMqConsumerConfig {
+
+    /**
+     * 每个节点的初始消费者数
+     */
+    private int concurrency = 4;
+
+    /**
+     * 每个节点的最大消费者数，消息积压时逐步扩容，不超过 bi.executor.max-concurrency（AI 调用配额）
+     */
+    private int maxConcurrency = 10;
+
+    /**
+     * 每个消费者预取的消息数。每条消息都会阻塞等待 AI，预取多了只会让消息压在忙碌的消费者上
+     */
+    private int prefetch = 1;
+
+    /**
+     * 消费者是否运行在虚拟线程上
+     */
+    private boolean virtualThreads = true;
+}
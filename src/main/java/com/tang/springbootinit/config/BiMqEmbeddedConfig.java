@@ -0,0 +1,39 @@
+package com.tang.springbootinit.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * 进程内消息队列配置（embedded-mq 环境）
+ */
+@Configuration
+@ConfigurationProperties(prefix = "bi.mq.embedded")
+@Data
+public class BiMqEmbeddedConfig {
+
+    /**
+     * 每个队列的容量（向上取 2 的幂）
+     */
+    private int capacity = 4096;
+
+    /**
+     * 队列满时发送的最长等待时间（毫秒），超时后发送失败
+     */
+    private long publishTimeoutMillis = 1000;
+
+    /**
+     * 是否写磁盘日志，开启后重启不丢失未确认的消息
+     */
+    private boolean journalEnabled = false;
+
+    /**
+     * 磁盘日志路径
+     */
+    private String journalPath = "data/bi-mq.journal";
+
+    /**
+     * 每条记录写入后是否强制刷盘，关闭时进程崩溃不丢消息，机器掉电可能丢失最后几条
+     */
+    private boolean fsync = false;
+}
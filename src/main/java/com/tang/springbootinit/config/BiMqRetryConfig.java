@@ -0,0 +1,34 @@
+package com.tang.springbootinit.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 图表生成消息重试配置
+ */
+@Configuration
+@ConfigurationProperties(prefix = "bi.mq.retry")
+@Data
+public class BiMqRetryConfig {
+
+    /**
+     * 每次重试前的延迟（毫秒），第 n 次重试进入第 n 个延迟队列，个数即最多重试次数
+     * <p>
+     * 队列的过期时间在声明后不能修改，调整延迟会声明新的队列，旧队列排空后可手动删除
+     */
+    private List<Long> delaysMillis = new ArrayList<>(List.of(5000L, 30000L, 120000L));
+
+    /**
+     * 第 retryCount + 1 次重试前的延迟
+     *
+     * @param retryCount 已重试次数
+     * @return
+     */
+    public long getDelayMillis(int retryCount) {
+        return delaysMillis.get(Math.min(retryCount, delaysMillis.size() - 1));
+    }
+}
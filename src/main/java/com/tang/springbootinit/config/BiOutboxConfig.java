@@ -0,0 +1,41 @@
+package com.tang.springbootinit.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * 事务发件箱配置
+ * <p>
+ * 发送间隔见 bi.outbox.relay-interval-millis
+ */
+@Configuration
+@ConfigurationProperties(prefix = "bi.outbox")
+@Data
+public class BiOutboxConfig {
+
+    /**
+     * 每批发送的消息数
+     */
+    private int batchSize = 100;
+
+    /**
+     * 每次调度最多发送的批数，积压的消息留到下次调度，避免长时间占用调度线程
+     */
+    private int maxBatchesPerRun = 10;
+
+    /**
+     * 等待一批消息全部确认的超时时间（毫秒），超时未确认的下次重发
+     */
+    private long confirmTimeoutMillis = 5000;
+
+    /**
+     * 每条消息最多发送次数，超过后标记为发送失败
+     */
+    private int maxAttempts = 10;
+
+    /**
+     * 已发送消息保留天数
+     */
+    private int retentionDays = 7;
+}
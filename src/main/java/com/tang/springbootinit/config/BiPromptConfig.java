@@ -0,0 +1,24 @@
+package com.tang.springbootinit.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * BI 分析输入（prompt）配置
+ */
+@Configuration
+@ConfigurationProperties(prefix = "bi.prompt")
+@Data
+public class BiPromptConfig {
+
+    /**
+     * 原始数据部分的 token 预算，超出时按策略缩减
+     */
+    private int tokenBudget = 4000;
+
+    /**
+     * 缩减策略：auto / lttb / stratified / topn / none
+     */
+    private String strategy = "auto";
+}
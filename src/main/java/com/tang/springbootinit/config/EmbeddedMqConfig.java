@@ -0,0 +1,47 @@
+package com.tang.springbootinit.config;
+
+import com.tang.springbootinit.bizmq.BiMqConstant;
+import com.tang.springbootinit.bizmq.embedded.EmbeddedMessageBroker;
+import com.tang.springbootinit.bizmq.embedded.EmbeddedMessageJournal;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+
+import java.nio.file.Paths;
+
+/**
+ * 进程内消息队列（embedded-mq 环境，不依赖 RabbitMQ）：bi_queue 和死信队列 bi_dlq，
+ * 延迟重试由队列内部的定时器完成
+ */
+@Configuration
+@Profile(BiMqConstant.EMBEDDED_PROFILE)
+@Slf4j
+public class EmbeddedMqConfig {
+
+    @Bean(destroyMethod = "shutdown")
+    public EmbeddedMessageBroker embeddedMessageBroker(BiMqEmbeddedConfig biMqEmbeddedConfig,
+                                                       MeterRegistry meterRegistry) {
+        EmbeddedMessageJournal journal = biMqEmbeddedConfig.isJournalEnabled()
+                ? new EmbeddedMessageJournal(Paths.get(biMqEmbeddedConfig.getJournalPath()), biMqEmbeddedConfig.isFsync())
+                : null;
+        EmbeddedMessageBroker broker = new EmbeddedMessageBroker(biMqEmbeddedConfig.getCapacity(),
+                biMqEmbeddedConfig.getPublishTimeoutMillis(), journal);
+        broker.declareQueue(BiMqConstant.BI_QUEUE_NAME, false);
+        broker.declareQueue(BiMqConstant.BI_DEAD_LETTER_QUEUE_NAME, true);
+        broker.start();
+        log.info("embedded mq: capacity = {}, journal = {}", biMqEmbeddedConfig.getCapacity(),
+                journal == null ? "disabled" : biMqEmbeddedConfig.getJournalPath());
+        Gauge.builder("bi.mq.embedded.queued", broker, b -> b.getQueueSize(BiMqConstant.BI_QUEUE_NAME))
+                .tag("queue", BiMqConstant.BI_QUEUE_NAME)
+                .register(meterRegistry);
+        Gauge.builder("bi.mq.embedded.queued", broker, b -> b.getQueueSize(BiMqConstant.BI_DEAD_LETTER_QUEUE_NAME))
+                .tag("queue", BiMqConstant.BI_DEAD_LETTER_QUEUE_NAME)
+                .register(meterRegistry);
+        Gauge.builder("bi.mq.embedded.pending", broker, EmbeddedMessageBroker::getPendingCount)
+                .register(meterRegistry);
+        return broker;
+    }
+}
@@ -0,0 +1,101 @@
+package com.tang.springbootinit.config;
+
+import com.tang.springbootinit.bizmq.BiMqConstant;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.amqp.core.AcknowledgeMode;
+import org.springframework.amqp.core.BindingBuilder;
+import org.springframework.amqp.core.Declarable;
+import org.springframework.amqp.core.Declarables;
+import org.springframework.amqp.core.DirectExchange;
+import org.springframework.amqp.core.Queue;
+import org.springframework.amqp.core.QueueBuilder;
+import org.springframework.amqp.rabbit.config.SimpleRabbitListenerContainerFactory;
+import org.springframework.amqp.rabbit.connection.ConnectionFactory;
+import org.springframework.boot.autoconfigure.amqp.SimpleRabbitListenerContainerFactoryConfigurer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 消息队列拓扑和监听容器配置
+ */
+@Configuration
+@Slf4j
+@Profile("!" + BiMqConstant.EMBEDDED_PROFILE)
+public class RabbitMqConfig {
+
+    public static final String BI_LISTENER_CONTAINER_FACTORY = "biListenerContainerFactory";
+
+    /**
+     * 图表生成消息的监听容器：多个消费者并发消费，消费者数不超过 AI 调用配额（多出的消费者只会等待许可）；
+     * 节点的 AI 调用数由 AiQuotaManager 与其他入口共同限制
+     */
+    @Bean(BI_LISTENER_CONTAINER_FACTORY)
+    public SimpleRabbitListenerContainerFactory biListenerContainerFactory(
+            SimpleRabbitListenerContainerFactoryConfigurer configurer, ConnectionFactory connectionFactory,
+            BiMqConsumerConfig biMqConsumerConfig, BiExecutorConfig biExecutorConfig) {
+        SimpleRabbitListenerContainerFactory factory = new SimpleRabbitListenerContainerFactory();
+        configurer.configure(factory, connectionFactory);
+        int maxConcurrency = Math.max(1, Math.min(biMqConsumerConfig.getMaxConcurrency(),
+                biExecutorConfig.getMaxConcurrency()));
+        int concurrency = Math.max(1, Math.min(biMqConsumerConfig.getConcurrency(), maxConcurrency));
+        if (maxConcurrency < biMqConsumerConfig.getMaxConcurrency()) {
+            log.warn("bi.mq.consumer.max-concurrency {} exceeds AI quota, capped to {}",
+                    biMqConsumerConfig.getMaxConcurrency(), maxConcurrency);
+        }
+        factory.setConcurrentConsumers(concurrency);
+        factory.setMaxConcurrentConsumers(maxConcurrency);
+        factory.setPrefetchCount(Math.max(1, biMqConsumerConfig.getPrefetch()));
+        factory.setAcknowledgeMode(AcknowledgeMode.MANUAL);
+        if (biMqConsumerConfig.isVirtualThreads()) {
+            SimpleAsyncTaskExecutor taskExecutor = new SimpleAsyncTaskExecutor("bi-consumer-");
+            taskExecutor.setVirtualThreads(true);
+            factory.setTaskExecutor(taskExecutor);
+        }
+        log.info("bi listener container: concurrency = {}-{}, prefetch = {}, virtualThreads = {}",
+                concurrency, maxConcurrency, biMqConsumerConfig.getPrefetch(), biMqConsumerConfig.isVirtualThreads());
+        return factory;
+    }
+
+    /**
+     * 图表生成消息的拓扑（启动时由 RabbitAdmin 声明，已存在则跳过）：
+     * bi_exchange -> bi_queue；失败消息按重试次数进入 bi_retry_queue_{延迟}，过期后死信回到 bi_exchange；
+     * 重试次数用尽进入 bi_dlq
+     * <p>
+     * bi_queue 的参数与 BiInitMain 创建的保持一致（队列参数不能修改），死信由消费者显式发送
+     */
+    @Bean
+    public Declarables biDeclarables(BiMqRetryConfig biMqRetryConfig) {
+        List<Declarable> declarables = new ArrayList<>();
+        DirectExchange biExchange = new DirectExchange(BiMqConstant.BI_EXCHANGE_NAME);
+        Queue biQueue = QueueBuilder.durable(BiMqConstant.BI_QUEUE_NAME).build();
+        declarables.add(biExchange);
+        declarables.add(biQueue);
+        declarables.add(BindingBuilder.bind(biQueue).to(biExchange).with(BiMqConstant.BI_ROUTING_KEY));
+
+        DirectExchange retryExchange = new DirectExchange(BiMqConstant.BI_RETRY_EXCHANGE_NAME);
+        declarables.add(retryExchange);
+        for (Long delayMillis : biMqRetryConfig.getDelaysMillis()) {
+            Queue retryQueue = QueueBuilder.durable(BiMqConstant.BI_RETRY_QUEUE_PREFIX + delayMillis)
+                    .ttl(delayMillis.intValue())
+                    .deadLetterExchange(BiMqConstant.BI_EXCHANGE_NAME)
+                    .deadLetterRoutingKey(BiMqConstant.BI_ROUTING_KEY)
+                    .build();
+            declarables.add(retryQueue);
+            declarables.add(BindingBuilder.bind(retryQueue).to(retryExchange)
+                    .with(BiMqConstant.BI_RETRY_ROUTING_KEY_PREFIX + delayMillis));
+        }
+
+        DirectExchange dlxExchange = new DirectExchange(BiMqConstant.BI_DLX_EXCHANGE_NAME);
+        Queue deadLetterQueue = QueueBuilder.durable(BiMqConstant.BI_DEAD_LETTER_QUEUE_NAME).build();
+        declarables.add(dlxExchange);
+        declarables.add(deadLetterQueue);
+        declarables.add(BindingBuilder.bind(deadLetterQueue).to(dlxExchange)
+                .with(BiMqConstant.BI_DEAD_LETTER_ROUTING_KEY));
+        return new Declarables(declarables);
+    }
+}
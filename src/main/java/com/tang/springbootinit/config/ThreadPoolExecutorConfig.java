@@ -1,32 +1,54 @@
 package com.tang.springbootinit.config;
 
-import org.jetbrains.annotations.NotNull;
+import com.tang.springbootinit.executor.ChartTaskExecutor;
+import com.tang.springbootinit.executor.FairChartTaskScheduler;
+import com.tang.springbootinit.executor.PlatformChartTaskExecutor;
+import com.tang.springbootinit.executor.VirtualChartTaskExecutor;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
-import java.util.concurrent.ArrayBlockingQueue;
-import java.util.concurrent.ThreadFactory;
-import java.util.concurrent.ThreadPoolExecutor;
-import java.util.concurrent.TimeUnit;
-
+/**
+ * 图表生成任务执行器，模式见 bi.executor.mode
+ * <p>
+ * 执行器限制同时执行的任务数，任务内的 AI 调用另外占用 AiQuotaManager 的许可（与其他入口共享）
+ */
 @Configuration
+@Slf4j
 public class ThreadPoolExecutorConfig {
 
-    @Bean
-    public ThreadPoolExecutor threadPoolExecutor() {
-        ThreadFactory threadFactory = new ThreadFactory() {
-            private int count = 1;
+    /**
+     * 沿用原线程池的 bean 名称 threadPoolExecutor
+     */
+    @Bean(destroyMethod = "shutdown")
+    public ChartTaskExecutor threadPoolExecutor(BiExecutorConfig biExecutorConfig, MeterRegistry meterRegistry) {
+        int maxConcurrency = biExecutorConfig.getMaxConcurrency();
+        int queueCapacity = biExecutorConfig.getQueueCapacity();
+        ChartTaskExecutor chartTaskExecutor = "platform".equals(biExecutorConfig.getMode())
+                ? new PlatformChartTaskExecutor(maxConcurrency, queueCapacity)
+                : new VirtualChartTaskExecutor(maxConcurrency, queueCapacity);
+        log.info("chart task executor: {}, maxConcurrency = {}, queueCapacity = {}",
+                chartTaskExecutor.getClass().getSimpleName(), maxConcurrency, queueCapacity);
+        Gauge.builder("bi.chart.executor.active", chartTaskExecutor, ChartTaskExecutor::getActiveCount)
+                .register(meterRegistry);
+        Gauge.builder("bi.chart.executor.queued", chartTaskExecutor, ChartTaskExecutor::getQueueSize)
+                .register(meterRegistry);
+        return chartTaskExecutor;
+    }
 
-            @Override
-            public Thread newThread(@NotNull Runnable r) {
-                Thread thread = new Thread(r);
-                thread.setName("线程" + count);
-                count++;
-                return thread;
-            }
-        };
-        ThreadPoolExecutor threadPoolExecutor = new ThreadPoolExecutor(2, 4, 100, TimeUnit.SECONDS,
-                new ArrayBlockingQueue<>(4), threadFactory);
-        return threadPoolExecutor;
+    /**
+     * 按用户公平调度，在途任务数不超过执行器的并发上限
+     */
+    @Bean
+    public FairChartTaskScheduler fairChartTaskScheduler(ChartTaskExecutor chartTaskExecutor,
+                                                         BiExecutorConfig biExecutorConfig,
+                                                         MeterRegistry meterRegistry) {
+        FairChartTaskScheduler fairChartTaskScheduler = new FairChartTaskScheduler(chartTaskExecutor,
+                biExecutorConfig.getQueueCapacity(), meterRegistry);
+        Gauge.builder("bi.chart.scheduler.queued", fairChartTaskScheduler, FairChartTaskScheduler::getQueueSize)
+                .register(meterRegistry);
+        return fairChartTaskScheduler;
     }
 }
@@ -0,0 +1,49 @@
+package com.tang.springbootinit.constant;
+
+import java.util.List;
+
+/**
+ * 图表常量
+ */
+public interface ChartConstant {
+
+    /**
+     * chartData（text 列）最多保存的 csv 字节数，超出时只写入图表数据表
+     */
+    int CHART_DATA_INLINE_MAX_BYTES = 60 * 1024;
+
+    /**
+     * 图表数据分页查询的最大页面大小
+     */
+    int CHART_DATA_MAX_PAGE_SIZE = 1000;
+
+    /**
+     * 流式生成的 SSE 连接超时时间（毫秒）
+     */
+    long CHART_STREAM_TIMEOUT_MILLIS = 5 * 60 * 1000L;
+
+    /**
+     * 任务完成通知的 SSE 连接超时时间（毫秒），超时后由客户端重连
+     */
+    long CHART_NOTIFY_TIMEOUT_MILLIS = 30 * 60 * 1000L;
+
+    /**
+     * 每个用户同时保持的通知连接数上限（多个标签页），超出时关闭最早的连接
+     */
+    int CHART_NOTIFY_MAX_CONNECTIONS_PER_USER = 5;
+
+    /**
+     * 批量查询图表状态时最多的图表数
+     */
+    int CHART_STATUS_MAX_BATCH = 100;
+
+    /**
+     * 图表状态缓存（每个用户一个 hash）的过期时间（毫秒），每次写入时刷新
+     */
+    long CHART_STATUS_CACHE_TTL_MILLIS = 24 * 60 * 60 * 1000L;
+
+    /**
+     * 游标分页支持的排序字段（不能为 null，相同值之间按 id 排序）
+     */
+    List<String> CHART_CURSOR_SORT_FIELDS = List.of("id", "createTime", "updateTime");
+}
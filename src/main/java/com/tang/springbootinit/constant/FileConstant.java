@@ -13,4 +13,9 @@ public interface FileConstant {
      * todo 需替换配置
      */
     String COS_HOST = "https://tang.icu";
+
+    /**
+     * 图表原始数据文件大小上限（与 multipart max-file-size 保持一致）
+     */
+    long CHART_FILE_MAX_SIZE = 10 * 1024 * 1024L;
 }
@@ -0,0 +1,14 @@
+package com.tang.springbootinit.constant;
+
+import java.util.List;
+
+/**
+ * 帖子常量
+ */
+public interface PostConstant {
+
+    /**
+     * 游标分页支持的排序字段（不能为 null，相同值之间按 id 排序）
+     */
+    List<String> POST_CURSOR_SORT_FIELDS = List.of("id", "createTime", "updateTime", "thumbNum", "favourNum");
+}
@@ -2,40 +2,72 @@ package com.tang.springbootinit.controller;
 
 import cn.hutool.core.io.FileUtil;
 import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
+import com.baomidou.mybatisplus.core.toolkit.IdWorker;
 import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
+import com.google.gson.Gson;
+import com.tang.springbootinit.ai.AiResult;
+import com.tang.springbootinit.ai.AiResultParser;
+import com.tang.springbootinit.ai.AiSectionParser;
 import com.tang.springbootinit.annotation.AuthCheck;
-import com.tang.springbootinit.bizmq.BiMessageProducer;
 import com.tang.springbootinit.common.BaseResponse;
+import com.tang.springbootinit.common.CursorPage;
 import com.tang.springbootinit.common.DeleteRequest;
 import com.tang.springbootinit.common.ErrorCode;
 import com.tang.springbootinit.common.ResultUtils;
-import com.tang.springbootinit.constant.CommonConstant;
+import com.tang.springbootinit.constant.ChartConstant;
+import com.tang.springbootinit.constant.FileConstant;
 import com.tang.springbootinit.constant.UserConstant;
+import com.tang.springbootinit.dataset.ColumnarDataset;
+import com.tang.springbootinit.dataset.ColumnarDatasetCodec;
+import com.tang.springbootinit.dataset.profile.DatasetProfile;
+import com.tang.springbootinit.dataset.profile.DatasetProfiler;
 import com.tang.springbootinit.exception.BusinessException;
 import com.tang.springbootinit.exception.ThrowUtils;
 import com.tang.springbootinit.manager.AiManager;
+import com.tang.springbootinit.manager.BiPromptManager;
+import com.tang.springbootinit.manager.ChartAdmissionManager;
+import com.tang.springbootinit.manager.ChartDedupManager;
+import com.tang.springbootinit.manager.ChartLeaseManager;
+import com.tang.springbootinit.manager.ChartNotifyManager;
+import com.tang.springbootinit.manager.ChartStatusCacheManager;
 import com.tang.springbootinit.manager.RedisLimiterManager;
 import com.tang.springbootinit.model.dto.chart.*;
 import com.tang.springbootinit.model.entity.Chart;
 import com.tang.springbootinit.model.entity.User;
+import com.tang.springbootinit.model.enums.ChartStatusEnum;
 import com.tang.springbootinit.model.vo.BiResponse;
+import com.tang.springbootinit.model.vo.ChartStatusVO;
+import com.tang.springbootinit.model.vo.ChartSummaryVO;
+import com.tang.springbootinit.model.vo.ChartVO;
+import com.tang.springbootinit.service.ChartDatasetService;
 import com.tang.springbootinit.service.ChartService;
 import com.tang.springbootinit.service.UserService;
+import com.tang.springbootinit.utils.CursorUtils;
 import com.tang.springbootinit.utils.ExcelUtils;
-import com.tang.springbootinit.utils.SqlUtils;
 import lombok.extern.slf4j.Slf4j;
-import org.apache.commons.lang3.ObjectUtils;
+import org.apache.commons.collections4.CollectionUtils;
+import org.apache.commons.lang3.BooleanUtils;
 import org.apache.commons.lang3.StringUtils;
 import org.springframework.beans.BeanUtils;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.scheduler.Schedulers;
 
 import jakarta.annotation.Resource;
 import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.util.Arrays;
 import java.util.List;
-import java.util.concurrent.CompletableFuture;
-import java.util.concurrent.ThreadPoolExecutor;
+import java.util.Map;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 /**
  * 帖子接口
@@ -48,6 +80,8 @@ import java.util.concurrent.ThreadPoolExecutor;
 @Slf4j
 public class ChartController {
 
+    private final static Gson GSON = new Gson();
+
     @Resource
     private ChartService chartService;
 
@@ -61,10 +95,25 @@ public class ChartController {
     private RedisLimiterManager redisLimiterManager;
 
     @Resource
-    private ThreadPoolExecutor threadPoolExecutor;
+    private BiPromptManager biPromptManager;
+
+    @Resource
+    private ChartDatasetService chartDatasetService;
+
+    @Resource
+    private ChartDedupManager chartDedupManager;
+
+    @Resource
+    private ChartAdmissionManager chartAdmissionManager;
+
+    @Resource
+    private ChartLeaseManager chartLeaseManager;
+
+    @Resource
+    private ChartNotifyManager chartNotifyManager;
 
     @Resource
-    private BiMessageProducer biMessageProducer;
+    private ChartStatusCacheManager chartStatusCacheManager;
 
     // region 增删改查
     /**
@@ -111,6 +160,10 @@ public class ChartController {
             throw new BusinessException(ErrorCode.NO_AUTH_ERROR);
         }
         boolean b = chartService.removeById(id);
+        chartStatusCacheManager.evict(oldChart.getUserId(), id);
+        if (b) {
+            chartDatasetService.dropDatasetIfUnused(oldChart.getDatasetTable());
+        }
         return ResultUtils.success(b);
     }
 
@@ -132,26 +185,31 @@ public class ChartController {
         // 判断是否存在
         Chart oldChart = chartService.getById(id);
         ThrowUtils.throwIf(oldChart == null, ErrorCode.NOT_FOUND_ERROR);
-        boolean result = chartService.updateById(chart);
+        boolean result = chartService.updateChartInfo(chart, oldChart);
+        chartStatusCacheManager.evict(oldChart.getUserId(), id);
         return ResultUtils.success(result);
     }
 
     /**
-     * 根据 id 获取
+     * 根据 id 获取（图表详情，列表只返回摘要，需要图表数据和生成结果时再调用），仅本人或管理员可查看
      *
      * @param id
      * @return
      */
     @GetMapping("/get")
-    public BaseResponse<Chart> getChartById(long id, HttpServletRequest request) {
+    public BaseResponse<ChartVO> getChartById(long id, HttpServletRequest request) {
         if (id <= 0) {
             throw new BusinessException(ErrorCode.PARAMS_ERROR);
         }
+        User loginUser = userService.getLoginUser(request);
         Chart chart = chartService.getById(id);
         if (chart == null) {
             throw new BusinessException(ErrorCode.NOT_FOUND_ERROR);
         }
-        return ResultUtils.success(chart);
+        if (!chart.getUserId().equals(loginUser.getId()) && !userService.isAdmin(loginUser)) {
+            throw new BusinessException(ErrorCode.NO_AUTH_ERROR);
+        }
+        return ResultUtils.success(ChartVO.objToVo(chart));
     }
 
     /**
@@ -162,15 +220,15 @@ public class ChartController {
      * @return
      */
     @PostMapping("/list/page")
-    public BaseResponse<Page<Chart>> listChartByPage(@RequestBody ChartQueryRequest chartQueryRequest,
+    public BaseResponse<Page<ChartSummaryVO>> listChartByPage(@RequestBody ChartQueryRequest chartQueryRequest,
             HttpServletRequest request) {
         long current = chartQueryRequest.getCurrent();
         long size = chartQueryRequest.getPageSize();
         // 限制爬虫
         ThrowUtils.throwIf(size > 20, ErrorCode.PARAMS_ERROR);
-        Page<Chart> chartPage = chartService.page(new Page<>(current, size),
-                getQueryWrapper(chartQueryRequest));
-        return ResultUtils.success(chartPage);
+        Page<ChartSummaryVO> chartSummaryPage = chartService.pageChartSummary(new Page<>(current, size),
+                chartService.getQueryWrapper(chartQueryRequest));
+        return ResultUtils.success(chartSummaryPage);
     }
 
     /**
@@ -181,7 +239,7 @@ public class ChartController {
      * @return
      */
     @PostMapping("/my/list/page")
-    public BaseResponse<Page<Chart>> listMyChartByPage(@RequestBody ChartQueryRequest chartQueryRequest,
+    public BaseResponse<Page<ChartSummaryVO>> listMyChartByPage(@RequestBody ChartQueryRequest chartQueryRequest,
             HttpServletRequest request) {
         if (chartQueryRequest == null) {
             throw new BusinessException(ErrorCode.PARAMS_ERROR);
@@ -192,9 +250,52 @@ public class ChartController {
         long size = chartQueryRequest.getPageSize();
         // 限制爬虫
         ThrowUtils.throwIf(size > 20, ErrorCode.PARAMS_ERROR);
-        Page<Chart> chartPage = chartService.page(new Page<>(current, size),
-                getQueryWrapper(chartQueryRequest));
-        return ResultUtils.success(chartPage);
+        Page<ChartSummaryVO> chartSummaryPage = chartService.pageChartSummary(new Page<>(current, size),
+                chartService.getQueryWrapper(chartQueryRequest));
+        return ResultUtils.success(chartSummaryPage);
+    }
+
+    /**
+     * 游标分页获取列表（不统计总数，适合无限滚动）
+     *
+     * @param chartQueryRequest cursor 第一页传空字符串，之后传上一页的 nextCursor
+     * @param request
+     * @return
+     */
+    @PostMapping("/list/cursor")
+    public BaseResponse<CursorPage<ChartSummaryVO>> listChartByCursor(@RequestBody ChartQueryRequest chartQueryRequest,
+            HttpServletRequest request) {
+        long size = chartQueryRequest.getPageSize();
+        // 限制爬虫
+        ThrowUtils.throwIf(size > 20, ErrorCode.PARAMS_ERROR);
+        CursorUtils.Seek seek = CursorUtils.parse(chartQueryRequest, ChartConstant.CHART_CURSOR_SORT_FIELDS);
+        QueryWrapper<Chart> queryWrapper = chartService.getQueryWrapper(chartQueryRequest);
+        Page<ChartSummaryVO> chartSummaryPage = chartService.pageChartSummary(seek.apply(queryWrapper), queryWrapper);
+        return ResultUtils.success(seek.toCursorPage(chartSummaryPage.getRecords()));
+    }
+
+    /**
+     * 游标分页获取当前用户创建的资源列表
+     *
+     * @param chartQueryRequest cursor 第一页传空字符串，之后传上一页的 nextCursor
+     * @param request
+     * @return
+     */
+    @PostMapping("/my/list/cursor")
+    public BaseResponse<CursorPage<ChartSummaryVO>> listMyChartByCursor(@RequestBody ChartQueryRequest chartQueryRequest,
+            HttpServletRequest request) {
+        if (chartQueryRequest == null) {
+            throw new BusinessException(ErrorCode.PARAMS_ERROR);
+        }
+        User loginUser = userService.getLoginUser(request);
+        chartQueryRequest.setUserId(loginUser.getId());
+        long size = chartQueryRequest.getPageSize();
+        // 限制爬虫
+        ThrowUtils.throwIf(size > 20, ErrorCode.PARAMS_ERROR);
+        CursorUtils.Seek seek = CursorUtils.parse(chartQueryRequest, ChartConstant.CHART_CURSOR_SORT_FIELDS);
+        QueryWrapper<Chart> queryWrapper = chartService.getQueryWrapper(chartQueryRequest);
+        Page<ChartSummaryVO> chartSummaryPage = chartService.pageChartSummary(seek.apply(queryWrapper), queryWrapper);
+        return ResultUtils.success(seek.toCursorPage(chartSummaryPage.getRecords()));
     }
 
     // endregion
@@ -222,7 +323,8 @@ public class ChartController {
         if (!oldChart.getUserId().equals(loginUser.getId()) && !userService.isAdmin(loginUser)) {
             throw new BusinessException(ErrorCode.NO_AUTH_ERROR);
         }
-        boolean result = chartService.updateById(chart);
+        boolean result = chartService.updateChartInfo(chart, oldChart);
+        chartStatusCacheManager.evict(oldChart.getUserId(), id);
         return ResultUtils.success(result);
     }
 
@@ -247,8 +349,7 @@ public class ChartController {
         long size = multipartFile.getSize();
         String originalFilename = multipartFile.getOriginalFilename();
         // 校验文件大小
-        final long ONE_MB = 1024 * 1024L;
-        ThrowUtils.throwIf(size > ONE_MB, ErrorCode.PARAMS_ERROR, "文件超过 1M");
+        ThrowUtils.throwIf(size > FileConstant.CHART_FILE_MAX_SIZE, ErrorCode.PARAMS_ERROR, "文件超过 10M");
         // 校验文件后缀 aaa.png
         String suffix = FileUtil.getSuffix(originalFilename);
         final List<String> validFileSuffixList = Arrays.asList("xlsx");
@@ -258,39 +359,43 @@ public class ChartController {
         // 限流判断，每个用户一个限流器
         redisLimiterManager.doRateLimit("genChartByAi_" + loginUser.getId());
 
-        // 构造用户输入
-        StringBuilder userInput = new StringBuilder();
-        userInput.append("分析需求：").append("\n");
-
-        // 拼接分析目标
-        String userGoal = goal;
-        if (StringUtils.isNotBlank(chartType)) {
-            userGoal += "，请使用" + chartType;
+        // 读取数据
+        ColumnarDataset dataset = ExcelUtils.excelToDataset(multipartFile);
+        ThrowUtils.throwIf(dataset.isEmpty(), ErrorCode.PARAMS_ERROR, "表格数据为空");
+        // 相同数据、目标和图表类型已生成过时直接复用结果
+        String requestHash = chartDedupManager.requestHash(dataset.getFingerprint(), goal, chartType);
+        boolean regenerate = BooleanUtils.isTrue(genChartByAiRequest.getRegenerate());
+        Chart reusableChart = regenerate ? null : chartDedupManager.findReusableChart(requestHash);
+        if (reusableChart != null) {
+            return ResultUtils.success(reuseChart(reusableChart, name, goal, chartType, requestHash, dataset, loginUser));
         }
-        userInput.append(userGoal).append("\n");
-        userInput.append("原始数据：").append("\n");
-        // 压缩后的数据
-        String csvData = ExcelUtils.excelToCsv(multipartFile);
-        userInput.append(csvData).append("\n");
-
-        String result = aiManager.doChat( userInput.toString() );
-        String[] splits = result.split("【【【【【");
-        if (splits.length < 3) {
-            throw new BusinessException(ErrorCode.SYSTEM_ERROR, "AI 生成错误");
+        DatasetProfile datasetProfile = DatasetProfiler.profile(dataset);
+        // 构造用户输入（数据超出 token 预算时先缩减）
+        BiPromptManager.BiPrompt biPrompt = biPromptManager.buildUserInput(goal, chartType, dataset, datasetProfile);
+
+        String result = aiManager.doChat(biPrompt.getUserInput(), regenerate);
+        AiResult aiResult;
+        try {
+            aiResult = AiResultParser.parse(result);
+        } catch (BusinessException e) {
+            aiManager.evictCache(biPrompt.getUserInput());
+            throw e;
         }
-        String genChart = splits[1].trim();
-        String genResult = splits[2].trim();
+        String genChart = aiResult.getGenChart();
+        String genResult = biPrompt.decorateResult(aiResult.getGenResult());
         // 插入到数据库
         Chart chart = new Chart();
         chart.setName(name);
         chart.setGoal(goal);
-        chart.setChartData(csvData);
+        fillChartData(chart, dataset, datasetProfile, requestHash);
         chart.setChartType(chartType);
         chart.setGenChart(genChart);
         chart.setGenResult(genResult);
+        chart.setStatus(ChartStatusEnum.SUCCEED.getValue());
         chart.setUserId(loginUser.getId());
         boolean saveResult = chartService.save(chart);
         ThrowUtils.throwIf(!saveResult, ErrorCode.SYSTEM_ERROR, "图表保存失败");
+        chartDatasetService.ensureDatasetTable(chart, dataset);
         BiResponse biResponse = new BiResponse();
         biResponse.setGenChart(genChart);
         biResponse.setGenResult(genResult);
@@ -298,6 +403,155 @@ public class ChartController {
         return ResultUtils.success(biResponse);
     }
 
+    /**
+     * 智能分析（流式，SSE）
+     * <p>
+     * 事件：chart（图表代码，生成完即推送）、result（分析结论增量文本）、done（图表 id）、error（错误信息）；
+     * 没有空闲的 AI 调用许可时返回请求过于频繁和建议重试时间
+     *
+     * @param multipartFile
+     * @param genChartByAiRequest
+     * @param request
+     * @param response
+     * @return
+     */
+    @PostMapping(value = "/gen/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter genChartByAiStream(@RequestPart("file") MultipartFile multipartFile,
+                                         GenChartByAiRequest genChartByAiRequest, HttpServletRequest request,
+                                         HttpServletResponse response) {
+        String name = genChartByAiRequest.getName();
+        String goal = genChartByAiRequest.getGoal();
+        String chartType = genChartByAiRequest.getChartType();
+        // 校验
+        ThrowUtils.throwIf(StringUtils.isBlank(goal), ErrorCode.PARAMS_ERROR, "目标为空");
+        ThrowUtils.throwIf(StringUtils.isNotBlank(name) && name.length() > 100, ErrorCode.PARAMS_ERROR, "名称过长");
+        // 校验文件
+        long size = multipartFile.getSize();
+        String originalFilename = multipartFile.getOriginalFilename();
+        // 校验文件大小
+        ThrowUtils.throwIf(size > FileConstant.CHART_FILE_MAX_SIZE, ErrorCode.PARAMS_ERROR, "文件超过 10M");
+        // 校验文件后缀 aaa.png
+        String suffix = FileUtil.getSuffix(originalFilename);
+        final List<String> validFileSuffixList = Arrays.asList("xlsx");
+        ThrowUtils.throwIf(!validFileSuffixList.contains(suffix), ErrorCode.PARAMS_ERROR, "文件后缀非法");
+
+        User loginUser = userService.getLoginUser(request);
+        // 限流判断，每个用户一个限流器
+        redisLimiterManager.doRateLimit("genChartByAi_" + loginUser.getId());
+
+        // 读取数据
+        ColumnarDataset dataset = ExcelUtils.excelToDataset(multipartFile);
+        ThrowUtils.throwIf(dataset.isEmpty(), ErrorCode.PARAMS_ERROR, "表格数据为空");
+        SseEmitter emitter = new SseEmitter(ChartConstant.CHART_STREAM_TIMEOUT_MILLIS);
+        // 相同数据、目标和图表类型已生成过时直接复用结果
+        String requestHash = chartDedupManager.requestHash(dataset.getFingerprint(), goal, chartType);
+        boolean regenerate = BooleanUtils.isTrue(genChartByAiRequest.getRegenerate());
+        Chart reusableChart = regenerate ? null : chartDedupManager.findReusableChart(requestHash);
+        if (reusableChart != null) {
+            BiResponse biResponse = reuseChart(reusableChart, name, goal, chartType, requestHash, dataset, loginUser);
+            sendEvent(emitter, "chart", biResponse.getGenChart());
+            sendEvent(emitter, "result", biResponse.getGenResult());
+            sendEvent(emitter, "done", String.valueOf(biResponse.getChartId()));
+            emitter.complete();
+            return emitter;
+        }
+        DatasetProfile datasetProfile = DatasetProfiler.profile(dataset);
+        // 构造用户输入（数据超出 token 预算时先缩减）
+        BiPromptManager.BiPrompt biPrompt = biPromptManager.buildUserInput(goal, chartType, dataset, datasetProfile);
+
+        AtomicBoolean chartSent = new AtomicBoolean(false);
+        AtomicBoolean resultStarted = new AtomicBoolean(false);
+        AiSectionParser parser = new AiSectionParser(new AiSectionParser.Listener() {
+            @Override
+            public void onSectionText(int section, String text) {
+                if (section != AiSectionParser.RESULT_SECTION) {
+                    return;
+                }
+                // 去掉结论开头的空白
+                if (!resultStarted.get()) {
+                    text = StringUtils.stripStart(text, null);
+                    resultStarted.set(!text.isEmpty());
+                }
+                if (resultStarted.get()) {
+                    sendEvent(emitter, "result", text);
+                }
+            }
+
+            @Override
+            public void onSectionEnd(int section, String content) {
+                if (section != AiSectionParser.CHART_SECTION) {
+                    return;
+                }
+                // 图表代码校验（含本地修复）通过才推送，否则等输出结束后整体解析
+                try {
+                    sendEvent(emitter, "chart", AiResultParser.parseChart(content));
+                    chartSent.set(true);
+                } catch (BusinessException e) {
+                    log.warn("stream chart section invalid: {}", e.getMessage());
+                }
+            }
+        });
+        Flux<String> stream;
+        try {
+            stream = aiManager.doChatStream(biPrompt.getUserInput(), regenerate);
+        } catch (RejectedExecutionException e) {
+            throw rejectChartTask(response);
+        }
+        Disposable disposable = stream
+                .publishOn(Schedulers.boundedElastic())
+                .subscribe(parser::feed, e -> {
+                    log.error("stream chart generation failed", e);
+                    sendEvent(emitter, "error", "AI 生成错误");
+                    emitter.complete();
+                }, () -> {
+                    try {
+                        parser.finish();
+                        AiResult aiResult;
+                        try {
+                            aiResult = AiResultParser.parse(
+                                    String.join(AiSectionParser.SECTION_DELIMITER, parser.getSections()));
+                        } catch (BusinessException e) {
+                            aiManager.evictCache(biPrompt.getUserInput());
+                            sendEvent(emitter, "error", e.getMessage());
+                            return;
+                        }
+                        String genChart = aiResult.getGenChart();
+                        String genResult = aiResult.getGenResult();
+                        String decoratedResult = biPrompt.decorateResult(genResult);
+                        if (!chartSent.get()) {
+                            sendEvent(emitter, "chart", genChart);
+                        }
+                        // 分隔符缺失时结论未推送过，整体推送
+                        sendEvent(emitter, "result", resultStarted.get()
+                                ? decoratedResult.substring(genResult.length()) : decoratedResult);
+                        // 插入到数据库
+                        Chart chart = new Chart();
+                        chart.setName(name);
+                        chart.setGoal(goal);
+                        fillChartData(chart, dataset, datasetProfile, requestHash);
+                        chart.setChartType(chartType);
+                        chart.setGenChart(genChart);
+                        chart.setGenResult(decoratedResult);
+                        chart.setStatus(ChartStatusEnum.SUCCEED.getValue());
+                        chart.setUserId(loginUser.getId());
+                        boolean saveResult = chartService.save(chart);
+                        ThrowUtils.throwIf(!saveResult, ErrorCode.SYSTEM_ERROR, "图表保存失败");
+                        chartDatasetService.ensureDatasetTable(chart, dataset);
+                        sendEvent(emitter, "done", String.valueOf(chart.getId()));
+                    } catch (Exception e) {
+                        log.error("save stream chart failed", e);
+                        sendEvent(emitter, "error", "图表保存失败");
+                    } finally {
+                        emitter.complete();
+                    }
+                });
+        // 客户端断开、超时或连接结束后停止接收 AI 输出
+        emitter.onTimeout(disposable::dispose);
+        emitter.onError(e -> disposable.dispose());
+        emitter.onCompletion(disposable::dispose);
+        return emitter;
+    }
+
     /**
      * 智能分析（异步）
      *
@@ -308,7 +562,8 @@ public class ChartController {
      */
     @PostMapping("/gen/async")
     public BaseResponse<BiResponse> genChartByAiAsync(@RequestPart("file") MultipartFile multipartFile,
-                                             GenChartByAiRequest genChartByAiRequest, HttpServletRequest request) {
+                                             GenChartByAiRequest genChartByAiRequest, HttpServletRequest request,
+                                             HttpServletResponse response) {
         String name = genChartByAiRequest.getName();
         String goal = genChartByAiRequest.getGoal();
         String chartType = genChartByAiRequest.getChartType();
@@ -319,8 +574,7 @@ public class ChartController {
         long size = multipartFile.getSize();
         String originalFilename = multipartFile.getOriginalFilename();
         // 校验文件大小
-        final long ONE_MB = 1024 * 1024L;
-        ThrowUtils.throwIf(size > ONE_MB, ErrorCode.PARAMS_ERROR, "文件超过 1M");
+        ThrowUtils.throwIf(size > FileConstant.CHART_FILE_MAX_SIZE, ErrorCode.PARAMS_ERROR, "文件超过 10M");
         // 校验文件后缀 aaa.png
         String suffix = FileUtil.getSuffix(originalFilename);
         final List<String> validFileSuffixList = Arrays.asList("xlsx", "xls");
@@ -330,69 +584,111 @@ public class ChartController {
         // 限流判断，每个用户一个限流器
         redisLimiterManager.doRateLimit("genChartByAi_" + loginUser.getId());
 
-        // 构造用户输入
-        StringBuilder userInput = new StringBuilder();
-        userInput.append("分析需求：").append("\n");
-
-        // 拼接分析目标
-        String userGoal = goal;
-        if (StringUtils.isNotBlank(chartType)) {
-            userGoal += "，请使用" + chartType;
+        // 读取数据
+        ColumnarDataset dataset = ExcelUtils.excelToDataset(multipartFile);
+        ThrowUtils.throwIf(dataset.isEmpty(), ErrorCode.PARAMS_ERROR, "表格数据为空");
+        // 相同数据、目标和图表类型已生成过时直接复用结果
+        String requestHash = chartDedupManager.requestHash(dataset.getFingerprint(), goal, chartType);
+        boolean regenerate = BooleanUtils.isTrue(genChartByAiRequest.getRegenerate());
+        Chart reusableChart = regenerate ? null : chartDedupManager.findReusableChart(requestHash);
+        if (reusableChart != null) {
+            return ResultUtils.success(reuseChart(reusableChart, name, goal, chartType, requestHash, dataset, loginUser));
+        }
+        DatasetProfile datasetProfile = DatasetProfiler.profile(dataset);
+        // 构造用户输入（数据超出 token 预算时先缩减）
+        BiPromptManager.BiPrompt biPrompt = biPromptManager.buildUserInput(goal, chartType, dataset, datasetProfile);
+        // 准入判断放在保存之前，执行器已满时转交消息队列或直接拒绝，不留下无人处理的图表
+        boolean spillToMq = !chartAdmissionManager.hasCapacity();
+        if (spillToMq && !chartAdmissionManager.isSpillToMq()) {
+            throw rejectChartTask(response);
         }
-        userInput.append(userGoal).append("\n");
-        userInput.append("原始数据：").append("\n");
-        // 压缩后的数据
-        String csvData = ExcelUtils.excelToCsv(multipartFile);
-        userInput.append(csvData).append("\n");
 
         // 插入到数据库
         Chart chart = new Chart();
         chart.setName(name);
         chart.setGoal(goal);
-        chart.setChartData(csvData);
+        fillChartData(chart, dataset, datasetProfile, requestHash);
         chart.setChartType(chartType);
-        chart.setStatus("wait");
+        chart.setStatus(ChartStatusEnum.WAIT.getValue());
         chart.setUserId(loginUser.getId());
-        boolean saveResult = chartService.save(chart);
+        // 转交消息队列时，任务消息与图表在同一事务中写入发件箱
+        boolean saveResult = spillToMq ? chartService.saveWithTaskMessage(chart, regenerate) : chartService.save(chart);
         ThrowUtils.throwIf(!saveResult, ErrorCode.SYSTEM_ERROR, "图表保存失败");
+        chartDatasetService.ensureDatasetTable(chart, dataset);
+        chartStatusCacheManager.put(chart.getUserId(), chart.getId(), ChartStatusEnum.WAIT, null);
+        BiResponse biResponse = new BiResponse();
+        biResponse.setChartId(chart.getId());
+        if (spillToMq) {
+            chartAdmissionManager.recordSpilled();
+            return ResultUtils.success(biResponse);
+        }
 
-        // todo 建议处理任务队列满了后，抛异常的情况
-        CompletableFuture.runAsync(() -> {
+        Runnable task = () -> {
             // 先修改图表任务状态为 “执行中”。等执行成功后，修改为 “已完成”、保存执行结果；执行失败后，状态修改为 “失败”，记录任务失败信息。
-            Chart updateChart = new Chart();
-            updateChart.setId(chart.getId());
-            updateChart.setStatus("running");
-            boolean b = chartService.updateById(updateChart);
-            if (!b) {
-                handleChartUpdateError(chart.getId(), "更新图表执行中状态失败");
+            // 执行中持有租约并定时续约，异常退出或节点宕机后租约过期，由回收任务重新投递
+            if (!chartLeaseManager.acquire(chart.getId())) {
+                // 任务已不在等待状态（已被执行或已结束），不再调用 AI
+                log.info("chart {} is not waiting, skip", chart.getId());
                 return;
             }
-            // 调用 AI
-            String result = aiManager.doChat(userInput.toString());
-            String[] splits = result.split("【【【【【");
-            if (splits.length < 3) {
-                handleChartUpdateError(chart.getId(), "AI 生成错误");
-                return;
+            chartStatusCacheManager.put(chart.getUserId(), chart.getId(), ChartStatusEnum.RUNNING, null);
+            try {
+                // 调用 AI
+                String result = aiManager.doChat(biPrompt.getUserInput(), regenerate);
+                AiResult aiResult;
+                try {
+                    aiResult = AiResultParser.parse(result);
+                } catch (BusinessException e) {
+                    aiManager.evictCache(biPrompt.getUserInput());
+                    handleChartUpdateError(chart, e.getMessage());
+                    return;
+                }
+                String genChart = aiResult.getGenChart();
+                String genResult = biPrompt.decorateResult(aiResult.getGenResult());
+                boolean updateResult = chartLeaseManager.complete(chart.getId(), genChart, genResult);
+                if (!updateResult) {
+                    log.warn("chart {} lease lost, result discarded", chart.getId());
+                    return;
+                }
+                chartNotifyManager.notifyChart(chart.getUserId(), chart.getId(), ChartStatusEnum.SUCCEED, null);
+            } catch (Exception e) {
+                // AI 调用、数据库等异常：标记失败并通知，不留在执行中等租约过期
+                log.error("chart {} failed", chart.getId(), e);
+                handleChartUpdateError(chart, "AI 生成失败：" + e.getMessage());
+            } finally {
+                chartLeaseManager.release(chart.getId());
             }
-            String genChart = splits[1].trim();
-            String genResult = splits[2].trim();
-            Chart updateChartResult = new Chart();
-            updateChartResult.setId(chart.getId());
-            updateChartResult.setGenChart(genChart);
-            updateChartResult.setGenResult(genResult);
-            // todo 建议定义状态为枚举值
-            updateChartResult.setStatus("succeed");
-            boolean updateResult = chartService.updateById(updateChartResult);
-            if (!updateResult) {
-                handleChartUpdateError(chart.getId(), "更新图表成功状态失败");
+        };
+        try {
+            chartAdmissionManager.execute(loginUser, task, () -> handOffRejectedTask(chart, regenerate));
+        } catch (RejectedExecutionException e) {
+            // 检查容量之后执行器被占满
+            if (chartAdmissionManager.isSpillToMq()) {
+                chartAdmissionManager.recordSpilled();
+                chartService.addTaskMessage(chart, regenerate);
+                return ResultUtils.success(biResponse);
             }
-        }, threadPoolExecutor);
-
-        BiResponse biResponse = new BiResponse();
-        biResponse.setChartId(chart.getId());
+            chartService.removeById(chart.getId());
+            chartStatusCacheManager.evict(chart.getUserId(), chart.getId());
+            chartDatasetService.dropDatasetIfUnused(chart.getDatasetTable());
+            throw rejectChartTask(response);
+        }
         return ResultUtils.success(biResponse);
     }
 
+    /**
+     * 拒绝异步任务（或没有 AI 调用许可的流式请求），通过 Retry-After 告知建议的重试等待秒数
+     *
+     * @param response
+     * @return 需要抛出的异常
+     */
+    private BusinessException rejectChartTask(HttpServletResponse response) {
+        chartAdmissionManager.recordRejected();
+        long retryAfterSeconds = chartAdmissionManager.estimateRetryAfterSeconds();
+        response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfterSeconds));
+        return new BusinessException(ErrorCode.TOO_MANY_REQUEST, "系统繁忙，请 " + retryAfterSeconds + " 秒后重试");
+    }
+
     /**
      * 智能分析（异步消息队列）
      *
@@ -414,8 +710,7 @@ public class ChartController {
         long size = multipartFile.getSize();
         String originalFilename = multipartFile.getOriginalFilename();
         // 校验文件大小
-        final long ONE_MB = 1024 * 1024L;
-        ThrowUtils.throwIf(size > ONE_MB, ErrorCode.PARAMS_ERROR, "文件超过 1M");
+        ThrowUtils.throwIf(size > FileConstant.CHART_FILE_MAX_SIZE, ErrorCode.PARAMS_ERROR, "文件超过 10M");
         // 校验文件后缀 aaa.png
         String suffix = FileUtil.getSuffix(originalFilename);
         final List<String> validFileSuffixList = Arrays.asList("xlsx", "xls");
@@ -425,76 +720,205 @@ public class ChartController {
         // 限流判断，每个用户一个限流器
         redisLimiterManager.doRateLimit("genChartByAi_" + loginUser.getId());
 
-        // 构造用户输入
-        StringBuilder userInput = new StringBuilder();
-        userInput.append("分析需求：").append("\n");
-
-        // 拼接分析目标
-        String userGoal = goal;
-        if (StringUtils.isNotBlank(chartType)) {
-            userGoal += "，请使用" + chartType;
+        // 读取数据
+        ColumnarDataset dataset = ExcelUtils.excelToDataset(multipartFile);
+        ThrowUtils.throwIf(dataset.isEmpty(), ErrorCode.PARAMS_ERROR, "表格数据为空");
+        // 相同数据、目标和图表类型已生成过时直接复用结果
+        String requestHash = chartDedupManager.requestHash(dataset.getFingerprint(), goal, chartType);
+        boolean regenerate = BooleanUtils.isTrue(genChartByAiRequest.getRegenerate());
+        Chart reusableChart = regenerate ? null : chartDedupManager.findReusableChart(requestHash);
+        if (reusableChart != null) {
+            return ResultUtils.success(reuseChart(reusableChart, name, goal, chartType, requestHash, dataset, loginUser));
         }
-        userInput.append(userGoal).append("\n");
-        userInput.append("原始数据：").append("\n");
-        // 压缩后的数据
-        String csvData = ExcelUtils.excelToCsv(multipartFile);
-        userInput.append(csvData).append("\n");
+        DatasetProfile datasetProfile = DatasetProfiler.profile(dataset);
 
         // 插入到数据库
         Chart chart = new Chart();
         chart.setName(name);
         chart.setGoal(goal);
-        chart.setChartData(csvData);
+        fillChartData(chart, dataset, datasetProfile, requestHash);
         chart.setChartType(chartType);
-        chart.setStatus("wait");
+        chart.setStatus(ChartStatusEnum.WAIT.getValue());
         chart.setUserId(loginUser.getId());
-        boolean saveResult = chartService.save(chart);
+        // 图表和任务消息在同一事务中写入，由发件箱异步投递，请求不等待消息队列
+        boolean saveResult = chartService.saveWithTaskMessage(chart, regenerate);
         ThrowUtils.throwIf(!saveResult, ErrorCode.SYSTEM_ERROR, "图表保存失败");
+        chartDatasetService.ensureDatasetTable(chart, dataset);
+        chartStatusCacheManager.put(chart.getUserId(), chart.getId(), ChartStatusEnum.WAIT, null);
         long newChartId = chart.getId();
-        biMessageProducer.sendMessage(String.valueOf(newChartId));
         BiResponse biResponse = new BiResponse();
         biResponse.setChartId(newChartId);
         return ResultUtils.success(biResponse);
     }
 
-    private void handleChartUpdateError(long chartId, String execMessage) {
-        Chart updateChartResult = new Chart();
-        updateChartResult.setId(chartId);
-        updateChartResult.setStatus("failed");
-        updateChartResult.setExecMessage("execMessage");
-        boolean updateResult = chartService.updateById(updateChartResult);
-        if (!updateResult) {
-            log.error("更新图表失败状态失败" + chartId + "," + execMessage);
+    /**
+     * 批量查询当前用户图表的任务状态（轮询用，优先读 Redis 状态缓存）
+     *
+     * @param ids     图表 id，最多 100 个
+     * @param request
+     * @return 不存在或无权限的图表不返回
+     */
+    @GetMapping("/status")
+    public BaseResponse<List<ChartStatusVO>> listChartStatus(@RequestParam("ids") List<Long> ids,
+                                                             HttpServletRequest request) {
+        ThrowUtils.throwIf(CollectionUtils.isEmpty(ids) || ids.size() > ChartConstant.CHART_STATUS_MAX_BATCH,
+                ErrorCode.PARAMS_ERROR);
+        User loginUser = userService.getLoginUser(request);
+        return ResultUtils.success(chartStatusCacheManager.getStatuses(loginUser.getId(), ids));
+    }
+
+    /**
+     * 订阅当前用户的图表任务完成通知（SSE，事件名 chart，数据为 ChartStatusVO），替代轮询图表列表
+     *
+     * @param request
+     * @return
+     */
+    @GetMapping(value = "/notify", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter subscribeChartNotify(HttpServletRequest request) {
+        User loginUser = userService.getLoginUser(request);
+        return chartNotifyManager.subscribe(loginUser.getId());
+    }
+
+    /**
+     * 分页查询图表数据
+     *
+     * @param chartDataQueryRequest
+     * @param request
+     * @return
+     */
+    @PostMapping("/data/page")
+    public BaseResponse<List<Map<String, Object>>> listChartDataByPage(@RequestBody ChartDataQueryRequest chartDataQueryRequest,
+                                                                       HttpServletRequest request) {
+        if (chartDataQueryRequest == null || chartDataQueryRequest.getId() == null || chartDataQueryRequest.getId() <= 0) {
+            throw new BusinessException(ErrorCode.PARAMS_ERROR);
         }
+        long current = chartDataQueryRequest.getCurrent();
+        long size = chartDataQueryRequest.getPageSize();
+        ThrowUtils.throwIf(current < 1 || size < 1 || size > ChartConstant.CHART_DATA_MAX_PAGE_SIZE, ErrorCode.PARAMS_ERROR);
+        Chart chart = chartService.getById(chartDataQueryRequest.getId());
+        ThrowUtils.throwIf(chart == null, ErrorCode.NOT_FOUND_ERROR);
+        // 仅本人或管理员可查看
+        User loginUser = userService.getLoginUser(request);
+        if (!chart.getUserId().equals(loginUser.getId()) && !userService.isAdmin(loginUser)) {
+            throw new BusinessException(ErrorCode.NO_AUTH_ERROR);
+        }
+        List<Map<String, Object>> rows = chartDatasetService.queryDataset(chart, chartDataQueryRequest.getColumns(),
+                (current - 1) * size, (int) size);
+        return ResultUtils.success(rows);
     }
 
     /**
-     * 获取查询包装类
+     * 复用已生成的结果，为当前用户保存一份图表
      *
-     * @param chartQueryRequest
+     * @param reusableChart
+     * @param name
+     * @param goal
+     * @param chartType
+     * @param requestHash
+     * @param dataset
+     * @param loginUser
      * @return
      */
-    private QueryWrapper<Chart> getQueryWrapper(ChartQueryRequest chartQueryRequest) {
-        QueryWrapper<Chart> queryWrapper = new QueryWrapper<>();
-        if (chartQueryRequest == null) {
-            return queryWrapper;
+    private BiResponse reuseChart(Chart reusableChart, String name, String goal, String chartType,
+                                  String requestHash, ColumnarDataset dataset, User loginUser) {
+        Chart chart = new Chart();
+        chart.setName(name);
+        chart.setGoal(goal);
+        fillChartData(chart, dataset, null, requestHash);
+        chart.setChartType(chartType);
+        chart.setGenChart(reusableChart.getGenChart());
+        chart.setGenResult(reusableChart.getGenResult());
+        chart.setStatus(ChartStatusEnum.SUCCEED.getValue());
+        chart.setUserId(loginUser.getId());
+        boolean saveResult = chartService.save(chart);
+        ThrowUtils.throwIf(!saveResult, ErrorCode.SYSTEM_ERROR, "图表保存失败");
+        chartDatasetService.ensureDatasetTable(chart, dataset);
+        log.info("reuse chart {} for chart {}", reusableChart.getId(), chart.getId());
+        BiResponse biResponse = new BiResponse();
+        biResponse.setGenChart(chart.getGenChart());
+        biResponse.setGenResult(chart.getGenResult());
+        biResponse.setChartId(chart.getId());
+        return biResponse;
+    }
+
+    /**
+     * 填充图表数据：写入数据表，保存列式数据集和统计概况，chartData 只保留小数据；
+     * 已保存过的数据集直接共享原有的数据表和列式数据（图表保存后由 ensureDatasetTable 确认共享的数据表未被删除）
+     *
+     * @param chart
+     * @param dataset
+     * @param datasetProfile 为空时现场计算
+     * @param requestHash
+     */
+    private void fillChartData(Chart chart, ColumnarDataset dataset, DatasetProfile datasetProfile, String requestHash) {
+        // 先生成 id，数据表名随 id 确定，图表只需插入一次
+        chart.setId(IdWorker.getId());
+        chart.setDatasetHash(dataset.getFingerprint());
+        chart.setRequestHash(requestHash);
+        Chart datasetOwner = chartDedupManager.findDatasetOwner(dataset.getFingerprint());
+        if (datasetOwner != null) {
+            chart.setDatasetTable(datasetOwner.getDatasetTable());
+            chart.setChartProfile(datasetOwner.getChartProfile());
+        } else {
+            if (datasetProfile == null) {
+                datasetProfile = DatasetProfiler.profile(dataset);
+            }
+            chart.setDatasetTable(chartDatasetService.saveDataset(chart.getId(), dataset));
+            chart.setChartDataset(ColumnarDatasetCodec.encode(dataset));
+            chart.setChartProfile(GSON.toJson(datasetProfile));
+        }
+        String csvData = dataset.toCsv();
+        if (csvData.getBytes(StandardCharsets.UTF_8).length <= ChartConstant.CHART_DATA_INLINE_MAX_BYTES) {
+            chart.setChartData(csvData);
+        }
+    }
+
+    /**
+     * 推送 SSE 事件，连接已断开时忽略
+     *
+     * @param emitter
+     * @param name
+     * @param data
+     */
+    private static void sendEvent(SseEmitter emitter, String name, String data) {
+        if (StringUtils.isEmpty(data)) {
+            return;
+        }
+        try {
+            emitter.send(SseEmitter.event().name(name).data(data));
+        } catch (IOException | IllegalStateException e) {
+            log.warn("send sse event {} failed: {}", name, e.getMessage());
+        }
+    }
+
+    /**
+     * 已排队的任务因执行器关闭（应用停止）不再执行：转交消息队列，由其他节点或重启后执行，转交失败时标记为失败
+     *
+     * @param chart
+     * @param regenerate
+     */
+    private void handOffRejectedTask(Chart chart, boolean regenerate) {
+        try {
+            chartService.addTaskMessage(chart, regenerate);
+            chartAdmissionManager.recordSpilled();
+            return;
+        } catch (Exception e) {
+            log.error("chart {} hand off to mq failed", chart.getId(), e);
+        }
+        String execMessage = "任务未能执行，请重新生成";
+        if (!chartService.failWaitingTask(chart.getId(), execMessage)) {
+            log.error("更新图表失败状态失败" + chart.getId() + "," + execMessage);
+            return;
+        }
+        chartNotifyManager.notifyChart(chart.getUserId(), chart.getId(), ChartStatusEnum.FAILED, execMessage);
+    }
+
+    private void handleChartUpdateError(Chart chart, String execMessage) {
+        boolean updateResult = chartLeaseManager.fail(chart.getId(), execMessage);
+        if (!updateResult) {
+            log.error("更新图表失败状态失败" + chart.getId() + "," + execMessage);
+            return;
         }
-        Long id = chartQueryRequest.getId();
-        String name = chartQueryRequest.getName();
-        String goal = chartQueryRequest.getGoal();
-        String chartType = chartQueryRequest.getChartType();
-        Long userId = chartQueryRequest.getUserId();
-        String sortField = chartQueryRequest.getSortField();
-        String sortOrder = chartQueryRequest.getSortOrder();
-
-        queryWrapper.eq(id != null && id > 0, "id", id);
-        queryWrapper.like(StringUtils.isNotBlank(name), "name", name);
-        queryWrapper.eq(StringUtils.isNotBlank(goal), "goal", goal);
-        queryWrapper.eq(StringUtils.isNotBlank(chartType), "chartType", chartType);
-        queryWrapper.eq(ObjectUtils.isNotEmpty(userId), "userId", userId);
-        queryWrapper.eq("isDelete", false);
-        queryWrapper.orderBy(SqlUtils.validSortField(sortField), sortOrder.equals(CommonConstant.SORT_ORDER_ASC),
-                sortField);
-        return queryWrapper;
+        chartNotifyManager.notifyChart(chart.getUserId(), chart.getId(), ChartStatusEnum.FAILED, execMessage);
     }
 }
@@ -1,12 +1,15 @@
 package com.tang.springbootinit.controller;
 
+import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
 import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
 import com.google.gson.Gson;
 import com.tang.springbootinit.annotation.AuthCheck;
 import com.tang.springbootinit.common.BaseResponse;
+import com.tang.springbootinit.common.CursorPage;
 import com.tang.springbootinit.common.DeleteRequest;
 import com.tang.springbootinit.common.ErrorCode;
 import com.tang.springbootinit.common.ResultUtils;
+import com.tang.springbootinit.constant.PostConstant;
 import com.tang.springbootinit.constant.UserConstant;
 import com.tang.springbootinit.exception.BusinessException;
 import com.tang.springbootinit.exception.ThrowUtils;
@@ -19,6 +22,7 @@ import com.tang.springbootinit.model.entity.User;
 import com.tang.springbootinit.model.vo.PostVO;
 import com.tang.springbootinit.service.PostService;
 import com.tang.springbootinit.service.UserService;
+import com.tang.springbootinit.utils.CursorUtils;
 import java.util.List;
 import jakarta.annotation.Resource;
 import jakarta.servlet.http.HttpServletRequest;
@@ -194,6 +198,49 @@ public class PostController {
         return ResultUtils.success(postService.getPostVOPage(postPage, request));
     }
 
+    /**
+     * 游标分页获取列表（封装类，不统计总数，适合无限滚动）
+     *
+     * @param postQueryRequest cursor 第一页传空字符串，之后传上一页的 nextCursor
+     * @param request
+     * @return
+     */
+    @PostMapping("/list/cursor/vo")
+    public BaseResponse<CursorPage<PostVO>> listPostVOByCursor(@RequestBody PostQueryRequest postQueryRequest,
+            HttpServletRequest request) {
+        long size = postQueryRequest.getPageSize();
+        // 限制爬虫
+        ThrowUtils.throwIf(size > 20, ErrorCode.PARAMS_ERROR);
+        CursorUtils.Seek seek = CursorUtils.parse(postQueryRequest, PostConstant.POST_CURSOR_SORT_FIELDS);
+        QueryWrapper<Post> queryWrapper = postService.getQueryWrapper(postQueryRequest);
+        Page<Post> postPage = postService.page(seek.apply(queryWrapper), queryWrapper);
+        return ResultUtils.success(seek.toCursorPage(postService.getPostVOPage(postPage, request).getRecords()));
+    }
+
+    /**
+     * 游标分页获取当前用户创建的资源列表
+     *
+     * @param postQueryRequest cursor 第一页传空字符串，之后传上一页的 nextCursor
+     * @param request
+     * @return
+     */
+    @PostMapping("/my/list/cursor/vo")
+    public BaseResponse<CursorPage<PostVO>> listMyPostVOByCursor(@RequestBody PostQueryRequest postQueryRequest,
+            HttpServletRequest request) {
+        if (postQueryRequest == null) {
+            throw new BusinessException(ErrorCode.PARAMS_ERROR);
+        }
+        User loginUser = userService.getLoginUser(request);
+        postQueryRequest.setUserId(loginUser.getId());
+        long size = postQueryRequest.getPageSize();
+        // 限制爬虫
+        ThrowUtils.throwIf(size > 20, ErrorCode.PARAMS_ERROR);
+        CursorUtils.Seek seek = CursorUtils.parse(postQueryRequest, PostConstant.POST_CURSOR_SORT_FIELDS);
+        QueryWrapper<Post> queryWrapper = postService.getQueryWrapper(postQueryRequest);
+        Page<Post> postPage = postService.page(seek.apply(queryWrapper), queryWrapper);
+        return ResultUtils.success(seek.toCursorPage(postService.getPostVOPage(postPage, request).getRecords()));
+    }
+
     // endregion
 
     /**
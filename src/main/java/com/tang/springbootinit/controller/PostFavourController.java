@@ -1,9 +1,12 @@
 package com.tang.springbootinit.controller;
 
+import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
 import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
 import com.tang.springbootinit.common.BaseResponse;
+import com.tang.springbootinit.common.CursorPage;
 import com.tang.springbootinit.common.ErrorCode;
 import com.tang.springbootinit.common.ResultUtils;
+import com.tang.springbootinit.constant.PostConstant;
 import com.tang.springbootinit.exception.BusinessException;
 import com.tang.springbootinit.exception.ThrowUtils;
 import com.tang.springbootinit.model.dto.post.PostQueryRequest;
@@ -15,6 +18,7 @@ import com.tang.springbootinit.model.vo.PostVO;
 import com.tang.springbootinit.service.PostFavourService;
 import com.tang.springbootinit.service.PostService;
 import com.tang.springbootinit.service.UserService;
+import com.tang.springbootinit.utils.CursorUtils;
 import jakarta.annotation.Resource;
 import jakarta.servlet.http.HttpServletRequest;
 import lombok.extern.slf4j.Slf4j;
@@ -106,4 +110,53 @@ public class PostFavourController {
                 postService.getQueryWrapper(postFavourQueryRequest.getPostQueryRequest()), userId);
         return ResultUtils.success(postService.getPostVOPage(postPage, request));
     }
+
+    /**
+     * 游标分页获取我收藏的帖子列表（不统计总数，适合无限滚动）
+     *
+     * @param postQueryRequest cursor 第一页传空字符串，之后传上一页的 nextCursor
+     * @param request
+     */
+    @PostMapping("/my/list/cursor")
+    public BaseResponse<CursorPage<PostVO>> listMyFavourPostByCursor(@RequestBody PostQueryRequest postQueryRequest,
+            HttpServletRequest request) {
+        if (postQueryRequest == null) {
+            throw new BusinessException(ErrorCode.PARAMS_ERROR);
+        }
+        User loginUser = userService.getLoginUser(request);
+        long size = postQueryRequest.getPageSize();
+        // 限制爬虫
+        ThrowUtils.throwIf(size > 20, ErrorCode.PARAMS_ERROR);
+        CursorUtils.Seek seek = CursorUtils.parse(postQueryRequest, PostConstant.POST_CURSOR_SORT_FIELDS);
+        QueryWrapper<Post> queryWrapper = postService.getQueryWrapper(postQueryRequest);
+        Page<Post> postPage = postFavourService.listFavourPostByPage(seek.apply(queryWrapper), queryWrapper,
+                loginUser.getId());
+        return ResultUtils.success(seek.toCursorPage(postService.getPostVOPage(postPage, request).getRecords()));
+    }
+
+    /**
+     * 游标分页获取用户收藏的帖子列表
+     *
+     * @param postFavourQueryRequest cursor、sortField、sortOrder 取外层，postQueryRequest 只用于过滤
+     * @param request
+     */
+    @PostMapping("/list/cursor")
+    public BaseResponse<CursorPage<PostVO>> listFavourPostByCursor(@RequestBody PostFavourQueryRequest postFavourQueryRequest,
+            HttpServletRequest request) {
+        if (postFavourQueryRequest == null) {
+            throw new BusinessException(ErrorCode.PARAMS_ERROR);
+        }
+        long size = postFavourQueryRequest.getPageSize();
+        Long userId = postFavourQueryRequest.getUserId();
+        // 限制爬虫
+        ThrowUtils.throwIf(size > 20 || userId == null, ErrorCode.PARAMS_ERROR);
+        CursorUtils.Seek seek = CursorUtils.parse(postFavourQueryRequest, PostConstant.POST_CURSOR_SORT_FIELDS);
+        PostQueryRequest postQueryRequest = postFavourQueryRequest.getPostQueryRequest();
+        if (postQueryRequest != null) {
+            postQueryRequest.setSortField(null);
+        }
+        QueryWrapper<Post> queryWrapper = postService.getQueryWrapper(postQueryRequest);
+        Page<Post> postPage = postFavourService.listFavourPostByPage(seek.apply(queryWrapper), queryWrapper, userId);
+        return ResultUtils.success(seek.toCursorPage(postService.getPostVOPage(postPage, request).getRecords()));
+    }
 }
@@ -1,6 +1,11 @@
 package com.tang.springbootinit.controller;
 
 import cn.hutool.json.JSONUtil;
+import com.tang.springbootinit.common.ErrorCode;
+import com.tang.springbootinit.exception.BusinessException;
+import com.tang.springbootinit.executor.ChartTaskExecutor;
+import com.tang.springbootinit.manager.ChartAdmissionManager;
+import com.tang.springbootinit.service.UserService;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.context.annotation.Profile;
 import org.springframework.web.bind.annotation.GetMapping;
@@ -8,10 +13,10 @@ import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 
 import jakarta.annotation.Resource;
+import jakarta.servlet.http.HttpServletRequest;
 import java.util.HashMap;
 import java.util.Map;
-import java.util.concurrent.CompletableFuture;
-import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.RejectedExecutionException;
 
 /**
  * 队列测试
@@ -26,24 +31,37 @@ import java.util.concurrent.ThreadPoolExecutor;
 public class QueueController {
 
     @Resource
-    private ThreadPoolExecutor threadPoolExecutor;
+    private ChartTaskExecutor threadPoolExecutor;
 
+    @Resource
+    private ChartAdmissionManager chartAdmissionManager;
+
+    @Resource
+    private UserService userService;
+
+    /**
+     * 与图表任务一样经公平调度提交，计入在途任务数
+     */
     @GetMapping("/add")
-    public void add(String name) {
-        CompletableFuture.runAsync(() -> {
-            log.info("任务执行中：" + name + "，执行人：" + Thread.currentThread().getName());
-            try {
-                Thread.sleep(600000);
-            } catch (InterruptedException e) {
-                e.printStackTrace();
-            }
-        }, threadPoolExecutor);
+    public void add(String name, HttpServletRequest request) {
+        try {
+            chartAdmissionManager.execute(userService.getLoginUser(request), () -> {
+                log.info("任务执行中：" + name + "，执行人：" + Thread.currentThread().getName());
+                try {
+                    Thread.sleep(600000);
+                } catch (InterruptedException e) {
+                    e.printStackTrace();
+                }
+            }, () -> log.info("任务未执行：" + name));
+        } catch (RejectedExecutionException e) {
+            throw new BusinessException(ErrorCode.TOO_MANY_REQUEST, "队列已满");
+        }
     }
 
     @GetMapping("/get")
     public String get() {
         Map<String, Object> map = new HashMap<>();
-        int size = threadPoolExecutor.getQueue().size();
+        int size = threadPoolExecutor.getQueueSize();
         map.put("队列长度", size);
         long taskCount = threadPoolExecutor.getTaskCount();
         map.put("任务总数", taskCount);
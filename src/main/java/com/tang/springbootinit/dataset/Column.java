@@ -0,0 +1,96 @@
+package com.tang.springbootinit.dataset;
+
+/**
+ * 列存数据集中的一列，空值用位图记录
+ */
+public abstract class Column {
+
+    private final String name;
+
+    private final int rowCount;
+
+    /**
+     * 空值位图，第 i 位为 1 表示第 i 行为空
+     */
+    private final long[] nulls;
+
+    protected Column(String name, int rowCount, long[] nulls) {
+        this.name = name;
+        this.rowCount = rowCount;
+        this.nulls = nulls;
+    }
+
+    public abstract ColumnType getType();
+
+    /**
+     * 获取第 i 行的文本形式，空值返回 null
+     *
+     * @param row
+     * @return
+     */
+    public abstract String getString(int row);
+
+    /**
+     * 按行号选取子集，生成新列
+     *
+     * @param rows 行号（升序）
+     * @return
+     */
+    public abstract Column select(int[] rows);
+
+    public String getName() {
+        return name;
+    }
+
+    public int getRowCount() {
+        return rowCount;
+    }
+
+    public long[] getNulls() {
+        return nulls;
+    }
+
+    public boolean isNull(int row) {
+        return (nulls[row >>> 6] & (1L << row)) != 0;
+    }
+
+    public int getNullCount() {
+        int count = 0;
+        for (long word : nulls) {
+            count += Long.bitCount(word);
+        }
+        return count;
+    }
+
+    public boolean isNumeric() {
+        return getType() != ColumnType.STRING;
+    }
+
+    /**
+     * 数值列按 double 读取，字符串列不支持
+     *
+     * @param row
+     * @return
+     */
+    public double getDouble(int row) {
+        throw new UnsupportedOperationException("非数值列：" + name);
+    }
+
+    protected long[] selectNulls(int[] rows) {
+        long[] selected = newBitmap(rows.length);
+        for (int i = 0; i < rows.length; i++) {
+            if (isNull(rows[i])) {
+                setBit(selected, i);
+            }
+        }
+        return selected;
+    }
+
+    static long[] newBitmap(int rowCount) {
+        return new long[(rowCount + 63) >>> 6];
+    }
+
+    static void setBit(long[] bitmap, int row) {
+        bitmap[row >>> 6] |= 1L << row;
+    }
+}
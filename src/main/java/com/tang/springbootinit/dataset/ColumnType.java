@@ -0,0 +1,36 @@
+package com.tang.springbootinit.dataset;
+
+/**
+ * 列类型
+ */
+public enum ColumnType {
+
+    LONG((byte) 1),
+    DOUBLE((byte) 2),
+    STRING((byte) 3);
+
+    private final byte code;
+
+    ColumnType(byte code) {
+        this.code = code;
+    }
+
+    public byte getCode() {
+        return code;
+    }
+
+    /**
+     * 根据序列化编码获取枚举
+     *
+     * @param code
+     * @return
+     */
+    public static ColumnType getEnumByCode(byte code) {
+        for (ColumnType columnType : values()) {
+            if (columnType.code == code) {
+                return columnType;
+            }
+        }
+        throw new IllegalArgumentException("未知的列类型编码：" + code);
+    }
+}
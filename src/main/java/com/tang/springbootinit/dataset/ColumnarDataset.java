@@ -0,0 +1,115 @@
+package com.tang.springbootinit.dataset;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * 列式数据集，上传时由原始表格构建，供统计、采样、查询及拼接 AI 输入使用
+ */
+public class ColumnarDataset {
+
+    private final List<Column> columns;
+
+    private final int rowCount;
+
+    /**
+     * 规范化后数据的 SHA-256 指纹，仅由上传数据构建时计算
+     */
+    private final String fingerprint;
+
+    public ColumnarDataset(List<Column> columns, int rowCount) {
+        this(columns, rowCount, null);
+    }
+
+    public ColumnarDataset(List<Column> columns, int rowCount, String fingerprint) {
+        this.columns = Collections.unmodifiableList(columns);
+        this.rowCount = rowCount;
+        this.fingerprint = fingerprint;
+    }
+
+    public List<Column> getColumns() {
+        return columns;
+    }
+
+    public Column getColumn(int index) {
+        return columns.get(index);
+    }
+
+    public int getColumnCount() {
+        return columns.size();
+    }
+
+    public int getRowCount() {
+        return rowCount;
+    }
+
+    public String getFingerprint() {
+        return fingerprint;
+    }
+
+    public boolean isEmpty() {
+        return columns.isEmpty();
+    }
+
+    /**
+     * 按行号选取子集
+     *
+     * @param rows 行号（升序）
+     * @return
+     */
+    public ColumnarDataset selectRows(int[] rows) {
+        List<Column> selected = new ArrayList<>(columns.size());
+        for (Column column : columns) {
+            selected.add(column.select(rows));
+        }
+        return new ColumnarDataset(selected, rows.length);
+    }
+
+    /**
+     * 转为 csv 文本（第一行为表头，空值输出为空字段）
+     *
+     * @return
+     */
+    public String toCsv() {
+        StringBuilder stringBuilder = new StringBuilder();
+        appendCsv(stringBuilder);
+        return stringBuilder.toString();
+    }
+
+    /**
+     * 逐行写出 csv
+     *
+     * @param out
+     */
+    public void appendCsv(Appendable out) {
+        if (columns.isEmpty()) {
+            return;
+        }
+        try {
+            for (int i = 0; i < columns.size(); i++) {
+                if (i > 0) {
+                    out.append(',');
+                }
+                out.append(columns.get(i).getName());
+            }
+            out.append('\n');
+            for (int row = 0; row < rowCount; row++) {
+                for (int i = 0; i < columns.size(); i++) {
+                    if (i > 0) {
+                        out.append(',');
+                    }
+                    String value = columns.get(i).getString(row);
+                    if (value != null) {
+                        out.append(value);
+                    }
+                }
+                out.append('\n');
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,413 @@
+package com.tang.springbootinit.dataset;
+
+import com.tang.springbootinit.utils.ExcelUtils;
+import org.apache.commons.lang3.StringUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 逐行构建列式数据集
+ * <p>
+ * 读取阶段数值列直接保存数值，不建字典；其他列保存字典编码，读取结束后再根据字典推断列类型
+ * （整数 / 浮点数 / 字符串），因此类型推断只需对每个不同取值解析一次。
+ * <p>
+ * 读取的同时对规范化后的单元格（去首尾空白、跳过全空行和行尾空单元格）计算 SHA-256 指纹，
+ * 同一份数据无论单元格格式如何都得到相同指纹，用于重复上传去重。
+ */
+public class ColumnarDatasetBuilder implements ExcelUtils.RowHandler {
+
+    private final List<String> header = new ArrayList<>();
+
+    private final List<ColumnBuffer> buffers = new ArrayList<>();
+
+    private int rowCount = 0;
+
+    private final MessageDigest digest = newDigest();
+
+    @Override
+    public void handleRow(int rowIndex, List<String> cells) {
+        updateDigest(cells);
+        if (rowIndex == 0) {
+            for (String cell : cells) {
+                header.add(StringUtils.trimToEmpty(cell));
+            }
+            return;
+        }
+        // 全空行直接跳过
+        if (cells.stream().allMatch(StringUtils::isBlank)) {
+            return;
+        }
+        // 数据行比表头宽时补齐表头
+        while (header.size() < cells.size()) {
+            header.add("");
+        }
+        while (buffers.size() < header.size()) {
+            ColumnBuffer buffer = new ColumnBuffer();
+            buffer.appendNulls(rowCount);
+            buffers.add(buffer);
+        }
+        for (int i = 0; i < buffers.size(); i++) {
+            buffers.get(i).append(i < cells.size() ? cells.get(i) : null);
+        }
+        rowCount++;
+    }
+
+    /**
+     * 按 csv 文本逐行构建（兼容历史数据）
+     *
+     * @param csv
+     * @return
+     */
+    public static ColumnarDataset fromCsv(String csv) {
+        ColumnarDatasetBuilder builder = new ColumnarDatasetBuilder();
+        if (StringUtils.isNotBlank(csv)) {
+            String[] lines = csv.split("\n");
+            for (int i = 0; i < lines.length; i++) {
+                builder.handleRow(i, Arrays.asList(lines[i].split(",", -1)));
+            }
+        }
+        return builder.build();
+    }
+
+    public ColumnarDataset build() {
+        // 去掉表头为空且没有任何数据的列
+        List<Column> columns = new ArrayList<>();
+        for (int i = 0; i < header.size(); i++) {
+            ColumnBuffer buffer = i < buffers.size() ? buffers.get(i) : null;
+            if (buffer == null) {
+                buffer = new ColumnBuffer();
+                buffer.appendNulls(rowCount);
+            }
+            String name = header.get(i);
+            if (StringUtils.isEmpty(name) && buffer.isEmpty()) {
+                continue;
+            }
+            columns.add(buffer.toColumn(name, rowCount));
+        }
+        return new ColumnarDataset(columns, rowCount, HexFormat.of().formatHex(digest.digest()));
+    }
+
+    private void updateDigest(List<String> cells) {
+        int last = cells.size() - 1;
+        while (last >= 0 && StringUtils.isBlank(cells.get(last))) {
+            last--;
+        }
+        if (last < 0) {
+            return;
+        }
+        for (int i = 0; i <= last; i++) {
+            digest.update(StringUtils.trimToEmpty(cells.get(i)).getBytes(StandardCharsets.UTF_8));
+            // 单元格分隔符 / 行分隔符
+            digest.update(i < last ? (byte) 0x1F : (byte) 0x1E);
+        }
+    }
+
+    private static MessageDigest newDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * 单列的构建缓冲区
+     * <p>
+     * 到目前为止都是规范写法数值的列直接保存数值（LONG / DOUBLE 模式），不建字典；
+     * 出现其他取值时按已保存的数值还原原文，转为字典编码（STRING 模式），读取结束后再根据字典推断类型
+     */
+    private static class ColumnBuffer {
+
+        /**
+         * 可以无损转为 double 的整数范围
+         */
+        private static final long MAX_EXACT_LONG = 1L << 53;
+
+        private ColumnType mode = ColumnType.LONG;
+
+        private long[] longs = new long[64];
+
+        private double[] doubles;
+
+        /**
+         * DOUBLE 模式下原文为整数写法的行
+         */
+        private long[] integral;
+
+        private Map<String, Integer> dictionary;
+
+        private List<String> values;
+
+        private int[] codes;
+
+        private long[] nulls = new long[1];
+
+        private int size = 0;
+
+        private int nonNullCount = 0;
+
+        void append(String cell) {
+            ensureCapacity(size + 1);
+            String value = StringUtils.trimToNull(cell);
+            if (value == null) {
+                Column.setBit(nulls, size);
+            } else {
+                appendValue(value);
+                nonNullCount++;
+            }
+            size++;
+        }
+
+        void appendNulls(int count) {
+            for (int i = 0; i < count; i++) {
+                append(null);
+            }
+        }
+
+        boolean isEmpty() {
+            return nonNullCount == 0;
+        }
+
+        private void appendValue(String value) {
+            if (mode == ColumnType.LONG) {
+                Long parsed = parseCanonicalLong(value);
+                if (parsed != null) {
+                    longs[size] = parsed;
+                    return;
+                }
+                if (parseCanonicalDouble(value) == null || !toDoubleMode()) {
+                    toDictionaryMode();
+                }
+            }
+            if (mode == ColumnType.DOUBLE) {
+                Long parsedLong = parseCanonicalLong(value);
+                if (parsedLong != null && Math.abs(parsedLong) <= MAX_EXACT_LONG) {
+                    doubles[size] = parsedLong;
+                    Column.setBit(integral, size);
+                    return;
+                }
+                Double parsed = parseCanonicalDouble(value);
+                if (parsed != null) {
+                    doubles[size] = parsed;
+                    return;
+                }
+                toDictionaryMode();
+            }
+            Integer code = dictionary.get(value);
+            if (code == null) {
+                code = values.size();
+                dictionary.put(value, code);
+                values.add(value);
+            }
+            codes[size] = code;
+        }
+
+        /**
+         * LONG -> DOUBLE，已保存的整数超出 double 的精确范围时返回 false
+         */
+        private boolean toDoubleMode() {
+            for (int row = 0; row < size; row++) {
+                if (!isNull(nulls, row) && Math.abs(longs[row]) > MAX_EXACT_LONG) {
+                    return false;
+                }
+            }
+            doubles = new double[longs.length];
+            integral = new long[nulls.length];
+            for (int row = 0; row < size; row++) {
+                if (!isNull(nulls, row)) {
+                    doubles[row] = longs[row];
+                    Column.setBit(integral, row);
+                }
+            }
+            longs = null;
+            mode = ColumnType.DOUBLE;
+            return true;
+        }
+
+        /**
+         * 按已保存的数值还原原文（规范写法，还原无损），按首次出现的顺序建字典
+         */
+        private void toDictionaryMode() {
+            dictionary = new HashMap<>();
+            values = new ArrayList<>();
+            codes = new int[mode == ColumnType.LONG ? longs.length : doubles.length];
+            for (int row = 0; row < size; row++) {
+                if (isNull(nulls, row)) {
+                    continue;
+                }
+                String text;
+                if (mode == ColumnType.LONG) {
+                    text = Long.toString(longs[row]);
+                } else if (isNull(integral, row)) {
+                    text = Long.toString((long) doubles[row]);
+                } else {
+                    text = DoubleColumn.format(doubles[row]);
+                }
+                Integer code = dictionary.get(text);
+                if (code == null) {
+                    code = values.size();
+                    dictionary.put(text, code);
+                    values.add(text);
+                }
+                codes[row] = code;
+            }
+            longs = null;
+            doubles = null;
+            integral = null;
+            mode = ColumnType.STRING;
+        }
+
+        private void ensureCapacity(int capacity) {
+            int length = mode == ColumnType.LONG ? longs.length : mode == ColumnType.DOUBLE ? doubles.length
+                    : codes.length;
+            if (capacity > length) {
+                int newLength = Math.max(capacity, length * 2);
+                if (mode == ColumnType.LONG) {
+                    longs = Arrays.copyOf(longs, newLength);
+                } else if (mode == ColumnType.DOUBLE) {
+                    doubles = Arrays.copyOf(doubles, newLength);
+                } else {
+                    codes = Arrays.copyOf(codes, newLength);
+                }
+            }
+            int words = (capacity + 63) >>> 6;
+            if (words > nulls.length) {
+                nulls = Arrays.copyOf(nulls, Math.max(words, nulls.length * 2));
+            }
+            if (integral != null && integral.length < nulls.length) {
+                integral = Arrays.copyOf(integral, nulls.length);
+            }
+        }
+
+        Column toColumn(String name, int rowCount) {
+            long[] bitmap = Arrays.copyOf(nulls, (rowCount + 63) >>> 6);
+            if (isEmpty()) {
+                return new StringColumn(name, new String[0], new int[rowCount], bitmap);
+            }
+            if (mode == ColumnType.LONG) {
+                return new LongColumn(name, Arrays.copyOf(longs, rowCount), bitmap);
+            }
+            if (mode == ColumnType.DOUBLE) {
+                return new DoubleColumn(name, Arrays.copyOf(doubles, rowCount), bitmap);
+            }
+            ColumnType type = inferType();
+            if (type == ColumnType.LONG) {
+                long[] dictValues = new long[values.size()];
+                for (int i = 0; i < dictValues.length; i++) {
+                    dictValues[i] = Long.parseLong(values.get(i));
+                }
+                long[] data = new long[rowCount];
+                for (int row = 0; row < rowCount; row++) {
+                    if (!isNull(bitmap, row)) {
+                        data[row] = dictValues[codes[row]];
+                    }
+                }
+                return new LongColumn(name, data, bitmap);
+            }
+            if (type == ColumnType.DOUBLE) {
+                double[] dictValues = new double[values.size()];
+                for (int i = 0; i < dictValues.length; i++) {
+                    dictValues[i] = Double.parseDouble(values.get(i));
+                }
+                double[] data = new double[rowCount];
+                for (int row = 0; row < rowCount; row++) {
+                    if (!isNull(bitmap, row)) {
+                        data[row] = dictValues[codes[row]];
+                    }
+                }
+                return new DoubleColumn(name, data, bitmap);
+            }
+            return new StringColumn(name, values.toArray(new String[0]), Arrays.copyOf(codes, rowCount), bitmap);
+        }
+
+        private ColumnType inferType() {
+            if (values.isEmpty()) {
+                return ColumnType.STRING;
+            }
+            ColumnType type = ColumnType.LONG;
+            for (String value : values) {
+                if (type == ColumnType.LONG && !isLong(value)) {
+                    type = ColumnType.DOUBLE;
+                }
+                if (type == ColumnType.DOUBLE && !isDouble(value)) {
+                    return ColumnType.STRING;
+                }
+            }
+            return type;
+        }
+
+        private static boolean isNull(long[] bitmap, int row) {
+            return (bitmap[row >>> 6] & (1L << row)) != 0;
+        }
+
+        /**
+         * 规范写法的整数（与 Long.toString 结果相同），否则返回 null
+         */
+        private static Long parseCanonicalLong(String value) {
+            if (!isLong(value)) {
+                return null;
+            }
+            long parsed = Long.parseLong(value);
+            return Long.toString(parsed).equals(value) ? parsed : null;
+        }
+
+        /**
+         * 规范写法的浮点数（与 DoubleColumn.format 结果相同），否则返回 null
+         */
+        private static Double parseCanonicalDouble(String value) {
+            if (!isDouble(value)) {
+                return null;
+            }
+            double parsed = Double.parseDouble(value);
+            return DoubleColumn.format(parsed).equals(value) ? parsed : null;
+        }
+
+        private static boolean isLong(String value) {
+            if (hasLeadingZero(value)) {
+                return false;
+            }
+            try {
+                Long.parseLong(value);
+                return true;
+            } catch (NumberFormatException e) {
+                return false;
+            }
+        }
+
+        private static boolean isDouble(String value) {
+            char first = value.charAt(0);
+            char last = value.charAt(value.length() - 1);
+            // 排除 NaN、Infinity 以及 Java 允许的 1d / 1f 写法
+            if (!Character.isDigit(first) && first != '-' && first != '+' && first != '.') {
+                return false;
+            }
+            if (!Character.isDigit(last) && last != '.') {
+                return false;
+            }
+            if (hasLeadingZero(value)) {
+                return false;
+            }
+            try {
+                double parsed = Double.parseDouble(value);
+                return !Double.isNaN(parsed) && !Double.isInfinite(parsed);
+            } catch (NumberFormatException e) {
+                return false;
+            }
+        }
+
+        /**
+         * 前导 0 的编号（如 007）按字符串处理，避免丢失原始写法
+         */
+        private static boolean hasLeadingZero(String value) {
+            return value.length() > 1 && value.charAt(0) == '0' && Character.isDigit(value.charAt(1));
+        }
+    }
+}
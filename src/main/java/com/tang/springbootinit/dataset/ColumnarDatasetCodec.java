@@ -0,0 +1,193 @@
+package com.tang.springbootinit.dataset;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * 列式数据集的二进制编解码
+ * <p>
+ * 格式（整体经 Deflate 压缩）：
+ * <pre>
+ * magic(int) version(byte) rowCount(int) columnCount(int)
+ * 每列：name type(byte) nullWordCount(int) nullWords(long...) data
+ *   LONG   : rowCount 个 long
+ *   DOUBLE : rowCount 个 double
+ *   STRING : dictSize(int) dict(string...) codeWidth(byte) codes(rowCount 个 1/2/4 字节)
+ * string 为 length(int) + utf8 bytes
+ * </pre>
+ */
+public class ColumnarDatasetCodec {
+
+    private static final int MAGIC = 0x54424453;
+
+    private static final byte VERSION = 1;
+
+    private ColumnarDatasetCodec() {
+    }
+
+    /**
+     * 编码
+     *
+     * @param dataset
+     * @return
+     */
+    public static byte[] encode(ColumnarDataset dataset) {
+        ByteArrayOutputStream byteArrayOutputStream = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(new DeflaterOutputStream(byteArrayOutputStream,
+                new Deflater(Deflater.BEST_SPEED)))) {
+            out.writeInt(MAGIC);
+            out.writeByte(VERSION);
+            out.writeInt(dataset.getRowCount());
+            out.writeInt(dataset.getColumnCount());
+            for (Column column : dataset.getColumns()) {
+                writeString(out, column.getName());
+                out.writeByte(column.getType().getCode());
+                long[] nulls = column.getNulls();
+                out.writeInt(nulls.length);
+                for (long word : nulls) {
+                    out.writeLong(word);
+                }
+                switch (column.getType()) {
+                    case LONG:
+                        for (long value : ((LongColumn) column).getValues()) {
+                            out.writeLong(value);
+                        }
+                        break;
+                    case DOUBLE:
+                        for (double value : ((DoubleColumn) column).getValues()) {
+                            out.writeDouble(value);
+                        }
+                        break;
+                    default:
+                        writeStringColumn(out, (StringColumn) column);
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return byteArrayOutputStream.toByteArray();
+    }
+
+    /**
+     * 解码
+     *
+     * @param bytes
+     * @return
+     */
+    public static ColumnarDataset decode(byte[] bytes) {
+        try (DataInputStream in = new DataInputStream(new InflaterInputStream(new ByteArrayInputStream(bytes)))) {
+            if (in.readInt() != MAGIC) {
+                throw new IllegalArgumentException("非法的数据集格式");
+            }
+            byte version = in.readByte();
+            if (version != VERSION) {
+                throw new IllegalArgumentException("不支持的数据集版本：" + version);
+            }
+            int rowCount = in.readInt();
+            int columnCount = in.readInt();
+            List<Column> columns = new ArrayList<>(columnCount);
+            for (int i = 0; i < columnCount; i++) {
+                String name = readString(in);
+                ColumnType type = ColumnType.getEnumByCode(in.readByte());
+                long[] nulls = new long[in.readInt()];
+                for (int j = 0; j < nulls.length; j++) {
+                    nulls[j] = in.readLong();
+                }
+                switch (type) {
+                    case LONG: {
+                        long[] values = new long[rowCount];
+                        for (int row = 0; row < rowCount; row++) {
+                            values[row] = in.readLong();
+                        }
+                        columns.add(new LongColumn(name, values, nulls));
+                        break;
+                    }
+                    case DOUBLE: {
+                        double[] values = new double[rowCount];
+                        for (int row = 0; row < rowCount; row++) {
+                            values[row] = in.readDouble();
+                        }
+                        columns.add(new DoubleColumn(name, values, nulls));
+                        break;
+                    }
+                    default:
+                        columns.add(readStringColumn(in, name, rowCount, nulls));
+                }
+            }
+            return new ColumnarDataset(columns, rowCount);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static void writeStringColumn(DataOutputStream out, StringColumn column) throws IOException {
+        String[] dictionary = column.getDictionary();
+        out.writeInt(dictionary.length);
+        for (String value : dictionary) {
+            writeString(out, value);
+        }
+        int codeWidth = codeWidth(dictionary.length);
+        out.writeByte(codeWidth);
+        for (int code : column.getCodes()) {
+            if (codeWidth == 1) {
+                out.writeByte(code);
+            } else if (codeWidth == 2) {
+                out.writeShort(code);
+            } else {
+                out.writeInt(code);
+            }
+        }
+    }
+
+    private static StringColumn readStringColumn(DataInputStream in, String name, int rowCount, long[] nulls)
+            throws IOException {
+        String[] dictionary = new String[in.readInt()];
+        for (int i = 0; i < dictionary.length; i++) {
+            dictionary[i] = readString(in);
+        }
+        int codeWidth = in.readByte();
+        int[] codes = new int[rowCount];
+        for (int row = 0; row < rowCount; row++) {
+            if (codeWidth == 1) {
+                codes[row] = in.readUnsignedByte();
+            } else if (codeWidth == 2) {
+                codes[row] = in.readUnsignedShort();
+            } else {
+                codes[row] = in.readInt();
+            }
+        }
+        return new StringColumn(name, dictionary, codes, nulls);
+    }
+
+    private static int codeWidth(int dictionarySize) {
+        if (dictionarySize <= 1 << 8) {
+            return 1;
+        }
+        if (dictionarySize <= 1 << 16) {
+            return 2;
+        }
+        return 4;
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        byte[] bytes = new byte[in.readInt()];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
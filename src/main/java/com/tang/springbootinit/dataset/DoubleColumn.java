@@ -0,0 +1,64 @@
+package com.tang.springbootinit.dataset;
+
+import java.math.BigDecimal;
+
+/**
+ * 浮点数列
+ */
+public class DoubleColumn extends Column {
+
+    private final double[] values;
+
+    public DoubleColumn(String name, double[] values, long[] nulls) {
+        super(name, values.length, nulls);
+        this.values = values;
+    }
+
+    @Override
+    public ColumnType getType() {
+        return ColumnType.DOUBLE;
+    }
+
+    @Override
+    public String getString(int row) {
+        if (isNull(row)) {
+            return null;
+        }
+        return format(values[row]);
+    }
+
+    /**
+     * 数值转为文本：整数值不输出多余的 .0，常见范围内不使用科学计数法（12345678.9 而不是 1.23456789E7）
+     *
+     * @param value
+     * @return
+     */
+    public static String format(double value) {
+        double abs = Math.abs(value);
+        if (value == Math.rint(value) && abs < 1e15) {
+            return Long.toString((long) value);
+        }
+        if (abs >= 1e-6 && abs < 1e15) {
+            return BigDecimal.valueOf(value).stripTrailingZeros().toPlainString();
+        }
+        return Double.toString(value);
+    }
+
+    @Override
+    public double getDouble(int row) {
+        return values[row];
+    }
+
+    @Override
+    public Column select(int[] rows) {
+        double[] selected = new double[rows.length];
+        for (int i = 0; i < rows.length; i++) {
+            selected[i] = values[rows[i]];
+        }
+        return new DoubleColumn(getName(), selected, selectNulls(rows));
+    }
+
+    public double[] getValues() {
+        return values;
+    }
+}
@@ -0,0 +1,46 @@
+package com.tang.springbootinit.dataset;
+
+/**
+ * 整数列
+ */
+public class LongColumn extends Column {
+
+    private final long[] values;
+
+    public LongColumn(String name, long[] values, long[] nulls) {
+        super(name, values.length, nulls);
+        this.values = values;
+    }
+
+    @Override
+    public ColumnType getType() {
+        return ColumnType.LONG;
+    }
+
+    @Override
+    public String getString(int row) {
+        return isNull(row) ? null : Long.toString(values[row]);
+    }
+
+    @Override
+    public double getDouble(int row) {
+        return values[row];
+    }
+
+    public long getLong(int row) {
+        return values[row];
+    }
+
+    @Override
+    public Column select(int[] rows) {
+        long[] selected = new long[rows.length];
+        for (int i = 0; i < rows.length; i++) {
+            selected[i] = values[rows[i]];
+        }
+        return new LongColumn(getName(), selected, selectNulls(rows));
+    }
+
+    public long[] getValues() {
+        return values;
+    }
+}
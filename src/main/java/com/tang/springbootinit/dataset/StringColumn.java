@@ -0,0 +1,63 @@
+package com.tang.springbootinit.dataset;
+
+/**
+ * 字符串列（字典编码）
+ */
+public class StringColumn extends Column {
+
+    /**
+     * 字典，编码即下标
+     */
+    private final String[] dictionary;
+
+    /**
+     * 每行的字典编码，空值行的编码无意义
+     */
+    private final int[] codes;
+
+    public StringColumn(String name, String[] dictionary, int[] codes, long[] nulls) {
+        super(name, codes.length, nulls);
+        this.dictionary = dictionary;
+        this.codes = codes;
+    }
+
+    @Override
+    public ColumnType getType() {
+        return ColumnType.STRING;
+    }
+
+    @Override
+    public String getString(int row) {
+        return isNull(row) ? null : dictionary[codes[row]];
+    }
+
+    @Override
+    public Column select(int[] rows) {
+        int[] selected = new int[rows.length];
+        for (int i = 0; i < rows.length; i++) {
+            selected[i] = codes[rows[i]];
+        }
+        return new StringColumn(getName(), dictionary, selected, selectNulls(rows));
+    }
+
+    /**
+     * 不同取值个数
+     *
+     * @return
+     */
+    public int getDistinctCount() {
+        return dictionary.length;
+    }
+
+    public int getCode(int row) {
+        return codes[row];
+    }
+
+    public String[] getDictionary() {
+        return dictionary;
+    }
+
+    public int[] getCodes() {
+        return codes;
+    }
+}
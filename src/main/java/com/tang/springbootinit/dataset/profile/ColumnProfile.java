@@ -0,0 +1,64 @@
+package com.tang.springbootinit.dataset.profile;
+
+import lombok.Data;
+
+import java.io.Serializable;
+import java.util.List;
+
+/**
+ * 单列统计概况
+ */
+@Data
+public class ColumnProfile implements Serializable {
+
+    /**
+     * 列名
+     */
+    private String name;
+
+    /**
+     * 推断类型：integer / decimal / date / string
+     */
+    private String type;
+
+    /**
+     * 空值个数
+     */
+    private int nullCount;
+
+    /**
+     * 空值占比
+     */
+    private double nullRatio;
+
+    /**
+     * 不同取值个数（数值列为 HyperLogLog 估算值）
+     */
+    private long distinctCount;
+
+    private Double min;
+
+    private Double max;
+
+    private Double mean;
+
+    private Double stddev;
+
+    /**
+     * 分位数（t-digest 估算）
+     */
+    private Double p25;
+
+    private Double p50;
+
+    private Double p75;
+
+    private Double p95;
+
+    /**
+     * 文本列出现次数最多的取值，格式 值(次数)
+     */
+    private List<String> topValues;
+
+    private static final long serialVersionUID = 1L;
+}
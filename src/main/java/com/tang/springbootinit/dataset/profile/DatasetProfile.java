@@ -0,0 +1,65 @@
+package com.tang.springbootinit.dataset.profile;
+
+import lombok.Data;
+
+import java.io.Serializable;
+import java.math.BigDecimal;
+import java.math.MathContext;
+import java.util.List;
+
+/**
+ * 数据集统计概况
+ */
+@Data
+public class DatasetProfile implements Serializable {
+
+    /**
+     * 行数
+     */
+    private int rowCount;
+
+    /**
+     * 各列概况
+     */
+    private List<ColumnProfile> columns;
+
+    /**
+     * 生成拼接到 AI 输入中的紧凑摘要，每列一行
+     *
+     * @return
+     */
+    public String toPromptSummary() {
+        StringBuilder summary = new StringBuilder();
+        summary.append("共 ").append(rowCount).append(" 行\n");
+        for (ColumnProfile column : columns) {
+            summary.append(column.getName()).append("(").append(column.getType()).append(")：");
+            summary.append("空值 ").append(format(column.getNullRatio() * 100)).append("%");
+            summary.append("，约 ").append(column.getDistinctCount()).append(" 个不同值");
+            if (column.getMin() != null) {
+                summary.append("，范围 ").append(format(column.getMin())).append("~").append(format(column.getMax()));
+                summary.append("，均值 ").append(format(column.getMean()));
+                summary.append("，标准差 ").append(format(column.getStddev()));
+                summary.append("，P25/P50/P75/P95 ").append(format(column.getP25())).append("/")
+                        .append(format(column.getP50())).append("/").append(format(column.getP75())).append("/")
+                        .append(format(column.getP95()));
+            }
+            if (column.getTopValues() != null && !column.getTopValues().isEmpty()) {
+                summary.append("，常见值 ").append(String.join("、", column.getTopValues()));
+            }
+            summary.append("\n");
+        }
+        return summary.toString();
+    }
+
+    /**
+     * 保留 4 位有效数字
+     */
+    private static String format(Double value) {
+        if (value == null || value.isNaN()) {
+            return "-";
+        }
+        return new BigDecimal(value).round(new MathContext(4)).stripTrailingZeros().toPlainString();
+    }
+
+    private static final long serialVersionUID = 1L;
+}
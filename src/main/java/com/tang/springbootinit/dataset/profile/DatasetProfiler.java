@@ -0,0 +1,140 @@
+package com.tang.springbootinit.dataset.profile;
+
+import com.tang.springbootinit.dataset.Column;
+import com.tang.springbootinit.dataset.ColumnType;
+import com.tang.springbootinit.dataset.ColumnarDataset;
+import com.tang.springbootinit.dataset.StringColumn;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Pattern;
+
+/**
+ * 数据集统计：每列只遍历一次，同时计算最值、均值 / 标准差（Welford）、
+ * 不同值个数（HyperLogLog）和分位数（t-digest）
+ */
+public class DatasetProfiler {
+
+    private static final int TOP_VALUES = 3;
+
+    private static final Pattern DATE_PATTERN = Pattern.compile("\\d{4}[-/.年]\\d{1,2}([-/.月]\\d{1,2}日?)?");
+
+    private DatasetProfiler() {
+    }
+
+    public static DatasetProfile profile(ColumnarDataset dataset) {
+        List<ColumnProfile> columns = new ArrayList<>(dataset.getColumnCount());
+        for (Column column : dataset.getColumns()) {
+            columns.add(column.isNumeric() ? profileNumeric(column) : profileString((StringColumn) column));
+        }
+        DatasetProfile datasetProfile = new DatasetProfile();
+        datasetProfile.setRowCount(dataset.getRowCount());
+        datasetProfile.setColumns(columns);
+        return datasetProfile;
+    }
+
+    private static ColumnProfile profileNumeric(Column column) {
+        int rowCount = column.getRowCount();
+        HyperLogLog hyperLogLog = new HyperLogLog();
+        TDigest tDigest = new TDigest();
+        long count = 0;
+        double mean = 0;
+        double m2 = 0;
+        double min = Double.POSITIVE_INFINITY;
+        double max = Double.NEGATIVE_INFINITY;
+        for (int row = 0; row < rowCount; row++) {
+            if (column.isNull(row)) {
+                continue;
+            }
+            double value = column.getDouble(row);
+            count++;
+            double delta = value - mean;
+            mean += delta / count;
+            m2 += delta * (value - mean);
+            if (value < min) {
+                min = value;
+            }
+            if (value > max) {
+                max = value;
+            }
+            hyperLogLog.addDouble(value);
+            tDigest.add(value);
+        }
+        ColumnProfile columnProfile = newProfile(column);
+        columnProfile.setType(column.getType() == ColumnType.LONG ? "integer" : "decimal");
+        if (count == 0) {
+            return columnProfile;
+        }
+        columnProfile.setDistinctCount(Math.min(hyperLogLog.estimate(), count));
+        columnProfile.setMin(min);
+        columnProfile.setMax(max);
+        columnProfile.setMean(mean);
+        columnProfile.setStddev(count > 1 ? Math.sqrt(m2 / (count - 1)) : 0.0);
+        columnProfile.setP25(tDigest.quantile(0.25));
+        columnProfile.setP50(tDigest.quantile(0.5));
+        columnProfile.setP75(tDigest.quantile(0.75));
+        columnProfile.setP95(tDigest.quantile(0.95));
+        return columnProfile;
+    }
+
+    private static ColumnProfile profileString(StringColumn column) {
+        // 字典编码列直接按编码计数，不同值个数是精确值
+        String[] dictionary = column.getDictionary();
+        int[] frequencies = new int[dictionary.length];
+        for (int row = 0; row < column.getRowCount(); row++) {
+            if (!column.isNull(row)) {
+                frequencies[column.getCode(row)]++;
+            }
+        }
+        int distinctCount = 0;
+        boolean allDate = true;
+        for (int code = 0; code < dictionary.length; code++) {
+            if (frequencies[code] > 0) {
+                distinctCount++;
+                allDate = allDate && DATE_PATTERN.matcher(dictionary[code]).matches();
+            }
+        }
+        ColumnProfile columnProfile = newProfile(column);
+        columnProfile.setType(distinctCount > 0 && allDate ? "date" : "string");
+        columnProfile.setDistinctCount(distinctCount);
+        columnProfile.setTopValues(topValues(dictionary, frequencies));
+        return columnProfile;
+    }
+
+    private static ColumnProfile newProfile(Column column) {
+        int nullCount = column.getNullCount();
+        ColumnProfile columnProfile = new ColumnProfile();
+        columnProfile.setName(column.getName());
+        columnProfile.setNullCount(nullCount);
+        columnProfile.setNullRatio(column.getRowCount() == 0 ? 0 : (double) nullCount / column.getRowCount());
+        return columnProfile;
+    }
+
+    /**
+     * 出现次数最多且不止一次的前几个取值
+     */
+    private static List<String> topValues(String[] dictionary, int[] frequencies) {
+        int[] top = new int[TOP_VALUES];
+        int size = 0;
+        for (int code = 0; code < frequencies.length; code++) {
+            if (frequencies[code] <= 1) {
+                continue;
+            }
+            int position = size;
+            while (position > 0 && frequencies[top[position - 1]] < frequencies[code]) {
+                position--;
+            }
+            if (position >= TOP_VALUES) {
+                continue;
+            }
+            System.arraycopy(top, position, top, position + 1, Math.min(size, TOP_VALUES - 1) - position);
+            top[position] = code;
+            size = Math.min(size + 1, TOP_VALUES);
+        }
+        List<String> topValues = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            topValues.add(dictionary[top[i]] + "(" + frequencies[top[i]] + ")");
+        }
+        return topValues;
+    }
+}
@@ -0,0 +1,145 @@
+package com.tang.springbootinit.dataset.profile;
+
+import java.util.Arrays;
+
+/**
+ * 合并式 t-digest 分位数估算
+ * <p>
+ * 数据先进入缓冲区，缓冲区满后与已有质心排序合并；质心允许的最大权重为 4·N·q·(1-q)/δ，
+ * 因此两端（q 接近 0 或 1）的精度高于中间。
+ */
+public class TDigest {
+
+    private final double compression;
+
+    private double[] means;
+
+    private double[] weights;
+
+    private int centroidCount = 0;
+
+    private final double[] buffer;
+
+    private int bufferSize = 0;
+
+    private double totalWeight = 0;
+
+    private double min = Double.POSITIVE_INFINITY;
+
+    private double max = Double.NEGATIVE_INFINITY;
+
+    public TDigest() {
+        this(100);
+    }
+
+    public TDigest(double compression) {
+        this.compression = compression;
+        int capacity = (int) Math.ceil(compression * 2) + 10;
+        this.means = new double[capacity];
+        this.weights = new double[capacity];
+        this.buffer = new double[capacity * 5];
+    }
+
+    public void add(double value) {
+        buffer[bufferSize++] = value;
+        min = Math.min(min, value);
+        max = Math.max(max, value);
+        if (bufferSize == buffer.length) {
+            compress();
+        }
+    }
+
+    /**
+     * 估算分位数
+     *
+     * @param q 0 ~ 1
+     * @return 没有数据时返回 NaN
+     */
+    public double quantile(double q) {
+        compress();
+        if (centroidCount == 0) {
+            return Double.NaN;
+        }
+        if (centroidCount == 1) {
+            return means[0];
+        }
+        double target = q * totalWeight;
+        double cumulative = weights[0] / 2;
+        if (target <= cumulative) {
+            return interpolate(min, means[0], 0, cumulative, target);
+        }
+        for (int i = 0; i < centroidCount - 1; i++) {
+            double next = cumulative + (weights[i] + weights[i + 1]) / 2;
+            if (target <= next) {
+                return interpolate(means[i], means[i + 1], cumulative, next, target);
+            }
+            cumulative = next;
+        }
+        return interpolate(means[centroidCount - 1], max, cumulative, totalWeight, target);
+    }
+
+    private static double interpolate(double from, double to, double fromWeight, double toWeight, double target) {
+        if (toWeight <= fromWeight) {
+            return from;
+        }
+        return from + (to - from) * (target - fromWeight) / (toWeight - fromWeight);
+    }
+
+    /**
+     * 将缓冲区与已有质心按均值归并，再从左到右合并相邻质心
+     */
+    private void compress() {
+        if (bufferSize == 0) {
+            return;
+        }
+        Arrays.sort(buffer, 0, bufferSize);
+        int mergedSize = centroidCount + bufferSize;
+        double[] mergedMeans = new double[mergedSize];
+        double[] mergedWeights = new double[mergedSize];
+        int i = 0;
+        int j = 0;
+        for (int k = 0; k < mergedSize; k++) {
+            if (j >= bufferSize || (i < centroidCount && means[i] <= buffer[j])) {
+                mergedMeans[k] = means[i];
+                mergedWeights[k] = weights[i];
+                i++;
+            } else {
+                mergedMeans[k] = buffer[j];
+                mergedWeights[k] = 1;
+                j++;
+            }
+        }
+        totalWeight += bufferSize;
+        bufferSize = 0;
+
+        int count = 0;
+        double cumulative = 0;
+        double currentMean = mergedMeans[0];
+        double currentWeight = mergedWeights[0];
+        for (int k = 1; k < mergedSize; k++) {
+            double proposedWeight = currentWeight + mergedWeights[k];
+            double q = (cumulative + proposedWeight / 2) / totalWeight;
+            double limit = Math.max(1, 4 * totalWeight * q * (1 - q) / compression);
+            if (proposedWeight <= limit) {
+                currentMean += (mergedMeans[k] - currentMean) * mergedWeights[k] / proposedWeight;
+                currentWeight = proposedWeight;
+            } else {
+                count = append(count, currentMean, currentWeight);
+                cumulative += currentWeight;
+                currentMean = mergedMeans[k];
+                currentWeight = mergedWeights[k];
+            }
+        }
+        centroidCount = append(count, currentMean, currentWeight);
+    }
+
+    private int append(int index, double mean, double weight) {
+        if (index == means.length) {
+            means = Arrays.copyOf(means, index * 2);
+            weights = Arrays.copyOf(weights, index * 2);
+        }
+        means[index] = mean;
+        weights[index] = weight;
+        return index + 1;
+    }
+}
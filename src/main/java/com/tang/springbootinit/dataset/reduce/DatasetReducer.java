@@ -0,0 +1,36 @@
+package com.tang.springbootinit.dataset.reduce;
+
+import com.tang.springbootinit.dataset.ColumnarDataset;
+
+/**
+ * 数据集缩减策略（拼接 AI 输入前把数据压到 token 预算内）
+ * <p>
+ * 实现类注册为 Spring Bean 即可生效，自动模式下按 @Order 顺序选第一个 supports 的策略
+ */
+public interface DatasetReducer {
+
+    /**
+     * 策略名称（对应配置 bi.prompt.strategy）
+     *
+     * @return
+     */
+    String getName();
+
+    /**
+     * 是否适用于该数据集
+     *
+     * @param dataset
+     * @param targetRows 目标行数
+     * @return
+     */
+    boolean supports(ColumnarDataset dataset, int targetRows);
+
+    /**
+     * 缩减到不超过 targetRows 行
+     *
+     * @param dataset
+     * @param targetRows
+     * @return
+     */
+    DatasetReduction reduce(ColumnarDataset dataset, int targetRows);
+}
@@ -0,0 +1,39 @@
+package com.tang.springbootinit.dataset.reduce;
+
+import com.tang.springbootinit.dataset.ColumnarDataset;
+import lombok.Data;
+
+/**
+ * 数据集缩减结果
+ */
+@Data
+public class DatasetReduction {
+
+    /**
+     * 缩减后的数据集
+     */
+    private final ColumnarDataset dataset;
+
+    /**
+     * 原始行数
+     */
+    private final int originalRowCount;
+
+    /**
+     * 使用的策略，未缩减时为 null
+     */
+    private final String strategy;
+
+    /**
+     * 缩减说明（丢弃了什么），未缩减时为 null
+     */
+    private final String note;
+
+    public static DatasetReduction unchanged(ColumnarDataset dataset) {
+        return new DatasetReduction(dataset, dataset.getRowCount(), null, null);
+    }
+
+    public boolean isReduced() {
+        return strategy != null;
+    }
+}
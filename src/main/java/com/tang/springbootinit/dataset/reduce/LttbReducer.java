@@ -0,0 +1,118 @@
+package com.tang.springbootinit.dataset.reduce;
+
+import com.tang.springbootinit.dataset.Column;
+import com.tang.springbootinit.dataset.ColumnarDataset;
+import com.tang.springbootinit.dataset.StringColumn;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+import java.util.function.IntToDoubleFunction;
+
+/**
+ * 时间序列降采样（Largest-Triangle-Three-Buckets）
+ * <p>
+ * 适用：第一列为各行互不相同的有序维度（日期、序号等），且至少有一个数值列。
+ * 以第一个数值列为 y 选点，保留整体走势和峰谷，所有列按选中的行一起保留。
+ */
+@Component
+@Order(1)
+public class LttbReducer implements DatasetReducer {
+
+    @Override
+    public String getName() {
+        return "lttb";
+    }
+
+    @Override
+    public boolean supports(ColumnarDataset dataset, int targetRows) {
+        if (dataset.getColumnCount() < 2 || targetRows < 3) {
+            return false;
+        }
+        Column x = dataset.getColumn(0);
+        if (x.getNullCount() > 0 || findMeasure(dataset) < 0) {
+            return false;
+        }
+        if (x instanceof StringColumn) {
+            return ((StringColumn) x).getDistinctCount() == dataset.getRowCount();
+        }
+        // 数值型 x 须单调不减
+        for (int row = 1; row < dataset.getRowCount(); row++) {
+            if (x.getDouble(row) < x.getDouble(row - 1)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public DatasetReduction reduce(ColumnarDataset dataset, int targetRows) {
+        Column x = dataset.getColumn(0);
+        Column y = dataset.getColumn(findMeasure(dataset));
+        int[] rows = lttb(dataset.getRowCount(), targetRows,
+                row -> x.isNumeric() ? x.getDouble(row) : row,
+                row -> y.isNull(row) ? 0 : y.getDouble(row));
+        String note = String.format("原始数据共 %d 行，已按「%s」走势（LTTB 降采样）保留 %d 行",
+                dataset.getRowCount(), y.getName(), rows.length);
+        return new DatasetReduction(dataset.selectRows(rows), dataset.getRowCount(), getName(), note);
+    }
+
+    static int[] lttb(int rowCount, int threshold, IntToDoubleFunction xs,
+                      IntToDoubleFunction ys) {
+        if (threshold >= rowCount || threshold < 3) {
+            int[] all = new int[Math.min(rowCount, Math.max(threshold, 0))];
+            for (int i = 0; i < all.length; i++) {
+                all[i] = i;
+            }
+            return all;
+        }
+        int[] sampled = new int[threshold];
+        int sampledIndex = 0;
+        double every = (double) (rowCount - 2) / (threshold - 2);
+        int a = 0;
+        sampled[sampledIndex++] = a;
+        for (int i = 0; i < threshold - 2; i++) {
+            // 下一个桶的平均点
+            int avgRangeStart = (int) Math.floor((i + 1) * every) + 1;
+            int avgRangeEnd = Math.min((int) Math.floor((i + 2) * every) + 1, rowCount);
+            double avgX = 0;
+            double avgY = 0;
+            int avgRangeLength = avgRangeEnd - avgRangeStart;
+            for (int j = avgRangeStart; j < avgRangeEnd; j++) {
+                avgX += xs.applyAsDouble(j);
+                avgY += ys.applyAsDouble(j);
+            }
+            if (avgRangeLength > 0) {
+                avgX /= avgRangeLength;
+                avgY /= avgRangeLength;
+            }
+            // 当前桶中与 a、平均点构成三角形面积最大的点
+            int rangeStart = (int) Math.floor(i * every) + 1;
+            int rangeEnd = (int) Math.floor((i + 1) * every) + 1;
+            double pointAX = xs.applyAsDouble(a);
+            double pointAY = ys.applyAsDouble(a);
+            double maxArea = -1;
+            int nextA = rangeStart;
+            for (int j = rangeStart; j < rangeEnd; j++) {
+                double area = Math.abs((pointAX - avgX) * (ys.applyAsDouble(j) - pointAY)
+                        - (pointAX - xs.applyAsDouble(j)) * (avgY - pointAY));
+                if (area > maxArea) {
+                    maxArea = area;
+                    nextA = j;
+                }
+            }
+            sampled[sampledIndex++] = nextA;
+            a = nextA;
+        }
+        sampled[sampledIndex] = rowCount - 1;
+        return sampled;
+    }
+
+    private static int findMeasure(ColumnarDataset dataset) {
+        for (int i = 1; i < dataset.getColumnCount(); i++) {
+            if (dataset.getColumn(i).isNumeric()) {
+                return i;
+            }
+        }
+        return -1;
+    }
+}
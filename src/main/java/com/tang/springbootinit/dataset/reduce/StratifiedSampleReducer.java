@@ -0,0 +1,105 @@
+package com.tang.springbootinit.dataset.reduce;
+
+import com.tang.springbootinit.dataset.Column;
+import com.tang.springbootinit.dataset.ColumnarDataset;
+import com.tang.springbootinit.dataset.StringColumn;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+import java.util.Arrays;
+
+/**
+ * 分层抽样
+ * <p>
+ * 按第一个低基数的字符串列分层，每层按占比分配名额（至少 1 行），层内等间隔取行，结果稳定可复现；
+ * 没有可分层的列时退化为全表等间隔抽样。作为兜底策略，总是适用。
+ */
+@Component
+@Order(3)
+public class StratifiedSampleReducer implements DatasetReducer {
+
+    @Override
+    public String getName() {
+        return "stratified";
+    }
+
+    @Override
+    public boolean supports(ColumnarDataset dataset, int targetRows) {
+        return targetRows > 0;
+    }
+
+    @Override
+    public DatasetReduction reduce(ColumnarDataset dataset, int targetRows) {
+        int rowCount = dataset.getRowCount();
+        StringColumn strata = findStrata(dataset, targetRows);
+        if (strata == null) {
+            int[] rows = systematic(rowCount, targetRows);
+            String note = String.format("原始数据共 %d 行，已等间隔抽样保留 %d 行", rowCount, rows.length);
+            return new DatasetReduction(dataset.selectRows(rows), rowCount, getName(), note);
+        }
+        // 统计每层行数（空值单独一层）
+        int nullStratum = strata.getDistinctCount();
+        int[] stratumSizes = new int[nullStratum + 1];
+        for (int row = 0; row < rowCount; row++) {
+            stratumSizes[stratumOf(strata, row, nullStratum)]++;
+        }
+        // 按占比分配名额，先为每层预留 1 个保底名额，保证总数不超过目标行数
+        int strataCount = (int) Arrays.stream(stratumSizes).filter(size -> size > 0).count();
+        int sharedRows = Math.max(0, targetRows - strataCount);
+        int[] quotas = new int[stratumSizes.length];
+        for (int s = 0; s < stratumSizes.length; s++) {
+            if (stratumSizes[s] > 0) {
+                int quota = Math.max(1, (int) ((long) stratumSizes[s] * sharedRows / rowCount));
+                quotas[s] = Math.min(stratumSizes[s], quota);
+            }
+        }
+        // 层内等间隔取行：第 k 个名额取层内第 floor((k + 0.5) * size / quota) 个
+        int[] seen = new int[stratumSizes.length];
+        int[] taken = new int[stratumSizes.length];
+        int[] rows = new int[Arrays.stream(quotas).sum()];
+        int count = 0;
+        for (int row = 0; row < rowCount; row++) {
+            int s = stratumOf(strata, row, nullStratum);
+            int quota = quotas[s];
+            if (taken[s] < quota) {
+                long wanted = (long) ((taken[s] + 0.5) * stratumSizes[s] / quota);
+                if (seen[s] == wanted) {
+                    rows[count++] = row;
+                    taken[s]++;
+                }
+            }
+            seen[s]++;
+        }
+        rows = Arrays.copyOf(rows, count);
+        String note = String.format("原始数据共 %d 行，已按「%s」分层抽样保留 %d 行", rowCount, strata.getName(), count);
+        return new DatasetReduction(dataset.selectRows(rows), rowCount, getName(), note);
+    }
+
+    private static int stratumOf(StringColumn strata, int row, int nullStratum) {
+        return strata.isNull(row) ? nullStratum : strata.getCode(row);
+    }
+
+    /**
+     * 第一个不同取值数不超过目标行数的字符串列
+     */
+    private static StringColumn findStrata(ColumnarDataset dataset, int targetRows) {
+        for (Column column : dataset.getColumns()) {
+            if (column instanceof StringColumn) {
+                int distinctCount = ((StringColumn) column).getDistinctCount();
+                if (distinctCount > 1 && distinctCount <= targetRows / 2) {
+                    return (StringColumn) column;
+                }
+            }
+        }
+        return null;
+    }
+
+    private static int[] systematic(int rowCount, int targetRows) {
+        int n = Math.min(rowCount, targetRows);
+        int[] rows = new int[n];
+        for (int i = 0; i < n; i++) {
+            rows[i] = (int) ((long) i * rowCount / n);
+        }
+        return rows;
+    }
+}
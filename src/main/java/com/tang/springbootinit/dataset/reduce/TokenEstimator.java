@@ -0,0 +1,26 @@
+package com.tang.springbootinit.dataset.reduce;
+
+/**
+ * 粗略估算文本的 token 数：中文等非 ASCII 字符按 1 个 token，ASCII 字符按 4 个一个 token
+ */
+public class TokenEstimator {
+
+    private TokenEstimator() {
+    }
+
+    public static int estimate(CharSequence text) {
+        if (text == null) {
+            return 0;
+        }
+        int ascii = 0;
+        int other = 0;
+        for (int i = 0; i < text.length(); i++) {
+            if (text.charAt(i) < 128) {
+                ascii++;
+            } else {
+                other++;
+            }
+        }
+        return other + (ascii + 3) / 4;
+    }
+}
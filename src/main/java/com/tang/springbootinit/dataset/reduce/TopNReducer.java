@@ -0,0 +1,114 @@
+package com.tang.springbootinit.dataset.reduce;
+
+import com.tang.springbootinit.dataset.Column;
+import com.tang.springbootinit.dataset.ColumnarDataset;
+import com.tang.springbootinit.dataset.DoubleColumn;
+import com.tang.springbootinit.dataset.StringColumn;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.IntStream;
+
+/**
+ * Top-N + 其他
+ * <p>
+ * 适用：存在不同取值数超过目标行数的分类列，且有数值列。按分类汇总（求和）所有数值列，
+ * 按第一个数值列降序保留前 N-1 项，其余合并为「其他」一行。
+ */
+@Component
+@Order(2)
+public class TopNReducer implements DatasetReducer {
+
+    static final String OTHERS = "其他";
+
+    @Override
+    public String getName() {
+        return "topn";
+    }
+
+    @Override
+    public boolean supports(ColumnarDataset dataset, int targetRows) {
+        return targetRows >= 2 && findCategory(dataset, targetRows) != null && !findMeasures(dataset).isEmpty();
+    }
+
+    @Override
+    public DatasetReduction reduce(ColumnarDataset dataset, int targetRows) {
+        StringColumn category = findCategory(dataset, targetRows);
+        List<Column> measures = findMeasures(dataset);
+        String[] dictionary = category.getDictionary();
+        // 按分类求和，空分类计入「其他」
+        double[][] sums = new double[measures.size()][dictionary.length];
+        double[] othersSums = new double[measures.size()];
+        for (int row = 0; row < dataset.getRowCount(); row++) {
+            for (int m = 0; m < measures.size(); m++) {
+                Column measure = measures.get(m);
+                if (measure.isNull(row)) {
+                    continue;
+                }
+                if (category.isNull(row)) {
+                    othersSums[m] += measure.getDouble(row);
+                } else {
+                    sums[m][category.getCode(row)] += measure.getDouble(row);
+                }
+            }
+        }
+        double[] rankBy = sums[0];
+        Integer[] ranked = IntStream.range(0, dictionary.length).boxed()
+                .sorted(Comparator.comparingDouble((Integer code) -> rankBy[code]).reversed())
+                .toArray(Integer[]::new);
+        int keep = Math.min(targetRows - 1, ranked.length);
+        for (int i = keep; i < ranked.length; i++) {
+            for (int m = 0; m < measures.size(); m++) {
+                othersSums[m] += sums[m][ranked[i]];
+            }
+        }
+        // 组装结果：分类列 + 各数值列的合计
+        int resultRows = keep + 1;
+        String[] resultDictionary = new String[resultRows];
+        int[] codes = new int[resultRows];
+        for (int i = 0; i < keep; i++) {
+            resultDictionary[i] = dictionary[ranked[i]];
+            codes[i] = i;
+        }
+        resultDictionary[keep] = OTHERS;
+        codes[keep] = keep;
+        List<Column> columns = new ArrayList<>();
+        long[] noNulls = new long[(resultRows + 63) >>> 6];
+        columns.add(new StringColumn(category.getName(), resultDictionary, codes, noNulls));
+        for (int m = 0; m < measures.size(); m++) {
+            double[] values = new double[resultRows];
+            for (int i = 0; i < keep; i++) {
+                values[i] = sums[m][ranked[i]];
+            }
+            values[keep] = othersSums[m];
+            columns.add(new DoubleColumn(measures.get(m).getName() + "（合计）", values, Arrays.copyOf(noNulls, noNulls.length)));
+        }
+        String note = String.format("原始数据共 %d 行、%d 个「%s」，已按「%s」合计保留前 %d 项，其余 %d 项合并为「%s」",
+                dataset.getRowCount(), dictionary.length, category.getName(), measures.get(0).getName(),
+                keep, dictionary.length - keep, OTHERS);
+        return new DatasetReduction(new ColumnarDataset(columns, resultRows), dataset.getRowCount(), getName(), note);
+    }
+
+    private static StringColumn findCategory(ColumnarDataset dataset, int targetRows) {
+        for (Column column : dataset.getColumns()) {
+            if (column instanceof StringColumn && ((StringColumn) column).getDistinctCount() >= targetRows) {
+                return (StringColumn) column;
+            }
+        }
+        return null;
+    }
+
+    private static List<Column> findMeasures(ColumnarDataset dataset) {
+        List<Column> measures = new ArrayList<>();
+        for (Column column : dataset.getColumns()) {
+            if (column.isNumeric()) {
+                measures.add(column);
+            }
+        }
+        return measures;
+    }
+}
@@ -0,0 +1,54 @@
+package com.tang.springbootinit.executor;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * 图表生成任务执行器（任务大部分时间阻塞在 AI 调用上）
+ */
+public interface ChartTaskExecutor extends Executor {
+
+    /**
+     * 提交任务
+     *
+     * @param task
+     * @throws RejectedExecutionException 等待队列已满
+     */
+    @Override
+    void execute(Runnable task);
+
+    /**
+     * 正在执行的任务数
+     */
+    int getActiveCount();
+
+    /**
+     * 等待执行的任务数
+     */
+    int getQueueSize();
+
+    /**
+     * 已提交的任务总数
+     */
+    long getTaskCount();
+
+    /**
+     * 已完成的任务数
+     */
+    long getCompletedTaskCount();
+
+    /**
+     * 同时执行的任务数上限
+     */
+    int getMaxConcurrency();
+
+    /**
+     * 等待执行的任务数上限
+     */
+    int getQueueCapacity();
+
+    /**
+     * 关闭执行器，不再接收新任务
+     */
+    void shutdown();
+}
@@ -0,0 +1,262 @@
+package com.tang.springbootinit.executor;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 按用户公平调度图表任务（加权差额轮询，Deficit Round Robin）
+ * <p>
+ * 每个用户一个子队列，每轮按权重获得执行额度；在途任务数达到执行器并发上限后任务留在子队列，
+ * 执行器自身不排队。单个用户提交再多任务，其他用户的等待时间也只与活跃用户数有关。
+ * 排队时间按用户类别（角色）导出分位数 bi.chart.queue.wait。
+ * 执行器关闭后不再执行的任务（包括仍在排队的）交给提交时指定的 onRejected 处理，不会被静默丢弃。
+ */
+@Slf4j
+public class FairChartTaskScheduler {
+
+    private final ChartTaskExecutor chartTaskExecutor;
+
+    private final int queueCapacity;
+
+    private final MeterRegistry meterRegistry;
+
+    private final Map<String, Timer> queueWaitTimers = new ConcurrentHashMap<>();
+
+    /**
+     * 以下字段由 this 锁保护
+     */
+    private final Map<Object, UserQueue> userQueues = new HashMap<>();
+
+    private final ArrayDeque<UserQueue> activeQueues = new ArrayDeque<>();
+
+    private int queueSize = 0;
+
+    private int inFlight = 0;
+
+    public FairChartTaskScheduler(ChartTaskExecutor chartTaskExecutor, int queueCapacity, MeterRegistry meterRegistry) {
+        this.chartTaskExecutor = chartTaskExecutor;
+        this.queueCapacity = queueCapacity;
+        this.meterRegistry = meterRegistry;
+    }
+
+    /**
+     * 提交任务
+     *
+     * @param userKey   用户标识
+     * @param userClass 用户类别，用于统计
+     * @param weight    权重，每轮可执行的任务数
+     * @param task
+     * @throws RejectedExecutionException 排队任务数已满
+     */
+    public void submit(Object userKey, String userClass, int weight, Runnable task) {
+        submit(userKey, userClass, weight, task, () -> {
+        });
+    }
+
+    /**
+     * 提交任务
+     *
+     * @param userKey    用户标识
+     * @param userClass  用户类别，用于统计
+     * @param weight     权重，每轮可执行的任务数
+     * @param task
+     * @param onRejected 出队后执行器拒绝（已关闭）时调用，代替 task
+     * @throws RejectedExecutionException 排队任务数已满
+     */
+    public void submit(Object userKey, String userClass, int weight, Runnable task, Runnable onRejected) {
+        enqueue(userKey, userClass, weight, task, onRejected, true);
+    }
+
+    /**
+     * 提交任务，不检查排队容量：用于数量已由调用方限制的任务（如消息队列消费者持有的消息，不超过消费者数）
+     *
+     * @param userKey    用户标识
+     * @param userClass  用户类别，用于统计
+     * @param weight     权重，每轮可执行的任务数
+     * @param task
+     * @param onRejected 出队后执行器拒绝（已关闭）时调用，代替 task
+     */
+    public void submitUnbounded(Object userKey, String userClass, int weight, Runnable task, Runnable onRejected) {
+        enqueue(userKey, userClass, weight, task, onRejected, false);
+    }
+
+    private void enqueue(Object userKey, String userClass, int weight, Runnable task, Runnable onRejected,
+                         boolean checkCapacity) {
+        synchronized (this) {
+            if (checkCapacity && queueSize >= queueCapacity && inFlight >= chartTaskExecutor.getMaxConcurrency()) {
+                throw new RejectedExecutionException("chart task queue is full");
+            }
+            UserQueue userQueue = userQueues.computeIfAbsent(userKey, key -> new UserQueue(key, userClass));
+            userQueue.weight = Math.max(1, weight);
+            if (userQueue.tasks.isEmpty()) {
+                activeQueues.addLast(userQueue);
+            }
+            userQueue.tasks.addLast(new QueuedTask(task, onRejected, System.nanoTime()));
+            queueSize++;
+        }
+        dispatch();
+    }
+
+    /**
+     * 排队中的任务数
+     */
+    public synchronized int getQueueSize() {
+        return queueSize;
+    }
+
+    /**
+     * 已交给执行器的任务数
+     */
+    public synchronized int getInFlightCount() {
+        return inFlight;
+    }
+
+    /**
+     * 是否还能接收任务
+     */
+    public synchronized boolean hasCapacity() {
+        return queueSize < queueCapacity || inFlight < chartTaskExecutor.getMaxConcurrency();
+    }
+
+    /**
+     * 在并发上限内把排队任务交给执行器
+     */
+    private void dispatch() {
+        while (true) {
+            QueuedTask next;
+            UserQueue owner;
+            synchronized (this) {
+                if (inFlight >= chartTaskExecutor.getMaxConcurrency()) {
+                    return;
+                }
+                owner = nextQueue();
+                if (owner == null) {
+                    return;
+                }
+                next = owner.tasks.pollFirst();
+                owner.deficit--;
+                if (owner.tasks.isEmpty()) {
+                    // 队列清空后额度不保留
+                    activeQueues.pollFirst();
+                    userQueues.remove(owner.userKey);
+                    owner.deficit = 0;
+                    owner.refilled = false;
+                }
+                queueSize--;
+                inFlight++;
+            }
+            queueWaitTimer(owner.userClass).record(System.nanoTime() - next.enqueueNanos, TimeUnit.NANOSECONDS);
+            try {
+                chartTaskExecutor.execute(() -> {
+                    try {
+                        next.task.run();
+                    } finally {
+                        synchronized (this) {
+                            inFlight--;
+                        }
+                        dispatch();
+                    }
+                });
+            } catch (RejectedExecutionException e) {
+                // 只在执行器关闭（应用停止）时发生，剩余任务不再调度，连同本任务一起交给 onRejected
+                List<QueuedTask> rejected = new ArrayList<>();
+                rejected.add(next);
+                synchronized (this) {
+                    inFlight--;
+                    for (UserQueue userQueue : activeQueues) {
+                        rejected.addAll(userQueue.tasks);
+                    }
+                    activeQueues.clear();
+                    userQueues.clear();
+                    queueSize = 0;
+                }
+                rejected.forEach(QueuedTask::reject);
+                return;
+            }
+        }
+    }
+
+    /**
+     * 轮询选出下一个有额度的用户队列（位于 activeQueues 队首）
+     */
+    private UserQueue nextQueue() {
+        while (!activeQueues.isEmpty()) {
+            UserQueue head = activeQueues.peekFirst();
+            if (!head.refilled) {
+                head.deficit += head.weight;
+                head.refilled = true;
+            }
+            if (head.deficit >= 1) {
+                return head;
+            }
+            // 本轮额度用完，移到队尾等下一轮
+            head.refilled = false;
+            activeQueues.pollFirst();
+            activeQueues.addLast(head);
+        }
+        return null;
+    }
+
+    private Timer queueWaitTimer(String userClass) {
+        return queueWaitTimers.computeIfAbsent(userClass, key -> Timer.builder("bi.chart.queue.wait")
+                .tag("userClass", key)
+                .publishPercentiles(0.5, 0.95, 0.99)
+                .register(meterRegistry));
+    }
+
+    private static class UserQueue {
+
+        private final Object userKey;
+
+        private final String userClass;
+
+        private final ArrayDeque<QueuedTask> tasks = new ArrayDeque<>();
+
+        private int weight = 1;
+
+        private int deficit = 0;
+
+        /**
+         * 本轮是否已发放额度
+         */
+        private boolean refilled = false;
+
+        UserQueue(Object userKey, String userClass) {
+            this.userKey = userKey;
+            this.userClass = userClass;
+        }
+    }
+
+    private static class QueuedTask {
+
+        private final Runnable task;
+
+        private final Runnable onRejected;
+
+        private final long enqueueNanos;
+
+        QueuedTask(Runnable task, Runnable onRejected, long enqueueNanos) {
+            this.task = task;
+            this.onRejected = onRejected;
+            this.enqueueNanos = enqueueNanos;
+        }
+
+        void reject() {
+            try {
+                onRejected.run();
+            } catch (RuntimeException e) {
+                log.error("handle rejected chart task failed", e);
+            }
+        }
+    }
+}
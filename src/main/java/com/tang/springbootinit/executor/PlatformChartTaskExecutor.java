@@ -0,0 +1,73 @@
+package com.tang.springbootinit.executor;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 固定大小线程池执行器，并发数即线程数
+ */
+public class PlatformChartTaskExecutor implements ChartTaskExecutor {
+
+    private final ThreadPoolExecutor threadPoolExecutor;
+
+    private final int queueCapacity;
+
+    public PlatformChartTaskExecutor(int maxConcurrency, int queueCapacity) {
+        ThreadFactory threadFactory = new ThreadFactory() {
+            private final AtomicInteger count = new AtomicInteger(1);
+
+            @Override
+            public Thread newThread(Runnable r) {
+                Thread thread = new Thread(r);
+                thread.setName("线程" + count.getAndIncrement());
+                return thread;
+            }
+        };
+        this.threadPoolExecutor = new ThreadPoolExecutor(maxConcurrency, maxConcurrency, 100, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), threadFactory);
+        this.queueCapacity = queueCapacity;
+    }
+
+    @Override
+    public void execute(Runnable task) {
+        threadPoolExecutor.execute(task);
+    }
+
+    @Override
+    public int getActiveCount() {
+        return threadPoolExecutor.getActiveCount();
+    }
+
+    @Override
+    public int getQueueSize() {
+        return threadPoolExecutor.getQueue().size();
+    }
+
+    @Override
+    public long getTaskCount() {
+        return threadPoolExecutor.getTaskCount();
+    }
+
+    @Override
+    public long getCompletedTaskCount() {
+        return threadPoolExecutor.getCompletedTaskCount();
+    }
+
+    @Override
+    public int getMaxConcurrency() {
+        return threadPoolExecutor.getMaximumPoolSize();
+    }
+
+    @Override
+    public int getQueueCapacity() {
+        return queueCapacity;
+    }
+
+    @Override
+    public void shutdown() {
+        threadPoolExecutor.shutdown();
+    }
+}
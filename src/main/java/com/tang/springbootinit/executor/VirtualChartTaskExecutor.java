@@ -0,0 +1,111 @@
+package com.tang.springbootinit.executor;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 虚拟线程执行器：每个任务一个虚拟线程，用信号量把同时执行的任务数限制在 AI 配额内
+ * <p>
+ * 等待信号量的虚拟线程不占用平台线程，排队成本只有少量内存
+ */
+public class VirtualChartTaskExecutor implements ChartTaskExecutor {
+
+    private final ExecutorService executorService;
+
+    private final Semaphore permits;
+
+    private final int maxConcurrency;
+
+    private final int queueCapacity;
+
+    private final AtomicInteger queueSize = new AtomicInteger();
+
+    private final AtomicInteger activeCount = new AtomicInteger();
+
+    private final AtomicLong taskCount = new AtomicLong();
+
+    private final AtomicLong completedTaskCount = new AtomicLong();
+
+    public VirtualChartTaskExecutor(int maxConcurrency, int queueCapacity) {
+        this.executorService = Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("chart-task-", 1).factory());
+        this.permits = new Semaphore(maxConcurrency, true);
+        this.maxConcurrency = maxConcurrency;
+        this.queueCapacity = queueCapacity;
+    }
+
+    @Override
+    public void execute(Runnable task) {
+        // 空闲许可可以立即执行，不计入排队上限
+        if (queueSize.incrementAndGet() > queueCapacity + permits.availablePermits()) {
+            queueSize.decrementAndGet();
+            throw new RejectedExecutionException("chart task queue is full");
+        }
+        taskCount.incrementAndGet();
+        try {
+            executorService.execute(() -> runWithPermit(task));
+        } catch (RejectedExecutionException e) {
+            queueSize.decrementAndGet();
+            taskCount.decrementAndGet();
+            throw e;
+        }
+    }
+
+    private void runWithPermit(Runnable task) {
+        try {
+            permits.acquire();
+        } catch (InterruptedException e) {
+            queueSize.decrementAndGet();
+            completedTaskCount.incrementAndGet();
+            Thread.currentThread().interrupt();
+            return;
+        }
+        queueSize.decrementAndGet();
+        activeCount.incrementAndGet();
+        try {
+            task.run();
+        } finally {
+            activeCount.decrementAndGet();
+            completedTaskCount.incrementAndGet();
+            permits.release();
+        }
+    }
+
+    @Override
+    public int getActiveCount() {
+        return activeCount.get();
+    }
+
+    @Override
+    public int getQueueSize() {
+        return queueSize.get();
+    }
+
+    @Override
+    public long getTaskCount() {
+        return taskCount.get();
+    }
+
+    @Override
+    public long getCompletedTaskCount() {
+        return completedTaskCount.get();
+    }
+
+    @Override
+    public int getMaxConcurrency() {
+        return maxConcurrency;
+    }
+
+    @Override
+    public int getQueueCapacity() {
+        return queueCapacity;
+    }
+
+    @Override
+    public void shutdown() {
+        executorService.shutdown();
+    }
+}
@@ -0,0 +1,71 @@
+package com.tang.springbootinit.job.cycle;
+
+import com.tang.springbootinit.config.BiLeaseConfig;
+import com.tang.springbootinit.manager.ChartNotifyManager;
+import com.tang.springbootinit.manager.ChartStatusCacheManager;
+import com.tang.springbootinit.model.entity.Chart;
+import com.tang.springbootinit.model.enums.ChartStatusEnum;
+import com.tang.springbootinit.service.ChartService;
+import jakarta.annotation.Resource;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.Date;
+import java.util.List;
+
+/**
+ * 回收租约过期的图表任务（执行节点宕机或任务异常退出）：未超过最多执行次数的经事务发件箱重新投递到消息队列，否则置为失败
+ * <p>
+ * 只在节点内存中排队（公平调度子队列）的等待任务没有租约，节点宕机或重启后丢失；
+ * 等待超过 bi.lease.wait-timeout-seconds 的同样经发件箱重新投递
+ * <p>
+ * 多个节点同时运行时，由条件更新保证每个任务只被一个节点回收
+ */
+@Component
+@Slf4j
+public class ChartLeaseReaper {
+
+    private static final String TIMEOUT_MESSAGE = "任务执行超时";
+
+    @Resource
+    private ChartService chartService;
+
+    @Resource
+    private BiLeaseConfig biLeaseConfig;
+
+    @Resource
+    private ChartNotifyManager chartNotifyManager;
+
+    @Resource
+    private ChartStatusCacheManager chartStatusCacheManager;
+
+    @Scheduled(fixedDelayString = "${bi.lease.reap-interval-millis:30000}")
+    public void run() {
+        Date now = new Date();
+        List<Chart> expiredCharts = chartService.listExpiredLeases(now, biLeaseConfig.getReapBatchSize());
+        for (Chart chart : expiredCharts) {
+            long chartId = chart.getId();
+            int attemptCount = chart.getAttemptCount() == null ? 0 : chart.getAttemptCount();
+            if (attemptCount >= biLeaseConfig.getMaxAttempts()) {
+                if (chartService.failExpiredLease(chartId, now, TIMEOUT_MESSAGE)) {
+                    log.warn("chart {} lease expired after {} attempts, marked failed", chartId, attemptCount);
+                    chartNotifyManager.notifyChart(chart.getUserId(), chartId, ChartStatusEnum.FAILED, TIMEOUT_MESSAGE);
+                }
+                continue;
+            }
+            // 改回等待状态的同时写入待发送消息，由发件箱投递
+            if (chartService.requeueExpiredLease(chart, now)) {
+                chartStatusCacheManager.put(chart.getUserId(), chartId, ChartStatusEnum.WAIT, null);
+                log.warn("chart {} lease expired, requeued (attempt {})", chartId, attemptCount);
+            }
+        }
+        Date waitBefore = new Date(now.getTime() - biLeaseConfig.getWaitTimeoutSeconds() * 1000);
+        List<Chart> staleCharts = chartService.listStaleWaiting(waitBefore, biLeaseConfig.getReapBatchSize());
+        for (Chart chart : staleCharts) {
+            if (chartService.requeueStaleWaiting(chart, waitBefore)) {
+                log.warn("chart {} waiting since before {}, requeued", chart.getId(), waitBefore);
+            }
+        }
+    }
+}
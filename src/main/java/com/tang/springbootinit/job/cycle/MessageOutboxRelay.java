@@ -0,0 +1,149 @@
+package com.tang.springbootinit.job.cycle;
+
+import com.tang.springbootinit.bizmq.MessagePublisher;
+import com.tang.springbootinit.config.BiOutboxConfig;
+import com.tang.springbootinit.model.entity.MessageOutbox;
+import com.tang.springbootinit.service.MessageOutboxService;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.Resource;
+import lombok.extern.slf4j.Slf4j;
+import org.redisson.api.RLock;
+import org.redisson.api.RedissonClient;
+import org.springframework.amqp.AmqpException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * 发送事务发件箱中的待发送消息：整批异步发送后统一等待 broker 确认，确认成功的标记为已发送，其余下次重发（至少一次）；
+ * 一直被拒绝或未确认的消息超过 bi.outbox.max-attempts 次后标记为发送失败，不再阻塞后面的消息
+ * <p>
+ * 多个节点通过分布式锁保证同一时刻只有一个节点在发送，避免同一条消息被并发重复发送
+ */
+@Component
+@Slf4j
+public class MessageOutboxRelay {
+
+    private static final String RELAY_LOCK_KEY = "bi:outbox:relay";
+
+    @Resource
+    private MessageOutboxService messageOutboxService;
+
+    @Resource
+    private MessagePublisher messagePublisher;
+
+    @Resource
+    private RedissonClient redissonClient;
+
+    @Resource
+    private BiOutboxConfig biOutboxConfig;
+
+    @Resource
+    private MeterRegistry meterRegistry;
+
+    private Counter sentCounter;
+
+    private Counter failedCounter;
+
+    @PostConstruct
+    public void init() {
+        sentCounter = meterRegistry.counter("bi.outbox.relay", "result", "sent");
+        failedCounter = meterRegistry.counter("bi.outbox.relay", "result", "failed");
+    }
+
+    @Scheduled(fixedDelayString = "${bi.outbox.relay-interval-millis:1000}")
+    public void run() {
+        RLock lock = redissonClient.getLock(RELAY_LOCK_KEY);
+        if (!lock.tryLock()) {
+            return;
+        }
+        try {
+            // 一批发完再等确认，不在每条消息上等待 broker 往返；每次最多发送 maxBatchesPerRun 批
+            for (int i = 0; i < biOutboxConfig.getMaxBatchesPerRun(); i++) {
+                List<MessageOutbox> pendingList = messageOutboxService.listPending(biOutboxConfig.getBatchSize());
+                if (pendingList.isEmpty() || !relay(pendingList)
+                        || pendingList.size() < biOutboxConfig.getBatchSize()) {
+                    break;
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 每天清理过期的已发送消息
+     */
+    @Scheduled(cron = "0 0 3 * * ?")
+    public void clean() {
+        Date before = new Date(System.currentTimeMillis() - TimeUnit.DAYS.toMillis(biOutboxConfig.getRetentionDays()));
+        int removed = messageOutboxService.removeSentBefore(before);
+        log.info("clean sent outbox messages: {}", removed);
+    }
+
+    /**
+     * 发送一批消息
+     *
+     * @param pendingList
+     * @return 是否全部发送成功
+     */
+    private boolean relay(List<MessageOutbox> pendingList) {
+        List<Long> publishedIds = new ArrayList<>(pendingList.size());
+        List<CompletableFuture<Boolean>> confirms = new ArrayList<>(pendingList.size());
+        for (MessageOutbox messageOutbox : pendingList) {
+            try {
+                confirms.add(messagePublisher.publish(messageOutbox.getExchange(), messageOutbox.getRoutingKey(),
+                        messageOutbox.getMessage()));
+            } catch (AmqpException e) {
+                // 连接不可用，本批剩余消息留到下次
+                log.error("relay outbox message {} failed", messageOutbox.getId(), e);
+                break;
+            }
+            publishedIds.add(messageOutbox.getId());
+        }
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(biOutboxConfig.getConfirmTimeoutMillis());
+        List<Long> sentIds = new ArrayList<>(publishedIds.size());
+        List<Long> failedIds = new ArrayList<>();
+        for (int i = 0; i < publishedIds.size(); i++) {
+            if (isConfirmed(confirms.get(i), deadline)) {
+                sentIds.add(publishedIds.get(i));
+            } else {
+                failedIds.add(publishedIds.get(i));
+            }
+        }
+        messageOutboxService.markSent(sentIds);
+        messageOutboxService.markFailed(failedIds, biOutboxConfig.getMaxAttempts());
+        sentCounter.increment(sentIds.size());
+        failedCounter.increment(failedIds.size());
+        if (!failedIds.isEmpty() || publishedIds.size() < pendingList.size()) {
+            log.warn("relay outbox: {} sent, {} failed, {} not sent", sentIds.size(), failedIds.size(),
+                    pendingList.size() - publishedIds.size());
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * 等待 broker 确认
+     */
+    private boolean isConfirmed(CompletableFuture<Boolean> confirm, long deadline) {
+        try {
+            long timeout = Math.max(0, deadline - System.nanoTime());
+            return Boolean.TRUE.equals(confirm.get(timeout, TimeUnit.NANOSECONDS));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        } catch (ExecutionException | TimeoutException e) {
+            return false;
+        }
+    }
+}
@@ -0,0 +1,141 @@
+package com.tang.springbootinit.manager;
+
+import cn.hutool.crypto.digest.DigestUtil;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.tang.springbootinit.config.AiCacheConfig;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.redisson.api.RBucket;
+import org.redisson.api.RedissonClient;
+import org.redisson.client.codec.StringCodec;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * AI 响应两级缓存：本地 Caffeine（L1）+ Redis（L2，多节点共享）
+ * <p>
+ * 键为应用 id + 规范化后 prompt 的 SHA-256。
+ * 指标：L1 使用 Caffeine 自带统计（cache.gets / cache.evictions，cache=ai.response.l1），
+ * L2 为 ai.response.l2{result=hit/miss}，过期由 Redis TTL 完成。
+ */
+@Service
+@Slf4j
+public class AiCacheManager {
+
+    private static final String REMOTE_KEY_PREFIX = "bi:ai:cache:";
+
+    private final AiCacheConfig aiCacheConfig;
+
+    private final RedissonClient redissonClient;
+
+    private final Cache<String, String> localCache;
+
+    private final Counter remoteHitCounter;
+
+    private final Counter remoteMissCounter;
+
+    public AiCacheManager(AiCacheConfig aiCacheConfig, RedissonClient redissonClient, MeterRegistry meterRegistry) {
+        this.aiCacheConfig = aiCacheConfig;
+        this.redissonClient = redissonClient;
+        this.localCache = Caffeine.newBuilder()
+                .maximumSize(aiCacheConfig.getLocalMaxSize())
+                .expireAfterWrite(Duration.ofSeconds(aiCacheConfig.getLocalTtlSeconds()))
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, localCache, "ai.response.l1");
+        this.remoteHitCounter = Counter.builder("ai.response.l2").tag("result", "hit").register(meterRegistry);
+        this.remoteMissCounter = Counter.builder("ai.response.l2").tag("result", "miss").register(meterRegistry);
+    }
+
+    public boolean isEnabled() {
+        return aiCacheConfig.isEnabled();
+    }
+
+    /**
+     * 计算缓存键
+     *
+     * @param appId
+     * @param message
+     * @return
+     */
+    public String buildKey(String appId, String message) {
+        return DigestUtil.sha256Hex(appId + "\u001F" + normalize(message));
+    }
+
+    /**
+     * 依次查询 L1、L2，L2 命中时回填 L1
+     *
+     * @param key
+     * @return 未命中返回 null
+     */
+    public String get(String key) {
+        String value = localCache.getIfPresent(key);
+        if (value != null) {
+            return value;
+        }
+        try {
+            value = remoteBucket(key).get();
+        } catch (Exception e) {
+            log.warn("read ai cache from redis failed, key = {}", key, e);
+        }
+        if (value == null) {
+            remoteMissCounter.increment();
+            return null;
+        }
+        remoteHitCounter.increment();
+        localCache.put(key, value);
+        return value;
+    }
+
+    /**
+     * 写入 L1、L2
+     *
+     * @param key
+     * @param value
+     */
+    public void put(String key, String value) {
+        localCache.put(key, value);
+        try {
+            remoteBucket(key).set(value, aiCacheConfig.getRemoteTtlSeconds(), TimeUnit.SECONDS);
+        } catch (Exception e) {
+            log.warn("write ai cache to redis failed, key = {}", key, e);
+        }
+    }
+
+    /**
+     * 删除缓存（如结果无法解析时）
+     *
+     * @param key
+     */
+    public void evict(String key) {
+        localCache.invalidate(key);
+        try {
+            remoteBucket(key).delete();
+        } catch (Exception e) {
+            log.warn("delete ai cache from redis failed, key = {}", key, e);
+        }
+    }
+
+    private RBucket<String> remoteBucket(String key) {
+        return redissonClient.getBucket(REMOTE_KEY_PREFIX + key, StringCodec.INSTANCE);
+    }
+
+    /**
+     * 统一换行符并去掉每行首尾空白，格式差异不影响命中
+     */
+    private static String normalize(String message) {
+        StringBuilder normalized = new StringBuilder(message.length());
+        for (String line : message.replace("\r\n", "\n").split("\n")) {
+            String trimmed = line.trim();
+            if (!trimmed.isEmpty()) {
+                normalized.append(trimmed).append('\n');
+            }
+        }
+        return normalized.toString();
+    }
+}
@@ -11,6 +11,11 @@ import org.springframework.ai.chat.prompt.Prompt;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.web.bind.annotation.RequestParam;
+import reactor.core.publisher.Flux;
+
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
 /**
  * 用于对接 AI 平台
  * AI调用方法：Spring AI Alibaba + AI应用
@@ -20,19 +25,121 @@ public class AiManager {
 
     private final DashScopeAgent agent;
 
+    private final AiCacheManager aiCacheManager;
+
+    private final AiSingleFlightManager aiSingleFlightManager;
+
+    private final AiQuotaManager aiQuotaManager;
+
     @Value("${spring.ai.dashscope.agent.app-id}")
     private String appId;
 
-    public AiManager(DashScopeAgentApi dashscopeAgentApi) {
+    public AiManager(DashScopeAgentApi dashscopeAgentApi, AiCacheManager aiCacheManager,
+                     AiSingleFlightManager aiSingleFlightManager, AiQuotaManager aiQuotaManager) {
         this.agent = new DashScopeAgent(dashscopeAgentApi);
+        this.aiCacheManager = aiCacheManager;
+        this.aiSingleFlightManager = aiSingleFlightManager;
+        this.aiQuotaManager = aiQuotaManager;
     }
+
     /**
-     * AI 对话
+     * AI 对话（优先读取缓存）
      *
      * @param message
      * @return AI助手生成的文本内容
      */
     public String doChat(@RequestParam(value = "message") String message) {
+        return doChat(message, false);
+    }
+
+    /**
+     * AI 对话
+     *
+     * @param message
+     * @param bypassCache 为 true 时跳过缓存读取（重新生成），结果仍会写入缓存
+     * @return AI助手生成的文本内容
+     */
+    public String doChat(String message, boolean bypassCache) {
+        boolean cacheEnabled = aiCacheManager.isEnabled();
+        String cacheKey = aiCacheManager.buildKey(appId, message);
+        if (cacheEnabled && !bypassCache) {
+            String cached = aiCacheManager.get(cacheKey);
+            if (cached != null) {
+                return cached;
+            }
+        }
+        // 相同输入正在调用时合并为一次；重新生成只和重新生成合并，不复用普通请求（可能来自旧缓存）的结果
+        String flightKey = bypassCache ? cacheKey + ":regenerate" : cacheKey;
+        return aiSingleFlightManager.execute(flightKey,
+                () -> cacheEnabled && !bypassCache ? aiCacheManager.get(cacheKey) : null,
+                () -> {
+                    // 实际调用 AI 时占用配额许可，命中缓存和合并等待不占用
+                    String content = aiQuotaManager.call(() -> callAgent(message));
+                    if (cacheEnabled) {
+                        aiCacheManager.put(cacheKey, content);
+                    }
+                    return content;
+                });
+    }
+
+    /**
+     * AI 对话（流式，逐块返回增量文本）
+     * <p>
+     * 命中缓存时一次返回完整结果；流式调用不参与请求合并，完整结束后写入缓存。
+     * 调用 AI 时占用配额许可直到流结束，返回的 Flux 必须订阅
+     *
+     * @param message
+     * @param bypassCache 为 true 时跳过缓存读取（重新生成）
+     * @return
+     * @throws RejectedExecutionException 没有空闲的 AI 调用许可（流式请求不排队等待）
+     */
+    public Flux<String> doChatStream(String message, boolean bypassCache) {
+        boolean cacheEnabled = aiCacheManager.isEnabled();
+        String cacheKey = aiCacheManager.buildKey(appId, message);
+        if (cacheEnabled && !bypassCache) {
+            String cached = aiCacheManager.get(cacheKey);
+            if (cached != null) {
+                return Flux.just(cached);
+            }
+        }
+        if (!aiQuotaManager.tryAcquire()) {
+            throw new RejectedExecutionException("AI quota exhausted");
+        }
+        AtomicBoolean released = new AtomicBoolean(false);
+        return Flux.defer(() -> {
+            StringBuilder content = new StringBuilder();
+            return agent.stream(new Prompt(message, DashScopeAgentOptions.builder()
+                            .withAppId(appId)
+                            .withIncrementalOutput(true)
+                            .build()))
+                    .mapNotNull(response -> response.getResult() == null || response.getResult().getOutput() == null
+                            ? null : response.getResult().getOutput().getContent())
+                    .filter(text -> !text.isEmpty())
+                    .doOnNext(content::append)
+                    .doOnComplete(() -> {
+                        if (cacheEnabled && content.length() > 0) {
+                            aiCacheManager.put(cacheKey, content.toString());
+                        }
+                    });
+        }).doFinally(signal -> {
+            if (released.compareAndSet(false, true)) {
+                aiQuotaManager.release();
+            }
+        });
+    }
+
+    /**
+     * 删除该输入对应的缓存（结果无法使用时调用，避免后续请求一直命中坏结果）
+     *
+     * @param message
+     */
+    public void evictCache(String message) {
+        if (aiCacheManager.isEnabled()) {
+            aiCacheManager.evict(aiCacheManager.buildKey(appId, message));
+        }
+    }
+
+    private String callAgent(String message) {
         // 调用agent的call方法，传入用户消息和配置选项
         // DashScopeAgentOptions指定应用ID，用于标识调用的应用
         ChatResponse response = agent.call(new Prompt(message,
@@ -49,6 +156,5 @@ public class AiManager {
 
         // 返回AI助手生成的文本内容
         return app_output.getContent();
-
     }
 }
@@ -0,0 +1,73 @@
+package com.tang.springbootinit.manager;
+
+import com.tang.springbootinit.common.ErrorCode;
+import com.tang.springbootinit.config.BiExecutorConfig;
+import com.tang.springbootinit.exception.BusinessException;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.stereotype.Service;
+
+import java.util.concurrent.Semaphore;
+import java.util.function.Supplier;
+
+/**
+ * AI 调用配额：节点内所有调用 AI 的入口（同步、流式、线程池任务、消息队列消费者）共享同一组许可，
+ * 同时进行的 AI 调用数不超过 bi.executor.max-concurrency
+ */
+@Service
+public class AiQuotaManager {
+
+    private final Semaphore permits;
+
+    private final int maxConcurrency;
+
+    public AiQuotaManager(BiExecutorConfig biExecutorConfig, MeterRegistry meterRegistry) {
+        this.maxConcurrency = Math.max(1, biExecutorConfig.getMaxConcurrency());
+        this.permits = new Semaphore(maxConcurrency, true);
+        Gauge.builder("bi.ai.permits.active", this, AiQuotaManager::getActiveCount).register(meterRegistry);
+    }
+
+    /**
+     * 占用一个许可执行 AI 调用，没有空闲许可时等待
+     *
+     * @param call
+     * @return
+     */
+    public <T> T call(Supplier<T> call) {
+        try {
+            permits.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new BusinessException(ErrorCode.SYSTEM_ERROR, "等待 AI 调用配额被中断");
+        }
+        try {
+            return call.get();
+        } finally {
+            permits.release();
+        }
+    }
+
+    /**
+     * 不等待地占用一个许可，成功后由调用方在调用结束时 release
+     *
+     * @return 没有空闲许可时返回 false
+     */
+    public boolean tryAcquire() {
+        return permits.tryAcquire();
+    }
+
+    public void release() {
+        permits.release();
+    }
+
+    /**
+     * 正在进行的 AI 调用数
+     */
+    public int getActiveCount() {
+        return maxConcurrency - permits.availablePermits();
+    }
+
+    public int getMaxConcurrency() {
+        return maxConcurrency;
+    }
+}
@@ -0,0 +1,130 @@
+package com.tang.springbootinit.manager;
+
+import com.tang.springbootinit.common.ErrorCode;
+import com.tang.springbootinit.exception.BusinessException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.redisson.api.RLock;
+import org.redisson.api.RedissonClient;
+import org.springframework.stereotype.Service;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * AI 请求合并（single-flight）：相同 key 同一时刻只发起一次调用
+ * <p>
+ * 节点内：后到的请求共享先到请求的 CompletableFuture；
+ * 节点间：通过 Redisson 锁（带租约）互斥，等待方在锁释放后先读共享缓存，读不到再自己调用。
+ */
+@Service
+@Slf4j
+public class AiSingleFlightManager {
+
+    private static final String LOCK_KEY_PREFIX = "bi:ai:flight:";
+
+    /**
+     * 锁租约（秒），持有节点宕机后自动释放
+     */
+    private static final long LEASE_SECONDS = 120;
+
+    /**
+     * 等待其他节点的最长时间（秒），超时后自己调用
+     */
+    private static final long WAIT_SECONDS = 120;
+
+    private final ConcurrentHashMap<String, CompletableFuture<String>> inFlight = new ConcurrentHashMap<>();
+
+    private final RedissonClient redissonClient;
+
+    private final Counter leaderCounter;
+
+    private final Counter followerCounter;
+
+    private final Counter remoteCounter;
+
+    public AiSingleFlightManager(RedissonClient redissonClient, MeterRegistry meterRegistry) {
+        this.redissonClient = redissonClient;
+        this.leaderCounter = Counter.builder("ai.single.flight").tag("role", "leader").register(meterRegistry);
+        this.followerCounter = Counter.builder("ai.single.flight").tag("role", "follower").register(meterRegistry);
+        this.remoteCounter = Counter.builder("ai.single.flight").tag("role", "remote").register(meterRegistry);
+    }
+
+    /**
+     * 合并执行
+     *
+     * @param key          请求 key
+     * @param remoteLookup 等到其他节点完成后读取其结果（未找到返回 null）
+     * @param loader       实际调用
+     * @return
+     */
+    public String execute(String key, Supplier<String> remoteLookup, Supplier<String> loader) {
+        CompletableFuture<String> future = new CompletableFuture<>();
+        CompletableFuture<String> existing = inFlight.putIfAbsent(key, future);
+        if (existing != null) {
+            followerCounter.increment();
+            return await(existing);
+        }
+        try {
+            future.complete(loadExclusively(key, remoteLookup, loader));
+        } catch (RuntimeException e) {
+            future.completeExceptionally(e);
+        } finally {
+            inFlight.remove(key, future);
+        }
+        return await(future);
+    }
+
+    /**
+     * 当前节点正在进行的请求数
+     */
+    public int getInFlightCount() {
+        return inFlight.size();
+    }
+
+    private String loadExclusively(String key, Supplier<String> remoteLookup, Supplier<String> loader) {
+        RLock lock = redissonClient.getLock(LOCK_KEY_PREFIX + key);
+        boolean locked = false;
+        try {
+            try {
+                locked = lock.tryLock(0, LEASE_SECONDS, TimeUnit.SECONDS);
+                if (!locked) {
+                    // 其他节点正在调用，等它释放后优先复用其结果
+                    locked = lock.tryLock(WAIT_SECONDS, LEASE_SECONDS, TimeUnit.SECONDS);
+                    String remoteResult = remoteLookup.get();
+                    if (remoteResult != null) {
+                        remoteCounter.increment();
+                        return remoteResult;
+                    }
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new BusinessException(ErrorCode.SYSTEM_ERROR, "等待 AI 响应被中断");
+            } catch (RuntimeException e) {
+                // Redis 不可用时退化为节点内合并
+                log.warn("acquire ai single flight lock failed, key = {}", key, e);
+            }
+            leaderCounter.increment();
+            return loader.get();
+        } finally {
+            if (locked && lock.isHeldByCurrentThread()) {
+                lock.unlock();
+            }
+        }
+    }
+
+    private static String await(CompletableFuture<String> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+}
@@ -0,0 +1,163 @@
+package com.tang.springbootinit.manager;
+
+import com.tang.springbootinit.config.BiPromptConfig;
+import com.tang.springbootinit.dataset.ColumnarDataset;
+import com.tang.springbootinit.dataset.profile.DatasetProfile;
+import com.tang.springbootinit.dataset.reduce.DatasetReducer;
+import com.tang.springbootinit.dataset.reduce.DatasetReduction;
+import com.tang.springbootinit.dataset.reduce.TokenEstimator;
+import lombok.Data;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.StringUtils;
+import org.springframework.stereotype.Service;
+
+import jakarta.annotation.Resource;
+import java.util.List;
+
+/**
+ * 构造 BI 分析的用户输入，数据超出 token 预算时先缩减数据集
+ */
+@Service
+@Slf4j
+public class BiPromptManager {
+
+    /**
+     * 估算单行 token 数时的抽样行数
+     */
+    private static final int SAMPLE_ROWS = 200;
+
+    private static final String STRATEGY_AUTO = "auto";
+
+    private static final String STRATEGY_NONE = "none";
+
+    @Resource
+    private BiPromptConfig biPromptConfig;
+
+    @Resource
+    private List<DatasetReducer> datasetReducerList;
+
+    /**
+     * 构造用户输入
+     *
+     * @param goal
+     * @param chartType
+     * @param dataset
+     * @param datasetProfile 完整数据集的统计概况
+     * @return
+     */
+    public BiPrompt buildUserInput(String goal, String chartType, ColumnarDataset dataset,
+                                   DatasetProfile datasetProfile) {
+        DatasetReduction reduction = reduce(dataset);
+        StringBuilder userInput = new StringBuilder();
+        userInput.append("分析需求：").append("\n");
+
+        // 拼接分析目标
+        String userGoal = goal;
+        if (StringUtils.isNotBlank(chartType)) {
+            userGoal += "，请使用" + chartType;
+        }
+        userInput.append(userGoal).append("\n");
+        if (datasetProfile != null) {
+            userInput.append("数据概况：").append("\n");
+            userInput.append(datasetProfile.toPromptSummary());
+        }
+        if (reduction.isReduced()) {
+            userInput.append("数据说明：").append(reduction.getNote()).append("\n");
+        }
+        userInput.append("原始数据：").append("\n");
+        reduction.getDataset().appendCsv(userInput);
+        userInput.append("\n");
+        return new BiPrompt(userInput.toString(), reduction.getNote());
+    }
+
+    /**
+     * 按 token 预算缩减数据集
+     *
+     * @param dataset
+     * @return
+     */
+    public DatasetReduction reduce(ColumnarDataset dataset) {
+        String strategy = biPromptConfig.getStrategy();
+        int rowCount = dataset.getRowCount();
+        if (STRATEGY_NONE.equals(strategy) || rowCount == 0) {
+            return DatasetReduction.unchanged(dataset);
+        }
+        int targetRows = estimateTargetRows(dataset);
+        if (targetRows >= rowCount) {
+            return DatasetReduction.unchanged(dataset);
+        }
+        DatasetReducer reducer = selectReducer(dataset, targetRows, strategy);
+        if (reducer == null) {
+            return DatasetReduction.unchanged(dataset);
+        }
+        DatasetReduction reduction = reducer.reduce(dataset, targetRows);
+        log.info("dataset reduced by {}, {} -> {} rows", reducer.getName(), rowCount,
+                reduction.getDataset().getRowCount());
+        return reduction;
+    }
+
+    /**
+     * 预算内可容纳的行数（按等间隔抽样行估算单行 token 数）
+     */
+    private int estimateTargetRows(ColumnarDataset dataset) {
+        int rowCount = dataset.getRowCount();
+        int sampleCount = Math.min(rowCount, SAMPLE_ROWS);
+        int[] sampleRows = new int[sampleCount];
+        for (int i = 0; i < sampleCount; i++) {
+            sampleRows[i] = (int) ((long) i * rowCount / sampleCount);
+        }
+        ColumnarDataset header = dataset.selectRows(new int[0]);
+        int headerTokens = TokenEstimator.estimate(header.toCsv());
+        int sampleTokens = TokenEstimator.estimate(dataset.selectRows(sampleRows).toCsv()) - headerTokens;
+        double rowTokens = Math.max(1.0, (double) sampleTokens / sampleCount);
+        int available = biPromptConfig.getTokenBudget() - headerTokens;
+        return (int) Math.max(3, available / rowTokens);
+    }
+
+    private DatasetReducer selectReducer(ColumnarDataset dataset, int targetRows, String strategy) {
+        if (StringUtils.isNotBlank(strategy) && !STRATEGY_AUTO.equals(strategy)) {
+            for (DatasetReducer reducer : datasetReducerList) {
+                if (reducer.getName().equals(strategy) && reducer.supports(dataset, targetRows)) {
+                    return reducer;
+                }
+            }
+            log.warn("dataset reducer {} not applicable, fallback to auto", strategy);
+        }
+        for (DatasetReducer reducer : datasetReducerList) {
+            if (reducer.supports(dataset, targetRows)) {
+                return reducer;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * 构造好的用户输入
+     */
+    @Data
+    public static class BiPrompt {
+
+        /**
+         * 用户输入
+         */
+        private final String userInput;
+
+        /**
+         * 数据缩减说明，未缩减时为 null
+         */
+        private final String reductionNote;
+
+        /**
+         * 在分析结论后附上数据缩减说明
+         *
+         * @param genResult
+         * @return
+         */
+        public String decorateResult(String genResult) {
+            if (StringUtils.isBlank(reductionNote)) {
+                return genResult;
+            }
+            return genResult + "\n\n注：" + reductionNote + "。";
+        }
+    }
+}
@@ -0,0 +1,170 @@
+package com.tang.springbootinit.manager;
+
+import com.tang.springbootinit.config.BiExecutorConfig;
+import com.tang.springbootinit.executor.ChartTaskExecutor;
+import com.tang.springbootinit.executor.FairChartTaskScheduler;
+import com.tang.springbootinit.model.entity.User;
+import com.tang.springbootinit.model.enums.UserRoleEnum;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.apache.commons.lang3.StringUtils;
+import org.springframework.stereotype.Service;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 图表异步任务准入控制：保存图表前检查容量，并按实测的任务耗时估算重试等待时间；
+ * 任务经公平调度器按用户角色加权轮询后交给执行器，线程池任务和消息队列消费的任务共用同一个调度器
+ */
+@Service
+public class ChartAdmissionManager {
+
+    /**
+     * 还没有实测数据时假定的单个任务耗时（毫秒）
+     */
+    private static final long DEFAULT_SERVICE_MILLIS = 30_000;
+
+    /**
+     * 耗时滑动平均的权重
+     */
+    private static final double EWMA_ALPHA = 0.2;
+
+    private final ChartTaskExecutor chartTaskExecutor;
+
+    private final FairChartTaskScheduler fairChartTaskScheduler;
+
+    private final BiExecutorConfig biExecutorConfig;
+
+    private final Timer serviceTimer;
+
+    private final Counter acceptedCounter;
+
+    private final Counter rejectedCounter;
+
+    private final Counter spilledCounter;
+
+    /**
+     * 任务耗时滑动平均（毫秒，double 的 bit 表示）
+     */
+    private final AtomicLong averageServiceMillis = new AtomicLong(Double.doubleToLongBits(DEFAULT_SERVICE_MILLIS));
+
+    public ChartAdmissionManager(ChartTaskExecutor chartTaskExecutor, FairChartTaskScheduler fairChartTaskScheduler,
+                                 BiExecutorConfig biExecutorConfig, MeterRegistry meterRegistry) {
+        this.chartTaskExecutor = chartTaskExecutor;
+        this.fairChartTaskScheduler = fairChartTaskScheduler;
+        this.biExecutorConfig = biExecutorConfig;
+        this.serviceTimer = Timer.builder("bi.chart.task.service").register(meterRegistry);
+        this.acceptedCounter = Counter.builder("bi.chart.admission").tag("result", "accepted").register(meterRegistry);
+        this.rejectedCounter = Counter.builder("bi.chart.admission").tag("result", "rejected").register(meterRegistry);
+        this.spilledCounter = Counter.builder("bi.chart.admission").tag("result", "spilled").register(meterRegistry);
+    }
+
+    /**
+     * 执行器是否还能接收任务
+     */
+    public boolean hasCapacity() {
+        return fairChartTaskScheduler.hasCapacity();
+    }
+
+    /**
+     * 执行器已满时是否转交消息队列
+     */
+    public boolean isSpillToMq() {
+        return "mq".equals(biExecutorConfig.getOverflow());
+    }
+
+    /**
+     * 提交任务并记录耗时
+     *
+     * @param user       提交任务的用户，按角色取调度权重
+     * @param task
+     * @param onRejected 任务已排队、但执行器关闭（应用停止）不再执行时调用
+     * @throws RejectedExecutionException 检查容量之后队列被占满
+     */
+    public void execute(User user, Runnable task, Runnable onRejected) {
+        String userRole = getUserRole(user);
+        fairChartTaskScheduler.submit(user.getId(), userRole, getWeight(userRole), timed(task), onRejected);
+        acceptedCounter.increment();
+    }
+
+    /**
+     * 消息队列消费者提交任务并等待执行结束：和线程池任务一起按用户加权轮询，
+     * 消费者持有的消息数受消费者数限制，不检查排队容量
+     *
+     * @param user 图表所属用户，按角色取调度权重
+     * @param task
+     * @throws RejectedExecutionException 执行器已关闭（应用停止），消息应重新入队
+     */
+    public void executeAndWait(User user, Runnable task) {
+        String userRole = getUserRole(user);
+        CompletableFuture<Void> done = new CompletableFuture<>();
+        fairChartTaskScheduler.submitUnbounded(user.getId(), userRole, getWeight(userRole), timed(() -> {
+            try {
+                task.run();
+                done.complete(null);
+            } catch (RuntimeException | Error e) {
+                done.completeExceptionally(e);
+                throw e;
+            }
+        }), () -> done.completeExceptionally(new RejectedExecutionException("chart task executor is shut down")));
+        try {
+            done.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            if (e.getCause() instanceof Error cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * 估算排到新任务需要等待的秒数：排队任务按并发数分批，每批耗时取实测平均值
+     */
+    public long estimateRetryAfterSeconds() {
+        double serviceMillis = Double.longBitsToDouble(averageServiceMillis.get());
+        int batches = fairChartTaskScheduler.getQueueSize() / Math.max(1, chartTaskExecutor.getMaxConcurrency()) + 1;
+        return Math.max(1, (long) Math.ceil(batches * serviceMillis / 1000));
+    }
+
+    public void recordRejected() {
+        rejectedCounter.increment();
+    }
+
+    public void recordSpilled() {
+        spilledCounter.increment();
+    }
+
+    private String getUserRole(User user) {
+        return StringUtils.defaultIfBlank(user.getUserRole(), UserRoleEnum.USER.getValue());
+    }
+
+    private int getWeight(String userRole) {
+        return biExecutorConfig.getWeights().getOrDefault(userRole, 1);
+    }
+
+    private Runnable timed(Runnable task) {
+        return () -> {
+            long start = System.nanoTime();
+            try {
+                task.run();
+            } finally {
+                recordServiceTime(System.nanoTime() - start);
+            }
+        };
+    }
+
+    private void recordServiceTime(long nanos) {
+        serviceTimer.record(nanos, TimeUnit.NANOSECONDS);
+        double millis = nanos / 1_000_000.0;
+        averageServiceMillis.updateAndGet(bits -> Double.doubleToLongBits(
+                EWMA_ALPHA * millis + (1 - EWMA_ALPHA) * Double.longBitsToDouble(bits)));
+    }
+}
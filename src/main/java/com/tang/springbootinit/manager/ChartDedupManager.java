@@ -0,0 +1,87 @@
+package com.tang.springbootinit.manager;
+
+import cn.hutool.crypto.digest.DigestUtil;
+import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
+import com.tang.springbootinit.mapper.ChartMapper;
+import com.tang.springbootinit.model.entity.Chart;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.apache.commons.lang3.StringUtils;
+import org.springframework.stereotype.Service;
+
+/**
+ * 图表去重：相同请求复用已生成的结果，相同数据集共享同一份存储
+ * <p>
+ * 命中率指标：bi.chart.reuse（请求级）、bi.dataset.reuse（数据集级），tag result=hit/miss
+ */
+@Service
+public class ChartDedupManager {
+
+    private final ChartMapper chartMapper;
+
+    private final Counter requestHitCounter;
+
+    private final Counter requestMissCounter;
+
+    private final Counter datasetHitCounter;
+
+    private final Counter datasetMissCounter;
+
+    public ChartDedupManager(ChartMapper chartMapper, MeterRegistry meterRegistry) {
+        this.chartMapper = chartMapper;
+        this.requestHitCounter = counter(meterRegistry, "bi.chart.reuse", "hit");
+        this.requestMissCounter = counter(meterRegistry, "bi.chart.reuse", "miss");
+        this.datasetHitCounter = counter(meterRegistry, "bi.dataset.reuse", "hit");
+        this.datasetMissCounter = counter(meterRegistry, "bi.dataset.reuse", "miss");
+    }
+
+    /**
+     * 计算请求指纹
+     *
+     * @param datasetHash
+     * @param goal
+     * @param chartType
+     * @return
+     */
+    public String requestHash(String datasetHash, String goal, String chartType) {
+        return DigestUtil.sha256Hex(datasetHash + "\u001F" + StringUtils.trimToEmpty(goal) + "\u001F"
+                + StringUtils.trimToEmpty(chartType));
+    }
+
+    /**
+     * 查找同一请求已成功生成的图表
+     *
+     * @param requestHash
+     * @return 仅包含 id、genChart、genResult；没有时返回 null
+     */
+    public Chart findReusableChart(String requestHash) {
+        QueryWrapper<Chart> queryWrapper = new QueryWrapper<>();
+        queryWrapper.select("id", "genChart", "genResult")
+                .eq("requestHash", requestHash)
+                .isNotNull("genChart")
+                .isNotNull("genResult")
+                .orderByDesc("id")
+                .last("limit 1");
+        Chart chart = chartMapper.selectOne(queryWrapper);
+        (chart == null ? requestMissCounter : requestHitCounter).increment();
+        return chart;
+    }
+
+    /**
+     * 查找已保存该数据集的图表
+     *
+     * @param datasetHash
+     * @return 仅包含 id、datasetTable、chartProfile；没有时返回 null
+     */
+    public Chart findDatasetOwner(String datasetHash) {
+        Chart chart = StringUtils.isBlank(datasetHash) ? null : chartMapper.selectDatasetOwner(datasetHash);
+        (chart == null ? datasetMissCounter : datasetHitCounter).increment();
+        return chart;
+    }
+
+    private static Counter counter(MeterRegistry meterRegistry, String name, String result) {
+        return Counter.builder(name)
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+}
@@ -0,0 +1,121 @@
+package com.tang.springbootinit.manager;
+
+import com.tang.springbootinit.config.BiLeaseConfig;
+import com.tang.springbootinit.service.ChartService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import jakarta.annotation.Resource;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 图表任务租约：开始执行时获取租约（wait -> running 条件更新，只有一个执行者能成功），
+ * 执行期间定时续约（心跳），节点宕机后租约过期由回收任务处理
+ */
+@Service
+@Slf4j
+public class ChartLeaseManager {
+
+    /**
+     * 当前节点标识（pid@host + 随机后缀，区分同一主机上重启前后的进程）
+     */
+    private final String nodeId = ManagementFactory.getRuntimeMXBean().getName() + "-"
+            + UUID.randomUUID().toString().substring(0, 8);
+
+    /**
+     * 本节点正在执行的任务
+     */
+    private final Set<Long> heldChartIds = ConcurrentHashMap.newKeySet();
+
+    @Resource
+    private ChartService chartService;
+
+    @Resource
+    private BiLeaseConfig biLeaseConfig;
+
+    /**
+     * 开始执行任务并获取租约
+     *
+     * @param chartId
+     * @return 是否成功
+     */
+    public boolean acquire(long chartId) {
+        if (!chartService.acquireLease(chartId, nodeId, nextExpireTime())) {
+            return false;
+        }
+        heldChartIds.add(chartId);
+        return true;
+    }
+
+    /**
+     * 保存任务结果（仅当租约仍由本节点持有）
+     *
+     * @param chartId
+     * @param genChart
+     * @param genResult
+     * @return 租约已被回收时返回 false
+     */
+    public boolean complete(long chartId, String genChart, String genResult) {
+        return chartService.completeTask(chartId, nodeId, genChart, genResult);
+    }
+
+    /**
+     * 保存任务失败信息（仅当租约仍由本节点持有）
+     *
+     * @param chartId
+     * @param execMessage
+     * @return 租约已被回收时返回 false
+     */
+    public boolean fail(long chartId, String execMessage) {
+        return chartService.failTask(chartId, nodeId, execMessage);
+    }
+
+    /**
+     * 任务改回等待状态，稍后重试时重新获取租约（仅当租约仍由本节点持有）
+     *
+     * @param chartId
+     * @return 租约已被回收时返回 false
+     */
+    public boolean requeue(long chartId) {
+        return chartService.requeueTask(chartId, nodeId);
+    }
+
+    /**
+     * 任务结束（成功或失败）后停止续约
+     *
+     * @param chartId
+     */
+    public void release(long chartId) {
+        heldChartIds.remove(chartId);
+    }
+
+    /**
+     * 心跳：续约本节点正在执行的任务
+     */
+    @Scheduled(fixedDelayString = "${bi.lease.renew-interval-millis:40000}")
+    public void renew() {
+        if (heldChartIds.isEmpty()) {
+            return;
+        }
+        List<Long> chartIds = new ArrayList<>(heldChartIds);
+        int renewed = chartService.renewLeases(chartIds, nodeId, nextExpireTime());
+        if (renewed < chartIds.size()) {
+            log.warn("renew chart leases: {} of {} renewed", renewed, chartIds.size());
+        }
+    }
+
+    public String getNodeId() {
+        return nodeId;
+    }
+
+    private Date nextExpireTime() {
+        return new Date(System.currentTimeMillis() + biLeaseConfig.getDurationSeconds() * 1000);
+    }
+}
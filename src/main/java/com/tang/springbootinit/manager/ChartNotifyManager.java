@@ -0,0 +1,176 @@
+package com.tang.springbootinit.manager;
+
+import com.google.gson.Gson;
+import com.tang.springbootinit.constant.ChartConstant;
+import com.tang.springbootinit.model.enums.ChartStatusEnum;
+import com.tang.springbootinit.model.vo.ChartStatusVO;
+import lombok.Data;
+import lombok.extern.slf4j.Slf4j;
+import org.redisson.api.RTopic;
+import org.redisson.api.RedissonClient;
+import org.redisson.client.codec.StringCodec;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.annotation.Resource;
+import java.io.IOException;
+import java.util.Deque;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedDeque;
+
+/**
+ * 图表任务完成通知：任务结束后通过 Redis 发布订阅广播到所有节点，由持有该用户 SSE 连接的节点推送，
+ * 客户端不再轮询图表列表
+ */
+@Service
+@Slf4j
+public class ChartNotifyManager {
+
+    private static final String NOTIFY_TOPIC = "bi:chart:notify";
+
+    private static final String EVENT_NAME = "chart";
+
+    private static final Gson GSON = new Gson();
+
+    @Resource
+    private RedissonClient redissonClient;
+
+    @Resource
+    private ChartStatusCacheManager chartStatusCacheManager;
+
+    /**
+     * 本节点上各用户的 SSE 连接
+     */
+    private final Map<Long, Deque<SseEmitter>> userEmitters = new ConcurrentHashMap<>();
+
+    private RTopic topic;
+
+    private int listenerId;
+
+    @PostConstruct
+    public void init() {
+        topic = redissonClient.getTopic(NOTIFY_TOPIC, StringCodec.INSTANCE);
+        listenerId = topic.addListener(String.class, (channel, message) -> dispatch(message));
+    }
+
+    @PreDestroy
+    public void destroy() {
+        topic.removeListener(listenerId);
+        userEmitters.values().forEach(emitters -> emitters.forEach(SseEmitter::complete));
+    }
+
+    /**
+     * 建立当前用户的通知连接
+     *
+     * @param userId
+     * @return
+     */
+    public SseEmitter subscribe(long userId) {
+        SseEmitter emitter = createEmitter();
+        Deque<SseEmitter> emitters = userEmitters.compute(userId, (key, value) -> {
+            Deque<SseEmitter> deque = value == null ? new ConcurrentLinkedDeque<>() : value;
+            deque.addLast(emitter);
+            return deque;
+        });
+        while (emitters.size() > ChartConstant.CHART_NOTIFY_MAX_CONNECTIONS_PER_USER) {
+            SseEmitter oldest = emitters.pollFirst();
+            if (oldest != null) {
+                oldest.complete();
+            }
+        }
+        Runnable remove = () -> removeEmitter(userId, emitter);
+        emitter.onCompletion(remove);
+        emitter.onTimeout(remove);
+        emitter.onError(e -> remove.run());
+        return emitter;
+    }
+
+    /**
+     * 创建 SSE 连接（单元测试中替换）
+     */
+    SseEmitter createEmitter() {
+        return new SseEmitter(ChartConstant.CHART_NOTIFY_TIMEOUT_MILLIS);
+    }
+
+    /**
+     * 通知任务结束（先写入状态缓存），发布失败不影响任务本身
+     *
+     * @param userId
+     * @param chartId
+     * @param status      succeed / failed
+     * @param execMessage 失败原因
+     */
+    public void notifyChart(Long userId, long chartId, ChartStatusEnum status, String execMessage) {
+        if (userId == null) {
+            return;
+        }
+        chartStatusCacheManager.put(userId, chartId, status, execMessage);
+        ChartStatusVO chartStatusVO = new ChartStatusVO();
+        chartStatusVO.setId(chartId);
+        chartStatusVO.setStatus(status.getValue());
+        chartStatusVO.setExecMessage(execMessage);
+        ChartNotification notification = new ChartNotification();
+        notification.setUserId(userId);
+        notification.setChart(chartStatusVO);
+        try {
+            topic.publish(GSON.toJson(notification));
+        } catch (Exception e) {
+            log.warn("publish chart {} notification failed: {}", chartId, e.getMessage());
+        }
+    }
+
+    /**
+     * 心跳：定期发送注释行，保持代理连接并清理已断开的连接
+     */
+    @Scheduled(fixedRate = 25 * 1000)
+    public void heartbeat() {
+        userEmitters.forEach((userId, emitters) -> emitters.forEach(emitter -> {
+            try {
+                emitter.send(SseEmitter.event().comment("ping"));
+            } catch (IOException | IllegalStateException e) {
+                removeEmitter(userId, emitter);
+            }
+        }));
+    }
+
+    /**
+     * 推送给本节点上该用户的连接
+     */
+    private void dispatch(String message) {
+        ChartNotification notification = GSON.fromJson(message, ChartNotification.class);
+        Deque<SseEmitter> emitters = userEmitters.get(notification.getUserId());
+        if (emitters == null) {
+            return;
+        }
+        String data = GSON.toJson(notification.getChart());
+        for (SseEmitter emitter : emitters) {
+            try {
+                emitter.send(SseEmitter.event().name(EVENT_NAME).data(data));
+            } catch (IOException | IllegalStateException e) {
+                removeEmitter(notification.getUserId(), emitter);
+            }
+        }
+    }
+
+    private void removeEmitter(long userId, SseEmitter emitter) {
+        userEmitters.computeIfPresent(userId, (key, emitters) -> {
+            emitters.remove(emitter);
+            return emitters.isEmpty() ? null : emitters;
+        });
+    }
+
+    /**
+     * 广播的通知内容
+     */
+    @Data
+    private static class ChartNotification {
+
+        private Long userId;
+
+        private ChartStatusVO chart;
+    }
+}
@@ -0,0 +1,179 @@
+package com.tang.springbootinit.manager;
+
+import com.google.gson.Gson;
+import com.tang.springbootinit.constant.ChartConstant;
+import com.tang.springbootinit.model.enums.ChartStatusEnum;
+import com.tang.springbootinit.model.vo.ChartStatusVO;
+import com.tang.springbootinit.service.ChartService;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.redisson.api.RBatch;
+import org.redisson.api.RMap;
+import org.redisson.api.RMapAsync;
+import org.redisson.api.RedissonClient;
+import org.redisson.client.codec.StringCodec;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * 图表任务状态缓存：每个用户一个 Redis hash（field 为图表 id，value 为 ChartStatusVO json），
+ * 状态每次变更后写入，轮询状态只需一次 HMGET；未命中的图表回源数据库
+ * <p>
+ * 命中率指标：bi.chart.status.cache，tag result=hit/miss
+ */
+@Service
+@Slf4j
+public class ChartStatusCacheManager {
+
+    private static final String CACHE_KEY_PREFIX = "bi:chart:status:";
+
+    private static final Gson GSON = new Gson();
+
+    private final RedissonClient redissonClient;
+
+    private final ChartService chartService;
+
+    private final Counter hitCounter;
+
+    private final Counter missCounter;
+
+    public ChartStatusCacheManager(RedissonClient redissonClient, ChartService chartService, MeterRegistry meterRegistry) {
+        this.redissonClient = redissonClient;
+        this.chartService = chartService;
+        this.hitCounter = counter(meterRegistry, "hit");
+        this.missCounter = counter(meterRegistry, "miss");
+    }
+
+    /**
+     * 记录状态变更（数据库更新成功后调用），写入失败时删除该字段，避免留下旧状态
+     *
+     * @param userId
+     * @param chartId
+     * @param status
+     * @param execMessage 失败原因
+     */
+    public void put(Long userId, long chartId, ChartStatusEnum status, String execMessage) {
+        if (userId == null) {
+            return;
+        }
+        ChartStatusVO chartStatusVO = new ChartStatusVO();
+        chartStatusVO.setId(chartId);
+        chartStatusVO.setStatus(status.getValue());
+        chartStatusVO.setExecMessage(execMessage);
+        RMap<String, String> cache = getCache(userId);
+        try {
+            cache.fastPut(String.valueOf(chartId), GSON.toJson(chartStatusVO));
+            cache.expire(Duration.ofMillis(ChartConstant.CHART_STATUS_CACHE_TTL_MILLIS));
+        } catch (Exception e) {
+            log.warn("cache chart {} status failed: {}", chartId, e.getMessage());
+            evict(userId, chartId);
+        }
+    }
+
+    /**
+     * 删除缓存的状态（图表被删除或被管理员修改）
+     *
+     * @param userId
+     * @param chartId
+     */
+    public void evict(Long userId, long chartId) {
+        if (userId == null) {
+            return;
+        }
+        try {
+            getCache(userId).fastRemove(String.valueOf(chartId));
+        } catch (Exception e) {
+            log.warn("evict chart {} status failed: {}", chartId, e.getMessage());
+        }
+    }
+
+    /**
+     * 批量查询图表状态，按请求顺序返回
+     *
+     * @param userId
+     * @param chartIds
+     * @return 不存在或不属于该用户的图表不返回
+     */
+    public List<ChartStatusVO> getStatuses(long userId, List<Long> chartIds) {
+        Set<String> fields = chartIds.stream()
+                .map(String::valueOf)
+                .collect(Collectors.toCollection(LinkedHashSet::new));
+        RMap<String, String> cache = getCache(userId);
+        Map<String, String> cached;
+        try {
+            cached = cache.getAll(fields);
+        } catch (Exception e) {
+            log.warn("read chart status cache failed: {}", e.getMessage());
+            cached = Collections.emptyMap();
+        }
+        Map<Long, ChartStatusVO> statusMap = new HashMap<>();
+        List<Long> missingIds = new ArrayList<>();
+        for (Long chartId : chartIds) {
+            String json = cached.get(String.valueOf(chartId));
+            if (json != null) {
+                statusMap.put(chartId, GSON.fromJson(json, ChartStatusVO.class));
+            } else if (!missingIds.contains(chartId)) {
+                missingIds.add(chartId);
+            }
+        }
+        hitCounter.increment(statusMap.size());
+        missCounter.increment(missingIds.size());
+        if (!missingIds.isEmpty()) {
+            Map<String, String> backfill = new HashMap<>();
+            for (ChartStatusVO chartStatusVO : chartService.listChartStatus(userId, missingIds)) {
+                statusMap.put(chartStatusVO.getId(), chartStatusVO);
+                // 只回填已结束的任务，进行中的状态很快会变，由状态变更时写入
+                if (ChartStatusEnum.SUCCEED.getValue().equals(chartStatusVO.getStatus())
+                        || ChartStatusEnum.FAILED.getValue().equals(chartStatusVO.getStatus())) {
+                    backfill.put(String.valueOf(chartStatusVO.getId()), GSON.toJson(chartStatusVO));
+                }
+            }
+            if (!backfill.isEmpty()) {
+                backfill(userId, backfill);
+            }
+        }
+        List<ChartStatusVO> result = new ArrayList<>(statusMap.size());
+        for (Long chartId : new LinkedHashSet<>(chartIds)) {
+            ChartStatusVO chartStatusVO = statusMap.get(chartId);
+            if (chartStatusVO != null) {
+                result.add(chartStatusVO);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * 回填数据库查询结果（HSETNX，不覆盖查询期间并发写入的新状态），一次往返
+     */
+    private void backfill(long userId, Map<String, String> statuses) {
+        RBatch batch = redissonClient.createBatch();
+        RMapAsync<String, String> cache = batch.getMap(CACHE_KEY_PREFIX + userId, StringCodec.INSTANCE);
+        statuses.forEach(cache::fastPutIfAbsentAsync);
+        cache.expireAsync(Duration.ofMillis(ChartConstant.CHART_STATUS_CACHE_TTL_MILLIS));
+        try {
+            batch.execute();
+        } catch (Exception e) {
+            log.warn("backfill chart status cache failed: {}", e.getMessage());
+        }
+    }
+
+    private RMap<String, String> getCache(long userId) {
+        return redissonClient.getMap(CACHE_KEY_PREFIX + userId, StringCodec.INSTANCE);
+    }
+
+    private static Counter counter(MeterRegistry meterRegistry, String result) {
+        return Counter.builder("bi.chart.status.cache")
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+}
@@ -2,6 +2,7 @@ package com.tang.springbootinit.mapper;
 
 import com.tang.springbootinit.model.entity.Chart;
 import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+import org.apache.ibatis.annotations.Param;
 
 import java.util.List;
 import java.util.Map;
@@ -11,7 +12,76 @@ import java.util.Map;
  */
 public interface ChartMapper extends BaseMapper<Chart> {
 
-    List<Map<String, Object>> queryChartData(String querySql);
+    /**
+     * 查询保存了该数据集的图表（含已逻辑删除的图表，数据仍可共享）
+     *
+     * @param datasetHash
+     * @return 仅包含 id、datasetTable、chartProfile
+     */
+    Chart selectDatasetOwner(@Param("datasetHash") String datasetHash);
+
+    /**
+     * 查询该数据集保存的列式二进制数据
+     *
+     * @param datasetHash
+     * @return 仅包含 id、chartDataset、chartProfile
+     */
+    Chart selectDatasetBlob(@Param("datasetHash") String datasetHash);
+
+    /**
+     * 创建图表数据表
+     *
+     * @param tableName         表名（由图表 id 生成）
+     * @param columnDefinitions 列定义（由列类型生成，不含用户输入）
+     */
+    void createDatasetTable(@Param("tableName") String tableName,
+                            @Param("columnDefinitions") List<String> columnDefinitions);
+
+    /**
+     * 统计引用该数据表的未删除图表数
+     *
+     * @param tableName
+     * @return
+     */
+    long countDatasetReferences(@Param("tableName") String tableName);
+
+    /**
+     * 统计除 excludeId 外持有该数据表名的图表数（包括已删除的图表）
+     *
+     * @param tableName
+     * @param excludeId
+     * @return
+     */
+    long countDatasetHolders(@Param("tableName") String tableName, @Param("excludeId") long excludeId);
+
+    /**
+     * 清除已删除图表上的数据表名
+     *
+     * @param tableName
+     * @return 更新行数
+     */
+    int clearDeletedDatasetTable(@Param("tableName") String tableName);
+
+    /**
+     * 删除图表数据表
+     *
+     * @param tableName 表名（由图表 id 生成）
+     */
+    void dropDatasetTable(@Param("tableName") String tableName);
+
+    /**
+     * 按行号区间查询图表数据
+     *
+     * @param tableName 表名（由图表 id 生成）
+     * @param columns   物理列名（c0、c1 ...）
+     * @param offset    起始行号
+     * @param limit     行数
+     * @return
+     */
+    List<Map<String, Object>> queryChartData(@Param("tableName") String tableName,
+                                             @Param("columns") List<String> columns,
+                                             @Param("offset") long offset,
+                                             @Param("limit") int limit);
 }
 
 
@@ -0,0 +1,11 @@
+package com.tang.springbootinit.mapper;
+
+import com.tang.springbootinit.model.entity.MessageOutbox;
+import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+
+/**
+ * 待发送消息数据库操作
+ */
+public interface MessageOutboxMapper extends BaseMapper<MessageOutbox> {
+
+}
@@ -0,0 +1,28 @@
+package com.tang.springbootinit.model.dto.chart;
+
+import com.tang.springbootinit.common.PageRequest;
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+
+import java.io.Serializable;
+import java.util.List;
+
+/**
+ * 图表数据查询请求
+ */
+@EqualsAndHashCode(callSuper = true)
+@Data
+public class ChartDataQueryRequest extends PageRequest implements Serializable {
+
+    /**
+     * 图表 id
+     */
+    private Long id;
+
+    /**
+     * 要查询的列（原始表头），为空时查询全部列
+     */
+    private List<String> columns;
+
+    private static final long serialVersionUID = 1L;
+}
@@ -33,11 +33,6 @@ public class ChartEditRequest implements Serializable {
      */
     private String goal;
 
-    /**
-     * 图表数据
-     */
-    private String chartData;
-
     /**
      * 图表类型
      */
@@ -28,5 +28,10 @@ public class GenChartByAiRequest implements Serializable {
      */
     private String chartType;
 
+    /**
+     * 是否重新生成（跳过已有结果复用和 AI 响应缓存）
+     */
+    private Boolean regenerate;
+
     private static final long serialVersionUID = 1L;
 }
\ No newline at end of file
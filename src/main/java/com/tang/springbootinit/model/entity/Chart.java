@@ -34,6 +34,32 @@ public class Chart implements Serializable {
      */
     private String chartData;
 
+    /**
+     * 图表数据（列式二进制，见 ColumnarDatasetCodec），体积较大，默认不查询
+     */
+    @TableField(select = false)
+    private byte[] chartDataset;
+
+    /**
+     * 图表数据统计概况（json，见 DatasetProfile）
+     */
+    private String chartProfile;
+
+    /**
+     * 图表数据表名（chart_{id}），历史图表为空
+     */
+    private String datasetTable;
+
+    /**
+     * 数据集指纹（规范化数据的 SHA-256），相同数据共享同一份存储
+     */
+    private String datasetHash;
+
+    /**
+     * 请求指纹（数据集指纹 + 分析目标 + 图表类型），用于复用已生成的结果
+     */
+    private String requestHash;
+
     /**
      * 图表类型
      */
@@ -59,6 +85,21 @@ public class Chart implements Serializable {
      */
     private String execMessage;
 
+    /**
+     * 任务租约持有节点
+     */
+    private String leaseOwner;
+
+    /**
+     * 任务租约到期时间
+     */
+    private Date leaseExpireTime;
+
+    /**
+     * 任务执行次数
+     */
+    private Integer attemptCount;
+
     /**
      * 用户 id
      */
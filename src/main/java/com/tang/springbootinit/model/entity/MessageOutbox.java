@@ -0,0 +1,61 @@
+package com.tang.springbootinit.model.entity;
+
+import com.baomidou.mybatisplus.annotation.IdType;
+import com.baomidou.mybatisplus.annotation.TableField;
+import com.baomidou.mybatisplus.annotation.TableId;
+import com.baomidou.mybatisplus.annotation.TableName;
+import java.io.Serializable;
+import java.util.Date;
+import lombok.Data;
+
+/**
+ * 待发送消息（事务发件箱）
+ */
+@TableName(value = "message_outbox")
+@Data
+public class MessageOutbox implements Serializable {
+
+    /**
+     * id
+     */
+    @TableId(type = IdType.AUTO)
+    private Long id;
+
+    /**
+     * 交换机
+     */
+    private String exchange;
+
+    /**
+     * 路由键
+     */
+    private String routingKey;
+
+    /**
+     * 消息内容
+     */
+    private String message;
+
+    /**
+     * 状态：0 - 待发送，1 - 已发送，2 - 发送失败（超过最多发送次数）
+     */
+    private Integer status;
+
+    /**
+     * 发送次数
+     */
+    private Integer attemptCount;
+
+    /**
+     * 创建时间
+     */
+    private Date createTime;
+
+    /**
+     * 更新时间
+     */
+    private Date updateTime;
+
+    @TableField(exist = false)
+    private static final long serialVersionUID = 1L;
+}
@@ -0,0 +1,102 @@
+package com.tang.springbootinit.model.enums;
+
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+import org.apache.commons.lang3.ObjectUtils;
+
+/**
+ * 图表任务状态枚举
+ * <p>
+ * 合法的状态变更：wait -> running / failed，running -> succeed / failed / wait（稍后重试、租约过期回收），
+ * succeed、failed 为终态（重新生成会创建新图表）；ChartServiceImpl 的条件更新按此校验
+ */
+public enum ChartStatusEnum {
+
+    WAIT("等待中", "wait"),
+    RUNNING("执行中", "running"),
+    SUCCEED("已完成", "succeed"),
+    FAILED("失败", "failed");
+
+    private final String text;
+
+    private final String value;
+
+    ChartStatusEnum(String text, String value) {
+        this.text = text;
+        this.value = value;
+    }
+
+    /**
+     * 是否可以变更为目标状态
+     *
+     * @param target
+     * @return
+     */
+    public boolean canTransitTo(ChartStatusEnum target) {
+        return getNextStatuses().contains(target);
+    }
+
+    /**
+     * 可以变更到的状态
+     *
+     * @return
+     */
+    public Set<ChartStatusEnum> getNextStatuses() {
+        switch (this) {
+            case WAIT:
+                return EnumSet.of(RUNNING, FAILED);
+            case RUNNING:
+                return EnumSet.of(SUCCEED, FAILED, WAIT);
+            default:
+                return EnumSet.noneOf(ChartStatusEnum.class);
+        }
+    }
+
+    /**
+     * 可以变更为目标状态的来源状态
+     *
+     * @param target
+     * @return
+     */
+    public static List<ChartStatusEnum> getPreviousStatuses(ChartStatusEnum target) {
+        return Arrays.stream(values()).filter(status -> status.canTransitTo(target)).collect(Collectors.toList());
+    }
+
+    /**
+     * 获取值列表
+     *
+     * @return
+     */
+    public static List<String> getValues() {
+        return Arrays.stream(values()).map(item -> item.value).collect(Collectors.toList());
+    }
+
+    /**
+     * 根据 value 获取枚举
+     *
+     * @param value
+     * @return
+     */
+    public static ChartStatusEnum getEnumByValue(String value) {
+        if (ObjectUtils.isEmpty(value)) {
+            return null;
+        }
+        for (ChartStatusEnum anEnum : ChartStatusEnum.values()) {
+            if (anEnum.value.equals(value)) {
+                return anEnum;
+            }
+        }
+        return null;
+    }
+
+    public String getValue() {
+        return value;
+    }
+
+    public String getText() {
+        return text;
+    }
+}
@@ -14,6 +14,7 @@ import org.apache.commons.lang3.ObjectUtils;
 public enum UserRoleEnum {
 
     USER("用户", "user"),
+    VIP("会员", "vip"),
     ADMIN("管理员", "admin"),
     BAN("被封号", "ban");
 
@@ -0,0 +1,26 @@
+package com.tang.springbootinit.model.vo;
+
+import lombok.Data;
+
+import java.io.Serializable;
+
+/**
+ * 图表任务状态
+ */
+@Data
+public class ChartStatusVO implements Serializable {
+
+    private Long id;
+
+    /**
+     * wait,running,succeed,failed
+     */
+    private String status;
+
+    /**
+     * 执行信息（失败原因）
+     */
+    private String execMessage;
+
+    private static final long serialVersionUID = 1L;
+}
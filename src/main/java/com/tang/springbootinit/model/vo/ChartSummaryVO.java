@@ -0,0 +1,77 @@
+package com.tang.springbootinit.model.vo;
+
+import com.tang.springbootinit.model.entity.Chart;
+import lombok.Data;
+import org.springframework.beans.BeanUtils;
+
+import java.io.Serializable;
+import java.util.Date;
+
+/**
+ * 图表摘要视图（列表用，不含图表数据和生成结果，详情通过 /chart/get 获取）
+ */
+@Data
+public class ChartSummaryVO implements Serializable {
+
+    /**
+     * id
+     */
+    private Long id;
+
+    /**
+     * 图表名称
+     */
+    private String name;
+
+    /**
+     * 分析目标
+     */
+    private String goal;
+
+    /**
+     * 图表类型
+     */
+    private String chartType;
+
+    /**
+     * wait,running,succeed,failed
+     */
+    private String status;
+
+    /**
+     * 执行信息
+     */
+    private String execMessage;
+
+    /**
+     * 创建用户 id
+     */
+    private Long userId;
+
+    /**
+     * 创建时间
+     */
+    private Date createTime;
+
+    /**
+     * 更新时间
+     */
+    private Date updateTime;
+
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * 对象转包装类
+     *
+     * @param chart
+     * @return
+     */
+    public static ChartSummaryVO objToVo(Chart chart) {
+        if (chart == null) {
+            return null;
+        }
+        ChartSummaryVO chartSummaryVO = new ChartSummaryVO();
+        BeanUtils.copyProperties(chart, chartSummaryVO);
+        return chartSummaryVO;
+    }
+}
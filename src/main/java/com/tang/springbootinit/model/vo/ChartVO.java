@@ -0,0 +1,92 @@
+package com.tang.springbootinit.model.vo;
+
+import com.tang.springbootinit.model.entity.Chart;
+import lombok.Data;
+import org.springframework.beans.BeanUtils;
+
+import java.io.Serializable;
+import java.util.Date;
+
+/**
+ * 图表详情视图（不含列式数据、指纹和任务租约等内部字段）
+ */
+@Data
+public class ChartVO implements Serializable {
+
+    /**
+     * id
+     */
+    private Long id;
+
+    /**
+     * 图表名称
+     */
+    private String name;
+
+    /**
+     * 分析目标
+     */
+    private String goal;
+
+    /**
+     * 图表数据
+     */
+    private String chartData;
+
+    /**
+     * 图表类型
+     */
+    private String chartType;
+
+    /**
+     * 生成的图表数据
+     */
+    private String genChart;
+
+    /**
+     * 生成的分析结论
+     */
+    private String genResult;
+
+    /**
+     * wait,running,succeed,failed
+     */
+    private String status;
+
+    /**
+     * 执行信息
+     */
+    private String execMessage;
+
+    /**
+     * 创建用户 id
+     */
+    private Long userId;
+
+    /**
+     * 创建时间
+     */
+    private Date createTime;
+
+    /**
+     * 更新时间
+     */
+    private Date updateTime;
+
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * 对象转包装类
+     *
+     * @param chart
+     * @return
+     */
+    public static ChartVO objToVo(Chart chart) {
+        if (chart == null) {
+            return null;
+        }
+        ChartVO chartVO = new ChartVO();
+        BeanUtils.copyProperties(chart, chartVO);
+        return chartVO;
+    }
+}
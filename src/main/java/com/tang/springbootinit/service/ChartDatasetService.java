@@ -0,0 +1,48 @@
+package com.tang.springbootinit.service;
+
+import com.tang.springbootinit.dataset.ColumnarDataset;
+import com.tang.springbootinit.model.entity.Chart;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 图表数据表服务（每个数据集一张 chart_{id} 表）
+ */
+public interface ChartDatasetService {
+
+    /**
+     * 按数据集的列类型建表并分批写入
+     *
+     * @param chartId
+     * @param dataset
+     * @return 表名
+     */
+    String saveDataset(long chartId, ColumnarDataset dataset);
+
+    /**
+     * 图表保存后确认共享的数据表仍然存在：复用的数据表属于已删除的图表时，可能在保存前被删除，此时为图表重新写入数据表
+     *
+     * @param chart   已保存的图表
+     * @param dataset 图表的数据集
+     */
+    void ensureDatasetTable(Chart chart, ColumnarDataset dataset);
+
+    /**
+     * 删除不再被任何未删除图表引用的数据表（图表删除后调用，数据表可能被相同数据集的图表共享）
+     *
+     * @param tableName 图表的 datasetTable，为空时忽略
+     */
+    void dropDatasetIfUnused(String tableName);
+
+    /**
+     * 分页查询图表数据
+     *
+     * @param chart
+     * @param columnNames 要查询的列（原始表头），为空时查询全部列
+     * @param offset      起始行号
+     * @param limit       行数
+     * @return 以原始表头为键的行数据
+     */
+    List<Map<String, Object>> queryDataset(Chart chart, List<String> columnNames, long offset, int limit);
+}
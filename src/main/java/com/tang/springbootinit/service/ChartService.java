@@ -1,11 +1,202 @@
 package com.tang.springbootinit.service;
 
+import com.tang.springbootinit.dataset.ColumnarDataset;
+import com.tang.springbootinit.dataset.profile.DatasetProfile;
+import com.tang.springbootinit.model.dto.chart.ChartQueryRequest;
 import com.tang.springbootinit.model.entity.Chart;
+import com.tang.springbootinit.model.vo.ChartStatusVO;
+import com.tang.springbootinit.model.vo.ChartSummaryVO;
+import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
+import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
 import com.baomidou.mybatisplus.extension.service.IService;
 
+import java.util.Collection;
+import java.util.Date;
+import java.util.List;
+
 /**
  *
  */
 public interface ChartService extends IService<Chart> {
 
+    /**
+     * 获取图表的列式数据集（没有二进制数据集的历史图表从 chartData 解析）
+     * <p>
+     * 按数据集指纹读取时，图表没有统计概况则一并带回
+     *
+     * @param chart
+     * @return
+     */
+    ColumnarDataset getDataset(Chart chart);
+
+    /**
+     * 获取图表数据的统计概况（历史图表没有保存概况时现场计算）
+     *
+     * @param chart
+     * @param dataset
+     * @return
+     */
+    DatasetProfile getProfile(Chart chart, ColumnarDataset dataset);
+
+    /**
+     * 获取查询条件
+     *
+     * @param chartQueryRequest
+     * @return
+     */
+    QueryWrapper<Chart> getQueryWrapper(ChartQueryRequest chartQueryRequest);
+
+    /**
+     * 分页查询图表摘要，只读取摘要列（不读取 chartData、chartProfile、genChart、genResult 等大字段）
+     *
+     * @param chartPage
+     * @param queryWrapper 查询条件，select 列由本方法设置
+     * @return
+     */
+    Page<ChartSummaryVO> pageChartSummary(Page<Chart> chartPage, QueryWrapper<Chart> queryWrapper);
+
+    /**
+     * 保存图表，并在同一事务中写入待发送的任务消息，由发件箱异步投递到消息队列
+     *
+     * @param chart
+     * @param regenerate 是否跳过缓存重新生成
+     * @return
+     */
+    boolean saveWithTaskMessage(Chart chart, boolean regenerate);
+
+    /**
+     * 写入待发送的任务消息（图表已保存）
+     *
+     * @param chart      至少包含 id、goal、chartType、datasetHash
+     * @param regenerate 是否跳过缓存重新生成
+     */
+    void addTaskMessage(Chart chart, boolean regenerate);
+
+    /**
+     * 修改图表信息（名称、分析目标、图表类型等）
+     * <p>
+     * 图表数据与数据表、列式数据集、统计概况和指纹一起保存，不能单独修改（修改数据需重新上传）；
+     * 分析目标或图表类型变化后，原结果不再对应请求指纹，清除指纹，不再被相同请求复用
+     *
+     * @param chart    要修改的字段
+     * @param oldChart 修改前的图表
+     * @return
+     */
+    boolean updateChartInfo(Chart chart, Chart oldChart);
+
+    /**
+     * 开始执行任务：等待中 -> 执行中，记录租约，执行次数加一
+     *
+     * @param chartId
+     * @param leaseOwner      租约持有节点
+     * @param leaseExpireTime 租约到期时间
+     * @return 任务不在等待状态（已被其他节点或重复消息执行）时返回 false
+     */
+    boolean acquireLease(long chartId, String leaseOwner, Date leaseExpireTime);
+
+    /**
+     * 批量续约本节点仍在执行的任务
+     *
+     * @param chartIds
+     * @param leaseOwner
+     * @param leaseExpireTime
+     * @return 续约成功的数量
+     */
+    int renewLeases(Collection<Long> chartIds, String leaseOwner, Date leaseExpireTime);
+
+    /**
+     * 任务成功：执行中 -> 已完成，保存结果（仅当租约仍由 leaseOwner 持有）
+     *
+     * @param chartId
+     * @param leaseOwner
+     * @param genChart
+     * @param genResult
+     * @return 租约已被回收时返回 false
+     */
+    boolean completeTask(long chartId, String leaseOwner, String genChart, String genResult);
+
+    /**
+     * 任务失败：执行中 -> 失败（仅当租约仍由 leaseOwner 持有）
+     *
+     * @param chartId
+     * @param leaseOwner
+     * @param execMessage
+     * @return 租约已被回收时返回 false
+     */
+    boolean failTask(long chartId, String leaseOwner, String execMessage);
+
+    /**
+     * 任务失败：等待中 -> 失败（任务未被任何节点执行，如重试消息发送失败）
+     *
+     * @param chartId
+     * @param execMessage
+     * @return 任务已不在等待状态时返回 false
+     */
+    boolean failWaitingTask(long chartId, String execMessage);
+
+    /**
+     * 任务稍后重试：执行中 -> 等待中（仅当租约仍由 leaseOwner 持有）
+     *
+     * @param chartId
+     * @param leaseOwner
+     * @return 租约已被回收时返回 false
+     */
+    boolean requeueTask(long chartId, String leaseOwner);
+
+    /**
+     * 查询租约已过期的执行中任务（走 status + leaseExpireTime 索引）
+     *
+     * @param now
+     * @param limit
+     * @return 只包含 id、attemptCount 和构建任务消息的 goal、chartType、datasetHash、userId
+     */
+    List<Chart> listExpiredLeases(Date now, int limit);
+
+    /**
+     * 回收过期租约：任务改回等待状态（仅当租约仍然过期），并在同一事务中写入待发送的任务消息
+     *
+     * @param chart 由 listExpiredLeases 查询
+     * @param now
+     * @return 是否由本次调用回收
+     */
+    boolean requeueExpiredLease(Chart chart, Date now);
+
+    /**
+     * 回收过期租约：任务改为失败（仅当租约仍然过期）
+     *
+     * @param chartId
+     * @param now
+     * @param execMessage
+     * @return 是否由本次调用回收
+     */
+    boolean failExpiredLease(long chartId, Date now, String execMessage);
+
+    /**
+     * 查询长时间停留在等待状态、且没有租约的任务（只在节点内存中排队的任务随节点宕机丢失后会一直等待）
+     *
+     * @param before 最后更新时间早于该时间
+     * @param limit
+     * @return 只包含 id 和构建任务消息的 goal、chartType、datasetHash、userId
+     */
+    List<Chart> listStaleWaiting(Date before, int limit);
+
+    /**
+     * 重新投递长时间等待的任务：刷新更新时间（仅当任务仍在等待且未更新），并在同一事务中写入待发送的任务消息
+     * <p>
+     * 原任务仍在排队时会重复投递，由获取租约的条件更新保证只执行一次
+     *
+     * @param chart  由 listStaleWaiting 查询
+     * @param before
+     * @return 是否由本次调用重新投递
+     */
+    boolean requeueStaleWaiting(Chart chart, Date before);
+
+    /**
+     * 批量查询用户图表的任务状态（id、status 走 userId 覆盖索引，只有失败的图表再按主键读取 execMessage）
+     *
+     * @param userId
+     * @param chartIds
+     * @return 不存在或不属于该用户的图表不返回
+     */
+    List<ChartStatusVO> listChartStatus(long userId, Collection<Long> chartIds);
 }
@@ -0,0 +1,70 @@
+package com.tang.springbootinit.service;
+
+import com.baomidou.mybatisplus.extension.service.IService;
+import com.tang.springbootinit.model.entity.MessageOutbox;
+
+import java.util.Collection;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * 待发送消息服务（事务发件箱）：业务数据和待发送消息在同一事务中写入，由 MessageOutboxRelay 异步发送
+ */
+public interface MessageOutboxService extends IService<MessageOutbox> {
+
+    /**
+     * 待发送
+     */
+    int STATUS_PENDING = 0;
+
+    /**
+     * 已发送（broker 已确认）
+     */
+    int STATUS_SENT = 1;
+
+    /**
+     * 发送失败：超过最多发送次数仍被 broker 拒绝或未确认，不再发送，避免一直占用每批的名额
+     */
+    int STATUS_FAILED = 2;
+
+    /**
+     * 写入待发送消息，在调用方的事务中执行
+     *
+     * @param exchange
+     * @param routingKey
+     * @param message
+     */
+    void addMessage(String exchange, String routingKey, String message);
+
+    /**
+     * 按写入顺序查询待发送消息
+     *
+     * @param limit
+     * @return
+     */
+    List<MessageOutbox> listPending(int limit);
+
+    /**
+     * 标记为已发送
+     *
+     * @param ids
+     * @return 更新的数量
+     */
+    int markSent(Collection<Long> ids);
+
+    /**
+     * 发送失败，发送次数加一，下次继续发送；达到最多发送次数的标记为发送失败
+     *
+     * @param ids
+     * @param maxAttempts 最多发送次数
+     */
+    void markFailed(Collection<Long> ids, int maxAttempts);
+
+    /**
+     * 删除早于 before 的已发送消息
+     *
+     * @param before
+     * @return 删除的数量
+     */
+    int removeSentBefore(Date before);
+}
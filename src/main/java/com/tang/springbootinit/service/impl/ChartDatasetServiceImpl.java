@@ -0,0 +1,289 @@
+package com.tang.springbootinit.service.impl;
+
+import com.baomidou.mybatisplus.core.conditions.update.UpdateWrapper;
+import com.tang.springbootinit.common.ErrorCode;
+import com.tang.springbootinit.dataset.Column;
+import com.tang.springbootinit.dataset.ColumnarDataset;
+import com.tang.springbootinit.dataset.LongColumn;
+import com.tang.springbootinit.dataset.StringColumn;
+import com.tang.springbootinit.dataset.profile.ColumnProfile;
+import com.tang.springbootinit.exception.BusinessException;
+import com.tang.springbootinit.exception.ThrowUtils;
+import com.tang.springbootinit.mapper.ChartMapper;
+import com.tang.springbootinit.model.entity.Chart;
+import com.tang.springbootinit.service.ChartDatasetService;
+import com.tang.springbootinit.service.ChartService;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.StringUtils;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import jakarta.annotation.Resource;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+/**
+ * 图表数据表服务实现
+ * <p>
+ * 表名由图表 id 生成，列名统一为 c0、c1 ...（原始表头可能含任意字符，不能直接拼进 SQL），
+ * 列顺序与 chartProfile 中的列一一对应。写入使用 JDBC batch，配合连接参数
+ * rewriteBatchedStatements=true 由驱动改写为多值 insert。
+ */
+@Service
+@Slf4j
+public class ChartDatasetServiceImpl implements ChartDatasetService {
+
+    /**
+     * 每批写入行数
+     */
+    private static final int BATCH_SIZE = 1000;
+
+    /**
+     * 超过该长度的文本列使用 text 类型
+     */
+    private static final int MAX_VARCHAR_LENGTH = 768;
+
+    /**
+     * MySQL 单行定义的字节上限（varchar 按 utf8mb4 每字符 4 字节计入，text 只计入行内指针）
+     */
+    static final int MAX_ROW_BYTES = 65535;
+
+    /**
+     * text 列计入行大小的字节数
+     */
+    private static final int TEXT_ROW_BYTES = 12;
+
+    private static final Pattern TABLE_NAME_PATTERN = Pattern.compile("chart_\\d+");
+
+    @Resource
+    private ChartMapper chartMapper;
+
+    @Resource
+    private ChartService chartService;
+
+    @Resource
+    private JdbcTemplate jdbcTemplate;
+
+    @Resource
+    private TransactionTemplate transactionTemplate;
+
+    @Override
+    public String saveDataset(long chartId, ColumnarDataset dataset) {
+        String tableName = tableName(chartId);
+        List<String> sqlTypes = sqlTypes(dataset);
+        List<String> columnDefinitions = new ArrayList<>(dataset.getColumnCount());
+        for (int i = 0; i < dataset.getColumnCount(); i++) {
+            columnDefinitions.add(physicalColumn(i) + " " + sqlTypes.get(i) + " null");
+        }
+        chartMapper.createDatasetTable(tableName, columnDefinitions);
+
+        StringBuilder sql = new StringBuilder("insert into ").append(tableName).append(" (rowIndex");
+        for (int i = 0; i < dataset.getColumnCount(); i++) {
+            sql.append(", ").append(physicalColumn(i));
+        }
+        sql.append(") values (?").append(StringUtils.repeat(", ?", dataset.getColumnCount())).append(")");
+        String insertSql = sql.toString();
+        int rowCount = dataset.getRowCount();
+        transactionTemplate.executeWithoutResult(status -> {
+            for (int start = 0; start < rowCount; start += BATCH_SIZE) {
+                int batchStart = start;
+                int batchSize = Math.min(BATCH_SIZE, rowCount - start);
+                jdbcTemplate.batchUpdate(insertSql, new BatchPreparedStatementSetter() {
+                    @Override
+                    public void setValues(PreparedStatement ps, int i) throws SQLException {
+                        setRow(ps, dataset, batchStart + i);
+                    }
+
+                    @Override
+                    public int getBatchSize() {
+                        return batchSize;
+                    }
+                });
+            }
+        });
+        log.info("save dataset table {}, rows {}", tableName, rowCount);
+        return tableName;
+    }
+
+    @Override
+    public void ensureDatasetTable(Chart chart, ColumnarDataset dataset) {
+        String tableName = chart.getDatasetTable();
+        if (StringUtils.isBlank(tableName) || tableName.equals(tableName(chart.getId()))) {
+            return;
+        }
+        // 删除流程先清除已删除图表上的表名，再确认引用数：其他图表仍持有表名时，之后的确认一定能看到本图表的引用
+        if (chartMapper.countDatasetHolders(tableName, chart.getId()) > 0) {
+            return;
+        }
+        log.warn("shared dataset table {} was dropped, save again for chart {}", tableName, chart.getId());
+        String newTableName = saveDataset(chart.getId(), dataset);
+        UpdateWrapper<Chart> updateWrapper = new UpdateWrapper<>();
+        updateWrapper.set("datasetTable", newTableName).eq("id", chart.getId());
+        chartService.update(updateWrapper);
+        chart.setDatasetTable(newTableName);
+    }
+
+    @Override
+    public void dropDatasetIfUnused(String tableName) {
+        if (StringUtils.isBlank(tableName)) {
+            return;
+        }
+        ThrowUtils.throwIf(!TABLE_NAME_PATTERN.matcher(tableName).matches(), ErrorCode.SYSTEM_ERROR, "数据表名非法");
+        // 其他未删除的图表仍在共享该数据表
+        if (chartMapper.countDatasetReferences(tableName) > 0) {
+            return;
+        }
+        // 先清除已删除图表上的表名，之后的上传不会再复用该数据表；清除后再确认一次，避免与并发复用竞争
+        chartMapper.clearDeletedDatasetTable(tableName);
+        if (chartMapper.countDatasetReferences(tableName) > 0) {
+            return;
+        }
+        chartMapper.dropDatasetTable(tableName);
+        log.info("drop dataset table {}", tableName);
+    }
+
+    @Override
+    public List<Map<String, Object>> queryDataset(Chart chart, List<String> columnNames, long offset, int limit) {
+        String tableName = chart.getDatasetTable();
+        // 数据表与 chartProfile 同时写入，缺任意一个都说明是没有数据表的历史图表
+        if (StringUtils.isAnyBlank(tableName, chart.getChartProfile())) {
+            return Collections.emptyList();
+        }
+        ThrowUtils.throwIf(!TABLE_NAME_PATTERN.matcher(tableName).matches(), ErrorCode.SYSTEM_ERROR, "数据表名非法");
+        // 原始表头 -> 物理列名
+        List<ColumnProfile> columnProfiles = chartService.getProfile(chart, null).getColumns();
+        Map<String, String> nameToPhysical = new LinkedHashMap<>();
+        for (int i = 0; i < columnProfiles.size(); i++) {
+            nameToPhysical.putIfAbsent(columnProfiles.get(i).getName(), physicalColumn(i));
+        }
+        List<String> selectedNames = columnNames == null || columnNames.isEmpty()
+                ? new ArrayList<>(nameToPhysical.keySet()) : columnNames;
+        List<String> physicalColumns = new ArrayList<>(selectedNames.size());
+        for (String columnName : selectedNames) {
+            String physical = nameToPhysical.get(columnName);
+            if (physical == null) {
+                throw new BusinessException(ErrorCode.PARAMS_ERROR, "列不存在：" + columnName);
+            }
+            physicalColumns.add(physical);
+        }
+        List<Map<String, Object>> rows = chartMapper.queryChartData(tableName, physicalColumns, offset, limit);
+        List<Map<String, Object>> result = new ArrayList<>(rows.size());
+        for (Map<String, Object> row : rows) {
+            Map<String, Object> namedRow = new LinkedHashMap<>();
+            for (int i = 0; i < selectedNames.size(); i++) {
+                namedRow.put(selectedNames.get(i), row.get(physicalColumns.get(i)));
+            }
+            result.add(namedRow);
+        }
+        return result;
+    }
+
+    private static void setRow(PreparedStatement ps, ColumnarDataset dataset, int row) throws SQLException {
+        ps.setInt(1, row);
+        for (int i = 0; i < dataset.getColumnCount(); i++) {
+            Column column = dataset.getColumn(i);
+            int index = i + 2;
+            switch (column.getType()) {
+                case LONG:
+                    if (column.isNull(row)) {
+                        ps.setNull(index, Types.BIGINT);
+                    } else {
+                        ps.setLong(index, ((LongColumn) column).getLong(row));
+                    }
+                    break;
+                case DOUBLE:
+                    if (column.isNull(row)) {
+                        ps.setNull(index, Types.DOUBLE);
+                    } else {
+                        ps.setDouble(index, column.getDouble(row));
+                    }
+                    break;
+                default:
+                    String value = column.getString(row);
+                    if (value == null) {
+                        ps.setNull(index, Types.VARCHAR);
+                    } else {
+                        ps.setString(index, value);
+                    }
+            }
+        }
+    }
+
+    /**
+     * 按列类型生成 SQL 类型；varchar 列的总长度超出单行上限时，从最长的列开始改为 text
+     *
+     * @param dataset
+     * @return
+     */
+    static List<String> sqlTypes(ColumnarDataset dataset) {
+        int columnCount = dataset.getColumnCount();
+        // 每列的 varchar 长度，0 表示不是 varchar
+        int[] varcharLengths = new int[columnCount];
+        List<String> sqlTypes = new ArrayList<>(columnCount);
+        // rowIndex + null 标志位
+        int rowBytes = 4 + (columnCount + 8) / 8;
+        for (int i = 0; i < columnCount; i++) {
+            Column column = dataset.getColumn(i);
+            switch (column.getType()) {
+                case LONG:
+                    sqlTypes.add("bigint");
+                    rowBytes += 8;
+                    break;
+                case DOUBLE:
+                    sqlTypes.add("double");
+                    rowBytes += 8;
+                    break;
+                default:
+                    int maxLength = 1;
+                    for (String value : ((StringColumn) column).getDictionary()) {
+                        maxLength = Math.max(maxLength, value.length());
+                    }
+                    if (maxLength > MAX_VARCHAR_LENGTH) {
+                        sqlTypes.add("text");
+                        rowBytes += TEXT_ROW_BYTES;
+                    } else {
+                        sqlTypes.add("varchar(" + maxLength + ")");
+                        varcharLengths[i] = maxLength;
+                        rowBytes += varcharRowBytes(maxLength);
+                    }
+            }
+        }
+        while (rowBytes > MAX_ROW_BYTES) {
+            int widest = 0;
+            for (int i = 1; i < columnCount; i++) {
+                if (varcharLengths[i] > varcharLengths[widest]) {
+                    widest = i;
+                }
+            }
+            rowBytes += TEXT_ROW_BYTES - varcharRowBytes(varcharLengths[widest]);
+            varcharLengths[widest] = 0;
+            sqlTypes.set(widest, "text");
+        }
+        return sqlTypes;
+    }
+
+    /**
+     * utf8mb4 varchar 在行定义中占用的字节数（内容 + 长度前缀）
+     */
+    static int varcharRowBytes(int length) {
+        int bytes = length * 4;
+        return bytes + (bytes > 255 ? 2 : 1);
+    }
+
+    private static String tableName(long chartId) {
+        return "chart_" + chartId;
+    }
+
+    private static String physicalColumn(int index) {
+        return "c" + index;
+    }
+}
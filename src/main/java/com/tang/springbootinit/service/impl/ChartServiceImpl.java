@@ -1,10 +1,41 @@
 package com.tang.springbootinit.service.impl;
 
+import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
+import com.baomidou.mybatisplus.core.conditions.update.UpdateWrapper;
+import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
 import com.baomidou.mybatisplus.extension.service.impl.ServiceImpl;
+import com.google.gson.Gson;
+import com.tang.springbootinit.bizmq.BiMqConstant;
+import com.tang.springbootinit.bizmq.BiTaskMessage;
+import com.tang.springbootinit.common.ErrorCode;
+import com.tang.springbootinit.constant.CommonConstant;
+import com.tang.springbootinit.dataset.ColumnarDataset;
+import com.tang.springbootinit.dataset.ColumnarDatasetBuilder;
+import com.tang.springbootinit.dataset.ColumnarDatasetCodec;
+import com.tang.springbootinit.dataset.profile.DatasetProfile;
+import com.tang.springbootinit.dataset.profile.DatasetProfiler;
+import com.tang.springbootinit.exception.ThrowUtils;
+import com.tang.springbootinit.model.dto.chart.ChartQueryRequest;
 import com.tang.springbootinit.model.entity.Chart;
+import com.tang.springbootinit.model.enums.ChartStatusEnum;
+import com.tang.springbootinit.model.vo.ChartStatusVO;
+import com.tang.springbootinit.model.vo.ChartSummaryVO;
 import com.tang.springbootinit.service.ChartService;
 import com.tang.springbootinit.mapper.ChartMapper;
+import com.tang.springbootinit.service.MessageOutboxService;
+import com.tang.springbootinit.utils.SqlUtils;
+import jakarta.annotation.Resource;
+import org.apache.commons.lang3.ObjectUtils;
+import org.apache.commons.lang3.StringUtils;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Collection;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
 
 /**
  *
@@ -13,8 +44,292 @@ import org.springframework.stereotype.Service;
 public class ChartServiceImpl extends ServiceImpl<ChartMapper, Chart>
     implements ChartService{
 
-}
+    private final static Gson GSON = new Gson();
+
+    /**
+     * 图表摘要列（与 ChartSummaryVO 字段对应）
+     */
+    private static final String[] SUMMARY_COLUMNS = {"id", "name", "goal", "chartType", "status", "execMessage",
+            "userId", "createTime", "updateTime"};
+
+    @Resource
+    private MessageOutboxService messageOutboxService;
+
+    @Override
+    public ColumnarDataset getDataset(Chart chart) {
+        byte[] chartDataset = chart.getChartDataset();
+        if (chartDataset == null && StringUtils.isNotBlank(chart.getDatasetHash())) {
+            // 相同数据集只在第一个图表上保存一份
+            Chart datasetChart = this.baseMapper.selectDatasetBlob(chart.getDatasetHash());
+            if (datasetChart != null) {
+                chartDataset = datasetChart.getChartDataset();
+                if (StringUtils.isBlank(chart.getChartProfile())) {
+                    chart.setChartProfile(datasetChart.getChartProfile());
+                }
+            }
+        }
+        if (chartDataset == null && chart.getId() != null) {
+            QueryWrapper<Chart> queryWrapper = new QueryWrapper<>();
+            queryWrapper.select("id", "chartDataset").eq("id", chart.getId());
+            Chart datasetChart = this.getOne(queryWrapper);
+            if (datasetChart != null) {
+                chartDataset = datasetChart.getChartDataset();
+            }
+        }
+        if (chartDataset != null) {
+            return ColumnarDatasetCodec.decode(chartDataset);
+        }
+        return ColumnarDatasetBuilder.fromCsv(chart.getChartData());
+    }
+
+    @Override
+    public DatasetProfile getProfile(Chart chart, ColumnarDataset dataset) {
+        if (StringUtils.isNotBlank(chart.getChartProfile())) {
+            return GSON.fromJson(chart.getChartProfile(), DatasetProfile.class);
+        }
+        return DatasetProfiler.profile(dataset);
+    }
+
+    @Override
+    public QueryWrapper<Chart> getQueryWrapper(ChartQueryRequest chartQueryRequest) {
+        QueryWrapper<Chart> queryWrapper = new QueryWrapper<>();
+        if (chartQueryRequest == null) {
+            return queryWrapper;
+        }
+        Long id = chartQueryRequest.getId();
+        String name = chartQueryRequest.getName();
+        String goal = chartQueryRequest.getGoal();
+        String chartType = chartQueryRequest.getChartType();
+        Long userId = chartQueryRequest.getUserId();
+        String sortField = chartQueryRequest.getSortField();
+        String sortOrder = chartQueryRequest.getSortOrder();
+
+        queryWrapper.eq(id != null && id > 0, "id", id);
+        queryWrapper.like(StringUtils.isNotBlank(name), "name", name);
+        queryWrapper.eq(StringUtils.isNotBlank(goal), "goal", goal);
+        queryWrapper.eq(StringUtils.isNotBlank(chartType), "chartType", chartType);
+        queryWrapper.eq(ObjectUtils.isNotEmpty(userId), "userId", userId);
+        queryWrapper.eq("isDelete", false);
+        queryWrapper.orderBy(SqlUtils.validSortField(sortField), sortOrder.equals(CommonConstant.SORT_ORDER_ASC),
+                sortField);
+        return queryWrapper;
+    }
+
+    @Override
+    public Page<ChartSummaryVO> pageChartSummary(Page<Chart> chartPage, QueryWrapper<Chart> queryWrapper) {
+        queryWrapper.select(SUMMARY_COLUMNS);
+        this.page(chartPage, queryWrapper);
+        Page<ChartSummaryVO> chartSummaryPage = new Page<>(chartPage.getCurrent(), chartPage.getSize(),
+                chartPage.getTotal());
+        chartSummaryPage.setRecords(chartPage.getRecords().stream()
+                .map(ChartSummaryVO::objToVo)
+                .collect(Collectors.toList()));
+        return chartSummaryPage;
+    }
+
+    @Override
+    public boolean updateChartInfo(Chart chart, Chart oldChart) {
+        // 数据相关字段只在上传时写入
+        chart.setChartData(null);
+        chart.setChartDataset(null);
+        chart.setChartProfile(null);
+        chart.setDatasetTable(null);
+        chart.setDatasetHash(null);
+        chart.setRequestHash(null);
+        UpdateWrapper<Chart> updateWrapper = new UpdateWrapper<>();
+        updateWrapper.eq("id", chart.getId());
+        boolean goalChanged = chart.getGoal() != null && !chart.getGoal().equals(oldChart.getGoal());
+        boolean chartTypeChanged = chart.getChartType() != null
+                && !chart.getChartType().equals(oldChart.getChartType());
+        if (goalChanged || chartTypeChanged) {
+            updateWrapper.set("requestHash", null);
+        }
+        return this.update(chart, updateWrapper);
+    }
+
+    @Override
+    @Transactional(rollbackFor = Exception.class)
+    public boolean saveWithTaskMessage(Chart chart, boolean regenerate) {
+        if (!this.save(chart)) {
+            return false;
+        }
+        addTaskMessage(chart, regenerate);
+        return true;
+    }
 
+    @Override
+    public void addTaskMessage(Chart chart, boolean regenerate) {
+        messageOutboxService.addMessage(BiMqConstant.BI_EXCHANGE_NAME, BiMqConstant.BI_ROUTING_KEY,
+                BiTaskMessage.of(chart, regenerate).toJson());
+    }
 
+    @Override
+    public boolean acquireLease(long chartId, String leaseOwner, Date leaseExpireTime) {
+        UpdateWrapper<Chart> updateWrapper = new UpdateWrapper<>();
+        updateWrapper.set("leaseOwner", leaseOwner)
+                .set("leaseExpireTime", leaseExpireTime)
+                .setSql("attemptCount = attemptCount + 1");
+        return compareAndSetStatus(chartId, ChartStatusEnum.WAIT, ChartStatusEnum.RUNNING, updateWrapper);
+    }
 
+    @Override
+    public int renewLeases(Collection<Long> chartIds, String leaseOwner, Date leaseExpireTime) {
+        if (chartIds.isEmpty()) {
+            return 0;
+        }
+        UpdateWrapper<Chart> updateWrapper = new UpdateWrapper<>();
+        updateWrapper.set("leaseExpireTime", leaseExpireTime)
+                .in("id", chartIds)
+                .eq("status", ChartStatusEnum.RUNNING.getValue())
+                .eq("leaseOwner", leaseOwner);
+        return this.baseMapper.update(null, updateWrapper);
+    }
 
+    @Override
+    public boolean completeTask(long chartId, String leaseOwner, String genChart, String genResult) {
+        UpdateWrapper<Chart> updateWrapper = new UpdateWrapper<>();
+        updateWrapper.set("genChart", genChart)
+                .set("genResult", genResult)
+                .set("leaseOwner", null)
+                .set("leaseExpireTime", null)
+                .eq("leaseOwner", leaseOwner);
+        return compareAndSetStatus(chartId, ChartStatusEnum.RUNNING, ChartStatusEnum.SUCCEED, updateWrapper);
+    }
+
+    @Override
+    public boolean failTask(long chartId, String leaseOwner, String execMessage) {
+        UpdateWrapper<Chart> updateWrapper = new UpdateWrapper<>();
+        updateWrapper.set("execMessage", execMessage)
+                .set("leaseOwner", null)
+                .set("leaseExpireTime", null)
+                .eq("leaseOwner", leaseOwner);
+        return compareAndSetStatus(chartId, ChartStatusEnum.RUNNING, ChartStatusEnum.FAILED, updateWrapper);
+    }
+
+    @Override
+    public boolean failWaitingTask(long chartId, String execMessage) {
+        UpdateWrapper<Chart> updateWrapper = new UpdateWrapper<>();
+        updateWrapper.set("execMessage", execMessage);
+        return compareAndSetStatus(chartId, ChartStatusEnum.WAIT, ChartStatusEnum.FAILED, updateWrapper);
+    }
+
+    @Override
+    public boolean requeueTask(long chartId, String leaseOwner) {
+        UpdateWrapper<Chart> updateWrapper = new UpdateWrapper<>();
+        updateWrapper.set("leaseOwner", null)
+                .set("leaseExpireTime", null)
+                .eq("leaseOwner", leaseOwner);
+        return compareAndSetStatus(chartId, ChartStatusEnum.RUNNING, ChartStatusEnum.WAIT, updateWrapper);
+    }
+
+    @Override
+    public List<Chart> listExpiredLeases(Date now, int limit) {
+        QueryWrapper<Chart> queryWrapper = new QueryWrapper<>();
+        queryWrapper.select("id", "attemptCount", "goal", "chartType", "datasetHash", "userId")
+                .eq("status", ChartStatusEnum.RUNNING.getValue())
+                .lt("leaseExpireTime", now)
+                .orderByAsc("leaseExpireTime")
+                .last("limit " + limit);
+        return this.list(queryWrapper);
+    }
+
+    @Override
+    @Transactional(rollbackFor = Exception.class)
+    public boolean requeueExpiredLease(Chart chart, Date now) {
+        UpdateWrapper<Chart> updateWrapper = new UpdateWrapper<>();
+        updateWrapper.set("leaseOwner", null)
+                .set("leaseExpireTime", null)
+                .lt("leaseExpireTime", now);
+        if (!compareAndSetStatus(chart.getId(), ChartStatusEnum.RUNNING, ChartStatusEnum.WAIT, updateWrapper)) {
+            return false;
+        }
+        addTaskMessage(chart, false);
+        return true;
+    }
+
+    @Override
+    public boolean failExpiredLease(long chartId, Date now, String execMessage) {
+        UpdateWrapper<Chart> updateWrapper = new UpdateWrapper<>();
+        updateWrapper.set("execMessage", execMessage)
+                .set("leaseOwner", null)
+                .set("leaseExpireTime", null)
+                .lt("leaseExpireTime", now);
+        return compareAndSetStatus(chartId, ChartStatusEnum.RUNNING, ChartStatusEnum.FAILED, updateWrapper);
+    }
+
+    @Override
+    public List<Chart> listStaleWaiting(Date before, int limit) {
+        QueryWrapper<Chart> queryWrapper = new QueryWrapper<>();
+        queryWrapper.select("id", "goal", "chartType", "datasetHash", "userId")
+                .eq("status", ChartStatusEnum.WAIT.getValue())
+                .isNull("leaseExpireTime")
+                .lt("updateTime", before)
+                .orderByAsc("updateTime")
+                .last("limit " + limit);
+        return this.list(queryWrapper);
+    }
+
+    @Override
+    @Transactional(rollbackFor = Exception.class)
+    public boolean requeueStaleWaiting(Chart chart, Date before) {
+        UpdateWrapper<Chart> updateWrapper = new UpdateWrapper<>();
+        updateWrapper.set("updateTime", new Date())
+                .eq("id", chart.getId())
+                .eq("status", ChartStatusEnum.WAIT.getValue())
+                .isNull("leaseExpireTime")
+                .lt("updateTime", before);
+        if (!this.update(updateWrapper)) {
+            return false;
+        }
+        addTaskMessage(chart, false);
+        return true;
+    }
+
+    /**
+     * 条件更新任务状态（CAS）：只有当前状态仍为 from 时才更新为 to，from -> to 必须是合法的状态变更
+     *
+     * @param chartId
+     * @param from
+     * @param to
+     * @param updateWrapper 需要同时更新的字段和附加条件（如租约持有者）
+     * @return 状态已被其他执行者修改时返回 false
+     */
+    private boolean compareAndSetStatus(long chartId, ChartStatusEnum from, ChartStatusEnum to,
+                                        UpdateWrapper<Chart> updateWrapper) {
+        ThrowUtils.throwIf(!from.canTransitTo(to), ErrorCode.SYSTEM_ERROR,
+                "非法的图表状态变更：" + from.getValue() + " -> " + to.getValue());
+        updateWrapper.set("status", to.getValue())
+                .eq("id", chartId)
+                .eq("status", from.getValue());
+        return this.update(updateWrapper);
+    }
+
+    @Override
+    public List<ChartStatusVO> listChartStatus(long userId, Collection<Long> chartIds) {
+        if (chartIds.isEmpty()) {
+            return new ArrayList<>();
+        }
+        QueryWrapper<Chart> queryWrapper = new QueryWrapper<>();
+        queryWrapper.select("id", "status")
+                .eq("userId", userId)
+                .in("id", chartIds);
+        List<Chart> chartList = this.list(queryWrapper);
+        List<Long> failedIds = chartList.stream()
+                .filter(chart -> ChartStatusEnum.FAILED.getValue().equals(chart.getStatus()))
+                .map(Chart::getId)
+                .collect(Collectors.toList());
+        Map<Long, String> execMessages = failedIds.isEmpty() ? Map.of() : this.list(new QueryWrapper<Chart>()
+                        .select("id", "execMessage")
+                        .in("id", failedIds))
+                .stream()
+                .filter(chart -> chart.getExecMessage() != null)
+                .collect(Collectors.toMap(Chart::getId, Chart::getExecMessage));
+        return chartList.stream().map(chart -> {
+            ChartStatusVO chartStatusVO = new ChartStatusVO();
+            chartStatusVO.setId(chart.getId());
+            chartStatusVO.setStatus(chart.getStatus());
+            chartStatusVO.setExecMessage(execMessages.get(chart.getId()));
+            return chartStatusVO;
+        }).collect(Collectors.toList());
+    }
+}
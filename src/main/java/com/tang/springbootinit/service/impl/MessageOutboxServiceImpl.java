@@ -0,0 +1,79 @@
+package com.tang.springbootinit.service.impl;
+
+import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
+import com.baomidou.mybatisplus.core.conditions.update.UpdateWrapper;
+import com.baomidou.mybatisplus.extension.service.impl.ServiceImpl;
+import com.tang.springbootinit.common.ErrorCode;
+import com.tang.springbootinit.exception.ThrowUtils;
+import com.tang.springbootinit.mapper.MessageOutboxMapper;
+import com.tang.springbootinit.model.entity.MessageOutbox;
+import com.tang.springbootinit.service.MessageOutboxService;
+import org.springframework.stereotype.Service;
+
+import java.util.Collection;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * 待发送消息服务实现
+ */
+@Service
+public class MessageOutboxServiceImpl extends ServiceImpl<MessageOutboxMapper, MessageOutbox>
+        implements MessageOutboxService {
+
+    @Override
+    public void addMessage(String exchange, String routingKey, String message) {
+        MessageOutbox messageOutbox = new MessageOutbox();
+        messageOutbox.setExchange(exchange);
+        messageOutbox.setRoutingKey(routingKey);
+        messageOutbox.setMessage(message);
+        messageOutbox.setStatus(STATUS_PENDING);
+        messageOutbox.setAttemptCount(0);
+        boolean saveResult = this.save(messageOutbox);
+        ThrowUtils.throwIf(!saveResult, ErrorCode.SYSTEM_ERROR, "消息保存失败");
+    }
+
+    @Override
+    public List<MessageOutbox> listPending(int limit) {
+        QueryWrapper<MessageOutbox> queryWrapper = new QueryWrapper<>();
+        queryWrapper.eq("status", STATUS_PENDING)
+                .orderByAsc("id")
+                .last("limit " + limit);
+        return this.list(queryWrapper);
+    }
+
+    @Override
+    public int markSent(Collection<Long> ids) {
+        if (ids.isEmpty()) {
+            return 0;
+        }
+        UpdateWrapper<MessageOutbox> updateWrapper = new UpdateWrapper<>();
+        updateWrapper.set("status", STATUS_SENT)
+                .setSql("attemptCount = attemptCount + 1")
+                .in("id", ids)
+                .eq("status", STATUS_PENDING);
+        return this.baseMapper.update(null, updateWrapper);
+    }
+
+    @Override
+    public void markFailed(Collection<Long> ids, int maxAttempts) {
+        if (ids.isEmpty()) {
+            return;
+        }
+        UpdateWrapper<MessageOutbox> updateWrapper = new UpdateWrapper<>();
+        // MySQL 按顺序执行赋值，status 判断的是加一后的 attemptCount
+        updateWrapper.setSql("attemptCount = attemptCount + 1")
+                .setSql("status = if(attemptCount >= " + maxAttempts + ", " + STATUS_FAILED + ", status)")
+                .in("id", ids)
+                .eq("status", STATUS_PENDING);
+        this.baseMapper.update(null, updateWrapper);
+    }
+
+    @Override
+    public int removeSentBefore(Date before) {
+        QueryWrapper<MessageOutbox> queryWrapper = new QueryWrapper<>();
+        queryWrapper.eq("status", STATUS_SENT)
+                .lt("updateTime", before);
+        return this.baseMapper.delete(queryWrapper);
+    }
+}
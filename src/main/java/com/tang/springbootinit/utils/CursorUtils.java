@@ -0,0 +1,201 @@
+package com.tang.springbootinit.utils;
+
+import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
+import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
+import com.google.gson.Gson;
+import com.google.gson.JsonParseException;
+import com.tang.springbootinit.common.CursorPage;
+import com.tang.springbootinit.common.ErrorCode;
+import com.tang.springbootinit.common.PageRequest;
+import com.tang.springbootinit.constant.CommonConstant;
+import com.tang.springbootinit.exception.BusinessException;
+import com.tang.springbootinit.exception.ThrowUtils;
+import lombok.Data;
+import org.apache.commons.lang3.StringUtils;
+import org.springframework.beans.BeanWrapperImpl;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Collection;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * 游标（keyset）分页工具：按 (排序字段, id) 定位上一页的最后一条，WHERE 条件代替 OFFSET，不执行 COUNT，
+ * 任意深度的翻页代价相同
+ * <p>
+ * 游标是 (排序字段, 排序值, id) 的 Base64 编码，对客户端不透明
+ *
+ *  @author
+ *  @from
+ */
+public class CursorUtils {
+
+    private static final String ID_FIELD = "id";
+
+    private static final String TYPE_DATE = "date";
+
+    private static final String TYPE_NUMBER = "number";
+
+    private static final Gson GSON = new Gson();
+
+    /**
+     * 解析游标分页请求，并清空请求中的排序字段（排序由 {@link Seek#apply} 设置）
+     *
+     * @param pageRequest
+     * @param sortFields  支持的排序字段，未指定时按 id 排序
+     * @return
+     */
+    public static Seek parse(PageRequest pageRequest, Collection<String> sortFields) {
+        String sortField = StringUtils.defaultIfBlank(pageRequest.getSortField(), ID_FIELD);
+        ThrowUtils.throwIf(!sortFields.contains(sortField), ErrorCode.PARAMS_ERROR, "不支持的排序字段");
+        ThrowUtils.throwIf(pageRequest.getPageSize() <= 0, ErrorCode.PARAMS_ERROR);
+        Seek seek = new Seek(sortField, CommonConstant.SORT_ORDER_ASC.equals(pageRequest.getSortOrder()),
+                pageRequest.getPageSize());
+        if (StringUtils.isNotBlank(pageRequest.getCursor())) {
+            Cursor cursor = decode(pageRequest.getCursor());
+            ThrowUtils.throwIf(!sortField.equals(cursor.getField()), ErrorCode.PARAMS_ERROR, "游标与排序字段不匹配");
+            seek.lastValue = cursor.toSortValue();
+            seek.lastId = cursor.getId();
+        }
+        pageRequest.setSortField(null);
+        return seek;
+    }
+
+    static String encode(String sortField, Object sortValue, long id) {
+        Cursor cursor = new Cursor();
+        cursor.setField(sortField);
+        cursor.setId(id);
+        if (sortValue instanceof Date) {
+            cursor.setType(TYPE_DATE);
+            cursor.setValue(String.valueOf(((Date) sortValue).getTime()));
+        } else if (sortValue instanceof Number) {
+            cursor.setType(TYPE_NUMBER);
+            cursor.setValue(String.valueOf(((Number) sortValue).longValue()));
+        } else {
+            throw new BusinessException(ErrorCode.SYSTEM_ERROR, "不支持的排序字段类型");
+        }
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString(GSON.toJson(cursor).getBytes(StandardCharsets.UTF_8));
+    }
+
+    static Cursor decode(String value) {
+        try {
+            Cursor cursor = GSON.fromJson(new String(Base64.getUrlDecoder().decode(value), StandardCharsets.UTF_8),
+                    Cursor.class);
+            if (cursor == null || cursor.getField() == null || cursor.getId() == null) {
+                throw new BusinessException(ErrorCode.PARAMS_ERROR, "游标无效");
+            }
+            cursor.toSortValue();
+            return cursor;
+        } catch (IllegalArgumentException | JsonParseException e) {
+            throw new BusinessException(ErrorCode.PARAMS_ERROR, "游标无效");
+        }
+    }
+
+    /**
+     * 一次游标分页查询
+     */
+    public static class Seek {
+
+        private final String sortField;
+
+        private final boolean asc;
+
+        private final long size;
+
+        /**
+         * 上一页最后一条的排序值和 id，第一页为 null
+         */
+        private Object lastValue;
+
+        private Long lastId;
+
+        Seek(String sortField, boolean asc, long size) {
+            this.sortField = sortField;
+            this.asc = asc;
+            this.size = size;
+        }
+
+        /**
+         * 追加定位条件和排序，返回多取一条（判断是否还有下一页）且不统计总数的分页参数
+         *
+         * @param queryWrapper 不能再包含其他排序
+         * @return
+         */
+        public <T> Page<T> apply(QueryWrapper<T> queryWrapper) {
+            if (lastId != null) {
+                if (ID_FIELD.equals(sortField)) {
+                    seekAfter(queryWrapper, ID_FIELD, lastId);
+                } else {
+                    // (sortField, id) > (lastValue, lastId)，展开为 OR 以便使用 (sortField, id) 前缀索引
+                    queryWrapper.and(wrapper -> {
+                        seekAfter(wrapper, sortField, lastValue);
+                        wrapper.or(sameValue -> seekAfter(sameValue.eq(sortField, lastValue), ID_FIELD, lastId));
+                    });
+                }
+            }
+            if (!ID_FIELD.equals(sortField)) {
+                queryWrapper.orderBy(true, asc, sortField);
+            }
+            queryWrapper.orderBy(true, asc, ID_FIELD);
+            return new Page<>(1, size + 1, false);
+        }
+
+        /**
+         * 截取当前页并生成下一页游标
+         *
+         * @param records 按 {@link #apply} 返回的分页参数查询到的数据（可以是转换后的视图对象，需包含排序字段和 id）
+         * @return
+         */
+        public <T> CursorPage<T> toCursorPage(List<T> records) {
+            CursorPage<T> cursorPage = new CursorPage<>();
+            boolean hasMore = records.size() > size;
+            List<T> pageRecords = hasMore ? new ArrayList<>(records.subList(0, (int) size)) : records;
+            cursorPage.setRecords(pageRecords);
+            cursorPage.setHasMore(hasMore);
+            if (hasMore) {
+                BeanWrapperImpl last = new BeanWrapperImpl(pageRecords.get(pageRecords.size() - 1));
+                cursorPage.setNextCursor(encode(sortField, last.getPropertyValue(sortField),
+                        (Long) last.getPropertyValue(ID_FIELD)));
+            }
+            return cursorPage;
+        }
+
+        private <T> QueryWrapper<T> seekAfter(QueryWrapper<T> queryWrapper, String column, Object value) {
+            return asc ? queryWrapper.gt(column, value) : queryWrapper.lt(column, value);
+        }
+    }
+
+    /**
+     * 游标内容
+     */
+    @Data
+    static class Cursor {
+
+        private String field;
+
+        private String type;
+
+        private String value;
+
+        private Long id;
+
+        Object toSortValue() {
+            long longValue;
+            try {
+                longValue = Long.parseLong(value);
+            } catch (NumberFormatException e) {
+                throw new BusinessException(ErrorCode.PARAMS_ERROR, "游标无效");
+            }
+            if (TYPE_DATE.equals(type)) {
+                return new Date(longValue);
+            }
+            if (TYPE_NUMBER.equals(type)) {
+                return longValue;
+            }
+            throw new BusinessException(ErrorCode.PARAMS_ERROR, "游标无效");
+        }
+    }
+}
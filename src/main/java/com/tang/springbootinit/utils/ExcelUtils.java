@@ -1,18 +1,21 @@
 package com.tang.springbootinit.utils;
 
-import cn.hutool.core.collection.CollUtil;
 import com.alibaba.excel.EasyExcel;
+import com.alibaba.excel.context.AnalysisContext;
+import com.alibaba.excel.read.listener.ReadListener;
 import com.alibaba.excel.support.ExcelTypeEnum;
+import com.tang.springbootinit.dataset.ColumnarDataset;
+import com.tang.springbootinit.dataset.ColumnarDatasetBuilder;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.lang3.ObjectUtils;
-import org.apache.commons.lang3.StringUtils;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.IOException;
-import java.util.LinkedHashMap;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
-import java.util.stream.Collectors;
 
 /**
  * Excel 相关工具类
@@ -27,41 +30,140 @@ public class ExcelUtils {
      * @return
      */
     public static String excelToCsv(MultipartFile multipartFile) {
-//        File file = null;
-//        try {
-//            file = ResourceUtils.getFile("classpath:网站数据.xlsx");
-//        } catch (FileNotFoundException e) {
-//            e.printStackTrace();
-//        }
-        // 读取数据
-        List<Map<Integer, String>> list = null;
-        try {
-            list = EasyExcel.read(multipartFile.getInputStream())
-                    .excelType(ExcelTypeEnum.XLSX)
-                    .sheet()
-                    .headRowNumber(0)
-                    .doReadSync();
+        StringBuilder stringBuilder = new StringBuilder();
+        try (InputStream inputStream = multipartFile.getInputStream()) {
+            excelToCsv(inputStream, stringBuilder);
         } catch (IOException e) {
             log.error("表格处理错误", e);
-        }
-        if (CollUtil.isEmpty(list)) {
             return "";
         }
-        // 转换为 csv
-        StringBuilder stringBuilder = new StringBuilder();
-        // 读取表头
-        LinkedHashMap<Integer, String> headerMap = (LinkedHashMap) list.get(0);
-        List<String> headerList = headerMap.values().stream().filter(ObjectUtils::isNotEmpty).collect(Collectors.toList());
-        stringBuilder.append(StringUtils.join(headerList, ",")).append("\n");
-        // 读取数据
-        for (int i = 1; i < list.size(); i++) {
-            LinkedHashMap<Integer, String> dataMap = (LinkedHashMap) list.get(i);
-            List<String> dataList = dataMap.values().stream().filter(ObjectUtils::isNotEmpty).collect(Collectors.toList());
-            stringBuilder.append(StringUtils.join(dataList, ",")).append("\n");
-        }
         return stringBuilder.toString();
     }
 
+    /**
+     * excel 转列式数据集
+     *
+     * @param multipartFile
+     * @return
+     */
+    public static ColumnarDataset excelToDataset(MultipartFile multipartFile) {
+        ColumnarDatasetBuilder builder = new ColumnarDatasetBuilder();
+        try (InputStream inputStream = multipartFile.getInputStream()) {
+            readRows(inputStream, builder);
+        } catch (IOException e) {
+            log.error("表格处理错误", e);
+        }
+        return builder.build();
+    }
+
+    /**
+     * excel 转 csv（流式写入，内存占用与行数无关）
+     *
+     * @param inputStream excel 输入流
+     * @param out         csv 输出目标
+     */
+    public static void excelToCsv(InputStream inputStream, Appendable out) {
+        readRows(inputStream, new CsvRowHandler(out));
+    }
+
+    /**
+     * 逐行读取 excel 第一个 sheet，第 0 行为表头
+     *
+     * @param inputStream excel 输入流
+     * @param rowHandler  行处理器
+     */
+    public static void readRows(InputStream inputStream, RowHandler rowHandler) {
+        EasyExcel.read(inputStream, new RowReadListener(rowHandler))
+                .excelType(ExcelTypeEnum.XLSX)
+                .sheet()
+                .headRowNumber(0)
+                .doRead();
+    }
+
+    /**
+     * 行处理器
+     */
+    public interface RowHandler {
+
+        /**
+         * 处理一行数据
+         *
+         * @param rowIndex 行号，0 为表头
+         * @param cells    单元格（按列顺序，空单元格为 null）
+         */
+        void handleRow(int rowIndex, List<String> cells);
+
+        /**
+         * 全部行读取完成
+         */
+        default void finish() {
+        }
+    }
+
+    /**
+     * 将 EasyExcel 的读取事件转发给行处理器，不在内存中保留已读行
+     */
+    private static class RowReadListener implements ReadListener<Map<Integer, String>> {
+
+        private final RowHandler rowHandler;
+
+        private int rowIndex = 0;
+
+        RowReadListener(RowHandler rowHandler) {
+            this.rowHandler = rowHandler;
+        }
+
+        @Override
+        public void invoke(Map<Integer, String> data, AnalysisContext context) {
+            int maxColumnIndex = -1;
+            for (Integer columnIndex : data.keySet()) {
+                maxColumnIndex = Math.max(maxColumnIndex, columnIndex);
+            }
+            List<String> cells = new ArrayList<>(maxColumnIndex + 1);
+            for (int i = 0; i <= maxColumnIndex; i++) {
+                cells.add(data.get(i));
+            }
+            rowHandler.handleRow(rowIndex++, cells);
+        }
+
+        @Override
+        public void doAfterAllAnalysed(AnalysisContext context) {
+            rowHandler.finish();
+        }
+    }
+
+    /**
+     * 直接把每一行写成 csv，跳过空单元格
+     */
+    private static class CsvRowHandler implements RowHandler {
+
+        private final Appendable out;
+
+        CsvRowHandler(Appendable out) {
+            this.out = out;
+        }
+
+        @Override
+        public void handleRow(int rowIndex, List<String> cells) {
+            try {
+                boolean first = true;
+                for (String cell : cells) {
+                    if (ObjectUtils.isEmpty(cell)) {
+                        continue;
+                    }
+                    if (!first) {
+                        out.append(',');
+                    }
+                    out.append(cell);
+                    first = false;
+                }
+                out.append('\n');
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+
     public static void main(String[] args) {
         excelToCsv(null);
     }
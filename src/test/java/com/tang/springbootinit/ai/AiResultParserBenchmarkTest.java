@@ -0,0 +1,98 @@
+package com.tang.springbootinit.ai;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * AI 输出解析基准测试（JMH）：规范输出 vs 需要本地修复的输出
+ * <p>
+ * 运行：mvn test -Dtest=AiResultParserBenchmarkTest -Dbench=true [-Dbench.points=20000]
+ */
+@EnabledIfSystemProperty(named = "bench", matches = "true")
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AiResultParserBenchmarkTest {
+
+    /**
+     * 数据点数
+     */
+    @Param("20000")
+    public int points;
+
+    private String clean;
+
+    private String dirty;
+
+    @Setup
+    public void setUp() {
+        clean = buildResponse(points, false);
+        dirty = buildResponse(points, true);
+        assertFalse(AiResultParser.parse(clean).isRepaired());
+        assertTrue(AiResultParser.parse(dirty).isRepaired());
+    }
+
+    @Benchmark
+    public AiResult parseClean() {
+        return AiResultParser.parse(clean);
+    }
+
+    @Benchmark
+    public AiResult parseDirty() {
+        return AiResultParser.parse(dirty);
+    }
+
+    @Test
+    void runBenchmarks() throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(AiResultParserBenchmarkTest.class.getName())
+                .param("points", String.valueOf(Integer.getInteger("bench.points", 20_000)))
+                .build()).run();
+    }
+
+    /**
+     * @param points 数据点数
+     * @param dirty  是否使用代码块、单引号、未加引号的键和尾逗号
+     */
+    private static String buildResponse(int points, boolean dirty) {
+        String quote = dirty ? "'" : "\"";
+        StringBuilder categories = new StringBuilder();
+        StringBuilder values = new StringBuilder();
+        for (int i = 0; i < points; i++) {
+            categories.append(quote).append("2023-").append(i).append(quote).append(',');
+            values.append(i * 7 % 1000).append(',');
+        }
+        if (!dirty) {
+            categories.setLength(categories.length() - 1);
+            values.setLength(values.length() - 1);
+        }
+        String option = dirty
+                ? "```js\n{xAxis: {type: 'category', data: [" + categories + "]}, yAxis: {type: 'value'},"
+                + " series: [{type: 'line', data: [" + values + "]},],}\n```"
+                : "{\"xAxis\":{\"type\":\"category\",\"data\":[" + categories + "]},\"yAxis\":{\"type\":\"value\"},"
+                + "\"series\":[{\"type\":\"line\",\"data\":[" + values + "]}]}";
+        return "【【【【【\n" + option + "\n【【【【【\n整体呈周期性波动。";
+    }
+}
@@ -0,0 +1,71 @@
+package com.tang.springbootinit.ai;
+
+import com.tang.springbootinit.exception.BusinessException;
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * AI 输出解析测试
+ */
+class AiResultParserTest {
+
+    @Test
+    void validResponseKeptAsIs() {
+        String option = "{\"xAxis\":{\"type\":\"category\",\"data\":[\"1月\"]},\"yAxis\":{},"
+                + "\"series\":[{\"type\":\"bar\",\"data\":[1]}]}";
+        AiResult aiResult = AiResultParser.parse("【【【【【\n" + option + "\n【【【【【\n销量上升。\n");
+        assertEquals(option, aiResult.getGenChart());
+        assertEquals("销量上升。", aiResult.getGenResult());
+        assertFalse(aiResult.isRepaired());
+    }
+
+    @Test
+    void repairsJavaScriptStyleOption() {
+        String chart = "```json\n{\n  xAxis: {type: 'category', data: ['a', 'b',],},\n  yAxis: {}, // 数值轴\n"
+                + "  series: [{type: 'line', data: [1, 2], name: 'it\\'s \"ok\"'},],\n}\n```";
+        AiResult aiResult = AiResultParser.parse("【【【【【\n" + chart + "\n【【【【【\n结论");
+        assertEquals("{\"xAxis\":{\"type\":\"category\",\"data\":[\"a\",\"b\"]},\"yAxis\":{},"
+                + "\"series\":[{\"type\":\"line\",\"data\":[1,2],\"name\":\"it's \\\"ok\\\"\"}]}", aiResult.getGenChart());
+        assertTrue(aiResult.isRepaired());
+    }
+
+    @Test
+    void recoversMissingDelimiters() {
+        AiResult aiResult = AiResultParser.parse("图表如下：\n{\"series\":[{\"type\":\"pie\",\"data\":[]}]}\n占比最高的是 A。");
+        assertEquals("{\"series\":[{\"type\":\"pie\",\"data\":[]}]}", aiResult.getGenChart());
+        assertEquals("占比最高的是 A。", aiResult.getGenResult());
+        assertTrue(aiResult.isRepaired());
+    }
+
+    @Test
+    void countsRepairedResults() {
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        Metrics.addRegistry(meterRegistry);
+        try {
+            String option = "{\"series\":[{\"type\":\"pie\",\"data\":[]}]}";
+            AiResultParser.parse("【【【【【\n" + option + "\n【【【【【\n结论");
+            AiResultParser.parse(option + "\n结论");
+            AiResultParser.parse("【【【【【\n{series: [{type: 'pie', data: []}]}\n【【【【【\n结论");
+        } finally {
+            Metrics.removeRegistry(meterRegistry);
+        }
+        assertEquals(1, meterRegistry.get("bi.ai.result").tag("repaired", "false").counter().count());
+        assertEquals(2, meterRegistry.get("bi.ai.result").tag("repaired", "true").counter().count());
+    }
+
+    @Test
+    void rejectsInvalidOption() {
+        assertThrows(BusinessException.class, () -> AiResultParser.parse("【【【【【\n{\"series\":[]}\n【【【【【\n结论"));
+        assertThrows(BusinessException.class,
+                () -> AiResultParser.parse("【【【【【\n{\"series\":[{\"type\":\"bar\"}]}\n【【【【【\n结论"));
+        assertThrows(BusinessException.class,
+                () -> AiResultParser.parse("【【【【【\n{\"series\":[{\"data\":[1]}]}\n【【【【【\n结论"));
+        assertThrows(BusinessException.class, () -> AiResultParser.parse("只有结论，没有图表"));
+    }
+}
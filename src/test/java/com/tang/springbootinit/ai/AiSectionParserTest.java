@@ -0,0 +1,62 @@
+package com.tang.springbootinit.ai;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * AI 输出分段解析测试
+ */
+class AiSectionParserTest {
+
+    private static final String RESPONSE = "【【【【【\n{\"series\":[{\"type\":\"bar\"}]}\n【【【【【\n销量逐月上升。";
+
+    @Test
+    void splitMatchesStringSplit() {
+        List<String> sections = AiSectionParser.split(RESPONSE);
+        String[] expected = RESPONSE.split(AiSectionParser.SECTION_DELIMITER);
+        assertEquals(expected.length, sections.size());
+        for (int i = 0; i < expected.length; i++) {
+            assertEquals(expected[i], sections.get(i));
+        }
+    }
+
+    @Test
+    void delimiterSplitAcrossChunks() {
+        List<String> chartEvents = new ArrayList<>();
+        StringBuilder resultText = new StringBuilder();
+        AiSectionParser parser = new AiSectionParser(new AiSectionParser.Listener() {
+            @Override
+            public void onSectionText(int section, String text) {
+                if (section == AiSectionParser.RESULT_SECTION) {
+                    resultText.append(text);
+                }
+            }
+
+            @Override
+            public void onSectionEnd(int section, String content) {
+                if (section == AiSectionParser.CHART_SECTION) {
+                    chartEvents.add(content.trim());
+                }
+            }
+        });
+        // 每次只输入一个字符，分隔符必然被拆开
+        for (int i = 0; i < RESPONSE.length(); i++) {
+            parser.feed(RESPONSE.substring(i, i + 1));
+        }
+        // 图表段在结论输出前已经结束
+        assertEquals(List.of("{\"series\":[{\"type\":\"bar\"}]}"), chartEvents);
+        parser.finish();
+        assertEquals("\n销量逐月上升。", resultText.toString());
+        assertEquals(3, parser.getSections().size());
+    }
+
+    @Test
+    void partialDelimiterAtEndIsText() {
+        List<String> sections = AiSectionParser.split("a【【【【【b【【");
+        assertEquals(List.of("a", "b【【"), sections);
+    }
+}
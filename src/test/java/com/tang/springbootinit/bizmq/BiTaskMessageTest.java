@@ -0,0 +1,73 @@
+package com.tang.springbootinit.bizmq;
+
+import com.tang.springbootinit.model.entity.Chart;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 图表生成任务消息测试
+ */
+class BiTaskMessageTest {
+
+    @Test
+    void inlineSmallDataset() {
+        Chart chart = newChart(new byte[]{1, 2, 3});
+        BiTaskMessage taskMessage = BiTaskMessage.parse(BiTaskMessage.of(chart, true).toJson());
+
+        assertEquals(BiTaskMessage.CURRENT_VERSION, taskMessage.getVersion());
+        assertTrue(taskMessage.hasPayload());
+        assertTrue(taskMessage.getRegenerate());
+        Chart taskChart = taskMessage.toChart();
+        assertEquals(chart.getId(), taskChart.getId());
+        assertEquals(chart.getUserId(), taskChart.getUserId());
+        assertEquals("分析增长趋势", taskChart.getGoal());
+        assertEquals("折线图", taskChart.getChartType());
+        assertEquals("hash", taskChart.getDatasetHash());
+        assertArrayEquals(new byte[]{1, 2, 3}, taskChart.getChartDataset());
+    }
+
+    @Test
+    void referenceLargeDataset() {
+        Chart chart = newChart(new byte[BiMqConstant.TASK_MESSAGE_INLINE_MAX_BYTES + 1]);
+        BiTaskMessage taskMessage = BiTaskMessage.parse(BiTaskMessage.of(chart, false).toJson());
+
+        assertNull(taskMessage.getInlineDataset());
+        assertTrue(taskMessage.hasPayload());
+        assertNull(taskMessage.toChart().getChartDataset());
+        assertEquals("hash", taskMessage.toChart().getDatasetHash());
+    }
+
+    @Test
+    void legacyChartIdMessage() {
+        BiTaskMessage taskMessage = BiTaskMessage.parse("123");
+
+        assertEquals(0, taskMessage.getVersion());
+        assertEquals(123L, taskMessage.getChartId());
+        assertFalse(taskMessage.hasPayload());
+    }
+
+    @Test
+    void invalidMessage() {
+        assertNull(BiTaskMessage.parse(null));
+        assertNull(BiTaskMessage.parse(" "));
+        assertNull(BiTaskMessage.parse("abc"));
+        assertNull(BiTaskMessage.parse("{\"version\":1}"));
+        assertNull(BiTaskMessage.parse("{\"version\":1,\"chartId\":1,\"inlineDataset\":\"@@\"}"));
+    }
+
+    private Chart newChart(byte[] chartDataset) {
+        Chart chart = new Chart();
+        chart.setId(1L);
+        chart.setUserId(2L);
+        chart.setGoal("分析增长趋势");
+        chart.setChartType("折线图");
+        chart.setDatasetHash("hash");
+        chart.setChartDataset(chartDataset);
+        return chart;
+    }
+}
@@ -0,0 +1,84 @@
+package com.tang.springbootinit.bizmq.embedded;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * 进程内消息队列吞吐基准：多个生产者发送、多个消费者取出并确认，对比内存模式和磁盘日志模式
+ * <p>
+ * 运行：mvn test -Dtest=EmbeddedMessageBrokerBenchmarkTest -Dbench=true [-Dbench.messages=200000]
+ */
+@EnabledIfSystemProperty(named = "bench", matches = "true")
+class EmbeddedMessageBrokerBenchmarkTest {
+
+    private static final int MESSAGES = Integer.getInteger("bench.messages", 200_000);
+
+    private static final int PRODUCERS = 4;
+
+    private static final int CONSUMERS = 10;
+
+    private static final String QUEUE = "bi_queue";
+
+    @Test
+    void throughput() throws Exception {
+        // 预热
+        run(null, MESSAGES / 10);
+
+        long memoryNanos = run(null, MESSAGES);
+        Path journalPath = Files.createTempDirectory("embedded_mq_bench").resolve("bi-mq.journal");
+        long journalNanos = run(journalPath, MESSAGES);
+        System.out.printf("memory  : %8.0f msg/s%n", MESSAGES / (memoryNanos / 1e9));
+        System.out.printf("journal : %8.0f msg/s%n", MESSAGES / (journalNanos / 1e9));
+    }
+
+    private long run(Path journalPath, int messages) throws Exception {
+        EmbeddedMessageJournal journal = journalPath == null ? null : new EmbeddedMessageJournal(journalPath, false);
+        EmbeddedMessageBroker broker = new EmbeddedMessageBroker(4096, 10_000, journal);
+        broker.declareQueue(QUEUE, false);
+        broker.start();
+        String body = "{\"version\":1,\"chartId\":1,\"goal\":\"分析网站用户增长情况\",\"chartType\":\"折线图\"}";
+        AtomicInteger consumed = new AtomicInteger();
+        List<Thread> threads = new ArrayList<>();
+        long start = System.nanoTime();
+        for (int i = 0; i < CONSUMERS; i++) {
+            threads.add(Thread.ofVirtual().start(() -> {
+                while (consumed.get() < messages) {
+                    try {
+                        EmbeddedMessage message = broker.poll(QUEUE, 10, TimeUnit.MILLISECONDS);
+                        if (message != null) {
+                            broker.ack(message);
+                            consumed.incrementAndGet();
+                        }
+                    } catch (InterruptedException e) {
+                        return;
+                    }
+                }
+            }));
+        }
+        for (int i = 0; i < PRODUCERS; i++) {
+            int count = messages / PRODUCERS + (i < messages % PRODUCERS ? 1 : 0);
+            threads.add(Thread.ofVirtual().start(() -> {
+                for (int j = 0; j < count; j++) {
+                    broker.publish(QUEUE, body, 0, 0);
+                }
+            }));
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        long costNanos = System.nanoTime() - start;
+        assertEquals(messages, consumed.get());
+        assertEquals(0, broker.getPendingCount());
+        broker.shutdown();
+        return costNanos;
+    }
+}
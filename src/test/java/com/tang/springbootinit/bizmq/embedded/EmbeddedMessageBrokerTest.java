@@ -0,0 +1,119 @@
+package com.tang.springbootinit.bizmq.embedded;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.amqp.AmqpException;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 进程内消息队列测试
+ */
+class EmbeddedMessageBrokerTest {
+
+    private static final String QUEUE = "bi_queue";
+
+    private static final String DLQ = "bi_dlq";
+
+    @Test
+    void nackRequeuesUntilAck() throws Exception {
+        EmbeddedMessageBroker broker = newBroker(4, null);
+        broker.publish(QUEUE, "1", 0, 0);
+
+        EmbeddedMessage message = broker.poll(QUEUE, 1, TimeUnit.SECONDS);
+        assertEquals("1", message.getBody());
+        broker.nack(message, true);
+        EmbeddedMessage redelivered = broker.poll(QUEUE, 1, TimeUnit.SECONDS);
+        assertEquals(message.getId(), redelivered.getId());
+        assertEquals(1, broker.getPendingCount());
+        broker.ack(redelivered);
+        assertEquals(0, broker.getPendingCount());
+        broker.shutdown();
+    }
+
+    @Test
+    void delayedNackRequeuesLater() throws Exception {
+        EmbeddedMessageBroker broker = newBroker(4, null);
+        broker.publish(QUEUE, "1", 1, 0);
+
+        EmbeddedMessage message = broker.poll(QUEUE, 1, TimeUnit.SECONDS);
+        long start = System.nanoTime();
+        broker.nack(message, 100);
+        // 延迟期间不会被立即取回
+        assertNull(broker.poll(QUEUE, 20, TimeUnit.MILLISECONDS));
+        EmbeddedMessage redelivered = broker.poll(QUEUE, 2, TimeUnit.SECONDS);
+        assertTrue(System.nanoTime() - start >= TimeUnit.MILLISECONDS.toNanos(100));
+        assertEquals(message.getId(), redelivered.getId());
+        assertEquals(1, redelivered.getRetryCount());
+        broker.shutdown();
+    }
+
+    @Test
+    void delayedRetryKeepsRetryCount() throws Exception {
+        EmbeddedMessageBroker broker = newBroker(4, null);
+        long start = System.nanoTime();
+        broker.publish(QUEUE, "1", 2, 100);
+
+        assertNull(broker.poll(QUEUE, 20, TimeUnit.MILLISECONDS));
+        EmbeddedMessage message = broker.poll(QUEUE, 2, TimeUnit.SECONDS);
+        assertTrue(System.nanoTime() - start >= TimeUnit.MILLISECONDS.toNanos(100));
+        assertEquals(2, message.getRetryCount());
+        broker.shutdown();
+    }
+
+    @Test
+    void fullQueueRejectsAndDeadLetterOverwrites() throws Exception {
+        EmbeddedMessageBroker broker = newBroker(2, null);
+        broker.publish(QUEUE, "1", 0, 0);
+        broker.publish(QUEUE, "2", 0, 0);
+        assertThrows(AmqpException.class, () -> broker.publish(QUEUE, "3", 0, 0));
+
+        for (int i = 0; i < 5; i++) {
+            broker.publish(DLQ, String.valueOf(i), 3, 0);
+        }
+        assertEquals(2, broker.getQueueSize(DLQ));
+        assertEquals("3", broker.poll(DLQ, 1, TimeUnit.SECONDS).getBody());
+        // bi_queue 2 条 + 死信队列 2 条（1 条已取出未确认）
+        assertEquals(4, broker.getPendingCount());
+        broker.shutdown();
+    }
+
+    @Test
+    void journalReplaysUnackedMessages() throws Exception {
+        Path journalPath = Files.createTempDirectory("embedded_mq").resolve("bi-mq.journal");
+        EmbeddedMessageBroker broker = newBroker(8, journalPath);
+        broker.publish(QUEUE, "acked", 0, 0);
+        broker.publish(QUEUE, "in-flight", 0, 0);
+        broker.publish(QUEUE, "delayed", 1, 60_000);
+        broker.ack(broker.poll(QUEUE, 1, TimeUnit.SECONDS));
+        assertEquals("in-flight", broker.poll(QUEUE, 1, TimeUnit.SECONDS).getBody());
+        // 模拟进程退出：取出未确认的消息不再处理
+        broker.shutdown();
+
+        EmbeddedMessageBroker restarted = newBroker(8, journalPath);
+        assertEquals(2, restarted.getPendingCount());
+        EmbeddedMessage message = restarted.poll(QUEUE, 1, TimeUnit.SECONDS);
+        assertEquals("in-flight", message.getBody());
+        assertNull(restarted.poll(QUEUE, 20, TimeUnit.MILLISECONDS));
+        restarted.ack(message);
+        // 新消息的 id 接在回放的消息之后
+        restarted.publish(QUEUE, "new", 0, 0);
+        assertTrue(restarted.poll(QUEUE, 1, TimeUnit.SECONDS).getId() > message.getId());
+        restarted.shutdown();
+    }
+
+    private EmbeddedMessageBroker newBroker(int capacity, Path journalPath) {
+        EmbeddedMessageJournal journal = journalPath == null ? null : new EmbeddedMessageJournal(journalPath, false);
+        EmbeddedMessageBroker broker = new EmbeddedMessageBroker(capacity, 10, journal);
+        broker.declareQueue(QUEUE, false);
+        broker.declareQueue(DLQ, true);
+        broker.start();
+        return broker;
+    }
+}
@@ -0,0 +1,61 @@
+package com.tang.springbootinit.bizmq.embedded;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 环形缓冲队列测试
+ */
+class RingBufferQueueTest {
+
+    @Test
+    void fifoAcrossWrapAround() throws Exception {
+        RingBufferQueue<Integer> queue = new RingBufferQueue<>(3);
+        assertEquals(4, queue.capacity());
+        for (int round = 0; round < 10; round++) {
+            for (int i = 0; i < 4; i++) {
+                assertTrue(queue.offer(round * 4 + i));
+            }
+            assertFalse(queue.offer(-1));
+            for (int i = 0; i < 4; i++) {
+                assertEquals(round * 4 + i, queue.poll(0, TimeUnit.MILLISECONDS));
+            }
+        }
+        assertNull(queue.poll(10, TimeUnit.MILLISECONDS));
+        assertEquals(0, queue.size());
+    }
+
+    @Test
+    void overwriteEvictsOldest() throws Exception {
+        RingBufferQueue<Integer> queue = new RingBufferQueue<>(2);
+        assertNull(queue.offerOverwrite(1));
+        assertNull(queue.offerOverwrite(2));
+        assertEquals(1, queue.offerOverwrite(3));
+        assertEquals(2, queue.poll(0, TimeUnit.MILLISECONDS));
+        assertEquals(3, queue.poll(0, TimeUnit.MILLISECONDS));
+    }
+
+    @Test
+    void blockedOfferResumesAfterPoll() throws Exception {
+        RingBufferQueue<Integer> queue = new RingBufferQueue<>(1);
+        queue.offer(1);
+        Thread consumer = new Thread(() -> {
+            try {
+                Thread.sleep(50);
+                queue.poll(0, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException ignored) {
+            }
+        });
+        consumer.start();
+        assertTrue(queue.offer(2, 5, TimeUnit.SECONDS));
+        consumer.join();
+        assertFalse(queue.offer(3, 10, TimeUnit.MILLISECONDS));
+        assertEquals(2, queue.poll(0, TimeUnit.MILLISECONDS));
+    }
+}
@@ -0,0 +1,85 @@
+package com.tang.springbootinit.dataset;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 列式数据集构建与编解码测试
+ */
+class ColumnarDatasetCodecTest {
+
+    @Test
+    void buildAndRoundTrip() {
+        String csv = "日期,用户数,转化率,编号\n" +
+                "1号,10,0.5,007\n" +
+                "2号,,0.25,008\n" +
+                "3号,30,,009\n";
+        ColumnarDataset dataset = ColumnarDatasetBuilder.fromCsv(csv);
+        assertEquals(3, dataset.getRowCount());
+        assertEquals(ColumnType.STRING, dataset.getColumn(0).getType());
+        assertEquals(ColumnType.LONG, dataset.getColumn(1).getType());
+        assertEquals(ColumnType.DOUBLE, dataset.getColumn(2).getType());
+        assertEquals(ColumnType.STRING, dataset.getColumn(3).getType());
+        assertTrue(dataset.getColumn(1).isNull(1));
+        assertEquals(1, dataset.getColumn(2).getNullCount());
+
+        ColumnarDataset decoded = ColumnarDatasetCodec.decode(ColumnarDatasetCodec.encode(dataset));
+        assertEquals(dataset.toCsv(), decoded.toCsv());
+        assertEquals("日期,用户数,转化率,编号\n1号,10,0.5,007\n2号,,0.25,008\n3号,30,,009\n", decoded.toCsv());
+    }
+
+    @Test
+    void inferNumericColumns() {
+        String csv = "a,b,c,d,e,f\n" +
+                "1,1,1,1.50,9007199254740993,\n" +
+                "2,2.5,2.5,+3,1,\n" +
+                "3,4,abc,,0.5,\n";
+        ColumnarDataset dataset = ColumnarDatasetBuilder.fromCsv(csv);
+        assertEquals(ColumnType.LONG, dataset.getColumn(0).getType());
+        assertEquals(ColumnType.DOUBLE, dataset.getColumn(1).getType());
+        assertEquals(4.0, dataset.getColumn(1).getDouble(2));
+        // 数值之后出现文本时转为字符串列，保留原文
+        assertEquals(ColumnType.STRING, dataset.getColumn(2).getType());
+        assertEquals("1", dataset.getColumn(2).getString(0));
+        assertEquals("2.5", dataset.getColumn(2).getString(1));
+        assertEquals("abc", dataset.getColumn(2).getString(2));
+        // 非规范写法按字典推断，类型不变
+        assertEquals(ColumnType.DOUBLE, dataset.getColumn(3).getType());
+        assertEquals(1.5, dataset.getColumn(3).getDouble(0));
+        // 超出 double 精确范围的整数之后出现小数时仍按字典推断为浮点数
+        assertEquals(ColumnType.DOUBLE, dataset.getColumn(4).getType());
+        assertEquals(0.5, dataset.getColumn(4).getDouble(2));
+        // 全空列
+        assertEquals(ColumnType.STRING, dataset.getColumn(5).getType());
+        assertEquals(3, dataset.getColumn(5).getNullCount());
+    }
+
+    @Test
+    void decimalsKeepPlainText() {
+        String csv = "金额,比例\n" +
+                "12345678.9,0.125\n" +
+                "98765432.1,1.5\n" +
+                "100000000,0.000015\n";
+        ColumnarDataset dataset = ColumnarDatasetBuilder.fromCsv(csv);
+        assertEquals(ColumnType.DOUBLE, dataset.getColumn(0).getType());
+        assertEquals(ColumnType.DOUBLE, dataset.getColumn(1).getType());
+        // 不输出科学计数法
+        ColumnarDataset decoded = ColumnarDatasetCodec.decode(ColumnarDatasetCodec.encode(dataset));
+        assertEquals(csv, decoded.toCsv());
+        assertEquals("1.23E-7", DoubleColumn.format(1.23e-7));
+        assertEquals("1.5", DoubleColumn.format(1.50));
+
+        // 数值之后出现文本时按原文还原
+        ColumnarDataset mixed = ColumnarDatasetBuilder.fromCsv("a\n12345678.9\n0.1\nabc\n");
+        assertEquals(ColumnType.STRING, mixed.getColumn(0).getType());
+        assertEquals("12345678.9", mixed.getColumn(0).getString(0));
+    }
+
+    @Test
+    void dropEmptyUnnamedColumn() {
+        ColumnarDataset dataset = ColumnarDatasetBuilder.fromCsv("a,\n1,\n2, \n");
+        assertEquals(1, dataset.getColumnCount());
+        assertEquals(ColumnType.LONG, dataset.getColumn(0).getType());
+    }
+}
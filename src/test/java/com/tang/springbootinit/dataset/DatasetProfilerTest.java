@@ -0,0 +1,41 @@
+package com.tang.springbootinit.dataset;
+
+import com.tang.springbootinit.dataset.profile.ColumnProfile;
+import com.tang.springbootinit.dataset.profile.DatasetProfile;
+import com.tang.springbootinit.dataset.profile.DatasetProfiler;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 数据集统计测试
+ */
+class DatasetProfilerTest {
+
+    @Test
+    void profile() {
+        StringBuilder csv = new StringBuilder("日期,用户数,渠道\n");
+        for (int i = 1; i <= 1000; i++) {
+            csv.append("2023-01-").append(i % 28 + 1).append(',').append(i).append(',').append("渠道").append(i % 4).append('\n');
+        }
+        DatasetProfile datasetProfile = DatasetProfiler.profile(ColumnarDatasetBuilder.fromCsv(csv.toString()));
+        assertEquals(1000, datasetProfile.getRowCount());
+
+        ColumnProfile date = datasetProfile.getColumns().get(0);
+        assertEquals("date", date.getType());
+        assertEquals(28, date.getDistinctCount());
+
+        ColumnProfile users = datasetProfile.getColumns().get(1);
+        assertEquals("integer", users.getType());
+        assertEquals(1, users.getMin());
+        assertEquals(1000, users.getMax());
+        assertEquals(500.5, users.getMean(), 1e-9);
+        assertEquals(500.5, users.getP50(), 10);
+        assertEquals(1000, users.getDistinctCount(), 50);
+
+        ColumnProfile channel = datasetProfile.getColumns().get(2);
+        assertEquals(4, channel.getDistinctCount());
+        assertEquals(3, channel.getTopValues().size());
+        assertTrue(datasetProfile.toPromptSummary().contains("用户数(integer)"));
+    }
+}
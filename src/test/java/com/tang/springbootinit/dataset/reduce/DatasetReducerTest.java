@@ -0,0 +1,139 @@
+package com.tang.springbootinit.dataset.reduce;
+
+import com.tang.springbootinit.dataset.Column;
+import com.tang.springbootinit.dataset.ColumnarDataset;
+import com.tang.springbootinit.dataset.ColumnarDatasetBuilder;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 数据集缩减策略测试
+ */
+class DatasetReducerTest {
+
+    @Test
+    void lttbKeepsEndpointsAndPeaks() {
+        StringBuilder csv = new StringBuilder("时间,用户数\n");
+        for (int i = 0; i < 1000; i++) {
+            int users = i == 500 ? 10000 : i == 700 ? -10000 : i % 10;
+            csv.append(String.format("t%04d", i)).append(',').append(users).append('\n');
+        }
+        ColumnarDataset dataset = ColumnarDatasetBuilder.fromCsv(csv.toString());
+        LttbReducer reducer = new LttbReducer();
+        assertTrue(reducer.supports(dataset, 50));
+
+        DatasetReduction reduction = reducer.reduce(dataset, 50);
+        ColumnarDataset reduced = reduction.getDataset();
+        assertEquals(50, reduced.getRowCount());
+        assertEquals(1000, reduction.getOriginalRowCount());
+        assertEquals("lttb", reduction.getStrategy());
+        assertEquals("t0000", reduced.getColumn(0).getString(0));
+        assertEquals("t0999", reduced.getColumn(0).getString(49));
+        assertTrue(containsRow(reduced, "t0500"));
+        assertTrue(containsRow(reduced, "t0700"));
+        // 保持原始顺序
+        for (int row = 1; row < reduced.getRowCount(); row++) {
+            assertTrue(reduced.getColumn(0).getString(row).compareTo(reduced.getColumn(0).getString(row - 1)) > 0);
+        }
+    }
+
+    @Test
+    void lttbNotApplicable() {
+        LttbReducer reducer = new LttbReducer();
+        // x 有重复取值
+        assertFalse(reducer.supports(ColumnarDatasetBuilder.fromCsv("渠道,用户数\na,1\na,2\nb,3\nc,4\n"), 3));
+        // 没有数值列
+        assertFalse(reducer.supports(ColumnarDatasetBuilder.fromCsv("时间,渠道\nt1,a\nt2,b\nt3,c\nt4,d\n"), 3));
+        // 不足 3 行时原样返回
+        assertArrayEquals(new int[]{0, 1}, LttbReducer.lttb(2, 10, row -> row, row -> row));
+    }
+
+    @Test
+    void topNMergesTailIntoOthers() {
+        StringBuilder csv = new StringBuilder("城市,销量,订单数\n");
+        for (int i = 0; i < 100; i++) {
+            // 每个城市两行，合计销量 = 2i
+            csv.append("c").append(i).append(',').append(i).append(",1\n");
+            csv.append("c").append(i).append(',').append(i).append(",1\n");
+        }
+        ColumnarDataset dataset = ColumnarDatasetBuilder.fromCsv(csv.toString());
+        TopNReducer reducer = new TopNReducer();
+        assertTrue(reducer.supports(dataset, 10));
+
+        ColumnarDataset reduced = reducer.reduce(dataset, 10).getDataset();
+        assertEquals(10, reduced.getRowCount());
+        assertEquals(3, reduced.getColumnCount());
+        for (int row = 0; row < 9; row++) {
+            assertEquals("c" + (99 - row), reduced.getColumn(0).getString(row));
+            assertEquals(2.0 * (99 - row), reduced.getColumn(1).getDouble(row));
+        }
+        assertEquals(TopNReducer.OTHERS, reduced.getColumn(0).getString(9));
+        // 合计不变
+        assertEquals(2.0 * 4950, sum(reduced.getColumn(1)));
+        assertEquals(200.0, sum(reduced.getColumn(2)));
+    }
+
+    @Test
+    void stratifiedKeepsEveryStratum() {
+        StringBuilder csv = new StringBuilder("渠道,序号\n");
+        for (int i = 0; i < 1000; i++) {
+            int bucket = i % 100;
+            String channel = bucket < 70 ? "a" : bucket < 90 ? "b" : bucket < 99 ? "c" : "d";
+            csv.append(channel).append(',').append(i).append('\n');
+        }
+        ColumnarDataset dataset = ColumnarDatasetBuilder.fromCsv(csv.toString());
+
+        ColumnarDataset reduced = new StratifiedSampleReducer().reduce(dataset, 100).getDataset();
+        assertTrue(reduced.getRowCount() <= 100);
+        Map<String, Integer> counts = new HashMap<>();
+        for (int row = 0; row < reduced.getRowCount(); row++) {
+            counts.merge(reduced.getColumn(0).getString(row), 1, Integer::sum);
+            if (row > 0) {
+                assertTrue(reduced.getColumn(1).getDouble(row) > reduced.getColumn(1).getDouble(row - 1));
+            }
+        }
+        // 名额按占比分配，小层至少保留 1 行
+        assertEquals(67, counts.get("a"));
+        assertEquals(19, counts.get("b"));
+        assertEquals(8, counts.get("c"));
+        assertEquals(1, counts.get("d"));
+    }
+
+    @Test
+    void stratifiedFallsBackToSystematic() {
+        StringBuilder csv = new StringBuilder("序号,用户数\n");
+        for (int i = 0; i < 1000; i++) {
+            csv.append(i).append(',').append(i * 2).append('\n');
+        }
+        ColumnarDataset reduced = new StratifiedSampleReducer()
+                .reduce(ColumnarDatasetBuilder.fromCsv(csv.toString()), 10).getDataset();
+        assertEquals(10, reduced.getRowCount());
+        for (int row = 0; row < 10; row++) {
+            assertEquals(row * 100.0, reduced.getColumn(0).getDouble(row));
+        }
+    }
+
+    private static boolean containsRow(ColumnarDataset dataset, String x) {
+        for (int row = 0; row < dataset.getRowCount(); row++) {
+            if (x.equals(dataset.getColumn(0).getString(row))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static double sum(Column column) {
+        double sum = 0;
+        for (int row = 0; row < column.getRowCount(); row++) {
+            sum += column.getDouble(row);
+        }
+        return sum;
+    }
+}
@@ -0,0 +1,141 @@
+package com.tang.springbootinit.executor;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 图表任务执行器负载测试：500 个并发异步提交，任务阻塞时间模拟 AI 调用
+ * <p>
+ * 吞吐对比运行：mvn test -Dtest=ChartTaskExecutorLoadTest -Dbench=true [-Dbench.latencyMs=2000]
+ */
+class ChartTaskExecutorLoadTest {
+
+    private static final int SUBMISSIONS = 500;
+
+    @Test
+    void virtualExecutorCapsConcurrency() throws Exception {
+        int maxConcurrency = 20;
+        VirtualChartTaskExecutor executor = new VirtualChartTaskExecutor(maxConcurrency, SUBMISSIONS);
+        try {
+            LoadResult result = runLoad(executor, 20);
+            assertEquals(SUBMISSIONS, result.completed);
+            assertEquals(0, result.rejected);
+            assertTrue(result.peakConcurrency <= maxConcurrency, "peak " + result.peakConcurrency);
+            assertEquals(SUBMISSIONS, executor.getCompletedTaskCount());
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    void virtualExecutorRejectsBeyondQueueCapacity() throws Exception {
+        VirtualChartTaskExecutor executor = new VirtualChartTaskExecutor(2, 3);
+        CountDownLatch release = new CountDownLatch(1);
+        try {
+            int rejected = 0;
+            for (int i = 0; i < 10; i++) {
+                try {
+                    executor.execute(() -> {
+                        try {
+                            release.await();
+                        } catch (InterruptedException e) {
+                            Thread.currentThread().interrupt();
+                        }
+                    });
+                } catch (RejectedExecutionException e) {
+                    rejected++;
+                }
+            }
+            // 2 个执行 + 3 个排队
+            assertEquals(5, rejected);
+        } finally {
+            release.countDown();
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    @EnabledIfSystemProperty(named = "bench", matches = "true")
+    void compareThroughput() throws Exception {
+        long latencyMs = Long.getLong("bench.latencyMs", 2000);
+        // 原配置：2~4 个线程 + 容量 4 的队列
+        PlatformChartTaskExecutor legacy = new PlatformChartTaskExecutor(4, 4);
+        // 虚拟线程，并发数按 AI 配额设置
+        VirtualChartTaskExecutor virtual = new VirtualChartTaskExecutor(50, SUBMISSIONS);
+        try {
+            print("platform(4, queue 4)", runLoad(legacy, latencyMs));
+            print("virtual(50 permits)", runLoad(virtual, latencyMs));
+        } finally {
+            legacy.shutdown();
+            virtual.shutdown();
+        }
+    }
+
+    private void print(String name, LoadResult result) {
+        System.out.printf("%-22s completed %3d, rejected %3d, peak %3d, %6d ms, %.1f tasks/s%n", name,
+                result.completed, result.rejected, result.peakConcurrency, result.costMs,
+                result.completed * 1000.0 / result.costMs);
+    }
+
+    /**
+     * 并发提交 SUBMISSIONS 个任务并等待全部结束
+     */
+    private LoadResult runLoad(ChartTaskExecutor executor, long latencyMs) throws InterruptedException {
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger peak = new AtomicInteger();
+        AtomicInteger completed = new AtomicInteger();
+        AtomicInteger rejected = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+        CountDownLatch done = new CountDownLatch(SUBMISSIONS);
+        Runnable task = () -> {
+            peak.accumulateAndGet(running.incrementAndGet(), Math::max);
+            try {
+                Thread.sleep(latencyMs);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                running.decrementAndGet();
+                completed.incrementAndGet();
+                done.countDown();
+            }
+        };
+        // 每个提交方一个线程，模拟并发请求
+        for (int i = 0; i < SUBMISSIONS; i++) {
+            Thread.ofVirtual().start(() -> {
+                try {
+                    start.await();
+                    executor.execute(task);
+                } catch (RejectedExecutionException e) {
+                    rejected.incrementAndGet();
+                    done.countDown();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            });
+        }
+        long begin = System.nanoTime();
+        start.countDown();
+        assertTrue(done.await(10, TimeUnit.MINUTES));
+        LoadResult result = new LoadResult();
+        result.completed = completed.get();
+        result.rejected = rejected.get();
+        result.peakConcurrency = peak.get();
+        result.costMs = Math.max(1, (System.nanoTime() - begin) / 1_000_000);
+        return result;
+    }
+
+    private static class LoadResult {
+        int completed;
+        int rejected;
+        int peakConcurrency;
+        long costMs;
+    }
+}
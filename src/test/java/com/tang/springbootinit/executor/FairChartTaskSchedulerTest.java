@@ -0,0 +1,118 @@
+package com.tang.springbootinit.executor;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 公平调度测试
+ */
+class FairChartTaskSchedulerTest {
+
+    @Test
+    void weightedRoundRobinAcrossUsers() throws Exception {
+        VirtualChartTaskExecutor executor = new VirtualChartTaskExecutor(1, 100);
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        FairChartTaskScheduler scheduler = new FairChartTaskScheduler(executor, 100, meterRegistry);
+        List<String> order = Collections.synchronizedList(new ArrayList<>());
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch done = new CountDownLatch(12);
+        try {
+            // 先占满唯一的执行位，后面的任务都进入子队列
+            scheduler.submit(0L, "user", 1, () -> {
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            });
+            // 重度用户 a 先提交 6 个任务，普通用户 b 2 个，管理员 c（权重 2）4 个
+            submit(scheduler, 1L, "user", 1, "a", 6, order, done);
+            submit(scheduler, 2L, "user", 1, "b", 2, order, done);
+            submit(scheduler, 3L, "admin", 2, "c", 4, order, done);
+            assertEquals(12, scheduler.getQueueSize());
+            release.countDown();
+            assertTrue(done.await(5, TimeUnit.SECONDS));
+        } finally {
+            executor.shutdown();
+        }
+        assertEquals(List.of("a", "b", "c", "c", "a", "b", "c", "c", "a", "a", "a", "a"), order);
+        assertEquals(9, meterRegistry.get("bi.chart.queue.wait").tag("userClass", "user").timer().count());
+        assertEquals(4, meterRegistry.get("bi.chart.queue.wait").tag("userClass", "admin").timer().count());
+    }
+
+    @Test
+    void rejectsWhenQueueFull() {
+        VirtualChartTaskExecutor executor = new VirtualChartTaskExecutor(1, 100);
+        FairChartTaskScheduler scheduler = new FairChartTaskScheduler(executor, 2, new SimpleMeterRegistry());
+        CountDownLatch release = new CountDownLatch(1);
+        Runnable blocking = () -> {
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        };
+        try {
+            // 1 个执行 + 2 个排队
+            for (int i = 0; i < 3; i++) {
+                scheduler.submit((long) i, "user", 1, blocking);
+            }
+            assertThrows(RejectedExecutionException.class, () -> scheduler.submit(9L, "user", 1, blocking));
+            // 消费者持有的消息不检查排队容量
+            scheduler.submitUnbounded(9L, "user", 1, blocking, () -> {
+            });
+            assertEquals(3, scheduler.getQueueSize());
+        } finally {
+            release.countDown();
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    void rejectedTasksAreHandedOff() throws Exception {
+        VirtualChartTaskExecutor executor = new VirtualChartTaskExecutor(1, 100);
+        FairChartTaskScheduler scheduler = new FairChartTaskScheduler(executor, 100, new SimpleMeterRegistry());
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch rejected = new CountDownLatch(3);
+        AtomicInteger executed = new AtomicInteger();
+        scheduler.submit(0L, "user", 1, () -> {
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        for (long userId = 1; userId <= 3; userId++) {
+            scheduler.submit(userId, "user", 1, executed::incrementAndGet, rejected::countDown);
+        }
+        // 排队中的任务在执行器关闭后出队
+        executor.shutdown();
+        release.countDown();
+        assertTrue(rejected.await(5, TimeUnit.SECONDS));
+        assertEquals(0, executed.get());
+        assertEquals(0, scheduler.getQueueSize());
+        assertEquals(0, scheduler.getInFlightCount());
+    }
+
+    private void submit(FairChartTaskScheduler scheduler, long userId, String userClass, int weight, String name,
+                        int count, List<String> order, CountDownLatch done) {
+        for (int i = 0; i < count; i++) {
+            scheduler.submit(userId, userClass, weight, () -> {
+                order.add(name);
+                done.countDown();
+            });
+        }
+    }
+}
@@ -0,0 +1,86 @@
+package com.tang.springbootinit.job.cycle;
+
+import com.tang.springbootinit.config.BiLeaseConfig;
+import com.tang.springbootinit.manager.ChartNotifyManager;
+import com.tang.springbootinit.manager.ChartStatusCacheManager;
+import com.tang.springbootinit.model.entity.Chart;
+import com.tang.springbootinit.model.enums.ChartStatusEnum;
+import com.tang.springbootinit.service.ChartService;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Date;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * 租约回收测试
+ */
+class ChartLeaseReaperTest {
+
+    @Test
+    void expiredLeasesRequeuedOrFailed() {
+        ChartService chartService = mock(ChartService.class);
+        ChartNotifyManager chartNotifyManager = mock(ChartNotifyManager.class);
+        ChartLeaseReaper reaper = newReaper(chartService, chartNotifyManager);
+        Chart retry = chart(1L, 1);
+        Chart exhausted = chart(2L, 3);
+        when(chartService.listExpiredLeases(any(), anyInt())).thenReturn(List.of(retry, exhausted));
+        when(chartService.requeueExpiredLease(eq(retry), any())).thenReturn(true);
+        when(chartService.failExpiredLease(eq(2L), any(), anyString())).thenReturn(true);
+
+        reaper.run();
+
+        verify(chartService).requeueExpiredLease(eq(retry), any());
+        verify(chartService, never()).requeueExpiredLease(eq(exhausted), any());
+        verify(chartNotifyManager).notifyChart(eq(10L), eq(2L), eq(ChartStatusEnum.FAILED), anyString());
+    }
+
+    @Test
+    void staleWaitingChartsRequeued() {
+        ChartService chartService = mock(ChartService.class);
+        ChartLeaseReaper reaper = newReaper(chartService, mock(ChartNotifyManager.class));
+        // 节点宕机前只在内存中排队的等待任务
+        Chart lost = chart(3L, 0);
+        when(chartService.listStaleWaiting(any(), anyInt())).thenReturn(List.of(lost));
+        when(chartService.requeueStaleWaiting(eq(lost), any())).thenReturn(true);
+
+        long start = System.currentTimeMillis();
+        reaper.run();
+
+        ArgumentCaptor<Date> before = ArgumentCaptor.forClass(Date.class);
+        verify(chartService).listStaleWaiting(before.capture(), eq(100));
+        // 只回收等待超过 wait-timeout-seconds 的任务
+        assertTrue(before.getValue().getTime() <= start - 600_000 + 1000);
+        verify(chartService).requeueStaleWaiting(lost, before.getValue());
+        verify(chartService, never()).failExpiredLease(anyLong(), any(), anyString());
+    }
+
+    private static ChartLeaseReaper newReaper(ChartService chartService, ChartNotifyManager chartNotifyManager) {
+        ChartLeaseReaper reaper = new ChartLeaseReaper();
+        ReflectionTestUtils.setField(reaper, "chartService", chartService);
+        ReflectionTestUtils.setField(reaper, "biLeaseConfig", new BiLeaseConfig());
+        ReflectionTestUtils.setField(reaper, "chartNotifyManager", chartNotifyManager);
+        ReflectionTestUtils.setField(reaper, "chartStatusCacheManager", mock(ChartStatusCacheManager.class));
+        return reaper;
+    }
+
+    private static Chart chart(long id, int attemptCount) {
+        Chart chart = new Chart();
+        chart.setId(id);
+        chart.setUserId(10L);
+        chart.setAttemptCount(attemptCount);
+        return chart;
+    }
+}
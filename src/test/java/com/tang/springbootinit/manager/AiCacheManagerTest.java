@@ -0,0 +1,116 @@
+package com.tang.springbootinit.manager;
+
+import com.alibaba.cloud.ai.dashscope.api.DashScopeAgentApi;
+import com.tang.springbootinit.config.AiCacheConfig;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.redisson.api.RBucket;
+import org.redisson.api.RedissonClient;
+import org.redisson.client.codec.Codec;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * AI 响应缓存测试
+ */
+class AiCacheManagerTest {
+
+    @Test
+    void keyNormalization() {
+        AiCacheManager aiCacheManager = new AiCacheManager(new AiCacheConfig(), mock(RedissonClient.class),
+                new SimpleMeterRegistry());
+        String key = aiCacheManager.buildKey("app", "分析需求：\n分析用户增长\n原始数据：\n日期,用户数\n");
+        // 换行符、行首尾空白和空行不影响命中
+        assertEquals(key, aiCacheManager.buildKey("app", "  分析需求：\r\n分析用户增长  \r\n\r\n原始数据：\n\t日期,用户数"));
+        // 行内内容、行顺序和应用 id 仍然区分
+        assertNotEquals(key, aiCacheManager.buildKey("app", "分析需求：\n分析用户 增长\n原始数据：\n日期,用户数\n"));
+        assertNotEquals(key, aiCacheManager.buildKey("app", "分析用户增长\n分析需求：\n原始数据：\n日期,用户数\n"));
+        assertNotEquals(key, aiCacheManager.buildKey("app2", "分析需求：\n分析用户增长\n原始数据：\n日期,用户数\n"));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void remoteHitFillsLocalCache() {
+        RBucket<Object> bucket = mock(RBucket.class);
+        when(bucket.get()).thenReturn("cached", (Object) null);
+        RedissonClient redissonClient = mock(RedissonClient.class);
+        when(redissonClient.getBucket(anyString(), any(Codec.class))).thenReturn(bucket);
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        AiCacheManager aiCacheManager = new AiCacheManager(new AiCacheConfig(), redissonClient, meterRegistry);
+
+        assertEquals("cached", aiCacheManager.get("k1"));
+        // 第二次由本地缓存命中，不再读 Redis
+        assertEquals("cached", aiCacheManager.get("k1"));
+        verify(bucket, times(1)).get();
+        assertNull(aiCacheManager.get("k2"));
+        assertEquals(1, meterRegistry.get("ai.response.l2").tag("result", "hit").counter().count());
+        assertEquals(1, meterRegistry.get("ai.response.l2").tag("result", "miss").counter().count());
+
+        aiCacheManager.put("k3", "value");
+        verify(bucket).set(eq("value"), anyLong(), any());
+        aiCacheManager.evict("k1");
+        verify(bucket).delete();
+        // Redis 不可用时按未命中处理
+        when(bucket.get()).thenThrow(new IllegalStateException("redis down"));
+        assertNull(aiCacheManager.get("k1"));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void regenerateBypassesCacheRead() {
+        AiCacheManager aiCacheManager = mock(AiCacheManager.class);
+        when(aiCacheManager.isEnabled()).thenReturn(true);
+        when(aiCacheManager.buildKey(anyString(), anyString())).thenReturn("key");
+        when(aiCacheManager.get("key")).thenReturn("cached");
+        AiSingleFlightManager aiSingleFlightManager = mock(AiSingleFlightManager.class);
+        // 只执行合并前的远程查询，返回其结果
+        when(aiSingleFlightManager.execute(anyString(), any(), any()))
+                .thenAnswer(invocation -> ((Supplier<String>) invocation.getArgument(1)).get());
+        AiManager aiManager = new AiManager(mock(DashScopeAgentApi.class), aiCacheManager, aiSingleFlightManager,
+                mock(AiQuotaManager.class));
+        ReflectionTestUtils.setField(aiManager, "appId", "app");
+
+        assertNull(aiManager.doChat("分析需求", true));
+        verify(aiCacheManager, never()).get(anyString());
+        // 重新生成不和同一输入的普通请求合并
+        verify(aiSingleFlightManager).execute(eq("key:regenerate"), any(), any());
+
+        assertEquals("cached", aiManager.doChat("分析需求", false));
+        verify(aiSingleFlightManager, times(1)).execute(eq("key"), any(), any());
+    }
+
+    @Test
+    void streamRejectedWithoutPermit() {
+        AiCacheManager aiCacheManager = mock(AiCacheManager.class);
+        when(aiCacheManager.isEnabled()).thenReturn(true);
+        when(aiCacheManager.buildKey(anyString(), anyString())).thenReturn("key");
+        when(aiCacheManager.get("key")).thenReturn("cached");
+        AiQuotaManager aiQuotaManager = mock(AiQuotaManager.class);
+        AiManager aiManager = new AiManager(mock(DashScopeAgentApi.class), aiCacheManager,
+                mock(AiSingleFlightManager.class), aiQuotaManager);
+        ReflectionTestUtils.setField(aiManager, "appId", "app");
+
+        // 命中缓存不占用许可
+        assertEquals("cached", aiManager.doChatStream("分析需求", false).blockFirst());
+        verify(aiQuotaManager, never()).tryAcquire();
+        // 许可用完时直接拒绝，由调用方返回请求过于频繁
+        assertThrows(RejectedExecutionException.class, () -> aiManager.doChatStream("分析需求", true));
+        verify(aiQuotaManager, never()).release();
+    }
+}
@@ -0,0 +1,66 @@
+package com.tang.springbootinit.manager;
+
+import com.tang.springbootinit.config.BiExecutorConfig;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * AI 调用配额测试
+ */
+class AiQuotaManagerTest {
+
+    @Test
+    void callsSharePermits() throws Exception {
+        BiExecutorConfig biExecutorConfig = new BiExecutorConfig();
+        biExecutorConfig.setMaxConcurrency(2);
+        AiQuotaManager aiQuotaManager = new AiQuotaManager(biExecutorConfig, new SimpleMeterRegistry());
+
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger maxRunning = new AtomicInteger();
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(6);
+        try {
+            List<Future<String>> results = new ArrayList<>();
+            for (int i = 0; i < 6; i++) {
+                results.add(executor.submit(() -> aiQuotaManager.call(() -> {
+                    maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+                    try {
+                        release.await();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                    running.decrementAndGet();
+                    return "answer";
+                })));
+            }
+            while (aiQuotaManager.getActiveCount() < 2) {
+                Thread.sleep(5);
+            }
+            // 许可用完时流式调用等入口直接拒绝
+            assertFalse(aiQuotaManager.tryAcquire());
+            release.countDown();
+            for (Future<String> result : results) {
+                assertEquals("answer", result.get(5, TimeUnit.SECONDS));
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        assertEquals(2, maxRunning.get());
+        assertEquals(0, aiQuotaManager.getActiveCount());
+        assertTrue(aiQuotaManager.tryAcquire());
+        aiQuotaManager.release();
+    }
+}
@@ -0,0 +1,90 @@
+package com.tang.springbootinit.manager;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.redisson.api.RLock;
+import org.redisson.api.RedissonClient;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * AI 请求合并测试
+ */
+class AiSingleFlightManagerTest {
+
+    @Test
+    void concurrentSameKeyCallsLoaderOnce() throws Exception {
+        RLock lock = mock(RLock.class);
+        when(lock.tryLock(anyLong(), anyLong(), eq(TimeUnit.SECONDS))).thenReturn(true);
+        when(lock.isHeldByCurrentThread()).thenReturn(true);
+        RedissonClient redissonClient = mock(RedissonClient.class);
+        when(redissonClient.getLock(anyString())).thenReturn(lock);
+        AiSingleFlightManager manager = new AiSingleFlightManager(redissonClient, new SimpleMeterRegistry());
+
+        int threads = 8;
+        AtomicInteger calls = new AtomicInteger();
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<String>> results = new ArrayList<>();
+            for (int i = 0; i < threads; i++) {
+                results.add(executor.submit(() -> manager.execute("k", () -> null, () -> {
+                    calls.incrementAndGet();
+                    try {
+                        release.await();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                    return "answer";
+                })));
+            }
+            // 等待全部请求进入合并后再放行
+            while (calls.get() == 0) {
+                Thread.sleep(5);
+            }
+            Thread.sleep(100);
+            release.countDown();
+            for (Future<String> result : results) {
+                assertEquals("answer", result.get(5, TimeUnit.SECONDS));
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        assertEquals(1, calls.get());
+        assertEquals(0, manager.getInFlightCount());
+    }
+
+    @Test
+    void waitingNodeReusesRemoteResult() throws Exception {
+        RLock lock = mock(RLock.class);
+        // 第一次非阻塞获取失败（其他节点持有），等待后获取成功
+        when(lock.tryLock(eq(0L), anyLong(), eq(TimeUnit.SECONDS))).thenReturn(false);
+        when(lock.tryLock(eq(120L), anyLong(), eq(TimeUnit.SECONDS))).thenReturn(true);
+        when(lock.isHeldByCurrentThread()).thenReturn(true);
+        RedissonClient redissonClient = mock(RedissonClient.class);
+        when(redissonClient.getLock(anyString())).thenReturn(lock);
+        AiSingleFlightManager manager = new AiSingleFlightManager(redissonClient, new SimpleMeterRegistry());
+
+        AtomicInteger calls = new AtomicInteger();
+        String result = manager.execute("k", () -> "remote", () -> {
+            calls.incrementAndGet();
+            return "local";
+        });
+        assertEquals("remote", result);
+        assertEquals(0, calls.get());
+    }
+}
@@ -0,0 +1,95 @@
+package com.tang.springbootinit.manager;
+
+import com.tang.springbootinit.config.BiPromptConfig;
+import com.tang.springbootinit.dataset.ColumnarDataset;
+import com.tang.springbootinit.dataset.ColumnarDatasetBuilder;
+import com.tang.springbootinit.dataset.reduce.DatasetReduction;
+import com.tang.springbootinit.dataset.reduce.LttbReducer;
+import com.tang.springbootinit.dataset.reduce.StratifiedSampleReducer;
+import com.tang.springbootinit.dataset.reduce.TokenEstimator;
+import com.tang.springbootinit.dataset.reduce.TopNReducer;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * BI 输入构造（token 预算）测试
+ */
+class BiPromptManagerTest {
+
+    private static final int TOKEN_BUDGET = 1000;
+
+    @Test
+    void withinBudgetUnchanged() {
+        ColumnarDataset dataset = timeSeries(20);
+        BiPromptManager biPromptManager = newManager("auto");
+
+        DatasetReduction reduction = biPromptManager.reduce(dataset);
+        assertFalse(reduction.isReduced());
+        assertSame(dataset, reduction.getDataset());
+
+        BiPromptManager.BiPrompt biPrompt = biPromptManager.buildUserInput("分析用户增长", "折线图", dataset, null);
+        assertNull(biPrompt.getReductionNote());
+        assertFalse(biPrompt.getUserInput().contains("数据说明"));
+        assertEquals("结论", biPrompt.decorateResult("结论"));
+    }
+
+    @Test
+    void overBudgetReducedToBudget() {
+        ColumnarDataset dataset = timeSeries(10000);
+        assertTrue(TokenEstimator.estimate(dataset.toCsv()) > TOKEN_BUDGET * 10);
+        BiPromptManager biPromptManager = newManager("auto");
+
+        DatasetReduction reduction = biPromptManager.reduce(dataset);
+        assertEquals("lttb", reduction.getStrategy());
+        assertEquals(10000, reduction.getOriginalRowCount());
+        // 按抽样行估算单行 token 数，允许少量误差
+        int tokens = TokenEstimator.estimate(reduction.getDataset().toCsv());
+        assertTrue(tokens <= TOKEN_BUDGET * 1.05, "tokens " + tokens);
+        assertTrue(tokens >= TOKEN_BUDGET * 0.8, "tokens " + tokens);
+
+        BiPromptManager.BiPrompt biPrompt = biPromptManager.buildUserInput("分析用户增长", null, dataset, null);
+        assertTrue(biPrompt.getUserInput().contains("数据说明：" + reduction.getNote()));
+        assertTrue(biPrompt.decorateResult("结论").endsWith("注：" + reduction.getNote() + "。"));
+    }
+
+    @Test
+    void configuredStrategy() {
+        ColumnarDataset dataset = timeSeries(10000);
+        assertFalse(newManager("none").reduce(dataset).isReduced());
+        assertEquals("stratified", newManager("stratified").reduce(dataset).getStrategy());
+        assertEquals("topn", newManager("topn").reduce(dataset).getStrategy());
+        // 指定的策略不适用（没有分类列）时按自动模式选择
+        StringBuilder csv = new StringBuilder("序号,用户数\n");
+        for (int i = 0; i < 10000; i++) {
+            csv.append(i).append(',').append(1000 + i % 97).append('\n');
+        }
+        assertEquals("lttb", newManager("topn").reduce(ColumnarDatasetBuilder.fromCsv(csv.toString())).getStrategy());
+    }
+
+    private BiPromptManager newManager(String strategy) {
+        BiPromptConfig biPromptConfig = new BiPromptConfig();
+        biPromptConfig.setTokenBudget(TOKEN_BUDGET);
+        biPromptConfig.setStrategy(strategy);
+        BiPromptManager biPromptManager = new BiPromptManager();
+        ReflectionTestUtils.setField(biPromptManager, "biPromptConfig", biPromptConfig);
+        ReflectionTestUtils.setField(biPromptManager, "datasetReducerList",
+                List.of(new LttbReducer(), new TopNReducer(), new StratifiedSampleReducer()));
+        return biPromptManager;
+    }
+
+    private static ColumnarDataset timeSeries(int rows) {
+        StringBuilder csv = new StringBuilder("日期,用户数\n");
+        for (int i = 0; i < rows; i++) {
+            csv.append(String.format("d%05d", i)).append(',').append(1000 + i % 97).append('\n');
+        }
+        return ColumnarDatasetBuilder.fromCsv(csv.toString());
+    }
+}
@@ -0,0 +1,82 @@
+package com.tang.springbootinit.manager;
+
+import com.baomidou.mybatisplus.core.conditions.Wrapper;
+import com.tang.springbootinit.mapper.ChartMapper;
+import com.tang.springbootinit.model.entity.Chart;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * 图表去重测试
+ */
+class ChartDedupManagerTest {
+
+    @Test
+    void requestHashIgnoresUserAndWhitespace() {
+        ChartDedupManager chartDedupManager = new ChartDedupManager(mock(ChartMapper.class), new SimpleMeterRegistry());
+        // 指纹只由数据集、目标和图表类型决定，不同用户的相同请求得到相同指纹
+        String requestHash = chartDedupManager.requestHash("d1", "分析用户增长", "折线图");
+        assertEquals(64, requestHash.length());
+        assertEquals(requestHash, chartDedupManager.requestHash("d1", " 分析用户增长\n", "折线图 "));
+        assertNotEquals(requestHash, chartDedupManager.requestHash("d2", "分析用户增长", "折线图"));
+        assertNotEquals(requestHash, chartDedupManager.requestHash("d1", "分析用户留存", "折线图"));
+        assertNotEquals(requestHash, chartDedupManager.requestHash("d1", "分析用户增长", "柱状图"));
+        // 字段之间有分隔符，拼接后相同的不同字段不会冲突
+        assertNotEquals(chartDedupManager.requestHash("d1", "ab", "c"), chartDedupManager.requestHash("d1", "a", "bc"));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void reusableChartLookupAcrossUsers() {
+        ChartMapper chartMapper = mock(ChartMapper.class);
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        ChartDedupManager chartDedupManager = new ChartDedupManager(chartMapper, meterRegistry);
+        Chart otherUsersChart = new Chart();
+        otherUsersChart.setId(1L);
+        otherUsersChart.setGenChart("{}");
+        otherUsersChart.setGenResult("结论");
+        when(chartMapper.selectOne(any())).thenReturn(otherUsersChart, (Chart) null);
+
+        assertSame(otherUsersChart, chartDedupManager.findReusableChart("h1"));
+        assertNull(chartDedupManager.findReusableChart("h2"));
+
+        ArgumentCaptor<Wrapper<Chart>> captor = ArgumentCaptor.forClass(Wrapper.class);
+        verify(chartMapper, times(2)).selectOne(captor.capture());
+        String sqlSegment = captor.getValue().getSqlSegment();
+        // 只按请求指纹查找已成功生成的结果，不限定用户
+        assertTrue(sqlSegment.contains("requestHash"), sqlSegment);
+        assertTrue(sqlSegment.contains("genChart IS NOT NULL"), sqlSegment);
+        assertFalse(sqlSegment.contains("userId"), sqlSegment);
+        assertEquals(1, meterRegistry.get("bi.chart.reuse").tag("result", "hit").counter().count());
+        assertEquals(1, meterRegistry.get("bi.chart.reuse").tag("result", "miss").counter().count());
+    }
+
+    @Test
+    void datasetOwnerLookup() {
+        ChartMapper chartMapper = mock(ChartMapper.class);
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        ChartDedupManager chartDedupManager = new ChartDedupManager(chartMapper, meterRegistry);
+        Chart owner = new Chart();
+        owner.setDatasetTable("chart_1");
+        when(chartMapper.selectDatasetOwner("d1")).thenReturn(owner);
+
+        assertSame(owner, chartDedupManager.findDatasetOwner("d1"));
+        assertNull(chartDedupManager.findDatasetOwner("d2"));
+        assertNull(chartDedupManager.findDatasetOwner(null));
+        assertEquals(1, meterRegistry.get("bi.dataset.reuse").tag("result", "hit").counter().count());
+        assertEquals(2, meterRegistry.get("bi.dataset.reuse").tag("result", "miss").counter().count());
+    }
+}
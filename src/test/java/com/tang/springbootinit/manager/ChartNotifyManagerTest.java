@@ -0,0 +1,97 @@
+package com.tang.springbootinit.manager;
+
+import com.tang.springbootinit.constant.ChartConstant;
+import com.tang.springbootinit.model.enums.ChartStatusEnum;
+import org.junit.jupiter.api.Test;
+import org.redisson.api.RTopic;
+import org.redisson.api.RedissonClient;
+import org.redisson.api.listener.MessageListener;
+import org.redisson.client.codec.Codec;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * 图表任务完成通知测试
+ */
+class ChartNotifyManagerTest {
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void dispatchOnlyToUsersEmitters() throws Exception {
+        ChartStatusCacheManager chartStatusCacheManager = mock(ChartStatusCacheManager.class);
+        TestChartNotifyManager chartNotifyManager = newManager(chartStatusCacheManager);
+        SseEmitter first = chartNotifyManager.subscribe(1L);
+        SseEmitter second = chartNotifyManager.subscribe(1L);
+        SseEmitter other = chartNotifyManager.subscribe(2L);
+
+        chartNotifyManager.notifyChart(1L, 10L, ChartStatusEnum.FAILED, "超时");
+
+        verify(chartStatusCacheManager).put(1L, 10L, ChartStatusEnum.FAILED, "超时");
+        verify(first).send(any(SseEmitter.SseEventBuilder.class));
+        verify(second).send(any(SseEmitter.SseEventBuilder.class));
+        verify(other, never()).send(any(SseEmitter.SseEventBuilder.class));
+
+        // 没有连接的用户和未登录的任务不推送
+        chartNotifyManager.notifyChart(3L, 11L, ChartStatusEnum.SUCCEED, null);
+        chartNotifyManager.notifyChart(null, 12L, ChartStatusEnum.SUCCEED, null);
+        verify(other, never()).send(any(SseEmitter.SseEventBuilder.class));
+        verify(first, times(1)).send(any(SseEmitter.SseEventBuilder.class));
+    }
+
+    @Test
+    void closesOldestConnectionOverLimit() {
+        TestChartNotifyManager chartNotifyManager = newManager(mock(ChartStatusCacheManager.class));
+        List<SseEmitter> emitters = new ArrayList<>();
+        for (int i = 0; i <= ChartConstant.CHART_NOTIFY_MAX_CONNECTIONS_PER_USER; i++) {
+            emitters.add(chartNotifyManager.subscribe(1L));
+        }
+        verify(emitters.get(0)).complete();
+        verify(emitters.get(1), never()).complete();
+    }
+
+    @SuppressWarnings("unchecked")
+    private TestChartNotifyManager newManager(ChartStatusCacheManager chartStatusCacheManager) {
+        // 发布的消息直接交给本节点的监听器
+        AtomicReference<MessageListener<String>> listener = new AtomicReference<>();
+        RTopic topic = mock(RTopic.class);
+        when(topic.addListener(eq(String.class), any(MessageListener.class))).thenAnswer(invocation -> {
+            listener.set(invocation.getArgument(1));
+            return 1;
+        });
+        when(topic.publish(anyString())).thenAnswer(invocation -> {
+            listener.get().onMessage("bi:chart:notify", invocation.getArgument(0));
+            return 1L;
+        });
+        RedissonClient redissonClient = mock(RedissonClient.class);
+        when(redissonClient.getTopic(anyString(), any(Codec.class))).thenReturn(topic);
+        TestChartNotifyManager chartNotifyManager = new TestChartNotifyManager();
+        ReflectionTestUtils.setField(chartNotifyManager, "redissonClient", redissonClient);
+        ReflectionTestUtils.setField(chartNotifyManager, "chartStatusCacheManager", chartStatusCacheManager);
+        chartNotifyManager.init();
+        return chartNotifyManager;
+    }
+
+    /**
+     * 以 mock 代替真实的 SSE 连接
+     */
+    private static class TestChartNotifyManager extends ChartNotifyManager {
+
+        @Override
+        SseEmitter createEmitter() {
+            return mock(SseEmitter.class);
+        }
+    }
+}
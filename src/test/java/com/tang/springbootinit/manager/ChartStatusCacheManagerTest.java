@@ -0,0 +1,89 @@
+package com.tang.springbootinit.manager;
+
+import com.google.gson.Gson;
+import com.tang.springbootinit.model.enums.ChartStatusEnum;
+import com.tang.springbootinit.model.vo.ChartStatusVO;
+import com.tang.springbootinit.service.ChartService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.redisson.api.RBatch;
+import org.redisson.api.RMap;
+import org.redisson.api.RMapAsync;
+import org.redisson.api.RedissonClient;
+import org.redisson.client.codec.Codec;
+
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * 图表任务状态缓存测试
+ */
+class ChartStatusCacheManagerTest {
+
+    private static final Gson GSON = new Gson();
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void cacheMissFallsBackToDatabase() {
+        RMap<Object, Object> cache = mock(RMap.class);
+        when(cache.getAll(any())).thenReturn(Map.of("3", GSON.toJson(status(3L, ChartStatusEnum.RUNNING))));
+        RMapAsync<Object, Object> batchCache = mock(RMapAsync.class);
+        RBatch batch = mock(RBatch.class);
+        when(batch.getMap(anyString(), any(Codec.class))).thenReturn(batchCache);
+        RedissonClient redissonClient = mock(RedissonClient.class);
+        when(redissonClient.getMap(anyString(), any(Codec.class))).thenReturn(cache);
+        when(redissonClient.createBatch()).thenReturn(batch);
+        ChartService chartService = mock(ChartService.class);
+        when(chartService.listChartStatus(1L, List.of(5L, 4L, 6L)))
+                .thenReturn(List.of(status(4L, ChartStatusEnum.SUCCEED), status(5L, ChartStatusEnum.WAIT)));
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        ChartStatusCacheManager chartStatusCacheManager = new ChartStatusCacheManager(redissonClient, chartService,
+                meterRegistry);
+
+        // 重复的 id 只返回一次，不存在的 6 不返回
+        List<ChartStatusVO> statuses = chartStatusCacheManager.getStatuses(1L, List.of(5L, 3L, 4L, 5L, 6L));
+        assertEquals(List.of(5L, 3L, 4L), statuses.stream().map(ChartStatusVO::getId).collect(Collectors.toList()));
+        assertEquals(ChartStatusEnum.RUNNING.getValue(), statuses.get(1).getStatus());
+        assertEquals(1, meterRegistry.get("bi.chart.status.cache").tag("result", "hit").counter().count());
+        assertEquals(3, meterRegistry.get("bi.chart.status.cache").tag("result", "miss").counter().count());
+        // 只回填已结束的任务
+        verify(batchCache).fastPutIfAbsentAsync(eq("4"), anyString());
+        verify(batchCache, never()).fastPutIfAbsentAsync(eq("5"), any());
+        verify(batch).execute();
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void redisFailureReadsDatabase() {
+        RMap<Object, Object> cache = mock(RMap.class);
+        when(cache.getAll(any())).thenThrow(new IllegalStateException("redis down"));
+        RedissonClient redissonClient = mock(RedissonClient.class);
+        when(redissonClient.getMap(anyString(), any(Codec.class))).thenReturn(cache);
+        when(redissonClient.createBatch()).thenReturn(mock(RBatch.class));
+        ChartService chartService = mock(ChartService.class);
+        when(chartService.listChartStatus(1L, List.of(2L, 1L)))
+                .thenReturn(List.of(status(1L, ChartStatusEnum.RUNNING), status(2L, ChartStatusEnum.FAILED)));
+        ChartStatusCacheManager chartStatusCacheManager = new ChartStatusCacheManager(redissonClient, chartService,
+                new SimpleMeterRegistry());
+
+        List<ChartStatusVO> statuses = chartStatusCacheManager.getStatuses(1L, List.of(2L, 1L));
+        assertEquals(List.of(2L, 1L), statuses.stream().map(ChartStatusVO::getId).collect(Collectors.toList()));
+    }
+
+    private static ChartStatusVO status(long chartId, ChartStatusEnum status) {
+        ChartStatusVO chartStatusVO = new ChartStatusVO();
+        chartStatusVO.setId(chartId);
+        chartStatusVO.setStatus(status.getValue());
+        return chartStatusVO;
+    }
+}
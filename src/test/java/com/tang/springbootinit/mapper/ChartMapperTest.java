@@ -5,6 +5,7 @@ import org.springframework.boot.test.context.SpringBootTest;
 
 import jakarta.annotation.Resource;
 
+import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
 
@@ -19,8 +20,8 @@ class ChartMapperTest {
 //    @Test
 //    void queryChartData() {
 //        String chartId = "1659210482555121666";
-//        String querySql = String.format("select * from chart_%s", chartId);
-//        List<Map<String, Object>> resultData = chartMapper.queryChartData(querySql);
+//        String tableName = String.format("chart_%s", chartId);
+//        List<Map<String, Object>> resultData = chartMapper.queryChartData(tableName, Arrays.asList("c0", "c1"), 0, 10);
 //        System.out.println(resultData);
 //    }
 }
\ No newline at end of file
@@ -0,0 +1,186 @@
+package com.tang.springbootinit.mapper;
+
+import com.baomidou.mybatisplus.core.conditions.Wrapper;
+import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
+import com.baomidou.mybatisplus.core.toolkit.Constants;
+import com.tang.springbootinit.common.PageRequest;
+import com.tang.springbootinit.constant.ChartConstant;
+import com.tang.springbootinit.constant.CommonConstant;
+import com.tang.springbootinit.constant.PostConstant;
+import com.tang.springbootinit.model.dto.chart.ChartQueryRequest;
+import com.tang.springbootinit.model.dto.post.PostQueryRequest;
+import com.tang.springbootinit.model.entity.Chart;
+import com.tang.springbootinit.model.entity.Post;
+import com.tang.springbootinit.service.ChartService;
+import com.tang.springbootinit.service.PostService;
+import com.tang.springbootinit.utils.CursorUtils;
+import org.apache.ibatis.binding.MapperMethod;
+import org.apache.ibatis.mapping.BoundSql;
+import org.apache.ibatis.mapping.MappedStatement;
+import org.apache.ibatis.scripting.defaults.DefaultParameterHandler;
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import jakarta.annotation.Resource;
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+/**
+ * 执行计划回归测试：对列表查询实际生成的 SQL 执行 EXPLAIN，出现全表扫描（type = ALL）时失败
+ * <p>
+ * 表数据过少时 MySQL 可能直接选择全表扫描，需在有一定数据量的库上运行（可先运行 ChartSummaryBenchmarkTest 写入数据）
+ * <p>
+ * 运行：mvn test -Dtest=QueryPlanTest -Dexplain=true
+ */
+@SpringBootTest
+@EnabledIfSystemProperty(named = "explain", matches = "true")
+class QueryPlanTest {
+
+    private static final String CHART_SELECT_LIST = "com.tang.springbootinit.mapper.ChartMapper.selectList";
+
+    private static final String POST_SELECT_LIST = "com.tang.springbootinit.mapper.PostMapper.selectList";
+
+    private static final String FAVOUR_POST_LIST = "com.tang.springbootinit.mapper.PostFavourMapper.listFavourPostByPage";
+
+    /**
+     * 与分页插件追加的 LIMIT 一致
+     */
+    private static final String PAGE_LIMIT = " LIMIT 20";
+
+    @Resource
+    private SqlSessionFactory sqlSessionFactory;
+
+    @Resource
+    private DataSource dataSource;
+
+    @Resource
+    private ChartService chartService;
+
+    @Resource
+    private PostService postService;
+
+    @Test
+    void myChartList() throws Exception {
+        ChartQueryRequest chartQueryRequest = sortByCreateTime(new ChartQueryRequest());
+        chartQueryRequest.setUserId(1L);
+        assertNoFullScan(CHART_SELECT_LIST, wrapperParam(chartService.getQueryWrapper(chartQueryRequest)));
+    }
+
+    @Test
+    void chartList() throws Exception {
+        ChartQueryRequest chartQueryRequest = sortByCreateTime(new ChartQueryRequest());
+        assertNoFullScan(CHART_SELECT_LIST, wrapperParam(chartService.getQueryWrapper(chartQueryRequest)));
+    }
+
+    @Test
+    void myChartListByCursor() throws Exception {
+        ChartQueryRequest chartQueryRequest = sortByCreateTime(new ChartQueryRequest());
+        chartQueryRequest.setUserId(1L);
+        chartQueryRequest.setCursor(nextCursor(chartQueryRequest));
+        CursorUtils.Seek seek = CursorUtils.parse(chartQueryRequest, ChartConstant.CHART_CURSOR_SORT_FIELDS);
+        QueryWrapper<Chart> queryWrapper = chartService.getQueryWrapper(chartQueryRequest);
+        seek.apply(queryWrapper);
+        assertNoFullScan(CHART_SELECT_LIST, wrapperParam(queryWrapper));
+    }
+
+    @Test
+    void myPostList() throws Exception {
+        PostQueryRequest postQueryRequest = sortByCreateTime(new PostQueryRequest());
+        postQueryRequest.setUserId(1L);
+        assertNoFullScan(POST_SELECT_LIST, wrapperParam(postService.getQueryWrapper(postQueryRequest)));
+    }
+
+    @Test
+    void postList() throws Exception {
+        PostQueryRequest postQueryRequest = sortByCreateTime(new PostQueryRequest());
+        assertNoFullScan(POST_SELECT_LIST, wrapperParam(postService.getQueryWrapper(postQueryRequest)));
+    }
+
+    @Test
+    void myPostListByCursor() throws Exception {
+        PostQueryRequest postQueryRequest = sortByCreateTime(new PostQueryRequest());
+        postQueryRequest.setUserId(1L);
+        postQueryRequest.setCursor(nextCursor(postQueryRequest));
+        CursorUtils.Seek seek = CursorUtils.parse(postQueryRequest, PostConstant.POST_CURSOR_SORT_FIELDS);
+        QueryWrapper<Post> queryWrapper = postService.getQueryWrapper(postQueryRequest);
+        seek.apply(queryWrapper);
+        assertNoFullScan(POST_SELECT_LIST, wrapperParam(queryWrapper));
+    }
+
+    @Test
+    void myFavourPostList() throws Exception {
+        PostQueryRequest postQueryRequest = sortByCreateTime(new PostQueryRequest());
+        MapperMethod.ParamMap<Object> param = wrapperParam(postService.getQueryWrapper(postQueryRequest));
+        param.put("favourUserId", 1L);
+        assertNoFullScan(FAVOUR_POST_LIST, param);
+    }
+
+    /**
+     * EXPLAIN 语句生成的 SQL，检查每张表的访问方式
+     */
+    private void assertNoFullScan(String statementId, Object param) throws Exception {
+        MappedStatement mappedStatement = sqlSessionFactory.getConfiguration().getMappedStatement(statementId);
+        BoundSql boundSql = mappedStatement.getBoundSql(param);
+        String sql = boundSql.getSql() + PAGE_LIMIT;
+        List<String> plan = new ArrayList<>();
+        boolean fullScan = false;
+        try (Connection connection = dataSource.getConnection();
+             PreparedStatement preparedStatement = connection.prepareStatement("EXPLAIN " + sql)) {
+            new DefaultParameterHandler(mappedStatement, param, boundSql).setParameters(preparedStatement);
+            try (ResultSet resultSet = preparedStatement.executeQuery()) {
+                while (resultSet.next()) {
+                    String type = resultSet.getString("type");
+                    plan.add(String.format("table=%s type=%s key=%s rows=%s extra=%s", resultSet.getString("table"),
+                            type, resultSet.getString("key"), resultSet.getString("rows"),
+                            resultSet.getString("Extra")));
+                    fullScan |= "ALL".equals(type);
+                }
+            }
+        }
+        System.out.println(sql);
+        plan.forEach(System.out::println);
+        assertFalse(fullScan, "full table scan: " + sql + "\n" + String.join("\n", plan));
+    }
+
+    /**
+     * 与 BaseMapper#selectList(Wrapper) 调用时的参数一致
+     */
+    private MapperMethod.ParamMap<Object> wrapperParam(Wrapper<?> queryWrapper) {
+        MapperMethod.ParamMap<Object> param = new MapperMethod.ParamMap<>();
+        param.put(Constants.WRAPPER, queryWrapper);
+        param.put("param1", queryWrapper);
+        return param;
+    }
+
+    private <T extends PageRequest> T sortByCreateTime(T pageRequest) {
+        pageRequest.setSortField("createTime");
+        pageRequest.setSortOrder(CommonConstant.SORT_ORDER_DESC);
+        pageRequest.setPageSize(20);
+        return pageRequest;
+    }
+
+    /**
+     * 构造一个非第一页的游标：页大小 1 的第一页查到 2 条时，以第 1 条生成下一页游标
+     */
+    private String nextCursor(PageRequest pageRequest) {
+        Chart last = new Chart();
+        last.setId(Long.MAX_VALUE);
+        last.setCreateTime(new Date());
+        PageRequest firstPage = new PageRequest();
+        firstPage.setSortField(pageRequest.getSortField());
+        firstPage.setSortOrder(pageRequest.getSortOrder());
+        firstPage.setPageSize(1);
+        return CursorUtils.parse(firstPage, List.of(pageRequest.getSortField()))
+                .toCursorPage(List.of(last, last))
+                .getNextCursor();
+    }
+}
@@ -0,0 +1,35 @@
+package com.tang.springbootinit.model.enums;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 图表状态变更测试
+ */
+class ChartStatusEnumTest {
+
+    @Test
+    void legalTransitions() {
+        assertTrue(ChartStatusEnum.WAIT.canTransitTo(ChartStatusEnum.RUNNING));
+        assertTrue(ChartStatusEnum.RUNNING.canTransitTo(ChartStatusEnum.SUCCEED));
+        assertTrue(ChartStatusEnum.RUNNING.canTransitTo(ChartStatusEnum.WAIT));
+        assertFalse(ChartStatusEnum.WAIT.canTransitTo(ChartStatusEnum.SUCCEED));
+        assertFalse(ChartStatusEnum.RUNNING.canTransitTo(ChartStatusEnum.RUNNING));
+        for (ChartStatusEnum status : ChartStatusEnum.values()) {
+            assertFalse(ChartStatusEnum.SUCCEED.canTransitTo(status));
+            assertFalse(ChartStatusEnum.FAILED.canTransitTo(status));
+        }
+    }
+
+    @Test
+    void previousStatusesOfFailed() {
+        assertEquals(List.of(ChartStatusEnum.WAIT, ChartStatusEnum.RUNNING),
+                ChartStatusEnum.getPreviousStatuses(ChartStatusEnum.FAILED));
+        assertEquals(ChartStatusEnum.RUNNING, ChartStatusEnum.getEnumByValue("running"));
+    }
+}
@@ -0,0 +1,130 @@
+package com.tang.springbootinit.service;
+
+import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
+import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.tang.springbootinit.model.entity.Chart;
+import com.tang.springbootinit.model.enums.ChartStatusEnum;
+import com.tang.springbootinit.model.vo.ChartSummaryVO;
+import org.apache.commons.lang3.StringUtils;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import jakarta.annotation.Resource;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * 图表列表基准测试：整行 Page&lt;Chart&gt; vs 摘要 Page&lt;ChartSummaryVO&gt;，对比单页查询 + 序列化耗时和响应体大小
+ * <p>
+ * 需要可用的 MySQL，首次运行时在 userId = bench.userId 下写入 bench.rows 个图表（之后复用）
+ * <p>
+ * 运行：mvn test -Dtest=ChartSummaryBenchmarkTest -Dbench=true [-Dbench.rows=100000] [-Dbench.textBytes=20000]
+ */
+@SpringBootTest
+@EnabledIfSystemProperty(named = "bench", matches = "true")
+class ChartSummaryBenchmarkTest {
+
+    private static final int ROWS = Integer.getInteger("bench.rows", 100_000);
+
+    /**
+     * chartData 的大小，genChart、genResult 分别取一半
+     */
+    private static final int TEXT_BYTES = Integer.getInteger("bench.textBytes", 20_000);
+
+    private static final long USER_ID = Long.getLong("bench.userId", -1L);
+
+    private static final int PAGE_SIZE = 20;
+
+    private static final int ROUNDS = 200;
+
+    @Resource
+    private ChartService chartService;
+
+    @Resource
+    private ObjectMapper objectMapper;
+
+    @Test
+    void compareFullRowAndSummary() throws Exception {
+        seed();
+        long pages = ROWS / PAGE_SIZE;
+        // 预热
+        fullRowPage(1);
+        summaryPage(1);
+
+        long[] fullRow = new long[2];
+        long[] summary = new long[2];
+        for (int i = 0; i < ROUNDS; i++) {
+            long current = ThreadLocalRandom.current().nextLong(1, pages + 1);
+            accumulate(fullRow, () -> fullRowPage(current));
+            accumulate(summary, () -> summaryPage(current));
+        }
+        System.out.printf("table: %d charts, chartData %d bytes, page size %d, %d rounds%n", ROWS, TEXT_BYTES,
+                PAGE_SIZE, ROUNDS);
+        System.out.printf("Page<Chart>          : %7.2f ms, %9d bytes/page%n", fullRow[0] / 1e6 / ROUNDS,
+                fullRow[1] / ROUNDS);
+        System.out.printf("Page<ChartSummaryVO> : %7.2f ms, %9d bytes/page%n", summary[0] / 1e6 / ROUNDS,
+                summary[1] / ROUNDS);
+
+        Page<ChartSummaryVO> summaryPage = chartService.pageChartSummary(new Page<>(1, PAGE_SIZE), benchQueryWrapper());
+        assertEquals(PAGE_SIZE, summaryPage.getRecords().size());
+    }
+
+    /**
+     * @param result [累计耗时 ns, 累计响应字节数]
+     */
+    private void accumulate(long[] result, ThrowingSupplier supplier) throws Exception {
+        long start = System.nanoTime();
+        byte[] body = supplier.get();
+        result[0] += System.nanoTime() - start;
+        result[1] += body.length;
+    }
+
+    private byte[] fullRowPage(long current) throws Exception {
+        return objectMapper.writeValueAsBytes(chartService.page(new Page<>(current, PAGE_SIZE), benchQueryWrapper()));
+    }
+
+    private byte[] summaryPage(long current) throws Exception {
+        return objectMapper.writeValueAsBytes(chartService.pageChartSummary(new Page<>(current, PAGE_SIZE),
+                benchQueryWrapper()));
+    }
+
+    private QueryWrapper<Chart> benchQueryWrapper() {
+        QueryWrapper<Chart> queryWrapper = new QueryWrapper<>();
+        queryWrapper.eq("userId", USER_ID).orderByDesc("createTime");
+        return queryWrapper;
+    }
+
+    private void seed() {
+        long existing = chartService.count(new QueryWrapper<Chart>().eq("userId", USER_ID));
+        String chartData = StringUtils.repeat("2023-01-01,100\n", TEXT_BYTES / 15);
+        String genChart = StringUtils.repeat("x", TEXT_BYTES / 2);
+        String genResult = StringUtils.repeat("结", TEXT_BYTES / 6);
+        final int batchSize = 1000;
+        for (long i = existing; i < ROWS; i += batchSize) {
+            List<Chart> batch = new ArrayList<>(batchSize);
+            for (long j = i; j < Math.min(i + batchSize, ROWS); j++) {
+                Chart chart = new Chart();
+                chart.setName("bench-" + j);
+                chart.setGoal("分析网站用户增长情况");
+                chart.setChartType("折线图");
+                chart.setChartData(chartData);
+                chart.setGenChart(genChart);
+                chart.setGenResult(genResult);
+                chart.setStatus(ChartStatusEnum.SUCCEED.getValue());
+                chart.setUserId(USER_ID);
+                batch.add(chart);
+            }
+            chartService.saveBatch(batch);
+        }
+    }
+
+    @FunctionalInterface
+    private interface ThrowingSupplier {
+        byte[] get() throws Exception;
+    }
+}
@@ -0,0 +1,131 @@
+package com.tang.springbootinit.service.impl;
+
+import com.tang.springbootinit.dataset.ColumnarDataset;
+import com.tang.springbootinit.dataset.ColumnarDatasetBuilder;
+import com.tang.springbootinit.mapper.ChartMapper;
+import com.tang.springbootinit.model.entity.Chart;
+import com.tang.springbootinit.service.ChartService;
+import org.apache.commons.lang3.StringUtils;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * 图表数据表服务测试
+ */
+class ChartDatasetServiceImplTest {
+
+    private static final Pattern VARCHAR_PATTERN = Pattern.compile("varchar\\((\\d+)\\)");
+
+    @Test
+    void narrowColumnsKeepVarchar() {
+        List<String> sqlTypes = ChartDatasetServiceImpl.sqlTypes(ColumnarDatasetBuilder.fromCsv("日期,用户数,比例\n2023-01-01,10,0.5\n"));
+
+        assertEquals(List.of("varchar(10)", "bigint", "double"), sqlTypes);
+    }
+
+    @Test
+    void wideColumnsFitRowLimit() {
+        int columnCount = 40;
+        StringBuilder csv = new StringBuilder();
+        for (int i = 0; i < columnCount; i++) {
+            csv.append(i == 0 ? "" : ",").append("c").append(i);
+        }
+        csv.append(",n\n");
+        for (int i = 0; i < columnCount; i++) {
+            csv.append(i == 0 ? "" : ",").append(StringUtils.repeat((char) ('a' + i % 26), 700));
+        }
+        csv.append(",1\n");
+        ColumnarDataset dataset = ColumnarDatasetBuilder.fromCsv(csv.toString());
+
+        List<String> sqlTypes = ChartDatasetServiceImpl.sqlTypes(dataset);
+        int rowBytes = 0;
+        int textCount = 0;
+        for (String sqlType : sqlTypes) {
+            Matcher matcher = VARCHAR_PATTERN.matcher(sqlType);
+            if (matcher.matches()) {
+                rowBytes += ChartDatasetServiceImpl.varcharRowBytes(Integer.parseInt(matcher.group(1)));
+            } else if ("text".equals(sqlType)) {
+                textCount++;
+            }
+        }
+        assertTrue(rowBytes < ChartDatasetServiceImpl.MAX_ROW_BYTES, "row bytes " + rowBytes);
+        assertTrue(textCount > 0);
+        // 只把必要的列改为 text
+        assertTrue(textCount < columnCount);
+        assertEquals("bigint", sqlTypes.get(columnCount));
+    }
+
+    @Test
+    void dropUnusedDatasetTable() {
+        ChartMapper chartMapper = mock(ChartMapper.class);
+        ChartDatasetServiceImpl chartDatasetService = newService(chartMapper);
+        when(chartMapper.countDatasetReferences("chart_1")).thenReturn(0L);
+
+        chartDatasetService.dropDatasetIfUnused("chart_1");
+
+        verify(chartMapper).clearDeletedDatasetTable("chart_1");
+        verify(chartMapper).dropDatasetTable("chart_1");
+    }
+
+    @Test
+    void keepSharedDatasetTable() {
+        ChartMapper chartMapper = mock(ChartMapper.class);
+        ChartDatasetServiceImpl chartDatasetService = newService(chartMapper);
+        when(chartMapper.countDatasetReferences("chart_1")).thenReturn(1L);
+        // 清除表名后出现并发复用
+        when(chartMapper.countDatasetReferences("chart_2")).thenReturn(0L, 1L);
+
+        chartDatasetService.dropDatasetIfUnused("chart_1");
+        chartDatasetService.dropDatasetIfUnused("chart_2");
+        chartDatasetService.dropDatasetIfUnused(null);
+
+        verify(chartMapper, never()).clearDeletedDatasetTable("chart_1");
+        verify(chartMapper, never()).dropDatasetTable("chart_1");
+        verify(chartMapper, never()).dropDatasetTable("chart_2");
+    }
+
+    @Test
+    void resaveDroppedSharedDatasetTable() {
+        ChartMapper chartMapper = mock(ChartMapper.class);
+        ChartDatasetServiceImpl chartDatasetService = newService(chartMapper);
+        ChartService chartService = mock(ChartService.class);
+        ReflectionTestUtils.setField(chartDatasetService, "chartService", chartService);
+        ReflectionTestUtils.setField(chartDatasetService, "transactionTemplate", mock(TransactionTemplate.class));
+        ColumnarDataset dataset = ColumnarDatasetBuilder.fromCsv("日期,用户数\n1号,10\n");
+        Chart shared = new Chart();
+        shared.setId(2L);
+        shared.setDatasetTable("chart_1");
+        when(chartMapper.countDatasetHolders("chart_1", 2L)).thenReturn(1L);
+
+        chartDatasetService.ensureDatasetTable(shared, dataset);
+        assertEquals("chart_1", shared.getDatasetTable());
+
+        // 复用的是已删除图表的数据表，保存前表名已被清除（表已删除或即将删除）
+        when(chartMapper.countDatasetHolders("chart_1", 2L)).thenReturn(0L);
+        chartDatasetService.ensureDatasetTable(shared, dataset);
+
+        verify(chartMapper).createDatasetTable(eq("chart_2"), any());
+        verify(chartService).update(any());
+        assertEquals("chart_2", shared.getDatasetTable());
+    }
+
+    private ChartDatasetServiceImpl newService(ChartMapper chartMapper) {
+        ChartDatasetServiceImpl chartDatasetService = new ChartDatasetServiceImpl();
+        ReflectionTestUtils.setField(chartDatasetService, "chartMapper", chartMapper);
+        return chartDatasetService;
+    }
+}
@@ -0,0 +1,93 @@
+package com.tang.springbootinit.service.impl;
+
+import com.baomidou.mybatisplus.core.conditions.Wrapper;
+import com.baomidou.mybatisplus.core.conditions.update.UpdateWrapper;
+import com.tang.springbootinit.mapper.ChartMapper;
+import com.tang.springbootinit.model.entity.Chart;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Collection;
+import java.util.Date;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * 图表服务测试
+ */
+class ChartServiceImplTest {
+
+    @Test
+    void acquireLeaseGuardsWaitStatus() {
+        ChartMapper chartMapper = mock(ChartMapper.class);
+        when(chartMapper.update(any(), any())).thenReturn(1);
+        ChartServiceImpl chartService = newChartService(chartMapper);
+
+        assertTrue(chartService.acquireLease(1L, "node", new Date()));
+
+        Collection<Object> params = captureParams(chartMapper);
+        // set status = running where status = wait
+        assertTrue(params.containsAll(List.of("running", "wait", "node", 1L)));
+    }
+
+    @Test
+    void failTaskRequiresLeaseOwner() {
+        ChartMapper chartMapper = mock(ChartMapper.class);
+        when(chartMapper.update(any(), any())).thenReturn(0);
+        ChartServiceImpl chartService = newChartService(chartMapper);
+
+        // 租约已被回收（状态或持有者不匹配）时不更新
+        assertFalse(chartService.failTask(1L, "node", "AI 生成失败"));
+
+        Collection<Object> params = captureParams(chartMapper);
+        assertTrue(params.containsAll(List.of("failed", "running", "node", "AI 生成失败")));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void updateChartInfoKeepsDatasetAndClearsRequestHash() {
+        ChartMapper chartMapper = mock(ChartMapper.class);
+        when(chartMapper.update(any(), any())).thenReturn(1);
+        ChartServiceImpl chartService = newChartService(chartMapper);
+        Chart oldChart = new Chart();
+        oldChart.setGoal("分析用户增长");
+        oldChart.setChartType("折线图");
+        Chart chart = new Chart();
+        chart.setId(1L);
+        chart.setGoal("分析用户留存");
+        chart.setChartData("日期,用户数\n1号,10\n");
+
+        assertTrue(chartService.updateChartInfo(chart, oldChart));
+
+        ArgumentCaptor<Chart> entity = ArgumentCaptor.forClass(Chart.class);
+        ArgumentCaptor<Wrapper<Chart>> captor = ArgumentCaptor.forClass(Wrapper.class);
+        verify(chartMapper).update(entity.capture(), captor.capture());
+        // 图表数据不单独修改，分析目标变化后不再按原请求指纹复用
+        assertNull(entity.getValue().getChartData());
+        assertTrue(((UpdateWrapper<Chart>) captor.getValue()).getSqlSet().contains("requestHash"));
+    }
+
+    private static ChartServiceImpl newChartService(ChartMapper chartMapper) {
+        ChartServiceImpl chartService = new ChartServiceImpl();
+        ReflectionTestUtils.setField(chartService, "baseMapper", chartMapper);
+        return chartService;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Collection<Object> captureParams(ChartMapper chartMapper) {
+        ArgumentCaptor<Wrapper<Chart>> captor = ArgumentCaptor.forClass(Wrapper.class);
+        verify(chartMapper).update(isNull(), captor.capture());
+        UpdateWrapper<Chart> updateWrapper = (UpdateWrapper<Chart>) captor.getValue();
+        assertTrue(updateWrapper.getSqlSegment().contains("status"));
+        return updateWrapper.getParamNameValuePairs().values();
+    }
+}
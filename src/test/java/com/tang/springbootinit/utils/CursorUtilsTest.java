@@ -0,0 +1,86 @@
+package com.tang.springbootinit.utils;
+
+import com.tang.springbootinit.common.CursorPage;
+import com.tang.springbootinit.common.PageRequest;
+import com.tang.springbootinit.constant.CommonConstant;
+import com.tang.springbootinit.exception.BusinessException;
+import com.tang.springbootinit.model.vo.ChartSummaryVO;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 游标分页工具测试
+ */
+class CursorUtilsTest {
+
+    private static final List<String> SORT_FIELDS = List.of("id", "createTime");
+
+    @Test
+    void cursorRoundTrip() {
+        Date createTime = new Date(1_700_000_000_000L);
+        CursorUtils.Cursor cursor = CursorUtils.decode(CursorUtils.encode("createTime", createTime, 42L));
+
+        assertEquals("createTime", cursor.getField());
+        assertEquals(42L, cursor.getId());
+        assertEquals(createTime, cursor.toSortValue());
+        assertEquals(7L, CursorUtils.decode(CursorUtils.encode("thumbNum", 7, 1L)).toSortValue());
+    }
+
+    @Test
+    void nextPageCursor() {
+        PageRequest pageRequest = pageRequest("createTime", "");
+        CursorUtils.Seek seek = CursorUtils.parse(pageRequest, SORT_FIELDS);
+        // 排序由游标条件决定，不再交给 getQueryWrapper
+        assertNull(pageRequest.getSortField());
+
+        CursorPage<ChartSummaryVO> cursorPage = seek.toCursorPage(charts(3));
+        assertTrue(cursorPage.isHasMore());
+        assertEquals(2, cursorPage.getRecords().size());
+        CursorUtils.Cursor cursor = CursorUtils.decode(cursorPage.getNextCursor());
+        assertEquals(2L, cursor.getId());
+        assertEquals(new Date(2000L), cursor.toSortValue());
+
+        CursorPage<ChartSummaryVO> lastPage = seek.toCursorPage(charts(2));
+        assertFalse(lastPage.isHasMore());
+        assertEquals(2, lastPage.getRecords().size());
+        assertNull(lastPage.getNextCursor());
+    }
+
+    @Test
+    void invalidRequest() {
+        assertThrows(BusinessException.class, () -> CursorUtils.parse(pageRequest("name", ""), SORT_FIELDS));
+        assertThrows(BusinessException.class, () -> CursorUtils.parse(pageRequest("id", "@@"), SORT_FIELDS));
+        assertThrows(BusinessException.class, () -> CursorUtils.parse(pageRequest("id", "e30"), SORT_FIELDS));
+        String createTimeCursor = CursorUtils.encode("createTime", new Date(), 1L);
+        assertThrows(BusinessException.class, () -> CursorUtils.parse(pageRequest("id", createTimeCursor), SORT_FIELDS));
+    }
+
+    private PageRequest pageRequest(String sortField, String cursor) {
+        PageRequest pageRequest = new PageRequest();
+        pageRequest.setPageSize(2);
+        pageRequest.setSortField(sortField);
+        pageRequest.setSortOrder(CommonConstant.SORT_ORDER_DESC);
+        pageRequest.setCursor(cursor);
+        return pageRequest;
+    }
+
+    private List<ChartSummaryVO> charts(int count) {
+        List<ChartSummaryVO> charts = new ArrayList<>();
+        for (long i = 1; i <= count; i++) {
+            ChartSummaryVO chartSummaryVO = new ChartSummaryVO();
+            chartSummaryVO.setId(i);
+            chartSummaryVO.setCreateTime(new Date(i * 1000));
+            charts.add(chartSummaryVO);
+        }
+        return charts;
+    }
+}
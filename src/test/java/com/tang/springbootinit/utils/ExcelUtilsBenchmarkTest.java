@@ -0,0 +1,118 @@
+package com.tang.springbootinit.utils;
+
+import com.alibaba.excel.EasyExcel;
+import com.alibaba.excel.ExcelWriter;
+import com.alibaba.excel.support.ExcelTypeEnum;
+import com.alibaba.excel.write.metadata.WriteSheet;
+import org.apache.commons.lang3.ObjectUtils;
+import org.apache.commons.lang3.StringUtils;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.InputStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Excel 转 csv 基准测试：doReadSync 全量读取 vs ReadListener 流式读取
+ * <p>
+ * 运行：mvn test -Dtest=ExcelUtilsBenchmarkTest -Dbench=true [-Dbench.rows=200000]
+ */
+@EnabledIfSystemProperty(named = "bench", matches = "true")
+class ExcelUtilsBenchmarkTest {
+
+    private static final int ROWS = Integer.getInteger("bench.rows", 200_000);
+
+    @Test
+    void compareSyncAndStreaming() throws Exception {
+        File file = File.createTempFile("excel_bench", ".xlsx");
+        file.deleteOnExit();
+        writeWorkbook(file, ROWS);
+        System.out.printf("workbook: %d rows, %.1f MB%n", ROWS, file.length() / 1024.0 / 1024.0);
+
+        // 预热
+        legacyExcelToCsv(file);
+        streamingExcelToCsv(file);
+
+        long[] legacy = measure(() -> legacyExcelToCsv(file));
+        long[] streaming = measure(() -> streamingExcelToCsv(file));
+        System.out.printf("doReadSync : %6d ms, peak heap %6.1f MB%n", legacy[0], legacy[1] / 1024.0 / 1024.0);
+        System.out.printf("streaming  : %6d ms, peak heap %6.1f MB%n", streaming[0], streaming[1] / 1024.0 / 1024.0);
+
+        assertEquals(legacyExcelToCsv(file), streamingExcelToCsv(file));
+    }
+
+    /**
+     * @return [耗时 ms, 峰值堆内存 bytes]
+     */
+    private long[] measure(ThrowingSupplier supplier) throws Exception {
+        System.gc();
+        List<MemoryPoolMXBean> heapPools = ManagementFactory.getMemoryPoolMXBeans().stream()
+                .filter(pool -> pool.getType() == MemoryType.HEAP)
+                .collect(Collectors.toList());
+        heapPools.forEach(MemoryPoolMXBean::resetPeakUsage);
+        long start = System.nanoTime();
+        supplier.get();
+        long costMs = (System.nanoTime() - start) / 1_000_000;
+        long peak = heapPools.stream().mapToLong(pool -> pool.getPeakUsage().getUsed()).sum();
+        return new long[]{costMs, peak};
+    }
+
+    private String streamingExcelToCsv(File file) throws Exception {
+        StringBuilder stringBuilder = new StringBuilder();
+        try (InputStream inputStream = new FileInputStream(file)) {
+            ExcelUtils.excelToCsv(inputStream, stringBuilder);
+        }
+        return stringBuilder.toString();
+    }
+
+    /**
+     * 原 ExcelUtils.excelToCsv 实现
+     */
+    private String legacyExcelToCsv(File file) {
+        List<Map<Integer, String>> list = EasyExcel.read(file)
+                .excelType(ExcelTypeEnum.XLSX)
+                .sheet()
+                .headRowNumber(0)
+                .doReadSync();
+        StringBuilder stringBuilder = new StringBuilder();
+        for (Map<Integer, String> row : list) {
+            List<String> dataList = ((LinkedHashMap<Integer, String>) row).values().stream()
+                    .filter(ObjectUtils::isNotEmpty).collect(Collectors.toList());
+            stringBuilder.append(StringUtils.join(dataList, ",")).append("\n");
+        }
+        return stringBuilder.toString();
+    }
+
+    private void writeWorkbook(File file, int rows) {
+        List<List<String>> head = Arrays.asList(
+                List.of("日期"), List.of("用户数"), List.of("访问量"), List.of("渠道"));
+        ExcelWriter excelWriter = EasyExcel.write(file).build();
+        WriteSheet writeSheet = EasyExcel.writerSheet("data").head(head).build();
+        final int batchSize = 10_000;
+        for (int i = 0; i < rows; i += batchSize) {
+            List<List<Object>> batch = new ArrayList<>(batchSize);
+            for (int j = i; j < Math.min(i + batchSize, rows); j++) {
+                batch.add(Arrays.asList("2023-01-" + (j % 28 + 1), j % 1000, j * 7 % 10007, "渠道" + j % 5));
+            }
+            excelWriter.write(batch, writeSheet);
+        }
+        excelWriter.finish();
+    }
+
+    @FunctionalInterface
+    private interface ThrowingSupplier {
+        Object get() throws Exception;
+    }
+}